@@ -0,0 +1,30 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the shaded benchmarks jar.
+ * <p>
+ * Accepts all the usual JMH command line options (e.g. a benchmark name regex, or {@code -f 2}), but always attaches
+ * the GC profiler, so every result reports allocation per operation ({@code gc.alloc.rate.norm}) alongside ops/s.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+        // Entry point only.
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import com.clumd.projects.java_custom_logging.logging.LogRoot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Shared set up for the benchmark states.
+ */
+final class BenchmarkSupport {
+
+    static final String PACKAGE_PREFIX = "com.clumd.projects.java_custom_logging.";
+    static final String LOGGING_ROOT = "BENCH";
+
+    private BenchmarkSupport() {
+        // Static helpers only.
+    }
+
+    /**
+     * Initialise the LogRoot so that every record ends up in the given handler only.
+     *
+     * @param sink The handler which should receive every record.
+     */
+    static void initLogRootInto(final Handler sink) {
+        LogRoot.init(PACKAGE_PREFIX, LOGGING_ROOT, "benchmark");
+        Logger.getLogger("").addHandler(sink);
+    }
+
+    static void removeFromRoot(final Handler sink) {
+        Logger.getLogger("").removeHandler(sink);
+        sink.close();
+    }
+
+    /**
+     * Console handlers capture {@code System.err} when they are constructed, so construct them while it points at a
+     * stream which discards everything.
+     *
+     * @param constructor Creates the console handler.
+     * @param <T>         The type of console handler.
+     * @return The constructed handler, which will write to nowhere.
+     */
+    static <T> T withNullStdErr(final Supplier<T> constructor) {
+        PrintStream realStdErr = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return constructor.get();
+        } finally {
+            System.setErr(realStdErr);
+        }
+    }
+
+    static Path createTempDir() {
+        try {
+            return Files.createTempDirectory("java-custom-logging-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(final Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * A handler which does no I/O, so that benchmarks through it measure only the cost of the loggers themselves. It
+     * keeps a reference to the last record, so the record cannot be optimised away.
+     */
+    static final class RetainingHandler extends Handler {
+
+        volatile LogRecord lastRecord;
+        long published;
+
+        @Override
+        public void publish(final LogRecord logRecord) {
+            if (isLoggable(logRecord)) {
+                lastRecord = logRecord;
+                published++;
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Nothing buffered.
+        }
+
+        @Override
+        public void close() {
+            lastRecord = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import com.clumd.projects.java_custom_logging.logging.ExtendedLogger;
+import com.clumd.projects.java_custom_logging.logging.LogRoot;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The cost of finding where each record was logged from, with and without
+ * {@link DispatchOptions#withCallerLocation()}, against capturing the whole stack as {@code enter()} and {@code exit()}
+ * used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallerLocationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean callerLocation;
+
+    private BenchmarkSupport.RetainingHandler sink;
+    private ExtendedLogger logger;
+    private ExtendedLogger quietLogger;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sink = new BenchmarkSupport.RetainingHandler();
+        DispatchOptions options = DispatchOptions.synchronous();
+        if (callerLocation) {
+            options.withCallerLocation();
+        }
+        LogRoot.init(BenchmarkSupport.PACKAGE_PREFIX, BenchmarkSupport.LOGGING_ROOT, "benchmark")
+                .withHandlers(List.of(), options);
+        Logger.getLogger("").addHandler(sink);
+        logger = LogRoot.createLogger(CallerLocationBenchmark.class);
+        logger.setLevel(CustomLevel.TRACE);
+        quietLogger = LogRoot.createLogger("quiet");
+        quietLogger.setLevel(CustomLevel.INFO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.removeFromRoot(sink);
+    }
+
+    /**
+     * What every {@code enter()} and {@code exit()} call used to pay to describe its caller, regardless of level.
+     */
+    @Benchmark
+    public String wholeStackTrace() {
+        return Thread.currentThread().getStackTrace()[1].toString();
+    }
+
+    @Benchmark
+    public void plain() {
+        logger.log(CustomLevel.INFO, "A plain message");
+    }
+
+    @Benchmark
+    public void enter() {
+        logger.enter();
+    }
+
+    @Benchmark
+    public void disabledEnter() {
+        quietLogger.enter();
+    }
+}
@@ -0,0 +1,109 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.controllers.ConsoleController;
+import com.clumd.projects.java_custom_logging.logging.controllers.DenseConsoleController;
+import com.clumd.projects.java_custom_logging.logging.controllers.DenseFileController;
+import com.clumd.projects.java_custom_logging.logging.controllers.FileController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+/**
+ * The cost of each built-in controller formatting and writing a record. Console controllers write to a stream which
+ * discards everything, and file controllers write to a temporary directory which is removed afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private static final int FILE_SIZE_LIMIT = 100_000_000;
+    private static final int FILE_ROTATIONS = 2;
+
+    public enum Controller {
+        CONSOLE, DENSE_CONSOLE, FILE, DENSE_FILE
+    }
+
+    @Param
+    public Controller controller;
+
+    private Path tempDir;
+    private StreamHandler handler;
+    private LogRecord plainRecord;
+    private LogRecord taggedRecord;
+    private LogRecord throwableRecord;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = BenchmarkSupport.createTempDir();
+        handler = switch (controller) {
+            case CONSOLE -> BenchmarkSupport.withNullStdErr(() -> new ConsoleController(false));
+            case DENSE_CONSOLE -> BenchmarkSupport.withNullStdErr(DenseConsoleController::new);
+            case FILE -> new FileController(tempDir.resolve("bench-%g.log").toString(), FILE_SIZE_LIMIT, FILE_ROTATIONS, true);
+            case DENSE_FILE -> new DenseFileController(tempDir.resolve("bench-dense-%g.log").toString(), FILE_SIZE_LIMIT, FILE_ROTATIONS, true);
+        };
+        Map<Long, String> threadNames = new HashMap<>();
+        threadNames.put(Thread.currentThread().threadId(), "benchmark");
+        ((CustomLogHandler) handler).acceptLogRootRefs(UUID.randomUUID(), "benchmark", threadNames);
+
+        plainRecord = record(new ExtendedLogRecord(CustomLevel.INFO, "A plain message"));
+        taggedRecord = record(new ExtendedLogRecord(CustomLevel.WARNING, "A \"tagged\" message", Set.of("security", "audit"))
+                .referencingBakedInTags(Set.of("trace-1234")));
+        ExtendedLogRecord withThrowable = new ExtendedLogRecord(CustomLevel.ERROR, "A message with a throwable and metadata");
+        withThrowable.setThrown(new RuntimeException("Benchmark failure", new IllegalStateException("cause")));
+        withThrowable.setParameters(new Object[]{42, "some metadata", null});
+        throwableRecord = record(withThrowable);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handler.close();
+        BenchmarkSupport.deleteRecursively(tempDir);
+    }
+
+    @Benchmark
+    public void plain() {
+        handler.publish(plainRecord);
+    }
+
+    @Benchmark
+    public void tagged() {
+        handler.publish(taggedRecord);
+    }
+
+    @Benchmark
+    public void throwableAndMetadata() {
+        handler.publish(throwableRecord);
+    }
+
+    private static LogRecord record(final LogRecord logRecord) {
+        logRecord.setLoggerName(BenchmarkSupport.LOGGING_ROOT + ".benchmarks.ControllerBenchmark");
+        return logRecord;
+    }
+}
@@ -0,0 +1,117 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import com.clumd.projects.java_custom_logging.logging.ExtendedLogger;
+import com.clumd.projects.java_custom_logging.logging.LogRoot;
+import com.clumd.projects.java_custom_logging.logging.TimedSpan;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of each style of {@link ExtendedLogger#log} call, from the call site up to the point a handler receives the
+ * record. The handler does no I/O, so the controllers are excluded here - see {@link ControllerBenchmark} for those.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggerBenchmark {
+
+    private static final Set<String> TAGS = Set.of("security", "audit");
+    private static final Duration SLOW = Duration.ofSeconds(1);
+    private static final RuntimeException THROWN = new RuntimeException("Benchmark failure", new IllegalStateException("cause"));
+
+    private BenchmarkSupport.RetainingHandler sink;
+    private ExtendedLogger logger;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sink = new BenchmarkSupport.RetainingHandler();
+        BenchmarkSupport.initLogRootInto(sink);
+        logger = LogRoot.createLogger(LoggerBenchmark.class);
+        logger.setLevel(CustomLevel.INFO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.removeFromRoot(sink);
+    }
+
+    @Benchmark
+    public void plain() {
+        logger.log(CustomLevel.INFO, "A plain message");
+    }
+
+    @Benchmark
+    public void withTags() {
+        logger.log(CustomLevel.INFO, TAGS, "A tagged message");
+    }
+
+    @Benchmark
+    public void withSupplier() {
+        int value = ++counter;
+        logger.log(CustomLevel.INFO, () -> "A supplied message " + value);
+    }
+
+    @Benchmark
+    public void withParams() {
+        logger.log(CustomLevel.INFO, "A message with metadata", ++counter, "second", Boolean.TRUE);
+    }
+
+    @Benchmark
+    public void withSlf4jStyleFormat() {
+        logger.info("A {} message with {} arguments", "formatted", ++counter);
+    }
+
+    @Benchmark
+    public void withThrowable() {
+        logger.log(CustomLevel.ERROR, "A message with a throwable", THROWN);
+    }
+
+    @Benchmark
+    public void timedSpanUnderThreshold() {
+        try (TimedSpan ignored = logger.time(CustomLevel.INFO, "A timed block", SLOW)) {
+            counter++;
+        }
+    }
+
+    @Benchmark
+    public void timedSpanDisabledLevel() {
+        try (TimedSpan ignored = logger.time(CustomLevel.DEBUG, "A timed block")) {
+            counter++;
+        }
+    }
+
+    @Benchmark
+    public void disabledLevel() {
+        logger.log(CustomLevel.DEBUG, "This message is below the logger level");
+    }
+
+    @Benchmark
+    public void disabledLevelWithSupplier() {
+        int value = ++counter;
+        logger.log(CustomLevel.DEBUG, () -> "This message is never built " + value);
+    }
+
+    @Benchmark
+    public void disabledLevelWithFormat() {
+        logger.debug("This {} is never {}", "message", ++counter);
+    }
+}
@@ -0,0 +1,97 @@
+package com.clumd.projects.java_custom_logging.benchmarks;
+
+import com.clumd.projects.java_custom_logging.logging.ExtendedLoggerFactory;
+import com.clumd.projects.java_custom_logging.logging.ExtendedSlf4jLogger;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of logging through the SLF4J API, via {@link ExtendedSlf4jLogger}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Slf4jLoggerBenchmark {
+
+    private static final Marker MARKER = MarkerFactory.getMarker("security");
+    private static final RuntimeException THROWN = new RuntimeException("Benchmark failure");
+
+    private BenchmarkSupport.RetainingHandler sink;
+    private Logger logger;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sink = new BenchmarkSupport.RetainingHandler();
+        BenchmarkSupport.initLogRootInto(sink);
+        ExtendedSlf4jLogger extendedLogger = new ExtendedLoggerFactory().getLogger(Slf4jLoggerBenchmark.class.getName());
+        extendedLogger.setLevel(CustomLevel.INFO);
+        logger = extendedLogger;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.removeFromRoot(sink);
+    }
+
+    @Benchmark
+    public void plain() {
+        logger.info("A plain message");
+    }
+
+    @Benchmark
+    public void oneArgument() {
+        logger.info("A message with {}", ++counter);
+    }
+
+    @Benchmark
+    public void twoArguments() {
+        logger.info("A message with {} and {}", "text", ++counter);
+    }
+
+    @Benchmark
+    public void manyArguments() {
+        logger.info("A message with {}, {} and {}", "text", ++counter, Boolean.TRUE);
+    }
+
+    @Benchmark
+    public void withMarker() {
+        logger.info(MARKER, "A marked message with {}", ++counter);
+    }
+
+    @Benchmark
+    public void withThrowable() {
+        logger.error("A message with a throwable", THROWN);
+    }
+
+    @Benchmark
+    public void disabledLevel() {
+        logger.debug("This {} is never {}", "message", ++counter);
+    }
+
+    @Benchmark
+    public void disabledLevelGuarded() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("This {} is never {}", "message", ++counter);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+
+/**
+ * A token bucket for each call site of an {@link ExtendedLogger}, held in a fixed size table so that the number of call
+ * sites tracked can never grow without bound.
+ * <p>
+ * Each bucket is tracked as the single time at which it would next be full (the 'generic cell rate algorithm'), so
+ * taking a token is a single compare-and-set, with no lock and no background refilling. Call sites are found by the
+ * hash of their key, probing a few slots on from there. A new call site only pushes out a bucket which has gone idle
+ * (filled right back up, so nothing is lost by forgetting it), and if there is none, it shares a single overflow
+ * bucket with any other call sites the table has no room for, rather than being left unlimited.
+ * <p>
+ * Records which are suppressed are counted, and reported by a summary record logged just before the next record the
+ * call site is allowed to log, or, for call sites which have gone quiet, by a periodic sweep. The sweeps of every
+ * limiter are run by a single background thread, so that neither the wait for one nor the scan of the table is ever
+ * made on a logging thread.
+ */
+final class CallSiteRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int MAX_PROBES = 8;
+    private static final Object OVERFLOW_KEY = new Object();
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final int mask;
+    private final Bucket overflow;
+    private final ExtendedLogger logger;
+    private final ScheduledFuture<?> sweep;
+
+    /**
+     * @param options The rate to limit each call site to.
+     * @param logger  The logger being limited, which any summaries are logged through.
+     */
+    CallSiteRateLimiter(final RateLimitOptions options, final ExtendedLogger logger) {
+        this.emissionIntervalNanos = Math.max(1, (long) (NANOS_PER_SECOND / options.getRecordsPerSecond()));
+        this.burstToleranceNanos = emissionIntervalNanos * (options.getBurst() - 1L);
+        int slots = options.getMaxCallSites() == 1 ? 1 : Integer.highestOneBit(options.getMaxCallSites() - 1) << 1;
+        this.buckets = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+        this.overflow = new Bucket(OVERFLOW_KEY, System.nanoTime());
+        this.logger = logger;
+        this.sweep = Sweeper.schedule(this, options.getSummaryInterval().toNanos());
+    }
+
+    /**
+     * Take a token for the given call site, if it has one. If the call site has had records suppressed since it last
+     * logged, a summary of them is logged first.
+     *
+     * @param key   The key identifying the call site.
+     * @param level The level of the record to be logged.
+     * @return True if the record may be logged, false if it must be suppressed.
+     */
+    boolean tryAcquire(final Object key, final Level level) {
+        final long now = System.nanoTime();
+        Bucket bucket = bucketFor(key, now);
+        boolean allowed = bucket.tryTake(now, emissionIntervalNanos, burstToleranceNanos);
+        if (allowed) {
+            reportSuppressed(bucket, logger);
+        } else {
+            bucket.suppressedLevel = level;
+            bucket.suppressed.incrementAndGet();
+        }
+        return allowed;
+    }
+
+    /**
+     * Stop the periodic sweep, reporting anything still suppressed, once this limiter is no longer in use.
+     */
+    void close() {
+        sweep.cancel(false);
+        reportAllSuppressed();
+    }
+
+    private Bucket bucketFor(final Object key, final long now) {
+        final int hash = key.hashCode();
+        final int home = (hash ^ (hash >>> 16)) & mask;
+        final int probes = Math.min(MAX_PROBES, buckets.length());
+        while (true) {
+            int claimSlot = -1;
+            Bucket claimed = null;
+            for (int i = 0; i < probes; i++) {
+                final int slot = (home + i) & mask;
+                Bucket bucket = buckets.get(slot);
+                if (bucket == null) {
+                    // Slots are never emptied again, so the key can't be any further on.
+                    claimSlot = slot;
+                    claimed = null;
+                    break;
+                }
+                if (bucket.key == key || bucket.key.equals(key)) {
+                    return bucket;
+                }
+                if (claimSlot < 0 && bucket.isIdle(now)) {
+                    claimSlot = slot;
+                    claimed = bucket;
+                }
+            }
+            if (claimSlot < 0) {
+                return overflow;
+            }
+            Bucket fresh = new Bucket(key, now);
+            if (buckets.compareAndSet(claimSlot, claimed, fresh)) {
+                if (claimed != null) {
+                    // Don't lose the count of the call site being pushed out.
+                    reportSuppressed(claimed, logger);
+                }
+                return fresh;
+            }
+        }
+    }
+
+    private void reportAllSuppressed() {
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null) {
+                reportSuppressed(bucket, logger);
+            }
+        }
+        reportSuppressed(overflow, logger);
+    }
+
+    private static void reportSuppressed(final Bucket bucket, final ExtendedLogger logger) {
+        if (bucket.suppressed.get() == 0) {
+            return;
+        }
+        long suppressed = bucket.suppressed.getAndSet(0);
+        if (suppressed > 0) {
+            logger.logRateLimitSummary(
+                    bucket.suppressedLevel,
+                    "The rate limit suppressed " + suppressed + " record(s) logged from " + describe(bucket.key)
+            );
+        }
+    }
+
+    private static String describe(final Object key) {
+        if (key == OVERFLOW_KEY) {
+            return "call sites the rate limiter had no room to track";
+        }
+        return switch (key) {
+            case CallerLocator.CallerLocation caller -> caller.description();
+            case String message -> "'" + message + "'";
+            case Class<?> supplierClass -> "a message Supplier of " + supplierClass.getName();
+            default -> "call site " + key;
+        };
+    }
+
+    /**
+     * Runs the periodic sweep of every limiter, on one shared daemon thread. Each sweep only weakly references its
+     * limiter, so that a logger which is no longer used can still be collected, at which point its sweep cancels itself.
+     */
+    private static final class Sweeper implements Runnable {
+
+        private static final ScheduledThreadPoolExecutor SWEEPS = newSweepThread();
+
+        private final WeakReference<CallSiteRateLimiter> limiter;
+        private volatile ScheduledFuture<?> scheduled;
+
+        private Sweeper(final CallSiteRateLimiter limiter) {
+            this.limiter = new WeakReference<>(limiter);
+        }
+
+        static ScheduledFuture<?> schedule(final CallSiteRateLimiter limiter, final long intervalNanos) {
+            Sweeper sweeper = new Sweeper(limiter);
+            sweeper.scheduled = SWEEPS.scheduleAtFixedRate(sweeper, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+            return sweeper.scheduled;
+        }
+
+        private static ScheduledThreadPoolExecutor newSweepThread() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "LogRoot-rate-limit-summaries");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+
+        @Override
+        public void run() {
+            CallSiteRateLimiter live = limiter.get();
+            if (live != null) {
+                live.reportAllSuppressed();
+            } else if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+
+    private static final class Bucket {
+
+        private final Object key;
+        // The time at which this bucket would be full again, were nothing else taken from it.
+        private final AtomicLong theoreticalArrival;
+        private final AtomicLong suppressed = new AtomicLong();
+        private volatile Level suppressedLevel;
+
+        private Bucket(final Object key, final long now) {
+            this.key = key;
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return True if this bucket has filled back up, so that forgetting it would change nothing.
+         */
+        boolean isIdle(final long now) {
+            return theoreticalArrival.get() - now <= 0;
+        }
+
+        boolean tryTake(final long now, final long emissionInterval, final long burstTolerance) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long from = arrival - now > 0 ? arrival : now;
+                if (from - now > burstTolerance) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, from + emissionInterval)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Finds the code which called into a logger, for records to carry as their source class, method and line.
+ * <p>
+ * Rather than {@link Thread#getStackTrace()}, which captures and resolves every frame of the stack, this walks only as
+ * many frames as it takes to step out of the logging classes (JUL's, SLF4J's, and any of this library's), and never
+ * further than {@link #MAX_DEPTH}. Resolving a frame into its class name, method name and line number is the expensive
+ * part, so that is done once per call site, and kept in a small cache keyed by the frame's class, method and bytecode
+ * index. Each call site maps to a single slot, so call sites which collide simply take turns; the cache never grows.
+ */
+final class CallerLocator {
+
+    static final int MAX_DEPTH = 16;
+
+    private static final String LIBRARY_PACKAGE = "com.clumd.projects.java_custom_logging.logging.";
+
+    private static final int SLOTS = 1024;
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final Function<Stream<StackWalker.StackFrame>, StackWalker.StackFrame> FIND_CALLER = frames -> frames
+            .limit(MAX_DEPTH)
+            .filter(frame -> !isLoggingFrame(frame.getDeclaringClass()))
+            .findFirst()
+            .orElse(null);
+
+    /*
+     * Whether each class is one of this library's own, worked out once per class. Other classes in the same packages,
+     * such as the library's tests, are not loaded from the same place, so are callers like any other.
+     */
+    private static final ClassValue<Boolean> LIBRARY_CLASSES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return type.getName().startsWith(LIBRARY_PACKAGE)
+                    && Objects.equals(codeLocation(type), codeLocation(CallerLocator.class));
+        }
+    };
+
+    // Entries are immutable, so a racing reader sees either a whole entry or none at all.
+    private static final CallerLocation[] CACHE = new CallerLocation[SLOTS];
+
+    private CallerLocator() {
+        // Static helpers only.
+    }
+
+    /**
+     * Where a record was logged from.
+     *
+     * @param declaringClass The calling class.
+     * @param methodName     The name of the calling method.
+     * @param methodType     The type of the calling method, to tell overloads apart.
+     * @param byteCodeIndex  The instruction within the calling method which called into the logger.
+     * @param className      The fully qualified name of the calling class.
+     * @param lineNumber     The line being executed, or a negative number if it isn't known.
+     * @param description    The calling frame as {@link StackTraceElement#toString()} would describe it.
+     */
+    record CallerLocation(
+            Class<?> declaringClass,
+            String methodName,
+            MethodType methodType,
+            int byteCodeIndex,
+            String className,
+            int lineNumber,
+            String description
+    ) {
+
+        private boolean isAt(final Class<?> declaringClass, final String methodName, final MethodType methodType, final int byteCodeIndex) {
+            return this.declaringClass == declaringClass
+                    && this.byteCodeIndex == byteCodeIndex
+                    && this.methodType == methodType
+                    && this.methodName.equals(methodName);
+        }
+    }
+
+    /**
+     * @return The first frame on the calling thread's stack outside the logging classes, or null if there isn't one
+     * within {@link #MAX_DEPTH} frames.
+     */
+    static CallerLocation locate() {
+        StackWalker.StackFrame frame = WALKER.walk(FIND_CALLER);
+        if (frame == null) {
+            return null;
+        }
+        final Class<?> declaringClass = frame.getDeclaringClass();
+        final String methodName = frame.getMethodName();
+        // Method types are interned, so overloads can be told apart by identity.
+        final MethodType methodType = frame.getMethodType();
+        final int byteCodeIndex = frame.getByteCodeIndex();
+
+        int hash = System.identityHashCode(declaringClass) * 31 + methodName.hashCode();
+        hash = hash * 31 + byteCodeIndex;
+        final int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        CallerLocation cached = CACHE[slot];
+        if (cached != null && cached.isAt(declaringClass, methodName, methodType, byteCodeIndex)) {
+            return cached;
+        }
+
+        StackTraceElement element = frame.toStackTraceElement();
+        CallerLocation located = new CallerLocation(
+                declaringClass, methodName, methodType, byteCodeIndex,
+                element.getClassName(), element.getLineNumber(), element.toString()
+        );
+        CACHE[slot] = located;
+        return located;
+    }
+
+    private static boolean isLoggingFrame(final Class<?> declaringClass) {
+        return Logger.class.isAssignableFrom(declaringClass)
+                || LIBRARY_CLASSES.get(declaringClass)
+                || declaringClass.getName().startsWith("org.slf4j.");
+    }
+
+    private static URL codeLocation(final Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        return codeSource == null ? null : codeSource.getLocation();
+    }
+}
@@ -1,16 +1,23 @@
 package com.clumd.projects.java_custom_logging.logging;
 
+import com.clumd.projects.java_custom_logging.logging.common.BakedInTags;
 import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
 import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecordPool;
+import com.clumd.projects.java_custom_logging.logging.common.MessageTemplate;
+import com.clumd.projects.java_custom_logging.logging.dispatch.SnapshotPolicy;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
-import org.slf4j.helpers.MessageFormatter;
 
+import java.time.Duration;
 import java.util.MissingResourceException;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.logging.Filter;
+import java.util.logging.Handler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.StreamHandler;
 
@@ -24,9 +31,13 @@ import java.util.logging.StreamHandler;
  */
 public class ExtendedLogger extends Logger {
 
+    private static final Handler[] NO_HANDLERS = new Handler[0];
+
     @Getter(AccessLevel.PACKAGE)
     private final Set<String> bakedInTags;
     private Set<Class<? extends StreamHandler>> controllersIgnoringThisLogger;
+    private volatile Handler[] handlerSnapshot = NO_HANDLERS;
+    private volatile CallSiteRateLimiter rateLimiter;
 
     /**
      * Protected method to construct a logger for a named subsystem.
@@ -57,11 +68,7 @@ public class ExtendedLogger extends Logger {
      */
     protected ExtendedLogger(final String name, final Set<String> bakedInTags) {
         super(name, null);
-        if (bakedInTags != null && !bakedInTags.isEmpty()) {
-            this.bakedInTags = bakedInTags;
-        } else {
-            this.bakedInTags = null;
-        }
+        this.bakedInTags = BakedInTags.of(bakedInTags);
     }
 
     /**
@@ -84,39 +91,60 @@ public class ExtendedLogger extends Logger {
      * Such as LogRoot.createLogger(name, bakedTags).withControllersWhichShouldIgnore(Set.of(FileController.class));
      */
     public ExtendedLogger withControllersWhichShouldIgnore(final Set<Class<? extends StreamHandler>> controllersIgnoringThisLogger) {
-        this.controllersIgnoringThisLogger = controllersIgnoringThisLogger;
+        // Copied once here, so every record this logger makes can share the same unmodifiable set, rather than copying it.
+        this.controllersIgnoringThisLogger = controllersIgnoringThisLogger == null
+                ? null
+                : Set.copyOf(controllersIgnoringThisLogger);
+        return this;
+    }
+
+    /**
+     * Limit how fast each call site may log through this logger, to protect the handlers (and everything else on the
+     * machine) from a single code path logging in a tight loop. Records over the limit are dropped before any work is
+     * done to build them, and a count of them is logged later on, tagged with
+     * {@link RateLimitOptions#SUPPRESSED_RECORDS_TAG}.
+     *
+     * @param rateLimitOptions The rate to limit each call site to, or null to stop limiting.
+     * @return This logger, after having applied these properties, for method chaining.
+     */
+    public ExtendedLogger withRateLimit(final RateLimitOptions rateLimitOptions) {
+        CallSiteRateLimiter previous = rateLimiter;
+        this.rateLimiter = rateLimitOptions == null ? null : new CallSiteRateLimiter(rateLimitOptions, this);
+        if (previous != null) {
+            previous.close();
+        }
         return this;
     }
 
     @Override
     public void log(Level level, String msg) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
     }
 
     public void log(Level level, String tag, String msg) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, String msg) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
@@ -125,33 +153,33 @@ public class ExtendedLogger extends Logger {
 
     @Override
     public void log(Level level, Supplier<String> msgSupplier) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         doLog(lr);
@@ -160,85 +188,85 @@ public class ExtendedLogger extends Logger {
 
     @Override
     public void log(Level level, String msg, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, String tag, String msg, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, String msg, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Supplier<String> msgSupplier, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
 
     @Override
     public void log(Level level, String msg, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -246,11 +274,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, String msg, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -258,11 +286,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, String msg, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -270,11 +298,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Supplier<String> msgSupplier, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -282,11 +310,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -294,11 +322,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setParameters(params);
@@ -308,11 +336,11 @@ public class ExtendedLogger extends Logger {
 
     @Override
     public void log(Level level, String msg, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -320,11 +348,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, String msg, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -332,11 +360,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, String msg, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -344,11 +372,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Supplier<String> msgSupplier, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -356,11 +384,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -368,11 +396,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier, Throwable thrown) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -381,90 +409,90 @@ public class ExtendedLogger extends Logger {
 
 
     public void log(Level level, String msg, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, String tag, String msg, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, String msg, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Supplier<String> msgSupplier, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier, Throwable thrown, Object param1) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
-        lr.setParameters(new Object[]{param1});
+        lr.withSingleParameter(param1);
         doLog(lr);
     }
 
 
     public void log(Level level, String msg, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg)
+        ExtendedLogRecord lr = newRecord(level, msg)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -473,11 +501,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, String msg, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tag)
+        ExtendedLogRecord lr = newRecord(level, msg, tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -486,11 +514,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, String msg, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimitedAtCaller(level, msg)) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msg, tags)
+        ExtendedLogRecord lr = newRecord(level, msg, tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -499,11 +527,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Supplier<String> msgSupplier, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get())
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get())
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -512,11 +540,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, String tag, Supplier<String> msgSupplier, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tag)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tag)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -525,11 +553,11 @@ public class ExtendedLogger extends Logger {
     }
 
     public void log(Level level, Set<String> tags, Supplier<String> msgSupplier, Throwable thrown, Object... params) {
-        if (!isLoggable(level)) {
+        if (!isLoggable(level) || isRateLimited(level, msgSupplier.getClass())) {
             return;
         }
 
-        ExtendedLogRecord lr = new ExtendedLogRecord(level, msgSupplier.get(), tags)
+        ExtendedLogRecord lr = newRecord(level, msgSupplier.get(), tags)
                 .referencingBakedInTags(bakedInTags)
                 .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
         lr.setThrown(thrown);
@@ -539,24 +567,43 @@ public class ExtendedLogger extends Logger {
 
 
     public void format(Level level, String slf4jLogFormat, Object... messageParams) {
-        log(level, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(level, null, null, slf4jLogFormat, messageParams);
     }
 
     public void format(Level level, Set<String> tags, String slf4jLogFormat, Object... messageParams) {
-        log(level, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(level, tags, null, slf4jLogFormat, messageParams);
     }
 
     public void format(Level level, Throwable thrown, String slf4jLogFormat, Object... messageParams) {
-        log(level, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(level, null, thrown, slf4jLogFormat, messageParams);
+    }
+
+
+    /**
+     * Log a message built from an SLF4J style template, which is rate limited by the given key rather than by the
+     * template. This allows several log statements to share one limit, or a single statement to have several.
+     *
+     * @param callSiteKey    The key to rate limit by, with equal keys sharing the same limit.
+     * @param level          The level to log at.
+     * @param tags           Any tags for the record, or null.
+     * @param slf4jLogFormat The SLF4J style message template.
+     * @param messageParams  The arguments to substitute into the template.
+     */
+    public void logAtCallSite(@NonNull Object callSiteKey, Level level, Set<String> tags, String slf4jLogFormat, Object... messageParams) {
+        logFormatted(callSiteKey, level, tags, null, slf4jLogFormat, messageParams);
+    }
+
+    public void logAtCallSite(@NonNull Object callSiteKey, Level level, Set<String> tags, Throwable thrown, String slf4jLogFormat, Object... messageParams) {
+        logFormatted(callSiteKey, level, tags, thrown, slf4jLogFormat, messageParams);
     }
 
 
     public void debug(String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.DEBUG, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.DEBUG, null, null, slf4jLogFormat, messageParams);
     }
 
     public void debug(String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.DEBUG, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.DEBUG, null, thrown, slf4jLogFormat, messageParams);
     }
 
     public void debug(Set<String> tags, String msg) {
@@ -564,20 +611,20 @@ public class ExtendedLogger extends Logger {
     }
 
     public void debug(Set<String> tags, String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.DEBUG, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.DEBUG, tags, null, slf4jLogFormat, messageParams);
     }
 
     public void debug(Set<String> tags, String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.DEBUG, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.DEBUG, tags, thrown, slf4jLogFormat, messageParams);
     }
 
 
     public void info(String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.INFO, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.INFO, null, null, slf4jLogFormat, messageParams);
     }
 
     public void info(String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.INFO, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.INFO, null, thrown, slf4jLogFormat, messageParams);
     }
 
     public void info(Set<String> tags, String msg) {
@@ -585,20 +632,20 @@ public class ExtendedLogger extends Logger {
     }
 
     public void info(Set<String> tags, String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.INFO, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.INFO, tags, null, slf4jLogFormat, messageParams);
     }
 
     public void info(Set<String> tags, String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.INFO, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.INFO, tags, thrown, slf4jLogFormat, messageParams);
     }
 
 
     public void warn(String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.WARNING, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.WARNING, null, null, slf4jLogFormat, messageParams);
     }
 
     public void warn(String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.WARNING, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.WARNING, null, thrown, slf4jLogFormat, messageParams);
     }
 
     public void warn(Set<String> tags, String msg) {
@@ -606,20 +653,20 @@ public class ExtendedLogger extends Logger {
     }
 
     public void warn(Set<String> tags, String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.WARNING, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.WARNING, tags, null, slf4jLogFormat, messageParams);
     }
 
     public void warn(Set<String> tags, String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.WARNING, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.WARNING, tags, thrown, slf4jLogFormat, messageParams);
     }
 
 
     public void error(String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.ERROR, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.ERROR, null, null, slf4jLogFormat, messageParams);
     }
 
     public void error(String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.ERROR, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.ERROR, null, thrown, slf4jLogFormat, messageParams);
     }
 
     public void error(Set<String> tags, String msg) {
@@ -627,22 +674,18 @@ public class ExtendedLogger extends Logger {
     }
 
     public void error(Set<String> tags, String slf4jLogFormat, Object... messageParams) {
-        log(CustomLevel.ERROR, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage());
+        logFormatted(CustomLevel.ERROR, tags, null, slf4jLogFormat, messageParams);
     }
 
     public void error(Set<String> tags, String slf4jLogFormat, Throwable thrown, Object... messageParams) {
-        log(CustomLevel.ERROR, tags, () -> MessageFormatter.arrayFormat(slf4jLogFormat, messageParams).getMessage(), thrown);
+        logFormatted(CustomLevel.ERROR, tags, thrown, slf4jLogFormat, messageParams);
     }
 
 
     public void enter() {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-
-        // Stack trace [0] will always be the Thread.currentThread call
-        // Stack trace [1] will always be the entry to THIS enter() method.
-        // Stack trace [2] is the one we want, as it will be the most recent place wherever this tag was called from.
-
-        enter(stackTrace[2].toString(), (Object[]) null);
+        if (isLoggable(CustomLevel.TRACE)) {
+            enter(callingCodePoint(), (Object[]) null);
+        }
     }
 
     public void enter(@NonNull String codeLocator, Object... methodParams) {
@@ -650,19 +693,63 @@ public class ExtendedLogger extends Logger {
     }
 
     public void exit() {
-        StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-
-        // Stack trace [0] will always be the Thread.currentThread call
-        // Stack trace [1] will always be the entry to THIS enter() method.
-        // Stack trace [2] is the one we want, as it will be the most recent place wherever this tag was called from.
-
-        exit(stackTrace[2].toString(), (Object[]) null);
+        if (isLoggable(CustomLevel.TRACE)) {
+            exit(callingCodePoint(), (Object[]) null);
+        }
     }
 
     public void exit(@NonNull String codeLocator, Object... methodParams) {
         log(CustomLevel.TRACE, () -> " << EXITING code point: " + codeLocator, methodParams);
     }
 
+    private static String callingCodePoint() {
+        CallerLocator.CallerLocation location = CallerLocator.locate();
+        return location == null ? "<unknown>" : location.description();
+    }
+
+    /**
+     * As {@link #time(Level, Set, String, Duration)}, without tags, logging every time the span is closed.
+     */
+    public TimedSpan time(Level level, String operation) {
+        return time(level, null, operation, Duration.ZERO);
+    }
+
+    /**
+     * As {@link #time(Level, Set, String, Duration)}, without tags.
+     */
+    public TimedSpan time(Level level, String operation, @NonNull Duration threshold) {
+        return time(level, null, operation, threshold);
+    }
+
+    /**
+     * As {@link #time(Level, Set, String, Duration)}, logging every time the span is closed.
+     */
+    public TimedSpan time(Level level, Set<String> tags, String operation) {
+        return time(level, tags, operation, Duration.ZERO);
+    }
+
+    /**
+     * Start timing a block of code, which is logged once the returned span is closed, ideally by a try-with-resources
+     * block. The time is taken with {@link System#nanoTime()}, so is only meaningful as a duration.
+     *
+     * @param level     The level to log the time at. If it is disabled, the shared {@link TimedSpan#DISABLED} span is
+     *                  returned, and nothing is timed.
+     * @param tags      Any tags to log the time with, or null for none.
+     * @param operation The name of the block being timed, which is used as the message.
+     * @param threshold Only log the time if the block took at least this long, to pick out just the slow runs.
+     * @return The span timing the block.
+     */
+    public TimedSpan time(Level level, Set<String> tags, String operation, @NonNull Duration threshold) {
+        // Checked whatever the level, so a bad threshold is caught even where the level is usually disabled.
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("A timing threshold must not be negative.");
+        }
+        if (!isLoggable(level)) {
+            return TimedSpan.DISABLED;
+        }
+        return new TimedSpan(this, level, tags, operation, threshold.toNanos());
+    }
+
     public void here() {
         log(CustomLevel.CRITICAL, "Code-flow has reached this point.");
     }
@@ -672,8 +759,162 @@ public class ExtendedLogger extends Logger {
     }
 
 
+    @Override
+    public void addHandler(Handler handler) throws SecurityException {
+        super.addHandler(handler);
+        handlerSnapshot = super.getHandlers();
+    }
+
+    @Override
+    public void removeHandler(Handler handler) throws SecurityException {
+        super.removeHandler(handler);
+        handlerSnapshot = super.getHandlers();
+    }
+
+    private ExtendedLogRecord newRecord(Level level, String msg) {
+        ExtendedLogRecordPool recordPool = LogRoot.getRecordPool();
+        return recordPool == null
+                ? new ExtendedLogRecord(level, msg)
+                : recordPool.acquire(level, msg);
+    }
+
+    private ExtendedLogRecord newRecord(Level level, String msg, @NonNull String tag) {
+        return newRecord(level, msg).withTag(tag);
+    }
+
+    private ExtendedLogRecord newRecord(Level level, String msg, @NonNull Set<String> tags) {
+        return newRecord(level, msg).withTags(tags);
+    }
+
+    /**
+     * Log a message built from an SLF4J style template. Ordinarily the template is formatted right away, but if
+     * formatting has been
+     * {@link com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions#withDeferredFormatting deferred},
+     * a snapshot of the arguments travels with the record instead, for the background writer to format.
+     */
+    void logFormatted(Level level, Set<String> tags, Throwable thrown, String slf4jLogFormat, Object[] messageParams) {
+        logFormatted(slf4jLogFormat, level, tags, thrown, slf4jLogFormat, messageParams);
+    }
+
+    private void logFormatted(Object rateLimitKey, Level level, Set<String> tags, Throwable thrown, String slf4jLogFormat, Object[] messageParams) {
+        if (!isLoggable(level) || isRateLimited(level, rateLimitKey)) {
+            return;
+        }
+
+        SnapshotPolicy snapshotPolicy = LogRoot.getDeferredFormatting();
+        ExtendedLogRecord lr = snapshotPolicy == null
+                ? newRecord(level, MessageTemplate.format(slf4jLogFormat, messageParams))
+                : newRecord(level, null).withDeferredMessage(slf4jLogFormat, snapshotPolicy.snapshotArguments(messageParams));
+        lr.withTags(tags)
+                .referencingBakedInTags(bakedInTags)
+                .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
+        lr.setThrown(thrown);
+        doLog(lr);
+    }
+
+    /**
+     * @param level        The level of the record about to be logged.
+     * @param rateLimitKey The key identifying where the record is being logged from.
+     * @return True if that call site has logged too much recently, and the record should be dropped.
+     */
+    private boolean isRateLimited(Level level, Object rateLimitKey) {
+        CallSiteRateLimiter limiter = rateLimiter;
+        return limiter != null && !limiter.tryAcquire(rateLimitKey == null ? "null" : rateLimitKey, level);
+    }
+
+    /**
+     * Rate limit a plain message by the code which logged it, rather than by its text, which may well be built afresh
+     * each time (such as {@code "failed id " + id}).
+     *
+     * @param level    The level of the record about to be logged.
+     * @param fallback The key to rate limit by if the calling code can't be found.
+     * @return True if that call site has logged too much recently, and the record should be dropped.
+     */
+    private boolean isRateLimitedAtCaller(Level level, String fallback) {
+        CallSiteRateLimiter limiter = rateLimiter;
+        if (limiter == null) {
+            return false;
+        }
+        CallerLocator.CallerLocation caller = CallerLocator.locate();
+        return !limiter.tryAcquire(caller != null ? caller : fallback == null ? "null" : fallback, level);
+    }
+
+    /**
+     * Log how long a {@link TimedSpan} took, once it has been closed.
+     */
+    void logTiming(Level level, Set<String> tags, String operation, TimedSpan.Elapsed elapsed) {
+        if (!isLoggable(level) || isRateLimited(level, operation)) {
+            return;
+        }
+
+        ExtendedLogRecord lr = (tags == null ? newRecord(level, operation) : newRecord(level, operation, tags))
+                .referencingBakedInTags(bakedInTags)
+                .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
+        lr.setParameters(new Object[]{elapsed});
+        doLog(lr);
+    }
+
+    /**
+     * Log a summary of the records the rate limit has suppressed, which itself is never rate limited.
+     */
+    void logRateLimitSummary(Level level, String summary) {
+        ExtendedLogRecord lr = newRecord(level, summary, RateLimitOptions.SUPPRESSED_RECORDS_TAG)
+                .referencingBakedInTags(bakedInTags)
+                .withControllersWhichShouldIgnore(controllersIgnoringThisLogger);
+        doLog(lr);
+    }
+
     private void doLog(ExtendedLogRecord elr) {
         elr.setLoggerName(getName());
-        log(elr);
+        if (LogRoot.isLocatingCallers()) {
+            CallerLocator.CallerLocation location = CallerLocator.locate();
+            if (location != null) {
+                elr.withCallerLocation(location.className(), location.methodName(), location.lineNumber());
+            }
+        }
+        SnapshotPolicy snapshotPolicy = LogRoot.getDeferredFormatting();
+        if (snapshotPolicy != null && elr.getParameters() != null) {
+            // The controllers will render these on the background writer, so they must not change in the meantime.
+            elr.setParameters(snapshotPolicy.snapshotParameters(elr.getParameters()));
+        }
+        if (!elr.isPooled()) {
+            log(elr);
+            return;
+        }
+        try {
+            publishPooled(elr);
+        } finally {
+            elr.release();
+        }
+    }
+
+    /**
+     * The equivalent of {@link Logger#log(LogRecord)} for pooled records, which avoids taking a fresh copy of every
+     * Logger's handlers for each record.
+     */
+    private void publishPooled(ExtendedLogRecord elr) {
+        Filter filter = getFilter();
+        if (filter != null && !filter.isLoggable(elr)) {
+            return;
+        }
+        Logger logger = this;
+        while (logger != null) {
+            Handler[] handlers;
+            if (logger instanceof ExtendedLogger extendedLogger) {
+                handlers = extendedLogger.handlerSnapshot;
+            } else if (logger.getParent() == null) {
+                handlers = LogRoot.getRootHandlerSnapshot();
+            } else {
+                // Free of allocation for the usual case of an intermediate logger with no handlers.
+                handlers = logger.getHandlers();
+            }
+            for (Handler handler : handlers) {
+                handler.publish(elr);
+            }
+            if (!logger.getUseParentHandlers()) {
+                break;
+            }
+            logger = logger.getParent();
+        }
     }
 }
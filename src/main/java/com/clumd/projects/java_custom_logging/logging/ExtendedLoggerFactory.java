@@ -4,17 +4,19 @@ import org.slf4j.ILoggerFactory;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.logging.LogManager;
 
 /**
  * Basically directly copied from {@code org.slf4j.simple.SimpleLoggerFactory} but for my {@link ExtendedLogger}s
+ * <p>
+ * Loggers are looked up without taking any lock, so frameworks which ask for a Logger on every request don't contend
+ * with each other. The Loggers themselves live in the same registry as those made by {@link LogRoot#createLogger}.
  */
 public class ExtendedLoggerFactory implements ILoggerFactory {
 
     private static final ConcurrentMap<String, ExtendedSlf4jLogger> loggerMap = new ConcurrentHashMap<>();
 
     @Override
-    public synchronized ExtendedSlf4jLogger getLogger(String name) {
+    public ExtendedSlf4jLogger getLogger(String name) {
 
         ExtendedSlf4jLogger existingLogger = loggerMap.get(name);
 
@@ -22,12 +24,8 @@ public class ExtendedLoggerFactory implements ILoggerFactory {
             return existingLogger;
         }
 
-        // Create a logger under com.clumd version & keep track of it
-        ExtendedSlf4jLogger newInstance = new ExtendedSlf4jLogger(LogRoot.buildLogName(null, name));
-        loggerMap.put(name, newInstance);
-
-        // Integrate this new logger into the com.clumd management
-        LogManager.getLogManager().addLogger(newInstance);
+        // Create (or find) the logger under com.clumd management, keyed by the name SLF4J asked for
+        ExtendedSlf4jLogger newInstance = loggerMap.computeIfAbsent(name, LogRoot::createSlf4jLogger);
         LogRoot.updateThreadIdName(Thread.currentThread().threadId(), Thread.currentThread().getName());
 
         return newInstance;
@@ -2,7 +2,6 @@ package com.clumd.projects.java_custom_logging.logging;
 
 import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
 import org.slf4j.Marker;
-import org.slf4j.helpers.MessageFormatter;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -28,17 +27,17 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
 
     @Override
     public void trace(String format, Object arg) {
-        log(CustomLevel.TRACE, () -> MessageFormatter.format(format, arg).getMessage());
+        logFormatted(CustomLevel.TRACE, null, null, format, new Object[]{arg});
     }
 
     @Override
     public void trace(String format, Object arg1, Object arg2) {
-        log(CustomLevel.TRACE, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+        logFormatted(CustomLevel.TRACE, null, null, format, new Object[]{arg1, arg2});
     }
 
     @Override
     public void trace(String format, Object... arguments) {
-        log(CustomLevel.TRACE, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+        logFormatted(CustomLevel.TRACE, null, null, format, arguments);
     }
 
     @Override
@@ -69,9 +68,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.TRACE, markers, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.TRACE, markers, null, format, new Object[]{arg});
         } else {
-            log(CustomLevel.TRACE, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.TRACE, null, null, format, new Object[]{arg});
         }
     }
 
@@ -81,9 +80,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.TRACE, markers, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.TRACE, markers, null, format, new Object[]{arg1, arg2});
         } else {
-            log(CustomLevel.TRACE, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.TRACE, null, null, format, new Object[]{arg1, arg2});
         }
     }
 
@@ -93,9 +92,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.TRACE, markers, () -> MessageFormatter.arrayFormat(format, argArray).getMessage());
+            logFormatted(CustomLevel.TRACE, markers, null, format, argArray);
         } else {
-            log(CustomLevel.TRACE, () -> MessageFormatter.arrayFormat(format, argArray).getMessage());
+            logFormatted(CustomLevel.TRACE, null, null, format, argArray);
         }
     }
 
@@ -123,12 +122,12 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
 
     @Override
     public void debug(String format, Object arg) {
-        log(CustomLevel.DEBUG, () -> MessageFormatter.format(format, arg).getMessage());
+        logFormatted(CustomLevel.DEBUG, null, null, format, new Object[]{arg});
     }
 
     @Override
     public void debug(String format, Object arg1, Object arg2) {
-        log(CustomLevel.DEBUG, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+        logFormatted(CustomLevel.DEBUG, null, null, format, new Object[]{arg1, arg2});
     }
 
     @Override
@@ -159,9 +158,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.DEBUG, markers, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.DEBUG, markers, null, format, new Object[]{arg});
         } else {
-            log(CustomLevel.DEBUG, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.DEBUG, null, null, format, new Object[]{arg});
         }
     }
 
@@ -171,9 +170,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.DEBUG, markers, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.DEBUG, markers, null, format, new Object[]{arg1, arg2});
         } else {
-            log(CustomLevel.DEBUG, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.DEBUG, null, null, format, new Object[]{arg1, arg2});
         }
     }
 
@@ -183,9 +182,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.DEBUG, markers, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.DEBUG, markers, null, format, arguments);
         } else {
-            log(CustomLevel.DEBUG, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.DEBUG, null, null, format, arguments);
         }
     }
 
@@ -208,12 +207,12 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
 
     @Override
     public void info(String format, Object arg) {
-        log(CustomLevel.INFO, () -> MessageFormatter.format(format, arg).getMessage());
+        logFormatted(CustomLevel.INFO, null, null, format, new Object[]{arg});
     }
 
     @Override
     public void info(String format, Object arg1, Object arg2) {
-        log(CustomLevel.INFO, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+        logFormatted(CustomLevel.INFO, null, null, format, new Object[]{arg1, arg2});
     }
 
     @Override
@@ -244,9 +243,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.INFO, markers, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.INFO, markers, null, format, new Object[]{arg});
         } else {
-            log(CustomLevel.INFO, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.INFO, null, null, format, new Object[]{arg});
         }
     }
 
@@ -256,9 +255,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.INFO, markers, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.INFO, markers, null, format, new Object[]{arg1, arg2});
         } else {
-            log(CustomLevel.INFO, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.INFO, null, null, format, new Object[]{arg1, arg2});
         }
     }
 
@@ -268,9 +267,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.INFO, markers, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.INFO, markers, null, format, arguments);
         } else {
-            log(CustomLevel.INFO, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.INFO, null, null, format, arguments);
         }
     }
 
@@ -298,12 +297,12 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
 
     @Override
     public void warn(String format, Object arg) {
-        log(CustomLevel.WARNING, () -> MessageFormatter.format(format, arg).getMessage());
+        logFormatted(CustomLevel.WARNING, null, null, format, new Object[]{arg});
     }
 
     @Override
     public void warn(String format, Object arg1, Object arg2) {
-        log(CustomLevel.WARNING, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+        logFormatted(CustomLevel.WARNING, null, null, format, new Object[]{arg1, arg2});
     }
 
     @Override
@@ -334,9 +333,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.WARNING, markers, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.WARNING, markers, null, format, new Object[]{arg});
         } else {
-            log(CustomLevel.WARNING, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.WARNING, null, null, format, new Object[]{arg});
         }
     }
 
@@ -346,9 +345,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.WARNING, markers, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.WARNING, markers, null, format, new Object[]{arg1, arg2});
         } else {
-            log(CustomLevel.WARNING, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.WARNING, null, null, format, new Object[]{arg1, arg2});
         }
     }
 
@@ -358,9 +357,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.WARNING, markers, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.WARNING, markers, null, format, arguments);
         } else {
-            log(CustomLevel.WARNING, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.WARNING, null, null, format, arguments);
         }
     }
 
@@ -388,12 +387,12 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
 
     @Override
     public void error(String format, Object arg) {
-        log(CustomLevel.ERROR, () -> MessageFormatter.format(format, arg).getMessage());
+        logFormatted(CustomLevel.ERROR, null, null, format, new Object[]{arg});
     }
 
     @Override
     public void error(String format, Object arg1, Object arg2) {
-        log(CustomLevel.ERROR, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+        logFormatted(CustomLevel.ERROR, null, null, format, new Object[]{arg1, arg2});
     }
 
     @Override
@@ -424,9 +423,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.ERROR, markers, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.ERROR, markers, null, format, new Object[]{arg});
         } else {
-            log(CustomLevel.ERROR, () -> MessageFormatter.format(format, arg).getMessage());
+            logFormatted(CustomLevel.ERROR, null, null, format, new Object[]{arg});
         }
     }
 
@@ -436,9 +435,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.ERROR, markers, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.ERROR, markers, null, format, new Object[]{arg1, arg2});
         } else {
-            log(CustomLevel.ERROR, () -> MessageFormatter.format(format, arg1, arg2).getMessage());
+            logFormatted(CustomLevel.ERROR, null, null, format, new Object[]{arg1, arg2});
         }
     }
 
@@ -448,9 +447,9 @@ public class ExtendedSlf4jLogger extends ExtendedLogger implements org.slf4j.Log
             Set<String> markers = new HashSet<>();
             markers.add(marker.getName());
             marker.iterator().forEachRemaining(m -> markers.add(m.getName()));
-            log(CustomLevel.ERROR, markers, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.ERROR, markers, null, format, arguments);
         } else {
-            log(CustomLevel.ERROR, () -> MessageFormatter.arrayFormat(format, arguments).getMessage());
+            logFormatted(CustomLevel.ERROR, null, null, format, arguments);
         }
     }
 
@@ -2,10 +2,18 @@ package com.clumd.projects.java_custom_logging.logging;
 
 import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
 import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecordPool;
+import com.clumd.projects.java_custom_logging.logging.common.ThreadNameRegistry;
+import com.clumd.projects.java_custom_logging.logging.controllers.ArchiveOptions;
 import com.clumd.projects.java_custom_logging.logging.controllers.ConsoleController;
 import com.clumd.projects.java_custom_logging.logging.controllers.DenseConsoleController;
 import com.clumd.projects.java_custom_logging.logging.controllers.DenseFileController;
 import com.clumd.projects.java_custom_logging.logging.controllers.FileController;
+import com.clumd.projects.java_custom_logging.logging.dispatch.AsyncLogDispatcher;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DuplicateCollapser;
+import com.clumd.projects.java_custom_logging.logging.dispatch.RecordRouter;
+import com.clumd.projects.java_custom_logging.logging.dispatch.SnapshotPolicy;
 import lombok.NonNull;
 
 import java.io.File;
@@ -13,13 +21,14 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Handler;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -34,9 +43,12 @@ import java.util.logging.StreamHandler;
  */
 public final class LogRoot {
 
-    private static final Map<Long, String> OVERRIDDEN_THREAD_NAME_MAPPINGS = new HashMap<>();
+    private static final ThreadNameRegistry OVERRIDDEN_THREAD_NAME_MAPPINGS = new ThreadNameRegistry();
+    private static final LoggerRegistry LOGGER_REGISTRY = new LoggerRegistry();
+    // JUL only weakly references its Loggers, so any we create just to hold a branch level must be kept alive here.
+    private static final Map<String, Logger> BRANCH_LEVEL_HOLDERS = new ConcurrentHashMap<>();
     private static final UUID SPECIFIC_RUN_ID = UUID.randomUUID(); // The ID for a specific run, of a specific machine.
-    private static final int SINGLE_FILE_LOG_SIZE = 10000000; //~10MB in bytes.
+    private static final long SINGLE_FILE_LOG_SIZE = 10000000; //~10MB in bytes.
     private static final int LOG_FILE_ROTATIONS = 3; // max files to keep track of before re-writing old logs.
     public static final String TAB = "    ";
     public static final String ANON_THREAD = "Anon/Unknown Thread";
@@ -44,6 +56,10 @@ public final class LogRoot {
     private static String discardablePackageId;
     private static String loggingRootId;
     private static String staticSystemName;
+    private static volatile ExtendedLogRecordPool recordPool;
+    private static volatile SnapshotPolicy deferredFormatting;
+    private static volatile boolean locatingCallers;
+    private static volatile Handler[] rootHandlerSnapshot = new Handler[0];
 
     private LogRoot() {
         // Don't allow this class to be instantiated. It should be used for static method calls only.
@@ -84,11 +100,21 @@ public final class LogRoot {
         }
 
         // Remove all parent chaining
+        recordPool = null;
+        deferredFormatting = null;
+        locatingCallers = false;
+        rootHandlerSnapshot = new Handler[0];
         Logger root = Logger.getLogger("");
         for (Handler h : root.getHandlers()) {
             root.removeHandler(h);
+            if (h instanceof AsyncLogDispatcher || h instanceof DuplicateCollapser) {
+                // Make sure anything still in flight from a previous initialisation is written out, and its thread stopped.
+                h.close();
+            }
         }
-        root = Logger.getLogger(loggingRootId);
+        // Any branch levels still pending were set against the previous initialisation, so start afresh.
+        LOGGER_REGISTRY.clearPendingLevels();
+        root = LOGGER_REGISTRY.getOrCreate(loggingRootId, name -> new ExtendedLogger(name, null));
         for (Handler h : root.getHandlers()) {
             root.removeHandler(h);
         }
@@ -121,14 +147,87 @@ public final class LogRoot {
         Logger root = Logger.getLogger("");
 
         // init each wanted handler
+        for (StreamHandler streamHandler : initialiseHandlers(wantedLogHandlers)) {
+            root.addHandler(streamHandler);
+        }
+        rootHandlerSnapshot = root.getHandlers();
+    }
+
+    /**
+     * As {@link LogRoot#withHandlers(Collection)}, but the way in which records are handed over to those handlers is
+     * described by the given options.
+     * <p>
+     * For example, {@link DispatchOptions#asynchronous()} will mean logging threads only place each record onto a bounded
+     * queue, and a single background thread will write them out to the wanted handlers.
+     *
+     * @param wantedLogHandlers The Collection of handlers which we want to be given each message in this app.
+     * @param dispatchOptions   The description of how records should be dispatched to those handlers.
+     */
+    public void withHandlers(Collection<CustomLogHandler> wantedLogHandlers, @NonNull DispatchOptions dispatchOptions) {
+        Logger root = Logger.getLogger("");
+        List<? extends Handler> handlers = initialiseHandlers(wantedLogHandlers);
+        if (!dispatchOptions.getRoutes().isEmpty()) {
+            handlers = List.of(new RecordRouter(handlers, dispatchOptions.getRoutes()));
+        }
+        if (dispatchOptions.getDuplicateWindow() != null) {
+            handlers = List.of(new DuplicateCollapser(handlers, dispatchOptions.getDuplicateWindow()));
+        }
+        if (dispatchOptions.isAsynchronous()) {
+            root.addHandler(new AsyncLogDispatcher(handlers, dispatchOptions));
+            deferredFormatting = dispatchOptions.getDeferredFormatting();
+        } else {
+            handlers.forEach(root::addHandler);
+        }
+        rootHandlerSnapshot = root.getHandlers();
+        if (dispatchOptions.isPooledRecords()) {
+            recordPool = new ExtendedLogRecordPool(dispatchOptions.getPooledRecordsPerThread());
+        }
+        locatingCallers = dispatchOptions.isCallerLocation();
+    }
+
+    /**
+     * @return The pool which {@link ExtendedLogger ExtendedLoggers} should take their records from, or null if records
+     * should not be pooled.
+     */
+    static ExtendedLogRecordPool getRecordPool() {
+        return recordPool;
+    }
+
+    /**
+     * @return How {@link ExtendedLogger ExtendedLoggers} should snapshot the values logged with a message, so it can be
+     * formatted later by the background writer, or null if messages should be formatted on the logging thread.
+     */
+    static SnapshotPolicy getDeferredFormatting() {
+        return deferredFormatting;
+    }
+
+    /**
+     * @return Whether {@link ExtendedLogger ExtendedLoggers} should find where each record was logged from, as it is
+     * logged.
+     */
+    static boolean isLocatingCallers() {
+        return locatingCallers;
+    }
+
+    /**
+     * @return The handlers which were on the root Logger the last time they were configured through this class. Used
+     * by the pooled record path to avoid copying the root's handlers for every record.
+     */
+    static Handler[] getRootHandlerSnapshot() {
+        return rootHandlerSnapshot;
+    }
+
+    private static List<StreamHandler> initialiseHandlers(Collection<CustomLogHandler> wantedLogHandlers) {
+        List<StreamHandler> handlers = new ArrayList<>(wantedLogHandlers.size());
         for (CustomLogHandler handler : wantedLogHandlers) {
             handler.acceptLogRootRefs(SPECIFIC_RUN_ID, staticSystemName, OVERRIDDEN_THREAD_NAME_MAPPINGS);
             if (handler instanceof StreamHandler streamHandler) {
-                root.addHandler(streamHandler);
+                handlers.add(streamHandler);
             } else {
                 throw new IllegalArgumentException("Every custom log controller MUST extend java.util.logging.StreamHandler.");
             }
         }
+        return handlers;
     }
 
     /**
@@ -158,11 +257,44 @@ public final class LogRoot {
      * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
      */
     public static CustomLogHandler basicFileHandler(@NonNull String atDir) throws IOException {
+        return basicFileHandler(atDir, SINGLE_FILE_LOG_SIZE, LOG_FILE_ROTATIONS);
+    }
+
+    /**
+     * Create a basic instance of a File Handler, rotating its files at the given size.
+     *
+     * @param atDir             The Directory where the system should write its log files to.
+     * @param singleFileLogSize The max file size before the logger will rotate files (in regular Bytes).
+     * @param logFileRotations  The max number of log files to keep in rotation before overwriting the oldest one.
+     * @return The instantiated FileHandler instance.
+     * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
+     */
+    public static CustomLogHandler basicFileHandler(@NonNull String atDir, long singleFileLogSize, int logFileRotations) throws IOException {
         Files.createDirectories(new File(atDir).toPath());
         return new FileController(
                 atDir + "/" + loggingRootId + "_" + staticSystemName + "_%g.log",
-                SINGLE_FILE_LOG_SIZE,
-                LOG_FILE_ROTATIONS,
+                singleFileLogSize,
+                logFileRotations,
+                true
+        );
+    }
+
+    /**
+     * Create a basic instance of a File Handler, rotating its files at the given size and compressing the rotated files in the background. The oldest
+     * compressed files are deleted as needed to stay within the archive's disk budget.
+     *
+     * @param atDir             The Directory where the system should write its log files to.
+     * @param singleFileLogSize The max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions    How to compress and retain the rotated files.
+     * @return The instantiated FileHandler instance.
+     * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
+     */
+    public static CustomLogHandler basicFileHandler(@NonNull String atDir, long singleFileLogSize, @NonNull ArchiveOptions archiveOptions) throws IOException {
+        Files.createDirectories(new File(atDir).toPath());
+        return new FileController(
+                atDir + "/" + loggingRootId + "_" + staticSystemName + ".log",
+                singleFileLogSize,
+                archiveOptions,
                 true
         );
     }
@@ -175,11 +307,44 @@ public final class LogRoot {
      * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
      */
     public static CustomLogHandler basicDenseFileHandler(@NonNull String atDir) throws IOException {
+        return basicDenseFileHandler(atDir, SINGLE_FILE_LOG_SIZE, LOG_FILE_ROTATIONS);
+    }
+
+    /**
+     * Creates a sparse no-fluff File Handler with dense message output, rotating its files at the given size.
+     *
+     * @param atDir             The Directory where the system should write its log files to.
+     * @param singleFileLogSize The max file size before the logger will rotate files (in regular Bytes).
+     * @param logFileRotations  The max number of log files to keep in rotation before overwriting the oldest one.
+     * @return The instantiated FileHandler instance.
+     * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
+     */
+    public static CustomLogHandler basicDenseFileHandler(@NonNull String atDir, long singleFileLogSize, int logFileRotations) throws IOException {
         Files.createDirectories(new File(atDir).toPath());
         return new DenseFileController(
                 atDir + "/" + loggingRootId + "_" + staticSystemName + "_%g.log",
-                SINGLE_FILE_LOG_SIZE,
-                LOG_FILE_ROTATIONS,
+                singleFileLogSize,
+                logFileRotations,
+                true
+        );
+    }
+
+    /**
+     * Creates a sparse no-fluff File Handler with dense message output, rotating its files at the given size and compressing the rotated files in the background. The oldest
+     * compressed files are deleted as needed to stay within the archive's disk budget.
+     *
+     * @param atDir             The Directory where the system should write its log files to.
+     * @param singleFileLogSize The max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions    How to compress and retain the rotated files.
+     * @return The instantiated FileHandler instance.
+     * @throws IOException Thrown if there was a problem creating or writing to the directory/file you intended.
+     */
+    public static CustomLogHandler basicDenseFileHandler(@NonNull String atDir, long singleFileLogSize, @NonNull ArchiveOptions archiveOptions) throws IOException {
+        Files.createDirectories(new File(atDir).toPath());
+        return new DenseFileController(
+                atDir + "/" + loggingRootId + "_" + staticSystemName + ".log",
+                singleFileLogSize,
+                archiveOptions,
                 true
         );
     }
@@ -351,11 +516,8 @@ public final class LogRoot {
      */
     public static ExtendedLogger createLogger(final String prefix, final String loggerIdentifier, final Set<String> bakedInTags) {
         String loggerName = buildLogName(prefix, loggerIdentifier);
-        Logger extLog = LogManager.getLogManager().getLogger(loggerName);
-        if (extLog == null) {
-            extLog = new ExtendedLogger(loggerName, bakedInTags);
-            LogManager.getLogManager().addLogger(extLog);
-        } else if (extLog instanceof ExtendedLogger existingExtendedLogger) {
+        Logger extLog = LOGGER_REGISTRY.getOrCreate(loggerName, name -> new ExtendedLogger(name, bakedInTags));
+        if (extLog instanceof ExtendedLogger existingExtendedLogger) {
 
             Set<String> existingBakedTags = existingExtendedLogger.getBakedInTags();
 
@@ -376,6 +538,25 @@ public final class LogRoot {
         return (ExtendedLogger) extLog;
     }
 
+    /**
+     * Used by the SLF4J {@link ExtendedLoggerFactory} to find or create its Logger for the given name, from the same
+     * registry as every other Logger created within this API.
+     *
+     * @param loggerIdentifier The String name the SLF4J Logger was requested by.
+     * @return The SLF4J compatible Logger for that name.
+     */
+    static ExtendedSlf4jLogger createSlf4jLogger(@NonNull final String loggerIdentifier) {
+        String loggerName = buildLogName(null, loggerIdentifier);
+        Logger existing = LOGGER_REGISTRY.getOrCreate(loggerName, ExtendedSlf4jLogger::new);
+        if (existing instanceof ExtendedSlf4jLogger slf4jLogger) {
+            return slf4jLogger;
+        }
+        // A plain Logger already holds this name, so hang the SLF4J one off of it to share its level and handlers.
+        ExtendedSlf4jLogger slf4jLogger = new ExtendedSlf4jLogger(loggerName);
+        slf4jLogger.setParent(existing);
+        return slf4jLogger;
+    }
+
     /**
      * Used to set the logging level of the indicated branch of package hierarchy.
      * <p>
@@ -386,10 +567,7 @@ public final class LogRoot {
      *                      level to.
      */
     public static void setBranchLoggingLevel(@NonNull final CustomLevel selectedLevel, @NonNull final Logger viaLogger) {
-        setGivenLoggersToLevel(
-                getAllLoggerNames(viaLogger.getName()),
-                selectedLevel
-        );
+        setApiBranchToLevel(viaLogger.getName(), selectedLevel);
     }
 
     /**
@@ -402,11 +580,7 @@ public final class LogRoot {
      *                         the log level to.
      */
     public static void setBranchLoggingLevel(@NonNull final CustomLevel selectedLevel, @NonNull final String viaLogIdentifier) {
-        String loggerName = buildLogName(null, viaLogIdentifier);
-        setGivenLoggersToLevel(
-                getAllLoggerNames(loggerName),
-                selectedLevel
-        );
+        setApiBranchToLevel(buildLogName(null, viaLogIdentifier), selectedLevel);
     }
 
     /**
@@ -419,10 +593,12 @@ public final class LogRoot {
      *                         the log level to.
      */
     public static void setGlobalBranchLoggingLevel(@NonNull final CustomLevel selectedLevel, @NonNull final String viaLogIdentifier) {
-        setGivenLoggersToLevel(
-                getAllLoggerNames(viaLogIdentifier),
-                selectedLevel
-        );
+        LOGGER_REGISTRY.setPendingLevel(viaLogIdentifier, selectedLevel);
+        if (setJvmLoggersToLevel(viaLogIdentifier, selectedLevel) == 0) {
+            // nothing in the JVM sits on this branch yet, so configure it through JUL for any 3rd party loggers created
+            // beneath it later to inherit from.
+            BRANCH_LEVEL_HOLDERS.computeIfAbsent(viaLogIdentifier, Logger::getLogger).setLevel(selectedLevel);
+        }
     }
 
     /**
@@ -436,11 +612,7 @@ public final class LogRoot {
      *                         the log level to.
      */
     public static void setBranchLoggingLevel(@NonNull final CustomLevel selectedLevel, final String viaLogPrefix, @NonNull final String viaLogIdentifier) {
-        String loggerName = buildLogName(viaLogPrefix, viaLogIdentifier);
-        setGivenLoggersToLevel(
-                getAllLoggerNames(loggerName),
-                selectedLevel
-        );
+        setApiBranchToLevel(buildLogName(viaLogPrefix, viaLogIdentifier), selectedLevel);
     }
 
     /**
@@ -451,10 +623,8 @@ public final class LogRoot {
      * @param selectedLevel The LogLevel you would like to set across the whole application.
      */
     public static void setGlobalLoggingLevel(@NonNull final CustomLevel selectedLevel) {
-        setGivenLoggersToLevel(
-                getAllLoggerNames(null),
-                selectedLevel
-        );
+        LOGGER_REGISTRY.clearPendingLevels();
+        setJvmLoggersToLevel(null, selectedLevel);
     }
 
     /**
@@ -464,47 +634,40 @@ public final class LogRoot {
      * @param selectedLevel The LogLevel you would like to set for the indicated loggers.
      */
     public static void setApplicationGlobalLevel(@NonNull final CustomLevel selectedLevel) {
-        setGivenLoggersToLevel(
-                getAllLoggerNames(loggingRootId),
-                selectedLevel
-        );
+        setApiBranchToLevel(loggingRootId, selectedLevel);
     }
 
+    /**
+     * Register a human-readable name to log the given thread under. When called from the thread being named, the name
+     * is forgotten again once that thread has died, so short-lived (e.g. virtual) threads do not accumulate.
+     *
+     * @param threadID   The ID of the thread to name.
+     * @param threadName The name to log that thread under.
+     */
     public static void updateThreadIdName(long threadID, @NonNull String threadName) {
-        OVERRIDDEN_THREAD_NAME_MAPPINGS.put(threadID, threadName);
+        OVERRIDDEN_THREAD_NAME_MAPPINGS.register(threadID, threadName);
     }
 
-    private static List<String> getAllLoggerNames(String filteredBy) {
-        List<String> names = Collections.list(
-                LogManager
-                        .getLogManager()
-                        .getLoggerNames()
-        );
-        if (filteredBy != null) {
-            List<String> filteredNames = names
-                    .stream()
-                    .filter(n -> n.startsWith(filteredBy))
-                    .toList();
-            if (filteredNames.isEmpty()) {
-                // no existing loggers match this filter, so try to create a new logger with this, such that if it will be created later in
-                // application lifecycle the level should already be controlled.
-                try {
-                    createLogger(filteredBy.startsWith(loggingRootId) ? filteredBy.substring(loggingRootId.length() + 1) : filteredBy);
-                    return Collections.singletonList(filteredBy);
-                } catch (Exception e) {
-                    return Collections.emptyList();
+    private static void setApiBranchToLevel(final String loggerNamePrefix, final CustomLevel selectedLevel) {
+        // Remember the level first, so that a logger created part way through either sees it, or is visited below.
+        LOGGER_REGISTRY.setPendingLevel(loggerNamePrefix, selectedLevel);
+        LOGGER_REGISTRY.forEachInBranch(loggerNamePrefix, logger -> logger.setLevel(selectedLevel));
+    }
+
+    private static int setJvmLoggersToLevel(final String filteredBy, final CustomLevel selectedLevel) {
+        LogManager logManager = LogManager.getLogManager();
+        int updated = 0;
+        for (Enumeration<String> names = logManager.getLoggerNames(); names.hasMoreElements(); ) {
+            String name = names.nextElement();
+            if (filteredBy == null || name.startsWith(filteredBy)) {
+                // Look up without creating, as loggers which were only weakly held may have gone since listing the names.
+                Logger logger = logManager.getLogger(name);
+                if (logger != null) {
+                    logger.setLevel(selectedLevel);
+                    updated++;
                 }
             }
-            return filteredNames;
         }
-        return names;
-    }
-
-    private static void setGivenLoggersToLevel(final Collection<String> givenLoggers, final CustomLevel selectedLevel) {
-        givenLoggers
-                .forEach(logName -> Logger
-                        .getLogger(logName)
-                        .setLevel(selectedLevel)
-                );
+        return updated;
     }
 }
@@ -0,0 +1,216 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of every Logger handed out by this API, by its full (dot-separated) name.
+ * <p>
+ * Looking up a Logger which already exists is a single read from a concurrent map and never takes a lock. Only the
+ * very first request for a given name has to create the Logger and register it with the {@link LogManager}, and that
+ * is done under a lock for that name alone, so unrelated names never wait on each other.
+ * <p>
+ * Alongside the flat lookup, the names are also kept as a tree of their dot-separated segments, so that every Logger
+ * within a branch can be found without scanning every Logger the JVM knows about. The same tree also holds any branch
+ * levels which have been set, so that Loggers created within that branch later on start out at that level.
+ */
+final class LoggerRegistry {
+
+    private static final class Node {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        // Keyed by the (perhaps partial) child segment the level was set for, as branches match on name prefix.
+        private final Map<String, PendingLevel> pendingLevels = new ConcurrentHashMap<>();
+        private volatile Logger logger;
+    }
+
+    private record PendingLevel(Level level, long sequence) {
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Node> byName = new ConcurrentHashMap<>();
+    private final AtomicLong pendingSequence = new AtomicLong();
+
+    /**
+     * @param name The full name of the Logger to find.
+     * @return The Logger registered under that name, or null if there isn't one yet.
+     */
+    Logger get(final String name) {
+        Node node = byName.get(name);
+        return node == null ? null : node.logger;
+    }
+
+    /**
+     * Find the Logger registered under the given name, creating and registering it first if need be.
+     * <p>
+     * If the {@link LogManager} already knows of a Logger by this name, which was not created through this registry,
+     * then that Logger is adopted rather than replaced. Unless it already has a level of its own, the Logger is given the
+     * most recently set {@link #setPendingLevel pending level} of any branch it falls within.
+     *
+     * @param name    The full name of the Logger to find.
+     * @param factory Used to create the Logger, only if there is not one already.
+     * @return The one Logger registered under that name.
+     */
+    Logger getOrCreate(final String name, final Function<String, ? extends Logger> factory) {
+        Node node = byName.get(name);
+        if (node != null) {
+            Logger existing = node.logger;
+            if (existing != null) {
+                return existing;
+            }
+        } else {
+            node = byName.computeIfAbsent(name, this::link);
+        }
+
+        synchronized (node) {
+            if (node.logger == null) {
+                LogManager logManager = LogManager.getLogManager();
+                Logger logger = logManager.getLogger(name);
+                if (logger == null) {
+                    logger = factory.apply(name);
+                    if (!logManager.addLogger(logger)) {
+                        // Someone else registered this name directly with the LogManager in the meantime, so use theirs.
+                        logger = logManager.getLogger(name);
+                    }
+                }
+                boolean takesPendingLevel = logger.getLevel() == null;
+                long seenPendingSequence = pendingSequence.get();
+                if (takesPendingLevel) {
+                    applyPendingLevel(name, logger);
+                }
+                node.logger = logger;
+                if (takesPendingLevel && pendingSequence.get() != seenPendingSequence) {
+                    // A branch level was set while we were publishing, and may not have seen this Logger, so catch up.
+                    applyPendingLevel(name, logger);
+                }
+            }
+            return node.logger;
+        }
+    }
+
+    /**
+     * Visit every registered Logger whose full name starts with the given prefix.
+     *
+     * @param namePrefix The prefix to match, or null to visit every registered Logger.
+     * @param action     What to do with each matching Logger.
+     * @return How many Loggers were visited.
+     */
+    int forEachInBranch(final String namePrefix, final Consumer<Logger> action) {
+        if (namePrefix == null) {
+            return visitSubtree(root, action);
+        }
+
+        // Walk down the segments which the prefix spells out in full, then match its last (perhaps partial) segment.
+        Node parent = root;
+        int segmentStart = 0;
+        int dot;
+        while ((dot = namePrefix.indexOf('.', segmentStart)) >= 0) {
+            parent = parent.children.get(namePrefix.substring(segmentStart, dot));
+            if (parent == null) {
+                return 0;
+            }
+            segmentStart = dot + 1;
+        }
+        String partialSegment = namePrefix.substring(segmentStart);
+
+        int visited = 0;
+        for (Map.Entry<String, Node> child : parent.children.entrySet()) {
+            if (child.getKey().startsWith(partialSegment)) {
+                visited += visitSubtree(child.getValue(), action);
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Remember a level for every Logger whose full name starts with the given prefix, which will be applied to any such
+     * Logger created from now on. This does not change any Logger which already exists.
+     *
+     * @param namePrefix The prefix to match.
+     * @param level      The level those Loggers should start out at.
+     */
+    void setPendingLevel(final String namePrefix, final Level level) {
+        Node parent = root;
+        int segmentStart = 0;
+        int dot;
+        while ((dot = namePrefix.indexOf('.', segmentStart)) >= 0) {
+            parent = parent.children.computeIfAbsent(namePrefix.substring(segmentStart, dot), s -> new Node());
+            segmentStart = dot + 1;
+        }
+        parent.pendingLevels.put(namePrefix.substring(segmentStart), new PendingLevel(level, pendingSequence.incrementAndGet()));
+    }
+
+    /**
+     * Forget every pending level, so new Loggers simply inherit their level from their parent again.
+     */
+    void clearPendingLevels() {
+        ArrayDeque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            node.pendingLevels.clear();
+            node.children.values().forEach(toVisit::push);
+        }
+        pendingSequence.incrementAndGet();
+    }
+
+    private void applyPendingLevel(final String name, final Logger logger) {
+        if (pendingSequence.get() == 0) {
+            return;
+        }
+        PendingLevel latest = null;
+        Node node = root;
+        int segmentStart = 0;
+        int dot;
+        do {
+            dot = name.indexOf('.', segmentStart);
+            String segment = dot < 0 ? name.substring(segmentStart) : name.substring(segmentStart, dot);
+            for (Map.Entry<String, PendingLevel> pending : node.pendingLevels.entrySet()) {
+                if (segment.startsWith(pending.getKey()) && (latest == null || pending.getValue().sequence() > latest.sequence())) {
+                    latest = pending.getValue();
+                }
+            }
+            node = node.children.get(segment);
+            segmentStart = dot + 1;
+        } while (dot >= 0 && node != null);
+
+        if (latest != null) {
+            logger.setLevel(latest.level());
+        }
+    }
+
+    private static int visitSubtree(final Node from, final Consumer<Logger> action) {
+        int visited = 0;
+        ArrayDeque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(from);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            Logger logger = node.logger;
+            if (logger != null) {
+                action.accept(logger);
+                visited++;
+            }
+            node.children.values().forEach(toVisit::push);
+        }
+        return visited;
+    }
+
+    private Node link(final String name) {
+        Node node = root;
+        int segmentStart = 0;
+        int dot;
+        do {
+            dot = name.indexOf('.', segmentStart);
+            String segment = dot < 0 ? name.substring(segmentStart) : name.substring(segmentStart, dot);
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+            segmentStart = dot + 1;
+        } while (dot >= 0);
+        return node;
+    }
+}
@@ -0,0 +1,87 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Describes how an {@link ExtendedLogger} should {@link ExtendedLogger#withRateLimit limit} the rate records are logged
+ * from each of its call sites, so that a single code path logging in a tight loop can't flood the handlers.
+ * <p>
+ * Use the static factory to pick a rate, then chain any of the 'with' methods to tune it. For example
+ * {@code RateLimitOptions.perCallSite(100).withBurst(500)}.
+ */
+@Getter
+public final class RateLimitOptions {
+
+    public static final String SUPPRESSED_RECORDS_TAG = "rate-limited";
+    public static final int DEFAULT_MAX_CALL_SITES = 1024;
+    public static final Duration DEFAULT_SUMMARY_INTERVAL = Duration.ofSeconds(30);
+
+    private final double recordsPerSecond;
+    private int burst;
+    private int maxCallSites = DEFAULT_MAX_CALL_SITES;
+    private Duration summaryInterval = DEFAULT_SUMMARY_INTERVAL;
+
+    private RateLimitOptions(final double recordsPerSecond) {
+        this.recordsPerSecond = recordsPerSecond;
+        this.burst = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(recordsPerSecond)));
+    }
+
+    /**
+     * Each call site may log at most the given number of records per second on average, and by default up to a whole
+     * second's worth at once.
+     * <p>
+     * A call site is identified by the message template (or message) it logs, or the class of the message Supplier,
+     * unless an explicit key is given through {@link ExtendedLogger#logAtCallSite}.
+     *
+     * @param recordsPerSecond The sustained rate each call site is allowed to log at.
+     * @return Options for a per call site rate limit.
+     */
+    public static RateLimitOptions perCallSite(final double recordsPerSecond) {
+        if (!(recordsPerSecond > 0) || Double.isInfinite(recordsPerSecond)) {
+            throw new IllegalArgumentException("The rate limit must be a positive number of records per second, but was: " + recordsPerSecond);
+        }
+        return new RateLimitOptions(recordsPerSecond);
+    }
+
+    /**
+     * @param burst How many records a call site which has been quiet may log at once, before being held to the rate.
+     * @return This options instance, for method chaining.
+     */
+    public RateLimitOptions withBurst(final int burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("The rate limit burst must be at least 1.");
+        }
+        this.burst = burst;
+        return this;
+    }
+
+    /**
+     * @param maxCallSites How many call sites to track at once, which will be rounded up to the next power of two. Should
+     *                     there be more, call sites which collide take turns, and may be let through more often than the
+     *                     rate alone would allow.
+     * @return This options instance, for method chaining.
+     */
+    public RateLimitOptions withMaxCallSites(final int maxCallSites) {
+        if (maxCallSites < 1 || maxCallSites > 1 << 20) {
+            throw new IllegalArgumentException("The number of rate limited call sites must be between 1 and 2^20, but was: " + maxCallSites);
+        }
+        this.maxCallSites = maxCallSites;
+        return this;
+    }
+
+    /**
+     * @param summaryInterval How often to report records suppressed at call sites which haven't logged since. Call sites
+     *                        which carry on logging report their suppressed records just before the next one let through.
+     * @return This options instance, for method chaining.
+     */
+    public RateLimitOptions withSummaryInterval(@NonNull final Duration summaryInterval) {
+        if (summaryInterval.isNegative() || summaryInterval.isZero()) {
+            throw new IllegalArgumentException("The rate limit summary interval must be positive.");
+        }
+        this.summaryInterval = summaryInterval;
+        return this;
+    }
+}
@@ -0,0 +1,124 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.logging.Level;
+
+/**
+ * Times a block of code, from when it is {@link ExtendedLogger#time started} until it is closed, then logs a single
+ * record saying how long it took. Intended for a try-with-resources block:
+ * <pre>{@code
+ * try (TimedSpan ignored = logger.time(CustomLevel.DEBUG, "Load customer", Duration.ofMillis(50))) {
+ *     // ...
+ * }
+ * }</pre>
+ * The record's message is the name of the operation, and it carries an {@link Elapsed} for the controllers to render.
+ * <p>
+ * Spans are meant to be opened and closed by the same thread, and only log the first time they are closed. If the level
+ * was disabled when the span was started, the shared {@link #DISABLED} span is returned instead, which costs nothing to
+ * open or close.
+ */
+public final class TimedSpan implements AutoCloseable {
+
+    /**
+     * The span handed out whenever the level being timed at is disabled. Closing it does nothing.
+     */
+    public static final TimedSpan DISABLED = new TimedSpan(null, null, null, null, 0);
+
+    private final ExtendedLogger logger;
+    private final Level level;
+    private final Set<String> tags;
+    private final String operation;
+    private final long thresholdNanos;
+    private final long startNanos;
+    private boolean closed;
+
+    TimedSpan(
+            final ExtendedLogger logger,
+            final Level level,
+            final Set<String> tags,
+            final String operation,
+            final long thresholdNanos
+    ) {
+        this.logger = logger;
+        this.level = level;
+        this.tags = tags;
+        this.operation = operation;
+        this.thresholdNanos = thresholdNanos;
+        this.startNanos = logger == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * @return How long it has been since this span was started, or zero for the {@link #DISABLED} span.
+     */
+    public Duration elapsed() {
+        return logger == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Stop timing, and log how long the block took, provided it took at least as long as the threshold (if any).
+     */
+    @Override
+    public void close() {
+        if (logger == null || closed) {
+            return;
+        }
+        closed = true;
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos >= thresholdNanos) {
+            logger.logTiming(level, tags, operation, new Elapsed(elapsedNanos, thresholdNanos));
+        }
+    }
+
+    /**
+     * How long a timed block took, and the threshold it was timed against, if any.
+     *
+     * @param nanos          How long the block took, in nanoseconds.
+     * @param thresholdNanos How long the block had to take before it was logged, in nanoseconds, or zero if every run
+     *                       is logged.
+     */
+    public record Elapsed(long nanos, long thresholdNanos) implements LoggableData {
+
+        public Duration duration() {
+            return Duration.ofNanos(nanos);
+        }
+
+        @Override
+        public String getFormattedLogData() {
+            StringBuilder formatted = new StringBuilder(48);
+            try {
+                appendFormattedLogData(formatted);
+            } catch (IOException e) {
+                throw new IllegalStateException("A StringBuilder can't fail to append.", e);
+            }
+            return formatted.toString();
+        }
+
+        @Override
+        public void appendFormattedLogData(final Appendable into) throws IOException {
+            into.append("Took ");
+            appendMillis(nanos, into);
+            if (thresholdNanos > 0) {
+                into.append(" (threshold ");
+                appendMillis(thresholdNanos, into);
+                into.append(')');
+            }
+        }
+
+        private static void appendMillis(final long nanos, final Appendable into) throws IOException {
+            final long micros = nanos / 1000;
+            final long fraction = micros % 1000;
+            into.append(Long.toString(micros / 1000)).append('.');
+            if (fraction < 100) {
+                into.append('0');
+            }
+            if (fraction < 10) {
+                into.append('0');
+            }
+            into.append(Long.toString(fraction)).append(" ms");
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.clumd.projects.java_custom_logging.logging.api;
 
+import java.io.IOException;
+
 /**
  * This interface should be used to indicate that a class implements a method to format itself in a design suitable for
  * logging.
@@ -17,4 +19,19 @@ public interface LoggableData {
     default String getFormattedLogData() {
         return this.toString();
     }
+
+    /**
+     * Used to write the data the implementing class would like to display within a Log statement straight into the
+     * output of a log controller, rather than building up a String for the controller to copy.
+     * <p>
+     * The controller takes care of any escaping its output needs, so the data should be written exactly as it should
+     * read. By default, this simply writes {@link #getFormattedLogData()}, but classes which are logged often may
+     * override it to save building that String every time.
+     *
+     * @param into Where to write the data.
+     * @throws IOException If the data could not be written.
+     */
+    default void appendFormattedLogData(final Appendable into) throws IOException {
+        into.append(getFormattedLogData());
+    }
 }
@@ -0,0 +1,62 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The immutable set of tags which an {@link com.clumd.projects.java_custom_logging.logging.ExtendedLogger} bakes into
+ * every record it creates.
+ * <p>
+ * As these tags never change for the life of the Logger, their text is rendered once up front, and every controller
+ * which writes them out with {@link #toString()} simply copies that text, rather than iterating the tags again for every
+ * record. Controllers which need a different rendering can cache it against this instance, knowing it can never go
+ * stale.
+ */
+public final class BakedInTags extends AbstractSet<String> {
+
+    private final Set<String> tags;
+    private final String rendered;
+
+    private BakedInTags(final Set<String> tags) {
+        this.tags = tags;
+        this.rendered = tags.toString();
+    }
+
+    /**
+     * @param tags The tags to bake in. They are copied, keeping their iteration order, so later changes to the given
+     *             Set are not seen.
+     * @return The tags to bake in, or null if there were none.
+     */
+    public static Set<String> of(final Set<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+        if (tags instanceof BakedInTags alreadyBaked) {
+            return alreadyBaked;
+        }
+        return new BakedInTags(Collections.unmodifiableSet(new LinkedHashSet<>(tags)));
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return tags.iterator();
+    }
+
+    @Override
+    public int size() {
+        return tags.size();
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return tags.contains(o);
+    }
+
+    @Override
+    public String toString() {
+        return rendered;
+    }
+}
@@ -0,0 +1,106 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A thread-safe, lock-free formatter for log record timestamps, which appends directly into a caller supplied buffer.
+ * <p>
+ * Log records arrive in (almost) time order, so consecutive records nearly always fall within the same second. This
+ * formatter therefore renders everything up to and including the seconds only once per second, caches it, and just
+ * patches on the milliseconds for each record. The cache is a single immutable snapshot behind a volatile reference, so
+ * any number of threads may share one instance - at worst, two threads crossing a second boundary together will both
+ * render the new prefix, and one of them wins.
+ * <p>
+ * The pattern given must be a {@link DateTimeFormatter} pattern which ends with the milliseconds field {@code SSS},
+ * and has no finer precision than seconds anywhere before that.
+ */
+public final class CachedTimestampFormatter {
+
+    /**
+     * Renders like {@code 2024-01-31T13:45:12.345}, used by the file and dense controllers.
+     */
+    public static final CachedTimestampFormatter ISO_LOCAL_MILLIS = new CachedTimestampFormatter("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    /**
+     * Renders like {@code Wed 31/Jan/2024 13:45:12.345}, used by the console controller.
+     */
+    public static final CachedTimestampFormatter READABLE_MILLIS = new CachedTimestampFormatter("EEE dd/MMM/yyyy HH:mm:ss.SSS");
+
+    private static final String MILLIS_FIELD = "SSS";
+
+    @Getter
+    private final String pattern;
+    private final DateTimeFormatter secondsFormatter;
+    private volatile CachedSecond cachedSecond;
+
+    /**
+     * Create a formatter for the given pattern, in the system default time zone.
+     *
+     * @param pattern The pattern to render timestamps with, which must end in {@code SSS}.
+     */
+    public CachedTimestampFormatter(@NonNull final String pattern) {
+        this(pattern, ZoneId.systemDefault());
+    }
+
+    /**
+     * Create a formatter for the given pattern.
+     *
+     * @param pattern The pattern to render timestamps with, which must end in {@code SSS}.
+     * @param zone    The time zone to render timestamps in.
+     */
+    public CachedTimestampFormatter(@NonNull final String pattern, @NonNull final ZoneId zone) {
+        if (!pattern.endsWith(MILLIS_FIELD) || pattern.endsWith("S" + MILLIS_FIELD)) {
+            throw new IllegalArgumentException("Timestamp pattern must end with the milliseconds field 'SSS', but was: " + pattern);
+        }
+        this.pattern = pattern;
+        this.secondsFormatter = DateTimeFormatter
+                .ofPattern(pattern.substring(0, pattern.length() - MILLIS_FIELD.length()))
+                .withZone(zone);
+        this.cachedSecond = render(0);
+    }
+
+    /**
+     * Append the rendered timestamp to the given buffer.
+     *
+     * @param epochMillis The timestamp to render, in milliseconds since the epoch.
+     * @param into        The buffer to append to.
+     * @return The same buffer, for method chaining.
+     */
+    public StringBuilder formatTo(final long epochMillis, @NonNull final StringBuilder into) {
+        final long epochSecond = Math.floorDiv(epochMillis, 1000);
+        final int millis = Math.floorMod(epochMillis, 1000);
+
+        CachedSecond current = cachedSecond;
+        if (current.epochSecond != epochSecond) {
+            current = render(epochSecond);
+            cachedSecond = current;
+        }
+
+        return into.append(current.prefix)
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + (millis / 10) % 10))
+                .append((char) ('0' + millis % 10));
+    }
+
+    /**
+     * Render the timestamp to a new String. Prefer {@link #formatTo(long, StringBuilder)} on hot paths.
+     *
+     * @param epochMillis The timestamp to render, in milliseconds since the epoch.
+     * @return The rendered timestamp.
+     */
+    public String format(final long epochMillis) {
+        return formatTo(epochMillis, new StringBuilder(32)).toString();
+    }
+
+    private CachedSecond render(final long epochSecond) {
+        return new CachedSecond(epochSecond, secondsFormatter.format(Instant.ofEpochSecond(epochSecond)).toCharArray());
+    }
+
+    private record CachedSecond(long epochSecond, char[] prefix) {
+    }
+}
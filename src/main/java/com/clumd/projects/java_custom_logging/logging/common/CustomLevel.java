@@ -6,9 +6,7 @@ import lombok.Getter;
 import lombok.NonNull;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.logging.Level;
@@ -18,7 +16,7 @@ import static com.clumd.projects.java_custom_logging.logging.common.Format.*;
 @Getter
 public class CustomLevel extends Level implements LogLevel, Serializable {
 
-    private static final Map<String, CustomLevel> ALL_LEVELS = new HashMap<>(); // This will be populated by each static CustomLevel.of() call in the following lines.
+    private static final LevelRegistry ALL_LEVELS = new LevelRegistry(); // This will be populated by each static CustomLevel.of() call in the following lines.
 
     public static final String COLOUR_RESET = "\033[0m";
 
@@ -72,12 +70,25 @@ public class CustomLevel extends Level implements LogLevel, Serializable {
         this(level, priority, format.getFormatString());
     }
 
+    /**
+     * Find the CustomLevel equivalent to any given level, by name. This does not allocate, so is cheap enough to call
+     * for every log message.
+     *
+     * @param level The level to find the custom equivalent of.
+     * @return The CustomLevel with the same name, or empty if there is none.
+     */
     public static Optional<CustomLevel> convertJulEquivalent(@NonNull final Level level) {
-        String levelName = level.getName().toUpperCase();
-        if (ALL_LEVELS.containsKey(levelName)) {
-            return Optional.of(ALL_LEVELS.get(levelName));
-        }
-        return Optional.empty();
+        return ALL_LEVELS.resolve(level);
+    }
+
+    /**
+     * As {@link #convertJulEquivalent(Level)}, but for callers which would rather check for null.
+     *
+     * @param level The level to find the custom equivalent of.
+     * @return The CustomLevel with the same name, or null if there is none.
+     */
+    public static CustomLevel convertJulEquivalentOrNull(@NonNull final Level level) {
+        return ALL_LEVELS.resolve(level).orElse(null);
     }
 
     public static Optional<CustomLevel> checkForCustomLevel(@NonNull String level) {
@@ -85,23 +96,16 @@ public class CustomLevel extends Level implements LogLevel, Serializable {
             return Optional.empty();
         }
 
-        level = level.toUpperCase();
-        if (ALL_LEVELS.containsKey(level)) {
-            return Optional.of(ALL_LEVELS.get(level));
+        CustomLevel byName = ALL_LEVELS.byName(level);
+        if (byName != null) {
+            return Optional.of(byName);
         }
 
         try {
-            int potentialPriority = Integer.parseInt(level);
-            for (CustomLevel customLevel : ALL_LEVELS.values()) {
-                if (customLevel.getPriority() == potentialPriority) {
-                    return Optional.of(customLevel);
-                }
-            }
+            return Optional.ofNullable(ALL_LEVELS.byPriority(Integer.parseInt(level)));
         } catch (NumberFormatException e) {
             return Optional.empty();
         }
-
-        return Optional.empty();
     }
 
     public static CustomLevel of(@NonNull String level, final int priority) {
@@ -125,19 +129,8 @@ public class CustomLevel extends Level implements LogLevel, Serializable {
     }
 
     private static CustomLevel parse(String levelNameToParse, final int priority, final String formatString) {
-        levelNameToParse = levelNameToParse.toUpperCase();
-
-        // Check if we already have this level
-        CustomLevel ret = ALL_LEVELS.get(levelNameToParse);
-
-        if (ret == null) {
-            ret = new CustomLevel(levelNameToParse, priority, formatString);
-            ALL_LEVELS.put(ret.getLevelName(), ret);
-        } else if (ret.getPriority() != priority || !ret.getLevelFormat().equals(formatString)) {
-            throw new IllegalArgumentException("A CustomLevel already exists with that name, but with a different priority or format.");
-        }
-
-        return ret;
+        final String upperCaseName = levelNameToParse.toUpperCase();
+        return ALL_LEVELS.define(upperCaseName, priority, formatString, () -> new CustomLevel(upperCaseName, priority, formatString));
     }
 
     @Override
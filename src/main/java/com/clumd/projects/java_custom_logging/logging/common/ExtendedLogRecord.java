@@ -1,10 +1,20 @@
 package com.clumd.projects.java_custom_logging.logging.common;
 
+import com.clumd.projects.java_custom_logging.logging.controllers.ByteChannelController;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 
-import java.util.Optional;
+import java.io.ObjectStreamException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.StreamHandler;
@@ -19,18 +29,66 @@ import java.util.logging.StreamHandler;
  * Also, with reference to so-called "bakedInTags", these should point to an additional pre-initialised, ideally Immutable Set of String tags.
  * These additional tags should be stamped along-side any other potentially provided tags and tends to be most useful for things such as
  * distributed compute trace IDs or things such as concrete / unchanging environment variables.
+ * <p>
+ * Records may also be {@link #isPooled() pooled}, in which case they are handed out by an
+ * {@link ExtendedLogRecordPool} and reused once every holder has {@link #release() released} them. Anything which
+ * keeps hold of a pooled record beyond the call it was given in (such as an asynchronous queue) must
+ * {@link #retain() retain} it first.
+ * <p>
+ * The message of a record may also be {@link #withDeferredMessage deferred}, where an SLF4J style template and its
+ * arguments are kept in place of the message, and only formatted when something first asks for it.
  */
 @Getter
 public class ExtendedLogRecord extends LogRecord {
 
+    private static final VarHandle REFERENCES;
+    private static final AtomicLong POOLED_SEQUENCE_NUMBERS = new AtomicLong();
+
+    static {
+        try {
+            REFERENCES = MethodHandles.lookup().findVarHandle(ExtendedLogRecord.class, "references", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private Set<String> tags;
     private Set<String> bakedInTags;
     private Set<Class<? extends StreamHandler>> controllersWhichShouldDisregardThisMessage;
+    private boolean callerLocated;
+    private int sourceLineNumber;
+    private final boolean pooled;
+    @Getter(AccessLevel.NONE)
+    private final transient SingleTagSet singleTag;
+    @Getter(AccessLevel.NONE)
+    private final transient Object[] singleParameter;
+    @Getter(AccessLevel.NONE)
+    private transient DeferredMessage deferredMessage;
+    @Getter(AccessLevel.NONE)
+    private long pooledMillis;
+    @Getter(AccessLevel.NONE)
+    @SuppressWarnings("unused") // Accessed through the REFERENCES VarHandle.
+    private volatile int references;
 
     public ExtendedLogRecord(Level level, String msg) {
         super(level, msg);
-        Optional<CustomLevel> custom = CustomLevel.convertJulEquivalent(level);
-        custom.ifPresent(this::setLevel);
+        this.pooled = false;
+        this.singleTag = null;
+        this.singleParameter = null;
+        CustomLevel custom = CustomLevel.convertJulEquivalentOrNull(level);
+        if (custom != null) {
+            setLevel(custom);
+        }
+    }
+
+    /**
+     * Construct an empty record which will belong to an {@link ExtendedLogRecordPool}.
+     */
+    ExtendedLogRecord() {
+        super(Level.OFF, null);
+        this.pooled = true;
+        this.singleTag = new SingleTagSet();
+        this.singleParameter = new Object[1];
     }
 
     public ExtendedLogRecord(Level level, String msg, @NonNull Set<String> tags) {
@@ -42,13 +100,346 @@ public class ExtendedLogRecord extends LogRecord {
         this(level, msg, Set.of(tag));
     }
 
+    /**
+     * Attach a single tag to this record. This is equivalent to {@code Set.of(tag)}, but pooled records reuse the same
+     * set each time.
+     *
+     * @param tag The tag for this record.
+     * @return This record, for method chaining.
+     */
+    public ExtendedLogRecord withTag(@NonNull final String tag) {
+        if (pooled) {
+            singleTag.tag = tag;
+            this.tags = singleTag;
+        } else {
+            this.tags = Set.of(tag);
+        }
+        return this;
+    }
+
+    public ExtendedLogRecord withTags(final Set<String> tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    /**
+     * Attach a single parameter to this record. Pooled records reuse the same parameter array each time.
+     *
+     * @param param1 The parameter for this record.
+     * @return This record, for method chaining.
+     */
+    public ExtendedLogRecord withSingleParameter(final Object param1) {
+        if (pooled) {
+            singleParameter[0] = param1;
+            setParameters(singleParameter);
+        } else {
+            setParameters(new Object[]{param1});
+        }
+        return this;
+    }
+
+    /**
+     * Have this record's message formatted from the given SLF4J style template and arguments, but only once something
+     * first asks for it, which with asynchronous dispatch will be the background writer. The arguments must be safe to
+     * format later on, so should already be a snapshot of anything which might change in the meantime.
+     *
+     * @param template  The SLF4J style message template.
+     * @param arguments The arguments to substitute into the template.
+     * @return This record, for method chaining.
+     */
+    public ExtendedLogRecord withDeferredMessage(final String template, final Object[] arguments) {
+        super.setMessage(null);
+        this.deferredMessage = new DeferredMessage(template, arguments);
+        return this;
+    }
+
+    /**
+     * @return True if this record's message is still waiting to be formatted.
+     */
+    public boolean isMessageDeferred() {
+        return deferredMessage != null;
+    }
+
+    /**
+     * @return The SLF4J style template this record's message is still waiting to be formatted from, or null if the
+     * message is not {@link #isMessageDeferred() deferred}.
+     */
+    public String getDeferredTemplate() {
+        DeferredMessage deferred = deferredMessage;
+        return deferred == null ? null : deferred.template();
+    }
+
+    /**
+     * @return The arguments this record's message is still waiting to be formatted with, or null if the message is not
+     * {@link #isMessageDeferred() deferred}.
+     */
+    public Object[] getDeferredArguments() {
+        DeferredMessage deferred = deferredMessage;
+        return deferred == null ? null : deferred.arguments();
+    }
+
+    @Override
+    public String getMessage() {
+        DeferredMessage deferred = deferredMessage;
+        if (deferred != null) {
+            // Formatting the same template twice gives the same message, so a race here is harmless.
+            super.setMessage(MessageTemplate.format(deferred.template(), deferred.arguments()));
+            deferredMessage = null;
+        }
+        return super.getMessage();
+    }
+
+    @Override
+    public void setMessage(String message) {
+        deferredMessage = null;
+        super.setMessage(message);
+    }
+
     public ExtendedLogRecord referencingBakedInTags(final Set<String> bakedInTags) {
         this.bakedInTags = bakedInTags;
         return this;
     }
 
+    /**
+     * Record where this record was logged from. Unlike JUL's own inference, this is never done lazily, so is safe to read
+     * from any thread.
+     *
+     * @param className  The fully qualified name of the class which logged this record.
+     * @param methodName The name of the method which logged this record.
+     * @param lineNumber The line which logged this record, or a negative number if it isn't known.
+     * @return This record, for method chaining.
+     */
+    public ExtendedLogRecord withCallerLocation(final String className, final String methodName, final int lineNumber) {
+        setSourceClassName(className);
+        setSourceMethodName(methodName);
+        this.sourceLineNumber = lineNumber;
+        this.callerLocated = true;
+        return this;
+    }
+
+    /**
+     * @param controllersWhichShouldDisregardThisMessage The controllers which should disregard this record, or null for
+     *                                                   none. An unmodifiable copy is kept, so the set given can go on
+     *                                                   to change without affecting this record. Passing a set which is
+     *                                                   already unmodifiable, such as one from {@link Set#of}, avoids
+     *                                                   copying it each time.
+     * @return This record, for method chaining.
+     */
     public ExtendedLogRecord withControllersWhichShouldIgnore(final Set<Class<? extends StreamHandler>> controllersWhichShouldDisregardThisMessage) {
-        this.controllersWhichShouldDisregardThisMessage = controllersWhichShouldDisregardThisMessage;
+        this.controllersWhichShouldDisregardThisMessage = controllersWhichShouldDisregardThisMessage == null
+                ? null
+                : Set.copyOf(controllersWhichShouldDisregardThisMessage);
         return this;
     }
+
+    /**
+     * @param controllerClass The class of the controller about to handle this record.
+     * @return Whether a controller of that class should disregard this record, as one of its superclasses (or the class
+     * itself) is among the {@link #getControllersWhichShouldDisregardThisMessage() controllers to disregard it}.
+     */
+    public boolean isDisregardedBy(final Class<?> controllerClass) {
+        if (controllersWhichShouldDisregardThisMessage == null) {
+            return false;
+        }
+        for (Class<? extends StreamHandler> controllerWhichShouldDisregard : controllersWhichShouldDisregardThisMessage) {
+            if (isCoveredBy(controllerClass, controllerWhichShouldDisregard)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The file controllers used to be {@link FileHandler}s, so naming that class still picks out every one of them,
+     * though they now write to their files directly.
+     *
+     * @param controllerClass            The class of a controller.
+     * @param controllerToDisregardClass A class named among the controllers a record should be disregarded by.
+     * @return Whether the named class covers the controller, as it is the controller's class or one of its supertypes.
+     */
+    public static boolean isCoveredBy(final Class<?> controllerClass, final Class<?> controllerToDisregardClass) {
+        return controllerToDisregardClass.isAssignableFrom(controllerClass)
+                || (controllerToDisregardClass == FileHandler.class && ByteChannelController.class.isAssignableFrom(controllerClass));
+    }
+
+    @Override
+    public long getMillis() {
+        return pooled ? pooledMillis : super.getMillis();
+    }
+
+    @Override
+    public Instant getInstant() {
+        return pooled ? Instant.ofEpochMilli(pooledMillis) : super.getInstant();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setMillis(long millis) {
+        super.setMillis(millis);
+        this.pooledMillis = millis;
+    }
+
+    @Override
+    public void setInstant(Instant instant) {
+        super.setInstant(instant);
+        this.pooledMillis = instant.toEpochMilli();
+    }
+
+    /**
+     * Register an additional holder of this record, which must later call {@link #release()}. This has no effect on
+     * records which are not pooled.
+     */
+    public void retain() {
+        if (pooled) {
+            REFERENCES.getAndAdd(this, 1);
+        }
+    }
+
+    /**
+     * Give up a hold on this record. Once the last holder has released it, a pooled record is cleared and becomes
+     * available for reuse, so it must not be touched again. This has no effect on records which are not pooled.
+     */
+    public void release() {
+        if (!pooled) {
+            return;
+        }
+        while (true) {
+            int current = (int) REFERENCES.getVolatile(this);
+            if (current == 1) {
+                // We are the only holder, so nobody else can be retaining it concurrently. Clear it before giving it back.
+                clearForReuse();
+                REFERENCES.setRelease(this, 0);
+                return;
+            }
+            if (current < 1) {
+                throw new IllegalStateException("Pooled log record was released more times than it was retained.");
+            }
+            if (REFERENCES.compareAndSet(this, current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Attempt to claim this (pooled) record for a new log message. Only the thread owning the pool should call this.
+     *
+     * @return True if the record was free, and is now held by the caller.
+     */
+    boolean tryClaim() {
+        if ((int) REFERENCES.getAcquire(this) != 0) {
+            return false;
+        }
+        REFERENCES.setRelease(this, 1);
+        return true;
+    }
+
+    /**
+     * Re-initialise a claimed pooled record, in the same way the constructors would for a new record.
+     */
+    void reinitialise(final Level level, final String msg) {
+        CustomLevel custom = level instanceof CustomLevel ? null : CustomLevel.convertJulEquivalentOrNull(level);
+        setLevel(custom != null ? custom : level);
+        setMessage(msg);
+        setSequenceNumber(POOLED_SEQUENCE_NUMBERS.incrementAndGet());
+        setLongThreadID(Thread.currentThread().threadId());
+        pooledMillis = System.currentTimeMillis();
+        // Stop JUL from inferring the caller later on, possibly from a different thread.
+        setSourceClassName(null);
+        setSourceMethodName(null);
+    }
+
+    private void clearForReuse() {
+        setMessage(null);
+        setParameters(null);
+        setThrown(null);
+        setLoggerName(null);
+        setResourceBundle(null);
+        setResourceBundleName(null);
+        singleParameter[0] = null;
+        singleTag.tag = null;
+        tags = null;
+        bakedInTags = null;
+        controllersWhichShouldDisregardThisMessage = null;
+        callerLocated = false;
+        sourceLineNumber = 0;
+    }
+
+    /**
+     * @return An independent copy of this record, which is never pooled, so may be kept or changed however the holder
+     * likes. Any deferred message is formatted first. The parameters are copied into a new array, but are the same
+     * objects.
+     */
+    public ExtendedLogRecord copy() {
+        ExtendedLogRecord copy = new ExtendedLogRecord(getLevel(), getMessage());
+        copy.tags = tags == null ? null : Set.copyOf(tags);
+        copy.bakedInTags = bakedInTags;
+        copy.controllersWhichShouldDisregardThisMessage = controllersWhichShouldDisregardThisMessage;
+        copy.setSequenceNumber(getSequenceNumber());
+        copy.setLongThreadID(getLongThreadID());
+        copy.setInstant(getInstant());
+        copy.setLoggerName(getLoggerName());
+        copy.setThrown(getThrown());
+        copy.setParameters(getParameters() == null ? null : getParameters().clone());
+        copy.setResourceBundleName(getResourceBundleName());
+        copy.setSourceClassName(getSourceClassName());
+        copy.setSourceMethodName(getSourceMethodName());
+        copy.sourceLineNumber = sourceLineNumber;
+        copy.callerLocated = callerLocated;
+        return copy;
+    }
+
+    /**
+     * Pooled records are reused, so serialize an independent {@link #copy() copy} of them instead. Deferred messages are
+     * formatted first, either way.
+     *
+     * @return The object to serialize in place of this record.
+     * @throws ObjectStreamException Never, but required by the serialization contract.
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        // Only the formatted message survives serialization, so format it now if that has been deferred.
+        getMessage();
+        return pooled ? copy() : this;
+    }
+
+    private record DeferredMessage(String template, Object[] arguments) {
+    }
+
+    /**
+     * A set holding exactly one tag, which can be re-pointed at a new tag each time its pooled record is reused.
+     */
+    private static final class SingleTagSet extends AbstractSet<String> {
+
+        private String tag;
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private boolean consumed;
+
+                @Override
+                public boolean hasNext() {
+                    return !consumed;
+                }
+
+                @Override
+                public String next() {
+                    if (consumed) {
+                        throw new NoSuchElementException();
+                    }
+                    consumed = true;
+                    return tag;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return 1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return tag.equals(o);
+        }
+    }
 }
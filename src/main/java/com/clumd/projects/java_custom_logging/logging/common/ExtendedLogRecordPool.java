@@ -0,0 +1,61 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import lombok.Getter;
+
+import java.util.logging.Level;
+
+/**
+ * Hands out reusable {@link ExtendedLogRecord ExtendedLogRecords}, so that logging in a steady state does not need to
+ * allocate a new record for every message.
+ * <p>
+ * Every platform thread is given its own small set of records on first use. A record is claimed by the logging thread,
+ * and becomes free again once every holder has {@link ExtendedLogRecord#release() released} it - which may happen on a
+ * different thread, such as an asynchronous dispatcher. If all of a thread's records are still in use, or the caller is
+ * a virtual thread (where a per-thread set would rarely be reused), a plain, non-pooled record is created instead.
+ */
+public final class ExtendedLogRecordPool {
+
+    public static final int DEFAULT_RECORDS_PER_THREAD = 16;
+
+    @Getter
+    private final int recordsPerThread;
+    private final ThreadLocal<ExtendedLogRecord[]> threadRecords;
+
+    /**
+     * @param recordsPerThread The number of records each thread may have in flight at once before falling back to
+     *                         allocating.
+     */
+    public ExtendedLogRecordPool(final int recordsPerThread) {
+        if (recordsPerThread < 1) {
+            throw new IllegalArgumentException("A record pool must hold at least one record per thread.");
+        }
+        this.recordsPerThread = recordsPerThread;
+        this.threadRecords = ThreadLocal.withInitial(() -> {
+            ExtendedLogRecord[] records = new ExtendedLogRecord[recordsPerThread];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = new ExtendedLogRecord();
+            }
+            return records;
+        });
+    }
+
+    /**
+     * Obtain a record for a new log message, initialised as {@link ExtendedLogRecord#ExtendedLogRecord(Level, String)}
+     * would. The caller holds the only reference to it, and must {@link ExtendedLogRecord#release() release} it once done.
+     *
+     * @param level The level of the new message.
+     * @param msg   The (raw, unformatted) message.
+     * @return A pooled record if one was free, otherwise a newly allocated one.
+     */
+    public ExtendedLogRecord acquire(final Level level, final String msg) {
+        if (!Thread.currentThread().isVirtual()) {
+            for (ExtendedLogRecord candidate : threadRecords.get()) {
+                if (candidate.tryClaim()) {
+                    candidate.reinitialise(level, msg);
+                    return candidate;
+                }
+            }
+        }
+        return new ExtendedLogRecord(level, msg);
+    }
+}
@@ -0,0 +1,99 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Every {@link CustomLevel} which has been defined, indexed by name, by priority, and by the identity of any
+ * {@link Level} which has been resolved to one.
+ * <p>
+ * Levels are defined rarely, but resolved for every single log message, so resolving never takes a lock or allocates.
+ * Any {@link Level} seen before is resolved with a single lookup on its identity, falling back to matching on its name
+ * the first time only. Defining a level takes a lock, so that no two definitions of the same name can race.
+ */
+final class LevelRegistry {
+
+    // Only so many distinct Level instances are remembered by identity, in case something keeps making new ones.
+    static final int MAX_RESOLVED_LEVELS = 1024;
+
+    private final Map<String, CustomLevel> byName = new ConcurrentHashMap<>();
+    private final Map<Integer, CustomLevel> byPriority = new ConcurrentHashMap<>();
+    // Copied on write, so reads need no lock. Levels with no custom equivalent are remembered as an empty Optional.
+    private volatile IdentityHashMap<Level, Optional<CustomLevel>> resolved = new IdentityHashMap<>();
+
+    /**
+     * Define a new level, or return the existing one of that name.
+     *
+     * @param upperCaseName The name of the level, already in upper case.
+     * @param priority      The priority the level should have.
+     * @param levelFormat   The format the level should have.
+     * @param factory       Used to create the level, only if there is not one already.
+     * @return The one level defined by that name.
+     * @throws IllegalArgumentException Thrown if a level of that name already exists with a different priority or format.
+     */
+    synchronized CustomLevel define(final String upperCaseName, final int priority, final String levelFormat, final Supplier<CustomLevel> factory) {
+        CustomLevel existing = byName.get(upperCaseName);
+        if (existing != null) {
+            if (existing.getPriority() != priority || !existing.getLevelFormat().equals(levelFormat)) {
+                throw new IllegalArgumentException("A CustomLevel already exists with that name, but with a different priority or format.");
+            }
+            return existing;
+        }
+
+        CustomLevel level = factory.get();
+        byName.put(level.getLevelName(), level);
+        // Where several levels share a priority, the first one defined stands for that priority.
+        byPriority.putIfAbsent(priority, level);
+
+        // A Level previously resolved by name may now have a custom equivalent, so start the identity cache afresh.
+        IdentityHashMap<Level, Optional<CustomLevel>> fresh = new IdentityHashMap<>();
+        byName.values().forEach(defined -> fresh.put(defined, Optional.of(defined)));
+        resolved = fresh;
+        return level;
+    }
+
+    /**
+     * @param level Any level.
+     * @return The custom level with the same name as the given level, which may be the given level itself, or empty if
+     * there is none.
+     */
+    Optional<CustomLevel> resolve(final Level level) {
+        Optional<CustomLevel> known = resolved.get(level);
+        return known != null ? known : resolveByName(level);
+    }
+
+    /**
+     * @param name A level name, in any case.
+     * @return The custom level of that name, or null if there is none.
+     */
+    CustomLevel byName(final String name) {
+        CustomLevel exact = byName.get(name);
+        return exact != null ? exact : byName.get(name.toUpperCase());
+    }
+
+    /**
+     * @param priority A level priority.
+     * @return The first custom level defined with that priority, or null if there is none.
+     */
+    CustomLevel byPriority(final int priority) {
+        return byPriority.get(priority);
+    }
+
+    private synchronized Optional<CustomLevel> resolveByName(final Level level) {
+        Optional<CustomLevel> known = resolved.get(level);
+        if (known != null) {
+            return known;
+        }
+        known = Optional.ofNullable(byName.get(level.getName().toUpperCase()));
+        if (resolved.size() < MAX_RESOLVED_LEVELS) {
+            IdentityHashMap<Level, Optional<CustomLevel>> updated = new IdentityHashMap<>(resolved);
+            updated.put(level, known);
+            resolved = updated;
+        }
+        return known;
+    }
+}
@@ -0,0 +1,172 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An SLF4J style message template (such as {@code "User {} logged in from {}"}), parsed once into its literal segments
+ * and placeholders, so formatting it is a straight append of segments and arguments.
+ * <p>
+ * The output is always the same as {@link MessageFormatter#arrayFormat(String, Object[])} would give, including its
+ * rules for escaping placeholders ({@code \{}} is a literal {@code {}}, and {@code \\{}} is a backslash followed by a
+ * placeholder), the way arrays are rendered, and a Throwable given as the last argument being left out of the message.
+ * <p>
+ * Templates are cached on the identity of their format string, as log statements almost always use the very same
+ * constant for every call. Each format string maps to a single slot, so two which collide simply take turns; the cache
+ * never grows.
+ */
+public final class MessageTemplate {
+
+    private static final String PLACEHOLDER = "{}";
+    private static final int CACHE_SLOTS = 1024;
+    // Templates are immutable, so they can be safely read from the cache without a lock, even if a slot is replaced.
+    private static final MessageTemplate[] CACHE = new MessageTemplate[CACHE_SLOTS];
+
+    @Getter
+    private final String pattern;
+    // The literal text before each placeholder, already unescaped, and where in the pattern each placeholder ends.
+    private final String[] literals;
+    private final int[] placeholderEnds;
+    // The unescaped text after the last placeholder, for when there are more arguments than placeholders.
+    private final String unescapedTail;
+
+    private MessageTemplate(final String pattern) {
+        this.pattern = pattern;
+
+        // Scan the pattern exactly as MessageFormatter would, were there always another argument to substitute.
+        List<String> literalsFound = new ArrayList<>();
+        List<Integer> endsFound = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int from = 0;
+        int placeholder;
+        while ((placeholder = pattern.indexOf(PLACEHOLDER, from)) >= 0) {
+            boolean escaped = placeholder > 0 && pattern.charAt(placeholder - 1) == '\\';
+            if (escaped && !(placeholder > 1 && pattern.charAt(placeholder - 2) == '\\')) {
+                // An escaped placeholder is just a literal '{', and the '}' is picked up as part of the next literal.
+                literal.append(pattern, from, placeholder - 1).append('{');
+                from = placeholder + 1;
+                continue;
+            }
+            // A doubly escaped placeholder loses one backslash, but is otherwise a placeholder like any other.
+            literal.append(pattern, from, escaped ? placeholder - 1 : placeholder);
+            literalsFound.add(literal.toString());
+            literal.setLength(0);
+            from = placeholder + 2;
+            endsFound.add(from);
+        }
+
+        this.literals = literalsFound.toArray(new String[0]);
+        this.placeholderEnds = endsFound.stream().mapToInt(Integer::intValue).toArray();
+        this.unescapedTail = literal.append(pattern, from, pattern.length()).toString();
+    }
+
+    /**
+     * @param pattern An SLF4J style format string.
+     * @return The parsed template for that format string, which is only parsed the first time it is seen.
+     */
+    public static MessageTemplate of(@NonNull final String pattern) {
+        int slot = System.identityHashCode(pattern) & (CACHE_SLOTS - 1);
+        MessageTemplate cached = CACHE[slot];
+        if (cached != null && cached.pattern == pattern) {
+            return cached;
+        }
+        MessageTemplate template = new MessageTemplate(pattern);
+        CACHE[slot] = template;
+        return template;
+    }
+
+    /**
+     * The equivalent of {@code MessageFormatter.arrayFormat(pattern, arguments).getMessage()}.
+     *
+     * @param pattern   An SLF4J style format string, which may be null.
+     * @param arguments The arguments to substitute into it, which may be null.
+     * @return The formatted message, or null if the pattern was null.
+     */
+    public static String format(final String pattern, final Object[] arguments) {
+        if (pattern == null) {
+            return null;
+        }
+        if (arguments == null || arguments.length == 0) {
+            return pattern;
+        }
+        return of(pattern).format(arguments);
+    }
+
+    /**
+     * @param arguments The arguments to substitute into this template, which may be null.
+     * @return The formatted message.
+     */
+    public String format(final Object[] arguments) {
+        if (arguments == null) {
+            return pattern;
+        }
+        StringBuilder message = new StringBuilder(pattern.length() + 50);
+        appendTo(message, arguments);
+        return message.toString();
+    }
+
+    /**
+     * Append the formatted message to the given buffer, without building an intermediate String.
+     *
+     * @param into      Where to append the message.
+     * @param arguments The arguments to substitute into this template, which may be null.
+     */
+    public void appendTo(@NonNull final StringBuilder into, final Object[] arguments) {
+        if (arguments == null) {
+            into.append(pattern);
+            return;
+        }
+        // As with SLF4J, a Throwable given last is meant as the record's Throwable, not a value for the message.
+        int usable = arguments.length > 0 && arguments[arguments.length - 1] instanceof Throwable
+                ? arguments.length - 1
+                : arguments.length;
+
+        int substituted = 0;
+        int patternPosition = 0;
+        while (substituted < literals.length && substituted < usable) {
+            into.append(literals[substituted]);
+            appendArgument(into, arguments[substituted]);
+            patternPosition = placeholderEnds[substituted];
+            substituted++;
+        }
+        if (substituted == usable) {
+            // SLF4J stops scanning once it runs out of arguments, so anything after is left exactly as written.
+            into.append(pattern, patternPosition, pattern.length());
+        } else {
+            into.append(unescapedTail);
+        }
+    }
+
+    /**
+     * @param argument A single argument.
+     * @return The argument, rendered exactly as it would be when substituted into a template.
+     */
+    public static String renderArgument(final Object argument) {
+        if (argument instanceof String text) {
+            return text;
+        }
+        StringBuilder rendered = new StringBuilder();
+        appendArgument(rendered, argument);
+        return rendered.toString();
+    }
+
+    private static void appendArgument(final StringBuilder into, final Object argument) {
+        if (argument == null) {
+            into.append("null");
+        } else if (argument.getClass().isArray()) {
+            // Arrays are rare, so leave their (recursive) rendering to SLF4J.
+            into.append(MessageFormatter.basicArrayFormat(PLACEHOLDER, new Object[]{argument}));
+        } else {
+            try {
+                into.append(argument.toString());
+            } catch (Exception e) {
+                // Let SLF4J report the failure, and render it the way it always has.
+                into.append(MessageFormatter.basicArrayFormat(PLACEHOLDER, new Object[]{argument}));
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import lombok.NonNull;
+
+import java.io.Serializable;
+
+/**
+ * Stands in for a {@link LoggableData} parameter once its record has to outlive the data's current state, such as when
+ * its formatting is deferred to a background writer, or an asynchronous dispatcher spills it to disk. The controllers
+ * still lay it out as {@link LoggableData}, with the text the original had formatted itself as at the time.
+ *
+ * @param formattedLogData As rendered by {@link LoggableData#getFormattedLogData()}.
+ */
+public record RenderedData(String formattedLogData) implements LoggableData, Serializable {
+
+    /**
+     * @param loggableData The data to render.
+     * @return The data, as it currently formats itself.
+     */
+    public static RenderedData of(@NonNull final LoggableData loggableData) {
+        return loggableData instanceof RenderedData rendered
+                ? rendered
+                : new RenderedData(loggableData.getFormattedLogData());
+    }
+
+    @Override
+    public String getFormattedLogData() {
+        return formattedLogData;
+    }
+
+    @Override
+    public String toString() {
+        return formattedLogData;
+    }
+}
@@ -0,0 +1,26 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import com.clumd.projects.javajson.api.Json;
+import lombok.NonNull;
+
+import java.io.Serializable;
+
+/**
+ * Stands in for a {@link Json} parameter once its record has to outlive the Json's current state, such as when its
+ * formatting is deferred to a background writer, or an asynchronous dispatcher spills it to disk. The Json is rendered up front in each of the ways the controllers render Json, so that
+ * the record reads exactly the same when it is finally written.
+ *
+ * @param full   As rendered by {@link Json#asString()}.
+ * @param dense  As rendered by {@link Json#asString(int) asString(2)}.
+ * @param pretty As rendered by {@link Json#asPrettyString(int) asPrettyString(2)}.
+ */
+public record RenderedJson(String full, String dense, String pretty) implements Serializable {
+
+    /**
+     * @param json The Json to render.
+     * @return The Json, rendered in each of the ways the controllers render it.
+     */
+    public static RenderedJson of(@NonNull final Json json) {
+        return new RenderedJson(json.asString(), json.asString(2), json.asPrettyString(2));
+    }
+}
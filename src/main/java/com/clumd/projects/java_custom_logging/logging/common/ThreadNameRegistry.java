@@ -0,0 +1,301 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent, size-bounded mapping between Thread IDs and the human-readable names they should be logged under.
+ * <p>
+ * Names are usually registered by the thread they describe, in which case the registry also keeps a weak reference to
+ * that thread, and forgets the name again once the thread has died and been collected. This matters with virtual
+ * threads, where a long-running application may see millions of distinct thread IDs come and go. On top of that, the
+ * registry never holds more than its configured maximum number of names: once full, names of dead threads are dropped
+ * first, then arbitrary others, until there is some headroom again.
+ * <p>
+ * Controllers look names up once per record, so {@link #nameFor(long)} is served from a small direct-mapped cache keyed
+ * on the primitive thread ID, and only falls back to the (boxed) backing map on a miss.
+ * <p>
+ * This is a {@link Map} so that it can be handed to {@link com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler
+ * CustomLogHandlers} as before, but the view it gives is a live, weakly consistent one.
+ */
+public final class ThreadNameRegistry extends AbstractMap<Long, String> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+    private static final int CACHE_SLOTS = 1 << 10;
+    private static final int CACHE_MASK = CACHE_SLOTS - 1;
+
+    @Getter
+    private final int maxEntries;
+    private final int evictDownTo;
+    private final ConcurrentHashMap<Long, Entry> names = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Entry> cache = new AtomicReferenceArray<>(CACHE_SLOTS);
+    private final ReferenceQueue<Thread> deadThreads = new ReferenceQueue<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    public ThreadNameRegistry() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries The most thread names this registry will hold at once.
+     */
+    public ThreadNameRegistry(final int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("A thread name registry must be able to hold at least one name.");
+        }
+        this.maxEntries = maxEntries;
+        this.evictDownTo = Math.max(1, maxEntries - Math.max(1, maxEntries / 10));
+    }
+
+    /**
+     * Look up a thread name in the given map, avoiding boxing the ID when that map is a {@link ThreadNameRegistry}.
+     *
+     * @param threadNames The map of thread names a controller was given.
+     * @param threadID    The ID of the thread to name.
+     * @return The registered name, or null if there is none.
+     */
+    public static String lookup(@NonNull final Map<Long, String> threadNames, final long threadID) {
+        if (threadNames instanceof ThreadNameRegistry registry) {
+            return registry.nameFor(threadID);
+        }
+        return threadNames.get(threadID);
+    }
+
+    /**
+     * Register a name for the given thread ID. If the ID is that of the calling thread, the name will be forgotten
+     * automatically once that thread has died.
+     *
+     * @param threadID   The ID of the thread to name.
+     * @param threadName The name to log that thread under.
+     */
+    public void register(final long threadID, @NonNull final String threadName) {
+        Thread current = Thread.currentThread();
+        register(threadID, threadName, current.threadId() == threadID ? current : null);
+    }
+
+    /**
+     * Register a name for the given thread, which will be forgotten automatically once that thread has died.
+     *
+     * @param thread     The thread to name.
+     * @param threadName The name to log that thread under.
+     */
+    public void register(@NonNull final Thread thread, @NonNull final String threadName) {
+        register(thread.threadId(), threadName, thread);
+    }
+
+    /**
+     * @param threadID The ID of the thread to name.
+     * @return The registered name for that thread, or null if there is none.
+     */
+    public String nameFor(final long threadID) {
+        final int slot = slotFor(threadID);
+        Entry cached = cache.get(slot);
+        if (cached != null && cached.threadID == threadID) {
+            return cached.name;
+        }
+
+        Entry found = names.get(threadID);
+        if (found == null) {
+            return null;
+        }
+        if (cache.compareAndSet(slot, cached, found) && names.get(threadID) != found) {
+            // The name was replaced or removed while we were caching it, so don't leave a stale copy behind.
+            cache.compareAndSet(slot, found, null);
+        }
+        return found.name;
+    }
+
+    @Override
+    public String get(final Object key) {
+        return key instanceof Long threadID ? nameFor(threadID) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public String put(@NonNull final Long threadID, @NonNull final String threadName) {
+        return register(threadID, threadName, null);
+    }
+
+    @Override
+    public String remove(final Object key) {
+        if (!(key instanceof Long threadID)) {
+            return null;
+        }
+        Entry removed = names.remove(threadID);
+        if (removed == null) {
+            return null;
+        }
+        forget(removed);
+        return removed.name;
+    }
+
+    @Override
+    public void clear() {
+        for (Entry entry : names.values()) {
+            if (names.remove(entry.threadID, entry)) {
+                forget(entry);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return names.size();
+    }
+
+    @Override
+    public Set<Map.Entry<Long, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Long, String>> iterator() {
+                Iterator<Entry> entries = names.values().iterator();
+                return new Iterator<>() {
+                    private Entry last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<Long, String> next() {
+                        last = entries.next();
+                        return Map.entry(last.threadID, last.name);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) {
+                            throw new IllegalStateException();
+                        }
+                        if (names.remove(last.threadID, last)) {
+                            forget(last);
+                        }
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return names.size();
+            }
+        };
+    }
+
+    private String register(final long threadID, final String threadName, final Thread thread) {
+        expungeDeadThreads();
+
+        Entry existing = names.get(threadID);
+        if (existing != null && existing.name.equals(threadName) && existing.isFor(thread)) {
+            // The common case of a thread re-registering the same name (e.g. for every logger it creates) is a no-op.
+            return existing.name;
+        }
+
+        Entry replacement = new Entry(threadID, threadName, thread == null ? null : new ThreadReference(thread, threadID, deadThreads));
+        Entry[] previous = new Entry[1];
+        names.compute(threadID, (id, current) -> {
+            // Update the cache while holding this key, so competing registrations can't leave it stale.
+            previous[0] = current;
+            cache.set(slotFor(threadID), replacement);
+            return replacement;
+        });
+        if (previous[0] != null) {
+            previous[0].clearReference();
+        }
+
+        if (names.size() > maxEntries) {
+            evict();
+        }
+        return previous[0] == null ? null : previous[0].name;
+    }
+
+    private void expungeDeadThreads() {
+        ThreadReference dead;
+        while ((dead = (ThreadReference) deadThreads.poll()) != null) {
+            Entry entry = names.get(dead.threadID);
+            if (entry != null && entry.thread == dead && names.remove(dead.threadID, entry)) {
+                forget(entry);
+            }
+        }
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return; // Someone else is already making room.
+        }
+        try {
+            // Prefer forgetting threads we know to be finished, before resorting to ones which may still be running.
+            for (Entry entry : names.values()) {
+                if (entry.isDead() && names.remove(entry.threadID, entry)) {
+                    forget(entry);
+                }
+            }
+            Iterator<Entry> entries = names.values().iterator();
+            while (names.size() > evictDownTo && entries.hasNext()) {
+                Entry entry = entries.next();
+                if (names.remove(entry.threadID, entry)) {
+                    forget(entry);
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void forget(final Entry entry) {
+        entry.clearReference();
+        cache.compareAndSet(slotFor(entry.threadID), entry, null);
+    }
+
+    private static int slotFor(final long threadID) {
+        // Thread IDs are handed out sequentially, so the low bits alone spread them well.
+        return (int) (threadID ^ (threadID >>> 32)) & CACHE_MASK;
+    }
+
+    private record Entry(long threadID, String name, ThreadReference thread) {
+
+        boolean isFor(final Thread candidate) {
+            return thread == null ? candidate == null : thread.get() == candidate;
+        }
+
+        boolean isDead() {
+            if (thread == null) {
+                return false;
+            }
+            Thread referent = thread.get();
+            return referent == null || referent.getState() == Thread.State.TERMINATED;
+        }
+
+        void clearReference() {
+            if (thread != null) {
+                thread.clear();
+            }
+        }
+    }
+
+    private static final class ThreadReference extends WeakReference<Thread> {
+
+        private final long threadID;
+
+        ThreadReference(final Thread thread, final long threadID, final ReferenceQueue<Thread> queue) {
+            super(thread, queue);
+            this.threadID = threadID;
+        }
+    }
+}
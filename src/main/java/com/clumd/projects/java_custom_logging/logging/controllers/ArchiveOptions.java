@@ -0,0 +1,68 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import lombok.Getter;
+
+import java.util.zip.Deflater;
+
+/**
+ * Describes how the file controllers should keep the history of their rotated log files, when they are compressed
+ * rather than kept as a fixed number of plain generations.
+ * <p>
+ * Use the static factory to pick a disk budget, then chain any of the 'with' methods to tune it. For example
+ * {@code ArchiveOptions.gzipWithinBudget(1_000_000_000L).withCompressionThreads(4)}.
+ */
+@Getter
+public final class ArchiveOptions {
+
+    public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    public static final int DEFAULT_COMPRESSION_THREADS = 1;
+
+    private final long diskBudget;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private int compressionThreads = DEFAULT_COMPRESSION_THREADS;
+
+    private ArchiveOptions(final long diskBudget) {
+        this.diskBudget = diskBudget;
+    }
+
+    /**
+     * Every rotated file will be gzipped in the background, and the oldest archives deleted whenever they take up more
+     * than the given space in total.
+     *
+     * @param diskBudget The most space, in bytes, the archived (i.e. not currently active) log files may use.
+     * @return Options for gzip archival.
+     */
+    public static ArchiveOptions gzipWithinBudget(final long diskBudget) {
+        if (diskBudget < 1) {
+            throw new IllegalArgumentException("The log archive disk budget must be positive.");
+        }
+        return new ArchiveOptions(diskBudget);
+    }
+
+    /**
+     * @param compressionLevel The {@link Deflater} level to compress with, from 0 (none) to 9 (best), or -1 for the
+     *                         default.
+     * @return This options instance, for method chaining.
+     */
+    public ArchiveOptions withCompressionLevel(final int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("The compression level must be between -1 and 9, but was: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    /**
+     * @param compressionThreads How many threads may compress a single archive at once. With more than one, the file is
+     *                           split into blocks which are compressed in parallel, at a slight cost to the compression
+     *                           ratio. The result is still a single, standard gzip file.
+     * @return This options instance, for method chaining.
+     */
+    public ArchiveOptions withCompressionThreads(final int compressionThreads) {
+        if (compressionThreads < 1) {
+            throw new IllegalArgumentException("At least one compression thread is needed.");
+        }
+        this.compressionThreads = compressionThreads;
+        return this;
+    }
+}
@@ -0,0 +1,553 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.MessageTemplate;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.java_custom_logging.logging.common.ThreadNameRegistry;
+import com.clumd.projects.javajson.api.Json;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static com.clumd.projects.java_custom_logging.logging.LogRoot.ANON_THREAD;
+import static com.clumd.projects.java_custom_logging.logging.controllers.BinaryLogFormat.*;
+
+/**
+ * A file controller which writes a compact binary log, rather than a line of JSON per record.
+ * <p>
+ * Anything which repeats from record to record, such as message templates, logger names, tags and stack frames, is
+ * written once to a dictionary within the file, and from then on referred to by a small integer id. Records themselves
+ * only hold those ids, the time since the previous record, the thread, and any values which vary, with numbers and
+ * other simple values kept in binary rather than rendered as text.
+ * <p>
+ * Messages are only kept as a template plus arguments when their formatting has been
+ * {@link com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions#withDeferredFormatting() deferred};
+ * otherwise the formatted message is written as it is.
+ * <p>
+ * Each file starts a fresh dictionary, so any file, including those rotated out or archived, can be turned back into
+ * exactly the lines a {@link FileController} would have written by the {@link BinaryLogDecoder}. See
+ * {@link BinaryLogFormat} for the layout of the file.
+ */
+public class BinaryFileController extends ByteChannelController {
+
+    private static final String ANON_LOGGER = "Anon/Unknown Logger";
+
+    private final BinaryFormat binaryFormat = new BinaryFormat();
+    private String traceID;
+    private String publisher;
+    private Map<Long, String> overriddenThreadNames;
+    private volatile ThrowableRenderer throwableRenderer = ThrowableRenderer.DEFAULT;
+
+    /**
+     * Pass-through constructor ensuring we will use the binary formatter, and match ALL records.
+     *
+     * @param pathToLogFile     The pattern to match for the logfile's title.
+     * @param singleFileLogSize This is the max file size before the logger will rotate files (in regular Bytes).
+     * @param logFileRotations  This is the max number of log files to keep in rotation before overwriting the first
+     *                          one.
+     * @param appendMode        Whether to keep any existing content in the current file, rather than truncating it.
+     * @throws IOException       Thrown if we cannot find the location or there is an error getting it.
+     * @throws SecurityException Thrown if we do not have the correct permissions to be writing to this location.
+     */
+    public BinaryFileController(
+            String pathToLogFile,
+            long singleFileLogSize,
+            int logFileRotations,
+            boolean appendMode
+    ) throws IOException, SecurityException {
+        super(pathToLogFile, singleFileLogSize, logFileRotations, appendMode);
+        super.setFormatter(binaryFormat);
+        this.setLevel(Level.ALL);
+    }
+
+    /**
+     * Pass-through constructor ensuring we will use the binary formatter, and match ALL records. Rotated files are
+     * compressed in the background rather than kept as a fixed number of generations.
+     *
+     * @param pathToLogFile     The pattern to match for the logfile's title.
+     * @param singleFileLogSize This is the max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions    How to compress and retain the rotated files.
+     * @param appendMode        Whether to keep any existing content in the current file, rather than truncating it.
+     * @throws IOException       Thrown if we cannot find the location or there is an error getting it.
+     * @throws SecurityException Thrown if we do not have the correct permissions to be writing to this location.
+     */
+    public BinaryFileController(
+            String pathToLogFile,
+            long singleFileLogSize,
+            @NonNull ArchiveOptions archiveOptions,
+            boolean appendMode
+    ) throws IOException, SecurityException {
+        super(pathToLogFile, singleFileLogSize, archiveOptions, appendMode);
+        super.setFormatter(binaryFormat);
+        this.setLevel(Level.ALL);
+    }
+
+    /**
+     * @param stackTraceOptions How stack traces should be rendered. They are rendered as records are written, leaving
+     *                          the file with just the lines (and any reference to a repeated trace) which a
+     *                          {@link FileController} with the same options would have written.
+     * @return This controller, for method chaining.
+     */
+    public BinaryFileController withStackTraceOptions(@NonNull StackTraceOptions stackTraceOptions) {
+        this.throwableRenderer = new ThrowableRenderer(stackTraceOptions);
+        return this;
+    }
+
+    @Override
+    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+        synchronized (binaryFormat) {
+            this.traceID = specificRunID.toString();
+            this.publisher = systemID;
+            this.overriddenThreadNames = overriddenThreadNames;
+            // The trace ID and publisher are written once per session, so start a new one to record the new values.
+            binaryFormat.startedNewFile();
+        }
+    }
+
+    /**
+     * Encodes each record, along with any dictionary entries it needs which haven't been written yet, into reusable
+     * buffers.
+     * <p>
+     * Nothing a record adds to the dictionaries (nor the session it may start) is relied upon by later records until
+     * the controller confirms the record has been {@link #recordWritten() written}, so that a failed write can never
+     * leave later records referring to definitions the file doesn't hold.
+     */
+    private final class BinaryFormat extends RecordFormat {
+
+        private final String zone = ZoneId.systemDefault().getId();
+        private final BinarySink definitions = new BinarySink();
+        private final BinarySink record = new BinarySink();
+        private final StringBuilder renderedData = new StringBuilder();
+        private final ErrorLines errorLines = new ErrorLines();
+        private final Dictionary<String> strings = new Dictionary<>(new HashMap<>(), new HashMap<>());
+        private final Dictionary<Set<String>> tagSets = new Dictionary<>(new HashMap<>(), new HashMap<>());
+        private final Dictionary<Level> levels = new Dictionary<>(new IdentityHashMap<>(), new IdentityHashMap<>());
+        private boolean sessionNeeded = true;
+        private boolean startingSession;
+        private long previousMillis;
+        private long encodedMillis;
+
+        @Override
+        protected void startedNewFile() {
+            sessionNeeded = true;
+        }
+
+        /**
+         * Only used when called upon as a regular {@link java.util.logging.Formatter}. The record is encoded on its own,
+         * in a session of its own so the file's dictionaries are left alone, then decoded straight back to the line a
+         * {@link FileController} would have written, as the {@link BinaryLogDecoder} would.
+         */
+        @Override
+        protected CharSequence encode(LogRecord logRecord) {
+            ByteBuffer encoded = new BinaryFormat().encodeBinary(logRecord);
+            StringBuilder line = reusableBuffer();
+            try {
+                BinaryLogDecoder.decode(
+                        new ByteArrayInputStream(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining()),
+                        line
+                );
+            } catch (IOException e) {
+                // Only possible if the encoder and decoder disagree, as nothing here touches the file system.
+                throw new UncheckedIOException("Failed to decode a binary log record.", e);
+            }
+            return line;
+        }
+
+        @Override
+        protected void recordWritten() {
+            strings.commit();
+            tagSets.commit();
+            levels.commit();
+            previousMillis = encodedMillis;
+            if (startingSession) {
+                sessionNeeded = false;
+            }
+        }
+
+        @Override
+        protected ByteBuffer encodeBinary(LogRecord logRecord) {
+            definitions.reset();
+            record.reset();
+            startingSession = sessionNeeded || strings.isFull() || tagSets.isFull();
+            strings.begin(startingSession);
+            tagSets.begin(startingSession);
+            levels.begin(startingSession);
+            final long sinceMillis = startingSession ? startSession(logRecord.getMillis()) : previousMillis;
+
+            final long threadID = logRecord.getLongThreadID();
+            final String threadName = overriddenThreadNames == null
+                    ? null
+                    : ThreadNameRegistry.lookup(overriddenThreadNames, threadID);
+            record.putByte(RECORD)
+                    .putSignedVarLong(logRecord.getMillis() - sinceMillis)
+                    .putVarLong(threadID)
+                    .putVarLong(stringId(Objects.requireNonNullElse(threadName, ANON_THREAD)))
+                    .putVarLong(levelId(logRecord.getLevel()))
+                    .putVarLong(stringId(Objects.requireNonNullElse(logRecord.getLoggerName(), ANON_LOGGER)));
+            encodedMillis = logRecord.getMillis();
+
+            // Work out which optional sections are present, so the flags can go ahead of them.
+            String template = null;
+            Object[] arguments = null;
+            Set<String> bakedInTags = null;
+            Set<String> tags = null;
+            if (logRecord instanceof ExtendedLogRecord elr) {
+                template = elr.getDeferredTemplate();
+                arguments = elr.getDeferredArguments();
+                bakedInTags = elr.getBakedInTags() == null || elr.getBakedInTags().isEmpty() ? null : elr.getBakedInTags();
+                tags = elr.getTags() == null || elr.getTags().isEmpty() ? null : elr.getTags();
+            }
+            final Object[] metadata = logRecord.getParameters();
+            int flags = 0;
+            flags |= template != null ? HAS_TEMPLATE : 0;
+            flags |= bakedInTags != null ? HAS_BAKED_IN_TAGS : 0;
+            flags |= tags != null ? HAS_TAGS : 0;
+            flags |= logRecord.getThrown() != null ? HAS_ERROR : 0;
+            flags |= metadata != null && metadata.length > 0 ? HAS_METADATA : 0;
+            record.putByte(flags);
+
+            if (template != null) {
+                writeTemplatedMessage(template, arguments);
+            } else {
+                record.putNullableString(logRecord.getMessage());
+            }
+            if (bakedInTags != null) {
+                record.putVarLong(tagSetId(bakedInTags));
+            }
+            if (tags != null) {
+                record.putVarLong(tagSetId(tags));
+            }
+            if (logRecord.getThrown() != null) {
+                throwableRenderer.render(logRecord.getThrown(), errorLines);
+                errorLines.end();
+            }
+            if ((flags & HAS_METADATA) != 0) {
+                record.putVarLong(metadata.length);
+                for (Object data : metadata) {
+                    writeMetadata(data);
+                }
+            }
+
+            return definitions.append(record).asByteBuffer();
+        }
+
+        private long startSession(final long startMillis) {
+            definitions.putByte(SESSION)
+                    .putInt(MAGIC)
+                    .putVarLong(VERSION)
+                    .putVarLong(startMillis)
+                    .putString(zone)
+                    .putNullableString(traceID)
+                    .putNullableString(publisher);
+            return startMillis;
+        }
+
+        private void writeTemplatedMessage(final String template, final Object[] arguments) {
+            // As with formatting, a Throwable given last is meant as the record's Throwable, not a value for the message.
+            int usable = arguments == null ? 0 : arguments.length;
+            if (usable > 0 && arguments[usable - 1] instanceof Throwable) {
+                usable--;
+            }
+            record.putVarLong(stringId(template)).putVarLong(usable);
+            for (int i = 0; i < usable; i++) {
+                if (!writeSimpleValue(arguments[i])) {
+                    record.putByte(VALUE_STRING).putString(MessageTemplate.renderArgument(arguments[i]));
+                }
+            }
+        }
+
+        private void writeMetadata(final Object data) {
+            switch (data) {
+                case null -> record.putByte(VALUE_NULL);
+                case LoggableData loggableData -> {
+                    renderedData.setLength(0);
+                    LoggableDataSink.write(loggableData, renderedData);
+                    record.putByte(VALUE_STRING).putString(renderedData);
+                }
+                case Json json -> record.putByte(VALUE_JSON).putString(json.asString());
+                case RenderedJson json -> record.putByte(VALUE_JSON).putString(json.full());
+                default -> {
+                    if (!writeSimpleValue(data)) {
+                        record.putByte(VALUE_STRING).putString(data.toString());
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return True if the value was one which can be written in binary, false if it must be rendered as a String.
+         */
+        private boolean writeSimpleValue(final Object value) {
+            switch (value) {
+                case null -> record.putByte(VALUE_NULL);
+                case String text -> record.putByte(VALUE_STRING).putString(text);
+                case Integer number -> record.putByte(VALUE_INTEGER).putSignedVarLong(number);
+                case Long number -> record.putByte(VALUE_INTEGER).putSignedVarLong(number);
+                case Short number -> record.putByte(VALUE_INTEGER).putSignedVarLong(number);
+                case Byte number -> record.putByte(VALUE_INTEGER).putSignedVarLong(number);
+                case Double number -> record.putByte(VALUE_DOUBLE).putLong(Double.doubleToRawLongBits(number));
+                case Float number -> record.putByte(VALUE_FLOAT).putInt(Float.floatToRawIntBits(number));
+                case Boolean flag -> record.putByte(flag ? VALUE_TRUE : VALUE_FALSE);
+                case Character character -> record.putByte(VALUE_CHARACTER).putVarLong(character);
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Writes each line of a rendered error as the string id of everything but its message, which rarely repeats so
+         * is written in place. A zero ends the lines, followed by the reference to the trace, if there is one.
+         */
+        private final class ErrorLines implements ThrowableRenderer.LineSink {
+
+            private final StringBuilder line = new StringBuilder();
+            private boolean hasMessage;
+            private String message;
+            private String reference;
+            private long repeats;
+
+            @Override
+            public void beginLine() {
+                line.setLength(0);
+                hasMessage = false;
+            }
+
+            @Override
+            public void part(String part) {
+                line.append(part);
+            }
+
+            @Override
+            public void message(String message) {
+                this.hasMessage = true;
+                this.message = message;
+            }
+
+            @Override
+            public void endLine() {
+                record.putVarLong(((stringId(line.toString()) + 1L) << 1) | (hasMessage ? 1 : 0));
+                if (hasMessage) {
+                    record.putNullableString(message);
+                }
+            }
+
+            @Override
+            public void traceReference(String reference, long repeats) {
+                this.reference = reference;
+                this.repeats = repeats;
+            }
+
+            void end() {
+                record.putVarLong(0);
+                if (reference == null) {
+                    record.putVarLong(0);
+                } else {
+                    record.putVarLong(repeats + 1).putVarLong(stringId(reference));
+                    reference = null;
+                }
+            }
+        }
+
+        private int stringId(final String value) {
+            Integer id = strings.get(value);
+            if (id == null) {
+                id = strings.add(value);
+                definitions.putByte(STRING).putString(value);
+            }
+            return id;
+        }
+
+        private int tagSetId(final Set<String> tags) {
+            Integer id = tagSets.get(tags);
+            if (id == null) {
+                // Define the tags themselves first, as they are referred to by the set.
+                int[] tagIds = new int[tags.size()];
+                int i = 0;
+                for (String tag : tags) {
+                    tagIds[i++] = stringId(tag);
+                }
+                definitions.putByte(TAG_SET).putVarLong(tagIds.length);
+                for (int tagId : tagIds) {
+                    definitions.putVarLong(tagId);
+                }
+                // Copy the set, as the same (mutable) instance may be reused for different tags later.
+                id = tagSets.add(Set.copyOf(tags));
+            }
+            return id;
+        }
+
+        private int levelId(final Level level) {
+            Integer id = levels.get(level);
+            if (id == null) {
+                int nameId = stringId(level.getName());
+                definitions.putByte(LEVEL).putSignedVarLong(level.intValue()).putVarLong(nameId);
+                id = levels.add(level);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * One of the dictionaries of a binary log: the entries the file already holds, plus those defined by the record
+     * being encoded, which only join the rest once that record has been written.
+     *
+     * @param <K> The type of entry.
+     */
+    private static final class Dictionary<K> {
+
+        private final Map<K, Integer> written;
+        private final Map<K, Integer> pending;
+        private boolean restarting;
+
+        Dictionary(final Map<K, Integer> written, final Map<K, Integer> pending) {
+            this.written = written;
+            this.pending = pending;
+        }
+
+        /**
+         * @param restart Whether the record being encoded starts a new session, so can't use anything written before.
+         */
+        void begin(final boolean restart) {
+            pending.clear();
+            restarting = restart;
+        }
+
+        Integer get(final K entry) {
+            Integer id = restarting ? null : written.get(entry);
+            return id != null ? id : pending.get(entry);
+        }
+
+        int add(final K entry) {
+            int id = size();
+            pending.put(entry, id);
+            return id;
+        }
+
+        int size() {
+            return (restarting ? 0 : written.size()) + pending.size();
+        }
+
+        /**
+         * @return True if the file holds as many of these entries as a session may, so a new session should start.
+         */
+        boolean isFull() {
+            return written.size() >= MAX_DICTIONARY_ENTRIES;
+        }
+
+        void commit() {
+            if (restarting) {
+                written.clear();
+                restarting = false;
+            }
+            written.putAll(pending);
+            pending.clear();
+        }
+    }
+
+    /**
+     * A growable buffer of bytes, with the encodings used by {@link BinaryLogFormat}.
+     */
+    private static final class BinarySink {
+
+        private static final int INITIAL_CAPACITY = 512;
+        private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+
+        void reset() {
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                // Don't hang on to a huge buffer forever just because of one enormous record.
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+            length = 0;
+        }
+
+        ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(bytes, 0, length);
+        }
+
+        BinarySink append(final BinarySink other) {
+            ensureCapacity(other.length);
+            System.arraycopy(other.bytes, 0, bytes, length, other.length);
+            length += other.length;
+            return this;
+        }
+
+        BinarySink putByte(final int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        BinarySink putInt(final int value) {
+            ensureCapacity(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        BinarySink putLong(final long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[length++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        BinarySink putVarLong(final long value) {
+            ensureCapacity(10);
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                bytes[length++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            bytes[length++] = (byte) remaining;
+            return this;
+        }
+
+        BinarySink putSignedVarLong(final long value) {
+            return putVarLong((value << 1) ^ (value >> 63));
+        }
+
+        BinarySink putString(final CharSequence value) {
+            return putVarLong(Utf8.length(value)).putUtf8(value);
+        }
+
+        BinarySink putNullableString(final String value) {
+            return value == null ? putVarLong(0) : putVarLong(Utf8.length(value) + 1L).putUtf8(value);
+        }
+
+        private BinarySink putUtf8(final CharSequence value) {
+            // No character takes more than three bytes on its own, so this always leaves room for the last one.
+            ensureCapacity(value.length() * 3 + Utf8.MAX_BYTES_PER_CHARACTER);
+            ByteBuffer into = ByteBuffer.wrap(bytes, length, bytes.length - length);
+            Utf8.encode(value, 0, into);
+            length = into.position();
+            return this;
+        }
+
+        private void ensureCapacity(final int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
+import com.clumd.projects.java_custom_logging.logging.common.MessageTemplate;
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.clumd.projects.java_custom_logging.logging.controllers.BinaryLogFormat.*;
+
+/**
+ * Turns the files written by a {@link BinaryFileController} back into the JSON lines a {@link FileController} would
+ * have written for the same records, so they can be read by any existing tooling.
+ * <p>
+ * Timestamps are rendered in the time zone of the process which wrote them, which is recorded in the file. A record cut
+ * short at the very end of a file, such as by a crash part way through writing it, is ignored.
+ * <p>
+ * This can be run from the command line, given any number of files (which may be gzip compressed archives, ending in
+ * {@code .gz}), or none to read from standard input. The decoded lines are written to standard output.
+ */
+public final class BinaryLogDecoder {
+
+    private static final String EXCEPTION_ARRAY = "error";
+    private static final String EXCEPTION_TRACE = "errorTrace";
+    private static final String EXCEPTION_REPEATS = "errorRepeats";
+    private static final String METADATA_ARRAY = "meta";
+    private static final String TAGS_ARRAY = "tags";
+
+    private final DataInputStream in;
+    private final Appendable out;
+    private final JsonLineWriter jsonLine = new JsonLineWriter();
+    private final List<String> strings = new ArrayList<>();
+    private final List<String> tagSets = new ArrayList<>();
+    private final List<String> levels = new ArrayList<>();
+    private final StringBuilder message = new StringBuilder();
+    private final FragmentCache<String> loggerFields = new FragmentCache<>(name -> JsonLineWriter.renderField("logger", name));
+    private CachedTimestampFormatter dateTimeFormatter;
+    private String traceIDField;
+    private String publisherField;
+    private long previousMillis;
+
+    private BinaryLogDecoder(final InputStream in, final Appendable out) {
+        this.in = new DataInputStream(in instanceof BufferedInputStream ? in : new BufferedInputStream(in));
+        this.out = out;
+    }
+
+    /**
+     * Decode a whole binary log.
+     *
+     * @param binaryLog The binary log, from its start.
+     * @param jsonLines Where to write the decoded lines.
+     * @return The number of records decoded.
+     * @throws IOException Thrown if the log can't be read, isn't a binary log, or the lines can't be written.
+     */
+    public static long decode(@NonNull final InputStream binaryLog, @NonNull final Appendable jsonLines) throws IOException {
+        return new BinaryLogDecoder(binaryLog, jsonLines).decodeAll();
+    }
+
+    /**
+     * Decode a binary log file, which may be a gzip compressed archive.
+     *
+     * @param binaryLogFile The binary log file. Files ending in {@code .gz} are decompressed first.
+     * @param jsonLines     Where to write the decoded lines.
+     * @return The number of records decoded.
+     * @throws IOException Thrown if the file can't be read, isn't a binary log, or the lines can't be written.
+     */
+    public static long decode(@NonNull final Path binaryLogFile, @NonNull final Appendable jsonLines) throws IOException {
+        try (InputStream file = Files.newInputStream(binaryLogFile)) {
+            return decode(
+                    binaryLogFile.toString().endsWith(".gz") ? new GZIPInputStream(file) : file,
+                    jsonLines
+            );
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if (args.length == 0) {
+            decode(System.in, stdout);
+        }
+        for (String file : args) {
+            decode(Path.of(file), stdout);
+        }
+        stdout.flush();
+    }
+
+    private long decodeAll() throws IOException {
+        int kind = in.read();
+        if (kind >= 0 && kind != SESSION) {
+            // A freshly rotated file may still be empty, but anything else must start with a session.
+            throw new IOException("This is not a binary log.");
+        }
+        long records = 0;
+        try {
+            while (kind >= 0) {
+                switch (kind) {
+                    case SESSION -> readSession();
+                    case STRING -> strings.add(readString());
+                    case TAG_SET -> readTagSet();
+                    case LEVEL -> readLevel();
+                    case RECORD -> {
+                        readRecord();
+                        records++;
+                    }
+                    default -> throw new IOException("Unknown entry in binary log: " + kind);
+                }
+                kind = in.read();
+            }
+        } catch (EOFException e) {
+            // The last entry was only partly written, so there is nothing more to read.
+        }
+        return records;
+    }
+
+    private void readSession() throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("This is not a binary log.");
+        }
+        long version = readVarLong();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary log version: " + version);
+        }
+        previousMillis = readVarLong();
+        dateTimeFormatter = new CachedTimestampFormatter(CachedTimestampFormatter.ISO_LOCAL_MILLIS.getPattern(), ZoneId.of(readString()));
+        traceIDField = JsonLineWriter.renderField("traceID", readNullableString());
+        publisherField = JsonLineWriter.renderField("publisher", readNullableString());
+        strings.clear();
+        tagSets.clear();
+        levels.clear();
+    }
+
+    private void readTagSet() throws IOException {
+        int size = readId();
+        List<String> tags = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tags.add(string());
+        }
+        tagSets.add(JsonLineWriter.renderElements(tags));
+    }
+
+    private void readLevel() throws IOException {
+        // The priority is only needed by tools reading the binary log directly, as the JSON only holds the name.
+        readSignedVarLong();
+        levels.add(string());
+    }
+
+    private void readRecord() throws IOException {
+        long millis = previousMillis + readSignedVarLong();
+        previousMillis = millis;
+        long threadID = readVarLong();
+        String threadName = string();
+        String level = levels.get(readId());
+        String logger = string();
+        int flags = in.readUnsignedByte();
+
+        String recordMessage;
+        if ((flags & HAS_TEMPLATE) != 0) {
+            MessageTemplate template = MessageTemplate.of(string());
+            Object[] arguments = new Object[readId()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = readValue();
+            }
+            message.setLength(0);
+            template.appendTo(message, arguments);
+            recordMessage = message.toString();
+        } else {
+            recordMessage = readNullableString();
+        }
+
+        // Lay the line out exactly as the FileController does.
+        jsonLine.beginLine()
+                .field("threadID", threadID)
+                .rawField(traceIDField)
+                .field("dateTime", dateTimeFormatter, millis)
+                .field("level", level)
+                .rawField(loggerFields.get(logger))
+                .rawField(publisherField)
+                .sanitisedField("message", recordMessage)
+                .field("threadName", threadName)
+                .field("machineDateTime", millis);
+
+        if ((flags & (HAS_BAKED_IN_TAGS | HAS_TAGS)) != 0) {
+            jsonLine.beginArray(TAGS_ARRAY);
+            if ((flags & HAS_BAKED_IN_TAGS) != 0) {
+                jsonLine.rawElements(tagSets.get(readId()));
+            }
+            if ((flags & HAS_TAGS) != 0) {
+                jsonLine.rawElements(tagSets.get(readId()));
+            }
+            jsonLine.endArray();
+        }
+
+        if ((flags & HAS_ERROR) != 0) {
+            // The error was rendered as it was written, so each line only needs putting back together.
+            jsonLine.beginArray(EXCEPTION_ARRAY);
+            for (long line = readVarLong(); line != 0; line = readVarLong()) {
+                jsonLine.beginSanitisedElement().sanitisedPart(strings.get(Math.toIntExact((line >>> 1) - 1)));
+                if ((line & 1) != 0) {
+                    jsonLine.sanitisedPart(readNullableString());
+                }
+                jsonLine.endSanitisedElement();
+            }
+            jsonLine.endArray();
+            long repeats = readVarLong() - 1;
+            if (repeats >= 0) {
+                jsonLine.field(EXCEPTION_TRACE, string());
+                if (repeats > 0) {
+                    jsonLine.field(EXCEPTION_REPEATS, repeats);
+                }
+            }
+        }
+
+        if ((flags & HAS_METADATA) != 0) {
+            jsonLine.beginArray(METADATA_ARRAY);
+            int count = readId();
+            for (int i = 0; i < count; i++) {
+                byte type = in.readByte();
+                if (type == VALUE_JSON) {
+                    jsonLine.rawElement(readString());
+                } else {
+                    Object value = readValueBody(type);
+                    jsonLine.sanitisedElement(value == null ? null : value.toString());
+                }
+            }
+            jsonLine.endArray();
+        }
+
+        out.append(jsonLine.endLine());
+    }
+
+    private Object readValue() throws IOException {
+        return readValueBody(in.readByte());
+    }
+
+    private Object readValueBody(final byte type) throws IOException {
+        return switch (type) {
+            case VALUE_NULL -> null;
+            case VALUE_STRING -> readString();
+            case VALUE_INTEGER -> readSignedVarLong();
+            case VALUE_DOUBLE -> Double.longBitsToDouble(in.readLong());
+            case VALUE_FLOAT -> Float.intBitsToFloat(in.readInt());
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_CHARACTER -> (char) readVarLong();
+            case VALUE_JSON -> readString();
+            default -> throw new IOException("Unknown value type in binary log: " + type);
+        };
+    }
+
+    private String string() throws IOException {
+        return strings.get(readId());
+    }
+
+    private int readId() throws IOException {
+        return Math.toIntExact(readVarLong());
+    }
+
+    private String readString() throws IOException {
+        return readUtf8(readId());
+    }
+
+    private String readNullableString() throws IOException {
+        int length = readId();
+        return length == 0 ? null : readUtf8(length - 1);
+    }
+
+    private String readUtf8(final int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readSignedVarLong() throws IOException {
+        long zigZag = readVarLong();
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in binary log.");
+    }
+}
@@ -0,0 +1,67 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+/**
+ * The layout of the files written by a {@link BinaryFileController}, and read back by a {@link BinaryLogDecoder}.
+ * <p>
+ * A file is a sequence of entries, each starting with a single byte giving its kind:
+ * <ul>
+ *     <li>{@link #SESSION} - starts a new session, and clears all the dictionaries. Every file begins with one, and one
+ *     is also written whenever the controller starts appending to an existing file, or its dictionaries grow too large.
+ *     It holds the {@link #MAGIC magic number}, the {@link #VERSION version}, the time the session started, the time
+ *     zone timestamps should be rendered in, and the trace ID and publisher of the writer.</li>
+ *     <li>{@link #STRING} - defines the next string id, used for message templates, logger and thread names, tags,
+ *     and the lines of rendered stack traces.</li>
+ *     <li>{@link #TAG_SET} - defines the next tag set id, as a list of string ids.</li>
+ *     <li>{@link #LEVEL} - defines the next level id, as its priority and a string id for its name.</li>
+ *     <li>{@link #RECORD} - a log record, which refers to the above by id. It is laid out as: the milliseconds since the
+ *     previous record (or the session start), the thread ID, the thread name, level and logger ids, a byte of
+ *     {@code HAS_} flags, then the message, and whichever of the baked-in tags, tags, error and metadata the flags say
+ *     are present. The message is either a template id and its arguments, or a literal string. The error is the lines
+ *     its stack trace was rendered as, each a number holding a string id for the line (less any message) and a flag
+ *     saying whether a message follows it, ended by a zero. Then comes a zero if the trace has no reference, or one
+ *     more than how many times it has been repeated followed by the string id of its reference.</li>
+ * </ul>
+ * Ids in each dictionary count up from zero, in the order they are defined. All numbers are unsigned variable length
+ * integers, seven bits per byte with the high bit set on all but the last, apart from those which may be negative
+ * (timestamp differences and numeric values), which are zig-zag encoded first. Strings are their UTF-8 byte length
+ * followed by the bytes, with a length one higher than the real one for strings which may be null, and zero for null.
+ * <p>
+ * Values (message arguments and metadata) are a {@code VALUE_} type byte, followed by the value itself where needed.
+ */
+final class BinaryLogFormat {
+
+    static final int MAGIC = 0x4A434C42; // "JCLB"
+    static final int VERSION = 2;
+
+    static final byte SESSION = 1;
+    static final byte STRING = 2;
+    static final byte TAG_SET = 3;
+    static final byte LEVEL = 4;
+    static final byte RECORD = 5;
+
+    static final int HAS_TEMPLATE = 1;
+    static final int HAS_BAKED_IN_TAGS = 1 << 1;
+    static final int HAS_TAGS = 1 << 2;
+    static final int HAS_ERROR = 1 << 3;
+    static final int HAS_METADATA = 1 << 4;
+
+    static final byte VALUE_NULL = 0;
+    static final byte VALUE_STRING = 1;
+    static final byte VALUE_INTEGER = 2;
+    static final byte VALUE_DOUBLE = 3;
+    static final byte VALUE_FLOAT = 4;
+    static final byte VALUE_TRUE = 5;
+    static final byte VALUE_FALSE = 6;
+    static final byte VALUE_CHARACTER = 7;
+    static final byte VALUE_JSON = 8;
+
+    /**
+     * Once any dictionary holds this many entries a new session is started, so that a file full of unique tags or stack
+     * frames can't grow the memory held by the writer (or a decoder) without limit.
+     */
+    static final int MAX_DICTIONARY_ENTRIES = 1 << 16;
+
+    private BinaryLogFormat() {
+        // Constants only.
+    }
+}
@@ -0,0 +1,389 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.logging.ErrorManager;
+import java.util.logging.Filter;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+/**
+ * A base for controllers which log to a rotating set of files, writing each record's bytes straight to a
+ * {@link FileChannel} instead of going through the {@link java.io.Writer} of a {@link StreamHandler}.
+ * <p>
+ * A {@link java.util.logging.FileHandler} turns every record into a String, which is then copied again by a charset
+ * encoder and once more by a buffered stream before reaching the file. Controllers built on this class instead render
+ * each record into a reusable character buffer via their {@link RecordFormat}, which is encoded to UTF-8 (with a fast
+ * path for plain ASCII) into a set of reusable direct byte buffers, and handed to the file in a single gathering write.
+ * <p>
+ * File naming and rotation follow the same rules as a {@link java.util.logging.FileHandler}: the pattern may contain
+ * {@code %t} (the temp directory), {@code %h} (the user's home), {@code %g} (the generation number) and {@code %%}.
+ * Once the current file reaches its size limit, older generations are shuffled along and a fresh generation 0 is
+ * started. The renaming and opening of files this involves is done on a background thread, so logging threads never
+ * wait on it. As only one process is expected to own a given set of log files, {@code %u} is always replaced with 0 and no
+ * lock files are created.
+ * <p>
+ * This is still a {@link StreamHandler}, so it honours the {@link CustomLogHandler} contract and can be named in
+ * {@link ExtendedLogRecord#withControllersWhichShouldIgnore(java.util.Set)} like any other controller. It is not,
+ * however, a {@link java.util.logging.FileHandler}, so {@code instanceof FileHandler} checks no longer pick it out.
+ * Records which name {@code FileHandler.class} among the controllers to ignore are still ignored by every file
+ * controller, just as before.
+ */
+public abstract class ByteChannelController extends StreamHandler implements CustomLogHandler {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_RETAINED_CHUNKS = 4;
+    private static final int OFF_VALUE = Level.OFF.intValue();
+
+    @Getter
+    private final String pattern;
+    @Getter
+    private final long limit;
+    @Getter
+    private final int count;
+    private final LogSegments segments;
+    private RecordFormat format;
+    private FileChannel channel;
+    private long written;
+    private ByteBuffer[] chunks = new ByteBuffer[]{ByteBuffer.allocateDirect(CHUNK_SIZE)};
+    private int usedChunks;
+
+    /**
+     * Open generation 0 of the given file pattern, ready for logging.
+     *
+     * @param pattern    The pattern to match for the logfile's title.
+     * @param limit      This is the max file size before the logger will rotate files (in regular Bytes). Zero or less
+     *                   means files will never be rotated.
+     * @param count      This is the max number of log files to keep in rotation before overwriting the first one.
+     * @param appendMode Whether to keep any existing content in generation 0, rather than truncating it.
+     * @throws IOException Thrown if we cannot find the location or there is an error getting it.
+     */
+    protected ByteChannelController(
+            @NonNull final String pattern,
+            final long limit,
+            final int count,
+            final boolean appendMode
+    ) throws IOException {
+        this(pattern, limit, count, appendMode, null);
+    }
+
+    /**
+     * Open the given file, ready for logging. Each time it fills up it is rotated out and compressed, with the
+     * compressed history kept within the disk budget given.
+     *
+     * @param pattern        The pattern to match for the logfile's title.
+     * @param limit          This is the max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions How to compress and retain the rotated files.
+     * @param appendMode     Whether to keep any existing content in the current file, rather than truncating it.
+     * @throws IOException Thrown if we cannot find the location or there is an error getting it.
+     */
+    protected ByteChannelController(
+            @NonNull final String pattern,
+            final long limit,
+            @NonNull final ArchiveOptions archiveOptions,
+            final boolean appendMode
+    ) throws IOException {
+        this(pattern, requireArchivableLimit(limit), 1, appendMode, archiveOptions);
+    }
+
+    private ByteChannelController(
+            final String pattern,
+            final long limit,
+            final int count,
+            final boolean appendMode,
+            final ArchiveOptions archiveOptions
+    ) throws IOException {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("The log file pattern must not be empty.");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("There must be at least one log file generation, but was: " + count);
+        }
+        this.pattern = pattern;
+        this.limit = Math.max(0, limit);
+        this.count = count;
+        this.segments = new LogSegments(this, pattern, count, this.limit > 0, archiveOptions);
+        this.channel = segments.openActive(appendMode);
+        this.written = appendMode ? channel.size() : 0;
+    }
+
+    private static long requireArchivableLimit(final long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Log files can only be archived when they have a size limit to rotate at.");
+        }
+        return limit;
+    }
+
+    /**
+     * Resolve the file a given generation of a FileHandler style pattern refers to.
+     *
+     * @param pattern    The pattern to resolve.
+     * @param generation The generation of file wanted.
+     * @param count      The number of generations in rotation, as FileHandler adds a generation suffix to patterns
+     *                   without one when there is more than one generation.
+     * @return The path of that generation's file.
+     */
+    public static Path generationPath(@NonNull final String pattern, final int generation, final int count) {
+        StringBuilder path = new StringBuilder(pattern.length() + 8);
+        boolean sawGeneration = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%' || i + 1 == pattern.length()) {
+                path.append(c);
+                continue;
+            }
+            char placeholder = pattern.charAt(++i);
+            switch (placeholder) {
+                case 't' -> path.append(System.getProperty("java.io.tmpdir"));
+                case 'h' -> path.append(System.getProperty("user.home"));
+                case 'g' -> {
+                    path.append(generation);
+                    sawGeneration = true;
+                }
+                case 'u' -> path.append('0');
+                case '%' -> path.append('%');
+                default -> path.append('%').append(placeholder);
+            }
+        }
+        if (!sawGeneration && count > 1) {
+            path.append('.').append(generation);
+        }
+        return new File(path.toString()).toPath();
+    }
+
+    @Override
+    public boolean isLoggable(LogRecord logRecord) {
+        if (logRecord == null || channel == null) {
+            return false;
+        }
+        if (logRecord instanceof ExtendedLogRecord elr && elr.isDisregardedBy(getClass())) {
+            return false;
+        }
+        // StreamHandler would refuse everything as we never give it an output stream, so apply the plain Handler rules.
+        final int levelValue = getLevel().intValue();
+        if (logRecord.getLevel().intValue() < levelValue || levelValue == OFF_VALUE) {
+            return false;
+        }
+        final Filter filter = getFilter();
+        return filter == null || filter.isLoggable(logRecord);
+    }
+
+    @Override
+    public synchronized void publish(LogRecord logRecord) {
+        if (!isLoggable(logRecord)) {
+            return;
+        }
+        try {
+            synchronized (format) {
+                ByteBuffer binary = format.encodeBinary(logRecord);
+                writeChunks(binary == null ? encode(format.encode(logRecord)) : copy(binary));
+                format.recordWritten();
+            }
+        } catch (Exception e) {
+            reportError("Failed to write a log record to " + pattern, e, ErrorManager.WRITE_FAILURE);
+            return;
+        }
+        if (limit > 0 && written >= limit) {
+            rotate();
+        }
+    }
+
+    /**
+     * Records are handed to the file as they are published, so there is nothing held back to flush.
+     */
+    @Override
+    public void flush() {
+        // Nothing is buffered between records.
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            reportError("Failed to close log file " + pattern, e, ErrorManager.CLOSE_FAILURE);
+        }
+        channel = null;
+        segments.close();
+    }
+
+    /**
+     * @return True if this controller is able to rotate its file without waiting, as soon as it becomes full.
+     */
+    boolean isReadyToRotate() {
+        return segments.isNextReady();
+    }
+
+    @Override
+    public void setFormatter(Formatter newFormatter) throws SecurityException {
+        // EXPLICIT DENY OTHER THINGS SETTING OUR FORMATTER - GOSH DARN IT SPRING / EMBEDDED TOMCAT
+        if (format == null && newFormatter instanceof RecordFormat recordFormat) {
+            format = recordFormat;
+            super.setFormatter(recordFormat);
+        } else if (getFormatter() != null) {
+            System.err.println("WARNING: Attempt to reset " + getClass().getName() + " formatter.");
+        }
+    }
+
+    private void rotate() {
+        FileChannel next = segments.rotate(channel);
+        if (next != null) {
+            channel = next;
+            written = 0;
+            synchronized (format) {
+                format.startedNewFile();
+            }
+        }
+    }
+
+    /**
+     * Copy an already encoded record into the reusable chunks.
+     *
+     * @param binary The encoded record, which is consumed.
+     * @return The number of bytes it took.
+     */
+    private int copy(final ByteBuffer binary) {
+        final int total = binary.remaining();
+        int chunkIndex = 0;
+        ByteBuffer chunk = chunks[0].clear();
+        while (true) {
+            int toCopy = Math.min(chunk.remaining(), binary.remaining());
+            chunk.put(binary.slice(binary.position(), toCopy));
+            binary.position(binary.position() + toCopy);
+            chunk.flip();
+            if (!binary.hasRemaining()) {
+                break;
+            }
+            chunk = nextChunk(++chunkIndex);
+        }
+        usedChunks = chunkIndex + 1;
+        return total;
+    }
+
+    /**
+     * Encode the rendered record into the reusable chunks as UTF-8.
+     *
+     * @param text The rendered record.
+     * @return The number of bytes it took.
+     */
+    private int encode(final CharSequence text) {
+        int chunkIndex = 0;
+        ByteBuffer chunk = chunks[0].clear();
+        int total = 0;
+        int encoded = Utf8.encode(text, 0, chunk);
+        while (encoded < text.length()) {
+            total += chunk.position();
+            chunk.flip();
+            chunk = nextChunk(++chunkIndex);
+            encoded = Utf8.encode(text, encoded, chunk);
+        }
+        total += chunk.position();
+        chunk.flip();
+        usedChunks = chunkIndex + 1;
+        return total;
+    }
+
+    private ByteBuffer nextChunk(final int index) {
+        if (index == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        }
+        if (chunks[index] == null) {
+            chunks[index] = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        }
+        return chunks[index].clear();
+    }
+
+    private void writeChunks(final int bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            remaining -= channel.write(chunks, 0, usedChunks);
+        }
+        written += bytes;
+        if (chunks.length > MAX_RETAINED_CHUNKS) {
+            // Don't hang on to lots of buffers forever just because of one enormous record.
+            chunks = Arrays.copyOf(chunks, MAX_RETAINED_CHUNKS);
+        }
+    }
+
+    /**
+     * The formatter used by a {@link ByteChannelController}, which renders each record into a buffer it reuses rather
+     * than into a new String.
+     * <p>
+     * It can still be used as a regular {@link Formatter}, which is handy for testing, but the controller itself only
+     * ever calls {@link #encodeBinary(LogRecord)}, and then {@link #encode(LogRecord)} for formats which are text.
+     */
+    public abstract static class RecordFormat extends Formatter {
+
+        private static final int INITIAL_CAPACITY = 512;
+        private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+        private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+        /**
+         * @return An empty buffer to render a record into, which is reused between records.
+         */
+        protected StringBuilder reusableBuffer() {
+            if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                // Don't hang on to a huge buffer forever just because of one enormous record.
+                buffer = new StringBuilder(INITIAL_CAPACITY);
+            } else {
+                buffer.setLength(0);
+            }
+            return buffer;
+        }
+
+        /**
+         * Render the given record.
+         *
+         * @param logRecord The record to render.
+         * @return The rendered text, which is only valid until the next call.
+         */
+        protected abstract CharSequence encode(LogRecord logRecord);
+
+        /**
+         * Encode the given record straight to bytes, for formats which aren't text. Text formats leave this as it is,
+         * and are rendered through {@link #encode(LogRecord)} instead.
+         *
+         * @param logRecord The record to encode.
+         * @return The encoded record, which is only valid until the next call, or null to render the record as text.
+         */
+        protected ByteBuffer encodeBinary(LogRecord logRecord) {
+            return null;
+        }
+
+        /**
+         * Called each time the controller rotates on to a fresh file, for formats which need to start each file with
+         * something (such as a header) of their own.
+         */
+        protected void startedNewFile() {
+            // Text formats have nothing to write at the start of a file.
+        }
+
+        /**
+         * Called once the record last encoded has been written to the file in full, for formats which keep track of
+         * what the file already holds. A record which fails to be written is simply followed by the next one encoded.
+         */
+        protected void recordWritten() {
+            // Text formats write each record independently of the others.
+        }
+
+        @Override
+        public synchronized String format(LogRecord logRecord) {
+            return encode(logRecord).toString();
+        }
+    }
+}
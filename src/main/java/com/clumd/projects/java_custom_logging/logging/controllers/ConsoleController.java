@@ -3,13 +3,15 @@ package com.clumd.projects.java_custom_logging.logging.controllers;
 import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
 import com.clumd.projects.java_custom_logging.logging.api.LogLevel;
 import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
 import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
 import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
 import com.clumd.projects.java_custom_logging.logging.common.Format;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.java_custom_logging.logging.common.ThreadNameRegistry;
 import com.clumd.projects.javajson.api.Json;
 import lombok.NonNull;
 
-import java.text.SimpleDateFormat;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -17,18 +19,17 @@ import java.util.UUID;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
-import java.util.logging.StreamHandler;
 
 import static com.clumd.projects.java_custom_logging.logging.LogRoot.ANON_THREAD;
 import static com.clumd.projects.java_custom_logging.logging.LogRoot.TAB;
 
 public class ConsoleController extends ConsoleHandler implements CustomLogHandler {
 
-    public final SimpleDateFormat consoleDateTimeFormatter = new SimpleDateFormat("EEE dd/MMM/yyyy HH:mm:ss.SSS");
+    public final CachedTimestampFormatter consoleDateTimeFormatter = CachedTimestampFormatter.READABLE_MILLIS;
     private final boolean useSpacerLine;
-    private UUID traceID;
-    private String systemID;
+    private String idsHeader = renderIdsHeader(null, null);
     private Map<Long, String> overriddenThreadNames;
+    private volatile ThrowableRenderer throwableRenderer = ThrowableRenderer.DEFAULT;
 
     public ConsoleController(boolean useSpacerLines) {
         super();
@@ -39,19 +40,28 @@ public class ConsoleController extends ConsoleHandler implements CustomLogHandle
 
     @Override
     public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
-        this.traceID = specificRunID;
-        this.systemID = systemID;
+        this.idsHeader = renderIdsHeader(specificRunID, systemID);
         this.overriddenThreadNames = overriddenThreadNames;
     }
 
+    /**
+     * @param stackTraceOptions How stack traces should be rendered, beneath the record they belong to.
+     * @return This controller, for method chaining.
+     */
+    public ConsoleController withStackTraceOptions(@NonNull StackTraceOptions stackTraceOptions) {
+        this.throwableRenderer = new ThrowableRenderer(stackTraceOptions);
+        return this;
+    }
+
+    private static String renderIdsHeader(UUID traceID, String systemID) {
+        // The same for every record, so only rendered when the IDs change.
+        return traceID + TAB + systemID + TAB;
+    }
+
     @Override
     public boolean isLoggable(LogRecord logRecord) {
-        if (logRecord instanceof ExtendedLogRecord elr && elr.getControllersWhichShouldDisregardThisMessage() != null) {
-            for (Class<? extends StreamHandler> controllerWhichShouldDisregard : elr.getControllersWhichShouldDisregardThisMessage()) {
-                if (controllerWhichShouldDisregard.isAssignableFrom(this.getClass())) {
-                    return false;
-                }
-            }
+        if (logRecord instanceof ExtendedLogRecord elr && elr.isDisregardedBy(getClass())) {
+            return false;
         }
         return super.isLoggable(logRecord);
     }
@@ -66,6 +76,8 @@ public class ConsoleController extends ConsoleHandler implements CustomLogHandle
 
     private final class ConsoleFormat extends Formatter {
 
+        private final ThrowableRenderer.TextLines errorLines = new ThrowableRenderer.TextLines();
+
         @Override
         public String format(LogRecord logRecord) {
             if (logRecord.getLevel() instanceof LogLevel logLevel) {
@@ -115,13 +127,17 @@ public class ConsoleController extends ConsoleHandler implements CustomLogHandle
         }
 
         private void formatMetadata(StringBuilder ret, LogRecord logRecord) {
-            ret.append(traceID).append(TAB)
-                    .append(systemID).append(TAB)
-                    .append(consoleDateTimeFormatter.format(logRecord.getMillis())).append(TAB)
+            ret.append(idsHeader);
+            consoleDateTimeFormatter.formatTo(logRecord.getMillis(), ret)
+                    .append(TAB)
                     .append(logRecord.getLoggerName()).append(TAB)
                     .append('(').append(logRecord.getLongThreadID()).append("):")
-                    .append(Objects.requireNonNullElse(overriddenThreadNames.get(logRecord.getLongThreadID()), ANON_THREAD)).append(TAB)
-                    .append("\n");
+                    .append(Objects.requireNonNullElse(ThreadNameRegistry.lookup(overriddenThreadNames, logRecord.getLongThreadID()), ANON_THREAD)).append(TAB);
+            if (logRecord instanceof ExtendedLogRecord elr && elr.isCallerLocated()) {
+                ret.append(elr.getSourceClassName()).append('.').append(elr.getSourceMethodName())
+                        .append(':').append(elr.getSourceLineNumber()).append(TAB);
+            }
+            ret.append("\n");
             if (logRecord instanceof ExtendedLogRecord elr) {
                 if (elr.getBakedInTags() != null) {
                     ret.append(elr.getBakedInTags());
@@ -137,22 +153,7 @@ public class ConsoleController extends ConsoleHandler implements CustomLogHandle
 
         private String formatThrowablesAndData(StringBuilder ret, LogRecord logRecord) {
             if (logRecord.getThrown() != null) {
-                boolean isTopReason = true;
-                Throwable throwable = logRecord.getThrown();
-                do {
-                    if (isTopReason) {
-                        ret.append("Error:  ");
-                        isTopReason = false;
-                    } else {
-                        ret.append("Nested Reason:  ");
-                    }
-                    ret.append("(").append(throwable.getClass().getSimpleName()).append(") ");
-                    ret.append(throwable.getMessage()).append("\n");
-                    for (Object stackTraceLine : throwable.getStackTrace()) {
-                        ret.append("  ").append(stackTraceLine.toString()).append("\n");
-                    }
-                    throwable = throwable.getCause();
-                } while (throwable != null && throwable != throwable.getCause());
+                throwableRenderer.render(logRecord.getThrown(), errorLines.into(ret));
             }
 
             //check for additional metadata about the log entry.
@@ -160,10 +161,15 @@ public class ConsoleController extends ConsoleHandler implements CustomLogHandle
                 ret.append("Metadata:  <").append(logRecord.getParameters().length).append("> item(s)\n");
                 for (Object item : logRecord.getParameters()) {
                     switch (item) {
-                        case LoggableData loggableData ->
-                                ret.append("{\n").append(loggableData.getFormattedLogData()).append("\n}");
+                        case LoggableData loggableData -> {
+                            ret.append("{\n");
+                            LoggableDataSink.write(loggableData, ret);
+                            ret.append("\n}");
+                        }
                         case Json jsonItem ->
                                 ret.append((jsonItem).asPrettyString(2));
+                        case RenderedJson renderedJson ->
+                                ret.append(renderedJson.pretty());
                         case null ->
                                 ret.append("{ ").append("NULL").append(" }");
                         default ->
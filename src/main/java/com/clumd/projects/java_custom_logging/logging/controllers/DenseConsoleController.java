@@ -3,24 +3,25 @@ package com.clumd.projects.java_custom_logging.logging.controllers;
 import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
 import com.clumd.projects.java_custom_logging.logging.api.LogLevel;
 import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
 import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
 import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
 import com.clumd.projects.java_custom_logging.logging.common.Format;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
 import com.clumd.projects.javajson.api.Json;
 import lombok.NonNull;
 
-import java.text.SimpleDateFormat;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Formatter;
 import java.util.logging.LogRecord;
-import java.util.logging.StreamHandler;
 
 public class DenseConsoleController extends ConsoleHandler implements CustomLogHandler {
 
-    public final SimpleDateFormat denseConsoleDateTimeFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    public final CachedTimestampFormatter denseConsoleDateTimeFormatter = CachedTimestampFormatter.ISO_LOCAL_MILLIS;
+    private volatile ThrowableRenderer throwableRenderer = ThrowableRenderer.DEFAULT;
 
     public DenseConsoleController() {
         super();
@@ -33,14 +34,19 @@ public class DenseConsoleController extends ConsoleHandler implements CustomLogH
         // Unused params as this console logger is for basic facts only
     }
 
+    /**
+     * @param stackTraceOptions How stack traces should be rendered, beneath the single line of the record they belong to.
+     * @return This controller, for method chaining.
+     */
+    public DenseConsoleController withStackTraceOptions(@NonNull StackTraceOptions stackTraceOptions) {
+        this.throwableRenderer = new ThrowableRenderer(stackTraceOptions);
+        return this;
+    }
+
     @Override
     public boolean isLoggable(LogRecord logRecord) {
-        if (logRecord instanceof ExtendedLogRecord elr && elr.getControllersWhichShouldDisregardThisMessage() != null) {
-            for (Class<? extends StreamHandler> controllerWhichShouldDisregard : elr.getControllersWhichShouldDisregardThisMessage()) {
-                if (controllerWhichShouldDisregard.isAssignableFrom(this.getClass())) {
-                    return false;
-                }
-            }
+        if (logRecord instanceof ExtendedLogRecord elr && elr.isDisregardedBy(getClass())) {
+            return false;
         }
         return super.isLoggable(logRecord);
     }
@@ -55,6 +61,8 @@ public class DenseConsoleController extends ConsoleHandler implements CustomLogH
 
     private final class ConsoleFormat extends Formatter {
 
+        private final ThrowableRenderer.TextLines errorLines = new ThrowableRenderer.TextLines();
+
         @Override
         public String format(LogRecord logRecord) {
             if (logRecord.getLevel() instanceof LogLevel logLevel) {
@@ -104,7 +112,7 @@ public class DenseConsoleController extends ConsoleHandler implements CustomLogH
         }
 
         private void formatMetadata(StringBuilder ret, LogRecord logRecord) {
-            ret.append(denseConsoleDateTimeFormatter.format(logRecord.getMillis()));
+            denseConsoleDateTimeFormatter.formatTo(logRecord.getMillis(), ret);
             ret.append(", ");
             ret.append(logRecord.getLevel().getName());
             if (logRecord instanceof ExtendedLogRecord elr) {
@@ -119,22 +127,7 @@ public class DenseConsoleController extends ConsoleHandler implements CustomLogH
 
         private String formatThrowablesAndData(StringBuilder ret, LogRecord logRecord) {
             if (logRecord.getThrown() != null) {
-                boolean isTopReason = true;
-                Throwable throwable = logRecord.getThrown();
-                do {
-                    if (isTopReason) {
-                        ret.append("Error:  ");
-                        isTopReason = false;
-                    } else {
-                        ret.append("Nested Reason:  ");
-                    }
-                    ret.append('(').append(throwable.getClass().getSimpleName()).append(") ");
-                    ret.append(throwable.getMessage()).append('\n');
-                    for (Object stackTraceLine : throwable.getStackTrace()) {
-                        ret.append("  ").append(stackTraceLine.toString()).append('\n');
-                    }
-                    throwable = throwable.getCause();
-                } while (throwable != null && throwable != throwable.getCause());
+                throwableRenderer.render(logRecord.getThrown(), errorLines.into(ret));
             }
 
             //check for additional metadata about the log entry.
@@ -142,10 +135,15 @@ public class DenseConsoleController extends ConsoleHandler implements CustomLogH
                 ret.append("Metadata:  <").append(logRecord.getParameters().length).append("> item(s)\n");
                 for (Object item : logRecord.getParameters()) {
                     switch (item) {
-                        case LoggableData loggableData -> 
-                                ret.append("{ ").append(loggableData.getFormattedLogData()).append(" }");
+                        case LoggableData loggableData -> {
+                            ret.append("{ ");
+                            LoggableDataSink.write(loggableData, ret);
+                            ret.append(" }");
+                        }
                         case Json jsonItem -> 
                                 ret.append((jsonItem).asString(2));
+                        case RenderedJson renderedJson ->
+                                ret.append(renderedJson.dense());
                         case null -> 
                                 ret.append("{ ").append("NULL").append(" }");
                         default -> 
@@ -1,24 +1,22 @@
 package com.clumd.projects.java_custom_logging.logging.controllers;
 
-import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
 import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
 import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
 import com.clumd.projects.javajson.api.Json;
 import lombok.NonNull;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.Map;
 import java.util.UUID;
-import java.util.logging.FileHandler;
-import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
-import java.util.logging.StreamHandler;
 
-public class DenseFileController extends FileHandler implements CustomLogHandler {
+public class DenseFileController extends ByteChannelController {
 
-    public final SimpleDateFormat fileDateTimeFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    public final CachedTimestampFormatter fileDateTimeFormatter = CachedTimestampFormatter.ISO_LOCAL_MILLIS;
+    private volatile ThrowableRenderer throwableRenderer = ThrowableRenderer.DEFAULT;
 
     /**
      * Pass-through constructor ensuring we will use the desired custom formatter, and match ALL records.
@@ -33,7 +31,7 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
      */
     public DenseFileController(
             String pathToLogFile,
-            int singleFileLogSize,
+            long singleFileLogSize,
             int logFileRotations,
             boolean appendMode
     ) throws IOException, SecurityException {
@@ -42,29 +40,41 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
         this.setLevel(Level.ALL);
     }
 
-    @Override
-    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
-        // Unused params as this console logger is for basic facts only
+    /**
+     * Pass-through constructor ensuring we will use the desired custom formatter, and match ALL records. Rotated files
+     * are compressed in the background rather than kept as a fixed number of generations.
+     *
+     * @param pathToLogFile     The pattern to match for the logfile's title.
+     * @param singleFileLogSize This is the max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions    How to compress and retain the rotated files.
+     * @param appendMode        Should always be true to ensure we are in append mode.
+     * @throws IOException       Thrown if we cannot find the location or there is an error getting it.
+     * @throws SecurityException Thrown if we do not have the correct permissions to be writing to this location.
+     */
+    public DenseFileController(
+            String pathToLogFile,
+            long singleFileLogSize,
+            @NonNull ArchiveOptions archiveOptions,
+            boolean appendMode
+    ) throws IOException, SecurityException {
+        super(pathToLogFile, singleFileLogSize, archiveOptions, appendMode);
+        super.setFormatter(new FileFormat());
+        this.setLevel(Level.ALL);
     }
 
-    @Override
-    public boolean isLoggable(LogRecord logRecord) {
-        if (logRecord instanceof ExtendedLogRecord elr && elr.getControllersWhichShouldDisregardThisMessage() != null) {
-            for (Class<? extends StreamHandler> controllerWhichShouldDisregard : elr.getControllersWhichShouldDisregardThisMessage()) {
-                if (controllerWhichShouldDisregard.isAssignableFrom(this.getClass())) {
-                    return false;
-                }
-            }
-        }
-        return super.isLoggable(logRecord);
+    /**
+     * @param stackTraceOptions How stack traces should be rendered, beneath the record they belong to. Newlines within
+     *                          an error's message are flattened, so each frame stays on a line of its own.
+     * @return This controller, for method chaining.
+     */
+    public DenseFileController withStackTraceOptions(@NonNull StackTraceOptions stackTraceOptions) {
+        this.throwableRenderer = new ThrowableRenderer(stackTraceOptions);
+        return this;
     }
 
     @Override
-    public void setFormatter(Formatter newFormatter) throws SecurityException {
-        // EXPLICIT DENY OTHER THINGS SETTING OUR FORMATTER - GOSH DARN IT SPRING / EMBEDDED TOMCAT
-        if (getFormatter() != null) {
-            System.err.println("WARNING: Attempt to reset " + DenseFileController.class.getName() + " formatter.");
-        }
+    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+        // Unused params as this console logger is for basic facts only
     }
 
     /**
@@ -72,7 +82,10 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
      * <p>
      * An attempt is made to squash every entry into a json object for easier consumption/parsing down the line.
      */
-    private final class FileFormat extends Formatter {
+    private final class FileFormat extends RecordFormat {
+
+        private final LoggableDataSink dataSink = new LoggableDataSink();
+        private final ThrowableRenderer.TextLines errorLines = new ThrowableRenderer.TextLines(true);
 
         /**
          * Used to remove all newlines and awkward quotes so that each line in the output file is a valid JSON object
@@ -90,11 +103,11 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
         }
 
         @Override
-        public String format(LogRecord logRecord) {
-            StringBuilder ret = new StringBuilder();
+        protected StringBuilder encode(LogRecord logRecord) {
+            StringBuilder ret = reusableBuffer();
 
             ret.append('[');
-            ret.append(fileDateTimeFormatter.format(logRecord.getMillis()));
+            fileDateTimeFormatter.formatTo(logRecord.getMillis(), ret);
 
             ret.append(", ");
             ret.append(logRecord.getLevel().getName());
@@ -116,26 +129,7 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
 
             // Check for a thrown error
             if (logRecord.getThrown() != null) {
-                boolean isTopReason = true;
-                Throwable throwable = logRecord.getThrown();
-                do {
-                    if (isTopReason) {
-                        ret
-                                .append(strFormatter("Error:  (" + throwable.getClass().getSimpleName() + ") " + throwable.getMessage()))
-                                .append('\n');
-                        isTopReason = false;
-                    } else {
-                        ret
-                                .append(strFormatter("Nested Reason:  (" + throwable.getClass().getSimpleName() + ") " + throwable.getMessage()))
-                                .append('\n');
-                    }
-                    for (Object stackTraceLine : throwable.getStackTrace()) {
-                        ret
-                                .append(strFormatter("  " + stackTraceLine.toString()))
-                                .append('\n');
-                    }
-                    throwable = throwable.getCause();
-                } while (throwable != null && throwable != throwable.getCause());
+                throwableRenderer.render(logRecord.getThrown(), errorLines.into(ret));
             }
 
             // Check for additional metadata about the log entry.
@@ -144,9 +138,11 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
                 for (Object metadata : logRecord.getParameters()) {
                     switch (metadata) {
                         case LoggableData loggableMetadata ->
-                                ret.append(strFormatter(loggableMetadata.getFormattedLogData()));
+                                dataSink.writeFlattened(loggableMetadata, ret);
                         case Json jsonMetadata ->
                                 ret.append(jsonMetadata.asString(2));
+                        case RenderedJson renderedJson ->
+                                ret.append(renderedJson.dense());
                         case null ->
                                 ret.append("NULL");
                         default ->
@@ -158,7 +154,7 @@ public class DenseFileController extends FileHandler implements CustomLogHandler
                 ret.append("]\n");
             }
 
-            return ret.toString();
+            return ret;
         }
     }
 }
@@ -1,32 +1,31 @@
 package com.clumd.projects.java_custom_logging.logging.controllers;
 
-import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
 import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.BakedInTags;
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
 import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.java_custom_logging.logging.common.ThreadNameRegistry;
 import com.clumd.projects.javajson.api.Json;
-import com.clumd.projects.javajson.api.JsonBuilder;
-import com.clumd.projects.javajson.core.BasicJsonBuilder;
 import lombok.NonNull;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
-import java.util.logging.FileHandler;
-import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
-import java.util.logging.StreamHandler;
 
 import static com.clumd.projects.java_custom_logging.logging.LogRoot.ANON_THREAD;
 
-public class FileController extends FileHandler implements CustomLogHandler {
+public class FileController extends ByteChannelController {
 
-    private UUID traceID;
-    private String systemID;
+    private String traceIDField = JsonLineWriter.renderField("traceID", null);
+    private String publisherField = JsonLineWriter.renderField("publisher", null);
     private Map<Long, String> overriddenThreadNames;
-    public final SimpleDateFormat fileDateTimeFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    private volatile ThrowableRenderer throwableRenderer = ThrowableRenderer.DEFAULT;
+    public final CachedTimestampFormatter fileDateTimeFormatter = CachedTimestampFormatter.ISO_LOCAL_MILLIS;
 
     /**
      * Pass-through constructor ensuring we will use the desired custom formatter, and match ALL records.
@@ -41,7 +40,7 @@ public class FileController extends FileHandler implements CustomLogHandler {
      */
     public FileController(
             String pathToLogFile,
-            int singleFileLogSize,
+            long singleFileLogSize,
             int logFileRotations,
             boolean appendMode
     ) throws IOException, SecurityException {
@@ -50,126 +49,169 @@ public class FileController extends FileHandler implements CustomLogHandler {
         this.setLevel(Level.ALL);
     }
 
-    @Override
-    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
-        this.traceID = specificRunID;
-        this.systemID = systemID;
-        this.overriddenThreadNames = overriddenThreadNames;
+    /**
+     * Pass-through constructor ensuring we will use the desired custom formatter, and match ALL records. Rotated files
+     * are compressed in the background rather than kept as a fixed number of generations.
+     *
+     * @param pathToLogFile     The pattern to match for the logfile's title.
+     * @param singleFileLogSize This is the max file size before the logger will rotate files (in regular Bytes).
+     * @param archiveOptions    How to compress and retain the rotated files.
+     * @param appendMode        Should always be true to ensure we are in append mode.
+     * @throws IOException       Thrown if we cannot find the location or there is an error getting it.
+     * @throws SecurityException Thrown if we do not have the correct permissions to be writing to this location.
+     */
+    public FileController(
+            String pathToLogFile,
+            long singleFileLogSize,
+            @NonNull ArchiveOptions archiveOptions,
+            boolean appendMode
+    ) throws IOException, SecurityException {
+        super(pathToLogFile, singleFileLogSize, archiveOptions, appendMode);
+        super.setFormatter(new FileFormat());
+        this.setLevel(Level.ALL);
     }
 
-    @Override
-    public boolean isLoggable(LogRecord logRecord) {
-        if (logRecord instanceof ExtendedLogRecord elr && elr.getControllersWhichShouldDisregardThisMessage() != null) {
-            for (Class<? extends StreamHandler> controllerWhichShouldDisregard : elr.getControllersWhichShouldDisregardThisMessage()) {
-                if (controllerWhichShouldDisregard.isAssignableFrom(this.getClass())) {
-                    return false;
-                }
-            }
-        }
-        return super.isLoggable(logRecord);
+    /**
+     * @param stackTraceOptions How stack traces should be rendered into each record's {@code error} array. When repeats
+     *                          are collapsed, the trace's reference and repeat count are written as the
+     *                          {@code errorTrace} and {@code errorRepeats} fields.
+     * @return This controller, for method chaining.
+     */
+    public FileController withStackTraceOptions(@NonNull StackTraceOptions stackTraceOptions) {
+        this.throwableRenderer = new ThrowableRenderer(stackTraceOptions);
+        return this;
     }
 
     @Override
-    public void setFormatter(Formatter newFormatter) throws SecurityException {
-        // EXPLICIT DENY OTHER THINGS SETTING OUR FORMATTER - GOSH DARN IT SPRING / EMBEDDED TOMCAT
-        if (getFormatter() != null) {
-            System.err.println("WARNING: Attempt to reset " + FileController.class.getName() + " formatter.");
-        }
+    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+        // These are the same for every record, so render them once here rather than for every line.
+        this.traceIDField = JsonLineWriter.renderField("traceID", specificRunID.toString());
+        this.publisherField = JsonLineWriter.renderField("publisher", systemID);
+        this.overriddenThreadNames = overriddenThreadNames;
     }
 
     /**
      * Used to format all text going to the logfile into a sensible form/layout.
      * <p>
-     * An attempt is made to squash every entry into a json object for easier consumption/parsing down the line.
+     * An attempt is made to squash every entry into a json object for easier consumption/parsing down the line. Each
+     * entry is streamed straight into a single reusable buffer, so no intermediate JSON tree is built per record. Values
+     * which repeat across records, such as logger names and baked-in tags, are only escaped the first time they are seen.
      */
-    private final class FileFormat extends Formatter {
-
-        private static final String EXCEPTION_ARRAY = "error[]";
-        private static final String METADATA_ARRAY = "meta[]";
-
-        /**
-         * Used to remove all newlines and awkward quotes so that each line in the output file is a valid JSON object
-         * for further processing outside this program. It is not GUARANTEED that the line will be valid JSON, though
-         * best effort is being made.
-         *
-         * @param input This is the string to remove newlines and awkward quotes from.
-         * @return This is the sanitised string that can be used in the logfile.
-         */
-        private String strFormatter(String input) {
-            return input == null
-                    ? "NULL"
-                    : input
-                    .replace("\n", "  ")         //rid newlines
-                    .replace("\\\"", "\\\\\"")   //escape, escaped quotes
-                    .replace("\"", "\\\"");      //escape quotes
-        }
+    private final class FileFormat extends RecordFormat {
+
+        private static final String EXCEPTION_ARRAY = "error";
+        private static final String EXCEPTION_TRACE = "errorTrace";
+        private static final String EXCEPTION_REPEATS = "errorRepeats";
+        private static final String METADATA_ARRAY = "meta";
+        private static final String TAGS_ARRAY = "tags";
+
+        private final JsonLineWriter jsonLine = new JsonLineWriter();
+        private final FragmentCache<String> loggerFields = new FragmentCache<>(name -> JsonLineWriter.renderField("logger", name));
+        private final FragmentCache<Set<String>> bakedInTagElements = new FragmentCache<>(JsonLineWriter::renderElements);
+        private final ThrowableRenderer.LineSink errorElements = new ThrowableRenderer.LineSink() {
+            @Override
+            public void beginLine() {
+                jsonLine.beginSanitisedElement();
+            }
 
-        @Override
-        public String format(LogRecord logRecord) {
-            JsonBuilder logEntry = new BasicJsonBuilder();
+            @Override
+            public void part(String part) {
+                jsonLine.sanitisedPart(part);
+            }
+
+            @Override
+            public void endLine() {
+                jsonLine.endSanitisedElement();
+            }
+
+            @Override
+            public void traceReference(String reference, long repeats) {
+                // Written as fields of their own, once the error's lines are done.
+                traceReference = reference;
+                traceRepeats = repeats;
+            }
+        };
+        private String traceReference;
+        private long traceRepeats;
 
+        @Override
+        protected StringBuilder encode(LogRecord logRecord) {
             // Add all the basic info
-            logEntry.addString("publisher", systemID)
-                    .addString("traceID", traceID.toString())
-                    .addString("dateTime", fileDateTimeFormatter.format(logRecord.getMillis()))
-                    .addLong("machineDateTime", logRecord.getMillis())
-                    .addString("logger", Objects.requireNonNullElse(logRecord.getLoggerName(), "Anon/Unknown Logger"))
-                    .addLong("threadID", logRecord.getLongThreadID())
-                    .addString("threadName", Objects.requireNonNullElse(overriddenThreadNames.get(logRecord.getLongThreadID()), ANON_THREAD))
-                    .addString("level", logRecord.getLevel().getName())
-                    .addString("message", strFormatter(logRecord.getMessage()));
+            jsonLine.beginLine()
+                    .field("threadID", logRecord.getLongThreadID())
+                    .rawField(traceIDField)
+                    .field("dateTime", fileDateTimeFormatter, logRecord.getMillis())
+                    .field("level", logRecord.getLevel().getName())
+                    .rawField(loggerFields.get(Objects.requireNonNullElse(logRecord.getLoggerName(), "Anon/Unknown Logger")))
+                    .rawField(publisherField)
+                    .sanitisedField("message", logRecord.getMessage())
+                    .field("threadName", Objects.requireNonNullElse(ThreadNameRegistry.lookup(overriddenThreadNames, logRecord.getLongThreadID()), ANON_THREAD))
+                    .field("machineDateTime", logRecord.getMillis());
+
+            // Only rely on the source of a record if it was located as it was logged, rather than leaving JUL to guess.
+            if (logRecord instanceof ExtendedLogRecord elr && elr.isCallerLocated()) {
+                jsonLine.field("sourceClass", elr.getSourceClassName())
+                        .field("sourceMethod", elr.getSourceMethodName())
+                        .field("sourceLine", elr.getSourceLineNumber());
+            }
 
             // Check if we have tags to write
             if (logRecord instanceof ExtendedLogRecord elr) {
-                if (elr.getBakedInTags() != null) {
-                    elr.getBakedInTags().forEach(t -> logEntry.addString("tags[]", t));
-                }
-                if (elr.getTags() != null) {
-                    elr.getTags().forEach(t -> logEntry.addString("tags[]", t));
+                boolean hasBakedInTags = elr.getBakedInTags() != null && !elr.getBakedInTags().isEmpty();
+                boolean hasTags = elr.getTags() != null && !elr.getTags().isEmpty();
+                if (hasBakedInTags || hasTags) {
+                    jsonLine.beginArray(TAGS_ARRAY);
+                    if (hasBakedInTags && elr.getBakedInTags() instanceof BakedInTags bakedInTags) {
+                        jsonLine.rawElements(bakedInTagElements.get(bakedInTags));
+                    } else if (hasBakedInTags) {
+                        for (String tag : elr.getBakedInTags()) {
+                            jsonLine.element(tag);
+                        }
+                    }
+                    if (hasTags) {
+                        for (String tag : elr.getTags()) {
+                            jsonLine.element(tag);
+                        }
+                    }
+                    jsonLine.endArray();
                 }
             }
 
             // Check for a thrown error
             if (logRecord.getThrown() != null) {
-                boolean isTopReason = true;
-                Throwable throwable = logRecord.getThrown();
-                do {
-                    if (isTopReason) {
-                        logEntry.addString(
-                                EXCEPTION_ARRAY,
-                                strFormatter("Error:  (" + throwable.getClass().getSimpleName() + ") " + throwable.getMessage())
-                        );
-                        isTopReason = false;
-                    } else {
-                        logEntry.addString(
-                                EXCEPTION_ARRAY,
-                                strFormatter("Nested Reason:  (" + throwable.getClass().getSimpleName() + ") " + throwable.getMessage())
-                        );
+                jsonLine.beginArray(EXCEPTION_ARRAY);
+                throwableRenderer.render(logRecord.getThrown(), errorElements);
+                jsonLine.endArray();
+                if (traceReference != null) {
+                    jsonLine.field(EXCEPTION_TRACE, traceReference);
+                    if (traceRepeats > 0) {
+                        jsonLine.field(EXCEPTION_REPEATS, traceRepeats);
                     }
-                    for (Object stackTraceLine : throwable.getStackTrace()) {
-                        logEntry.addString(EXCEPTION_ARRAY, strFormatter("  " + stackTraceLine.toString()));
-                    }
-                    throwable = throwable.getCause();
-                } while (throwable != null && throwable != throwable.getCause());
+                    traceReference = null;
+                }
             }
 
             // Check for additional metadata about the log entry.
-            if (logRecord.getParameters() != null) {
+            if (logRecord.getParameters() != null && logRecord.getParameters().length > 0) {
+                jsonLine.beginArray(METADATA_ARRAY);
                 for (Object metadata : logRecord.getParameters()) {
                     switch (metadata) {
                         case LoggableData loggableMetadata ->
-                                logEntry.addString(METADATA_ARRAY, strFormatter(loggableMetadata.getFormattedLogData()));
+                                jsonLine.sanitisedDataElement(loggableMetadata);
                         case Json jsonMetadata ->
-                                logEntry.addBuilderBlock(METADATA_ARRAY, jsonMetadata);
+                                jsonLine.rawElement(jsonMetadata.asString());
+                        case RenderedJson renderedJson ->
+                                jsonLine.rawElement(renderedJson.full());
                         case null ->
-                                logEntry.addString(METADATA_ARRAY, "NULL");
+                                jsonLine.sanitisedElement(null);
                         default ->
-                                logEntry.addString(METADATA_ARRAY, strFormatter(metadata.toString()));
+                                jsonLine.sanitisedElement(metadata.toString());
                     }
                 }
+                jsonLine.endArray();
             }
 
-            return logEntry.build().asString() + "\n";
+            return jsonLine.endLine();
         }
     }
 }
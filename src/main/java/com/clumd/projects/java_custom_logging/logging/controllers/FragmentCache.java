@@ -0,0 +1,46 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import java.util.function.Function;
+
+/**
+ * A small cache of pre-rendered text, for values which are repeated across many records, such as logger names and
+ * baked-in tags, but which are expensive enough to render (e.g. to escape) that doing so once per record adds up.
+ * <p>
+ * Values are matched on identity rather than equality, as the same logger hands the very same instances to every
+ * record it makes, and checking identity costs next to nothing. Each value maps to a single slot, so two values which
+ * collide simply take turns; the cache never grows.
+ * <p>
+ * Instances are NOT thread-safe, and are intended to be owned by a single formatter.
+ *
+ * @param <K> The type of value to render.
+ */
+final class FragmentCache<K> {
+
+    private static final int SLOTS = 256;
+
+    private final Function<K, String> renderer;
+    private final Object[] keys = new Object[SLOTS];
+    private final String[] fragments = new String[SLOTS];
+
+    /**
+     * @param renderer How to render a value, the first time it is seen.
+     */
+    FragmentCache(final Function<K, String> renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * @param value The value to find the rendering of.
+     * @return The rendered text for that value.
+     */
+    String get(final K value) {
+        int slot = System.identityHashCode(value) & (SLOTS - 1);
+        if (keys[slot] == value && fragments[slot] != null) {
+            return fragments[slot];
+        }
+        String fragment = renderer.apply(value);
+        keys[slot] = value;
+        fragments[slot] = fragment;
+        return fragment;
+    }
+}
@@ -0,0 +1,365 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CachedTimestampFormatter;
+
+/**
+ * A small, purpose-built writer for single-line JSON objects, which appends straight into one reusable character
+ * buffer rather than building up an intermediate tree of nodes.
+ * <p>
+ * Values are escaped in a single pass as they are copied into the buffer. There are two flavours of string value:
+ * <ul>
+ *     <li>{@link #field(String, CharSequence) Plain} values, which are simply escaped to be valid JSON.</li>
+ *     <li>{@link #sanitisedField(String, String) Sanitised} values, which additionally have newlines flattened to
+ *     double spaces, and quotes (plus any backslash immediately before them) escaped once more before being JSON
+ *     escaped. This matches the long-standing output of the file controllers for free-text, such as messages and stack
+ *     traces, so existing log consumers continue to see exactly the same text.</li>
+ * </ul>
+ * <p>
+ * Instances are NOT thread-safe, and are intended to be owned by a single formatter.
+ */
+public final class JsonLineWriter {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final String NULL_TEXT = "NULL";
+
+    private StringBuilder line = new StringBuilder(INITIAL_CAPACITY);
+    private boolean firstInContainer;
+    private final SanitisingSink sanitisingSink = new SanitisingSink();
+
+    /**
+     * Start a new JSON object, discarding anything previously written.
+     *
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter beginLine() {
+        if (line.capacity() > MAX_RETAINED_CAPACITY) {
+            // Don't hang on to a huge buffer forever just because of one enormous record.
+            line = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            line.setLength(0);
+        }
+        line.append('{');
+        firstInContainer = true;
+        return this;
+    }
+
+    /**
+     * Close the JSON object, and terminate the line.
+     *
+     * @return The buffer holding the complete line. This is only valid until the next call to {@link #beginLine()}.
+     */
+    public StringBuilder endLine() {
+        return line.append('}').append('\n');
+    }
+
+    public JsonLineWriter field(final String key, final long value) {
+        key(key);
+        line.append(value);
+        return this;
+    }
+
+    public JsonLineWriter field(final String key, final CharSequence value) {
+        key(key);
+        appendQuoted(value);
+        return this;
+    }
+
+    /**
+     * Add a timestamp field, rendered straight into the buffer. Timestamp patterns are expected not to produce any
+     * characters which would need escaping.
+     *
+     * @param key         The key for the field.
+     * @param formatter   The formatter to render the timestamp with.
+     * @param epochMillis The timestamp to render.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter field(final String key, final CachedTimestampFormatter formatter, final long epochMillis) {
+        key(key);
+        line.append('"');
+        formatter.formatTo(epochMillis, line);
+        line.append('"');
+        return this;
+    }
+
+    /**
+     * @param renderedField A complete field, key and value, ALREADY rendered by {@link #renderField}, to be written
+     *                      verbatim.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter rawField(final CharSequence renderedField) {
+        separator();
+        line.append(renderedField);
+        return this;
+    }
+
+    public JsonLineWriter sanitisedField(final String key, final String value) {
+        key(key);
+        appendSanitised(value);
+        return this;
+    }
+
+    /**
+     * Start an array value under the given key. Elements are then added through the 'element' methods, until
+     * {@link #endArray()} is called.
+     *
+     * @param key The key for the array.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter beginArray(final String key) {
+        key(key);
+        line.append('[');
+        firstInContainer = true;
+        return this;
+    }
+
+    public JsonLineWriter element(final CharSequence value) {
+        separator();
+        appendQuoted(value);
+        return this;
+    }
+
+    public JsonLineWriter sanitisedElement(final String value) {
+        separator();
+        appendSanitised(value);
+        return this;
+    }
+
+    /**
+     * Add a sanitised string element, which the given data writes straight into the buffer, being sanitised on the way.
+     * This gives the same result as {@code sanitisedElement(data.getFormattedLogData())}, without the intermediate String.
+     *
+     * @param data The data to write as the element.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter sanitisedDataElement(final LoggableData data) {
+        separator();
+        line.append('"');
+        try {
+            LoggableDataSink.write(data, sanitisingSink);
+        } finally {
+            // Even if the data failed part way, don't leave a backslash pending for the next record.
+            sanitisingSink.finish();
+        }
+        line.append('"');
+        return this;
+    }
+
+    /**
+     * Start a sanitised string element whose content will be built up over several calls to
+     * {@link #sanitisedPart(String)}, avoiding the need to concatenate the parts together first.
+     *
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter beginSanitisedElement() {
+        separator();
+        line.append('"');
+        return this;
+    }
+
+    public JsonLineWriter sanitisedPart(final String part) {
+        appendSanitisedContent(part == null ? "null" : part);
+        return this;
+    }
+
+    public JsonLineWriter endSanitisedElement() {
+        line.append('"');
+        return this;
+    }
+
+    /**
+     * @param json Some text which is ALREADY valid JSON, such as a nested object, to be written verbatim.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter rawElement(final CharSequence json) {
+        separator();
+        line.append(json);
+        return this;
+    }
+
+    /**
+     * @param renderedElements Any number of array elements, ALREADY rendered by {@link #renderElements}, to be written
+     *                         verbatim.
+     * @return This writer, for method chaining.
+     */
+    public JsonLineWriter rawElements(final CharSequence renderedElements) {
+        if (!renderedElements.isEmpty()) {
+            separator();
+            line.append(renderedElements);
+        }
+        return this;
+    }
+
+    public JsonLineWriter endArray() {
+        line.append(']');
+        firstInContainer = false;
+        return this;
+    }
+
+    private void key(final String key) {
+        separator();
+        line.append('"').append(key).append('"').append(':');
+    }
+
+    private void separator() {
+        if (firstInContainer) {
+            firstInContainer = false;
+        } else {
+            line.append(',');
+        }
+    }
+
+    private void appendQuoted(final CharSequence value) {
+        line.append('"');
+        if (value != null) {
+            appendEscaped(line, value);
+        }
+        line.append('"');
+    }
+
+    private void appendSanitised(final String value) {
+        line.append('"');
+        appendSanitisedContent(value == null ? NULL_TEXT : value);
+        line.append('"');
+    }
+
+    private void appendSanitisedContent(final String value) {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\n' -> line.append("  ");
+                case '"' -> line.append("\\\\\\\"");
+                case '\\' -> line.append(i + 1 < length && value.charAt(i + 1) == '"' ? "\\\\\\\\" : "\\\\");
+                default -> appendEscapedChar(line, c);
+            }
+        }
+    }
+
+    /**
+     * Sanitises text as it is appended, in the same way as {@link #appendSanitisedContent(String)}. A backslash is held
+     * back until the next character is known, as a backslash before a quote is escaped differently.
+     */
+    private final class SanitisingSink implements Appendable {
+
+        private boolean pendingBackslash;
+
+        @Override
+        public Appendable append(final CharSequence csq) {
+            CharSequence text = csq == null ? NULL_TEXT : csq;
+            return append(text, 0, text.length());
+        }
+
+        @Override
+        public Appendable append(final CharSequence csq, final int start, final int end) {
+            if (csq == null) {
+                return append(NULL_TEXT);
+            }
+            for (int i = start; i < end; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(final char c) {
+            if (pendingBackslash) {
+                line.append(c == '"' ? "\\\\\\\\" : "\\\\");
+                pendingBackslash = false;
+            }
+            switch (c) {
+                case '\n' -> line.append("  ");
+                case '"' -> line.append("\\\\\\\"");
+                case '\\' -> pendingBackslash = true;
+                default -> appendEscapedChar(line, c);
+            }
+            return this;
+        }
+
+        void finish() {
+            if (pendingBackslash) {
+                line.append("\\\\");
+                pendingBackslash = false;
+            }
+        }
+    }
+
+    /**
+     * Render a string field once, so that it can be written any number of times through {@link #rawField}.
+     *
+     * @param key   The key for the field.
+     * @param value The value for the field, which will be escaped.
+     * @return The rendered field.
+     */
+    public static String renderField(final String key, final CharSequence value) {
+        StringBuilder field = new StringBuilder(key.length() + (value == null ? 0 : value.length()) + 5);
+        field.append('"').append(key).append('"').append(':').append('"');
+        if (value != null) {
+            appendEscaped(field, value);
+        }
+        return field.append('"').toString();
+    }
+
+    /**
+     * Render some string array elements once, so that they can be written any number of times through
+     * {@link #rawElements}.
+     *
+     * @param values The values for the elements, which will each be escaped.
+     * @return The rendered elements, comma separated.
+     */
+    public static String renderElements(final Iterable<? extends CharSequence> values) {
+        StringBuilder elements = new StringBuilder();
+        for (CharSequence value : values) {
+            if (!elements.isEmpty()) {
+                elements.append(',');
+            }
+            elements.append('"');
+            if (value != null) {
+                appendEscaped(elements, value);
+            }
+            elements.append('"');
+        }
+        return elements.toString();
+    }
+
+    /**
+     * Append the given value to the buffer with JSON string escaping applied, but without surrounding quotes.
+     *
+     * @param into  The buffer to write into.
+     * @param value The text to escape.
+     */
+    public static void appendEscaped(final StringBuilder into, final CharSequence value) {
+        final int length = value.length();
+        int unescapedFrom = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c == '"' || c == '\\') {
+                into.append(value, unescapedFrom, i);
+                appendEscapedChar(into, c);
+                unescapedFrom = i + 1;
+            }
+        }
+        into.append(value, unescapedFrom, length);
+    }
+
+    private static void appendEscapedChar(final StringBuilder into, final char c) {
+        switch (c) {
+            case '"' -> into.append('\\').append('"');
+            case '\\' -> into.append('\\').append('\\');
+            case '\n' -> into.append('\\').append('n');
+            case '\r' -> into.append('\\').append('r');
+            case '\t' -> into.append('\\').append('t');
+            case '\b' -> into.append('\\').append('b');
+            case '\f' -> into.append('\\').append('f');
+            default -> {
+                if (c < 0x20) {
+                    into.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                } else {
+                    into.append(c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+
+/**
+ * Manages the set of files behind a {@link ByteChannelController}, keeping all the slow file system work of rotation
+ * off of the logging threads.
+ * <p>
+ * While generation 0 is being written to, the file which will replace it is already opened in the background, next to
+ * it with a {@code .next} suffix. Rotating is then just a matter of swapping which channel the controller writes to.
+ * The finished segment is handed back to be closed, the older generations are renamed along by one (dropping the
+ * oldest), and the new segment is renamed into place as generation 0, all on a single housekeeping thread. Renaming a
+ * file which is open does not disturb anything writing to it, so logging carries on uninterrupted throughout.
+ * <p>
+ * Alternatively, rotated files can be handed to a {@link SegmentArchiver} to be compressed, rather than renamed
+ * through a fixed number of generations.
+ * <p>
+ * If the housekeeping thread has not caught up by the time another rotation is due, the controller simply keeps
+ * writing to its current segment until it has, rather than waiting for it. Likewise, if any of the housekeeping fails,
+ * the controller keeps writing to wherever its current segment is, and the failed step is retried when the next
+ * rotation is due.
+ * <p>
+ * A {@code .next} file which is found when starting up, and which is not empty, holds the newest records of a previous
+ * run which stopped part way through a rotation. Rather than being truncated, it is first rotated into place as
+ * generation 0, as though that rotation had finished, and is then kept as an older generation (or archived) if the
+ * controller is not appending to generation 0.
+ */
+final class LogSegments {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Handler owner;
+    private final String pattern;
+    private final int count;
+    private final Path activePath;
+    private final Path nextPath;
+    private final ExecutorService housekeeping;
+    private final SegmentArchiver archiver;
+    private volatile FileChannel nextChannel;
+    // Set by the housekeeping thread whenever it fails, so the controller knows to have it try again.
+    private volatile boolean stalled;
+    // Only touched by the housekeeping thread: the live segment is still at the next path, waiting to be renamed.
+    private boolean promotionPending;
+    private boolean recovered;
+    // Only touched by the controller, under its own lock.
+    private long retryAfterNanos = System.nanoTime();
+
+    /**
+     * @param owner          The controller these segments belong to, used to report any errors.
+     * @param pattern        The FileHandler style pattern for the files.
+     * @param count          The number of generations to keep, when not archiving.
+     * @param rotating       Whether the files will ever be rotated, and so need any background housekeeping at all.
+     * @param archiveOptions How to archive rotated files, or null to keep a plain set of generations instead.
+     * @throws IOException Thrown if a segment left over from an interrupted rotation could not be recovered.
+     */
+    LogSegments(final Handler owner, final String pattern, final int count, final boolean rotating, final ArchiveOptions archiveOptions) throws IOException {
+        this.owner = owner;
+        this.pattern = pattern;
+        this.count = count;
+        this.activePath = ByteChannelController.generationPath(pattern, 0, count);
+        this.nextPath = activePath.resolveSibling(activePath.getFileName() + ".next");
+        this.archiver = archiveOptions == null ? null : new SegmentArchiver(owner, activePath, archiveOptions);
+        recoverInterruptedRotation();
+        if (rotating) {
+            this.housekeeping = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "LogRoot-log-rotation");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.housekeeping.execute(this::prepareNext);
+        } else {
+            this.housekeeping = null;
+        }
+    }
+
+    /**
+     * Open generation 0, for the controller to start writing to.
+     *
+     * @param appendMode Whether to keep any existing content, rather than truncating it.
+     * @return The channel for generation 0.
+     * @throws IOException Thrown if the file could not be opened.
+     */
+    FileChannel openActive(final boolean appendMode) throws IOException {
+        if (recovered && !appendMode) {
+            moveActiveAlong();
+        }
+        return FileChannel.open(
+                activePath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                appendMode ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING
+        );
+    }
+
+    /**
+     * Swap in the next segment, if it is ready. Only the controller, while holding its own lock, may call this.
+     *
+     * @param finished The segment the controller has finished writing to, if the swap happens.
+     * @return The channel to write to from now on, or null if the next segment is not ready yet and the controller
+     * should carry on with its current one.
+     */
+    FileChannel rotate(final FileChannel finished) {
+        FileChannel next = nextChannel;
+        if (next == null) {
+            retryIfStalled();
+            return null;
+        }
+        nextChannel = null;
+        housekeeping.execute(() -> retire(finished));
+        return next;
+    }
+
+    /**
+     * @return True if the next segment has been prepared, so the next rotation will happen as soon as it is due.
+     */
+    boolean isNextReady() {
+        return nextChannel != null;
+    }
+
+    /**
+     * Wait for any outstanding housekeeping to complete, and tidy away the pre-opened next segment.
+     */
+    void close() {
+        if (housekeeping == null) {
+            closeArchiver();
+            return;
+        }
+        housekeeping.shutdown();
+        try {
+            if (!housekeeping.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                report("Timed out waiting for log rotation of " + pattern + " to finish.", null, ErrorManager.CLOSE_FAILURE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        FileChannel unused = nextChannel;
+        nextChannel = null;
+        if (unused != null) {
+            try {
+                unused.close();
+                Files.deleteIfExists(nextPath);
+            } catch (IOException e) {
+                report("Failed to clean up the unused log file " + nextPath, e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+        closeArchiver();
+    }
+
+    private void closeArchiver() {
+        if (archiver != null) {
+            archiver.close();
+        }
+    }
+
+    private void recoverInterruptedRotation() throws IOException {
+        if (!Files.exists(nextPath)) {
+            return;
+        }
+        if (Files.size(nextPath) == 0) {
+            Files.delete(nextPath);
+            return;
+        }
+        promoteNext();
+        recovered = true;
+    }
+
+    private void retryIfStalled() {
+        if (!stalled) {
+            return;
+        }
+        final long now = System.nanoTime();
+        if (now - retryAfterNanos < 0) {
+            return;
+        }
+        // Cleared before queueing, so that the retry is queued once, however many records arrive before it runs.
+        stalled = false;
+        retryAfterNanos = now + RETRY_INTERVAL_NANOS;
+        housekeeping.execute(this::catchUp);
+    }
+
+    private void retire(final FileChannel finished) {
+        try {
+            finished.close();
+        } catch (IOException e) {
+            report("Failed to close rotated log file " + pattern, e, ErrorManager.CLOSE_FAILURE);
+        }
+        promotionPending = true;
+        catchUp();
+    }
+
+    private void catchUp() {
+        if (promotionPending) {
+            try {
+                promoteNext();
+                promotionPending = false;
+            } catch (IOException e) {
+                // The live segment is still sitting at the next path, so it must not be re-used until it has moved.
+                stalled = true;
+                report("Failed to rotate log file " + pattern + ", it will be retried at the next rotation.", e, ErrorManager.OPEN_FAILURE);
+                return;
+            }
+        }
+        prepareNext();
+    }
+
+    /**
+     * Move generation 0 along (or into the archive) to make way for the segment at the next path, and rename that into
+     * its place. Each step can safely be repeated, should a previous attempt have only got part way.
+     */
+    private void promoteNext() throws IOException {
+        moveActiveAlong();
+        Files.move(nextPath, activePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void moveActiveAlong() throws IOException {
+        if (!Files.exists(activePath)) {
+            return;
+        }
+        if (archiver != null) {
+            archiver.archive(activePath);
+            return;
+        }
+        for (int generation = count - 2; generation >= 0; generation--) {
+            Path older = ByteChannelController.generationPath(pattern, generation, count);
+            if (Files.exists(older)) {
+                Files.move(older, ByteChannelController.generationPath(pattern, generation + 1, count), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private void prepareNext() {
+        try {
+            nextChannel = FileChannel.open(
+                    nextPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING
+            );
+        } catch (IOException e) {
+            stalled = true;
+            report("Failed to prepare the next log file " + nextPath + ", it will be retried at the next rotation.", e, ErrorManager.OPEN_FAILURE);
+        }
+    }
+
+    private void report(final String message, final Exception e, final int code) {
+        owner.getErrorManager().error(message, e, code);
+    }
+}
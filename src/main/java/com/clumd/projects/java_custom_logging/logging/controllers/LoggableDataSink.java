@@ -0,0 +1,82 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Somewhere for {@link LoggableData} to {@link LoggableData#appendFormattedLogData(Appendable) write} itself, which
+ * flattens any newlines to double spaces on the way into a controller's buffer, so the data stays on one line.
+ * <p>
+ * As with the file controllers' handling of data which is already a String, a null is written as 'NULL'.
+ * <p>
+ * Instances are NOT thread-safe, and are intended to be owned by a single formatter.
+ */
+final class LoggableDataSink implements Appendable {
+
+    private static final String NULL_TEXT = "NULL";
+
+    private StringBuilder into;
+
+    /**
+     * Have the given data write itself into the given buffer, with newlines flattened.
+     *
+     * @param data The data to write.
+     * @param into The buffer to write it into.
+     */
+    void writeFlattened(final LoggableData data, final StringBuilder into) {
+        this.into = into;
+        try {
+            write(data, this);
+        } finally {
+            this.into = null;
+        }
+    }
+
+    /**
+     * Have the given data write itself into the given sink, as it is.
+     *
+     * @param data The data to write.
+     * @param into Where to write it, which must not throw IOExceptions of its own.
+     */
+    static void write(final LoggableData data, final Appendable into) {
+        try {
+            data.appendFormattedLogData(into);
+        } catch (IOException e) {
+            // None of the controllers' sinks can fail, so this can only have come from the data itself.
+            throw new UncheckedIOException("Failed to write the log data of " + data.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Appendable append(final CharSequence csq) {
+        return csq == null ? append(NULL_TEXT, 0, NULL_TEXT.length()) : append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(final CharSequence csq, final int start, final int end) {
+        if (csq == null) {
+            return append(NULL_TEXT);
+        }
+        int unflattenedFrom = start;
+        for (int i = start; i < end; i++) {
+            if (csq.charAt(i) == '\n') {
+                into.append(csq, unflattenedFrom, i).append("  ");
+                unflattenedFrom = i + 1;
+            }
+        }
+        into.append(csq, unflattenedFrom, end);
+        return this;
+    }
+
+    @Override
+    public Appendable append(final char c) {
+        if (c == '\n') {
+            into.append("  ");
+        } else {
+            into.append(c);
+        }
+        return this;
+    }
+}
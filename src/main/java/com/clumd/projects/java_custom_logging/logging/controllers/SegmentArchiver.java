@@ -0,0 +1,283 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the segments which {@link LogSegments} rotates out, and keeps the total size of the archive within a
+ * budget by deleting the oldest archives.
+ * <p>
+ * A finished segment is first renamed aside to a (UTC) timestamped name, which is cheap and done as part of rotation.
+ * The compression itself then happens on a separate archiving thread, so that however long it takes, it never holds up
+ * either the active writer or the preparation of its next segment. Archives are written to a temporary file and only
+ * renamed into place once complete, so a crash never leaves a truncated {@code .gz} behind, and any segment which was
+ * renamed aside but never compressed is picked up again the next time the controller starts.
+ * <p>
+ * With more than one {@link ArchiveOptions#getCompressionThreads() compression thread}, each segment is split into
+ * blocks which are compressed in parallel, and written out as consecutive gzip members. This is still a valid gzip file
+ * which {@code gunzip} or {@link java.util.zip.GZIPInputStream} read back as a whole.
+ */
+final class SegmentArchiver {
+
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final long CLOSE_TIMEOUT_SECONDS = 60;
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    private static final String PARTIAL_SUFFIX = ".tmp";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter
+            .ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneOffset.UTC);
+
+    private final Handler owner;
+    private final ArchiveOptions options;
+    private final Path directory;
+    private final String prefix;
+    private final Pattern archiveName;
+    private final ExecutorService archiving;
+    private final ExecutorService blockCompressors;
+
+    /**
+     * @param owner      The controller these archives belong to, used to report any errors.
+     * @param activePath The file the controller writes to, which archives will be named after.
+     * @param options    How to compress and retain the archives.
+     */
+    SegmentArchiver(final Handler owner, final Path activePath, final ArchiveOptions options) {
+        this.owner = owner;
+        this.options = options;
+        this.directory = activePath.toAbsolutePath().getParent();
+        this.prefix = activePath.getFileName() + ".";
+        this.archiveName = Pattern.compile(Pattern.quote(prefix) + "(\\d{8}-\\d{6}-\\d{3})(?:-(\\d+))?(?:" + Pattern.quote(ARCHIVE_SUFFIX) + ")?");
+        this.archiving = Executors.newSingleThreadExecutor(task -> daemon(task, "LogRoot-log-archiving"));
+        this.blockCompressors = options.getCompressionThreads() > 1
+                ? Executors.newFixedThreadPool(options.getCompressionThreads(), task -> daemon(task, "LogRoot-log-compression"))
+                : null;
+        this.archiving.execute(this::recoverLeftovers);
+    }
+
+    private static Thread daemon(final Runnable task, final String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Move a finished segment aside, and queue it up to be compressed.
+     *
+     * @param finishedSegment The segment to archive, which must no longer be written to.
+     * @throws IOException Thrown if the segment could not be moved aside.
+     */
+    void archive(final Path finishedSegment) throws IOException {
+        String stamp = STAMP.format(Instant.now());
+        Path staged = directory.resolve(prefix + stamp);
+        for (int attempt = 1; Files.exists(staged) || Files.exists(compressedPathOf(staged)); attempt++) {
+            staged = directory.resolve(prefix + stamp + "-" + attempt);
+        }
+        Files.move(finishedSegment, staged);
+
+        final Path toCompress = staged;
+        archiving.execute(() -> {
+            compress(toCompress);
+            trimToBudget();
+        });
+    }
+
+    /**
+     * Wait for any queued compression to finish.
+     */
+    void close() {
+        archiving.shutdown();
+        try {
+            if (!archiving.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                report("Timed out waiting for log archiving in " + directory + " to finish.", null, ErrorManager.CLOSE_FAILURE);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (blockCompressors != null) {
+            blockCompressors.shutdownNow();
+        }
+    }
+
+    private void recoverLeftovers() {
+        try {
+            for (Path partial : listDirectory(name -> name.endsWith(ARCHIVE_SUFFIX + PARTIAL_SUFFIX))) {
+                Files.deleteIfExists(partial);
+            }
+            for (Archive archive : listArchives()) {
+                if (!archive.compressed()) {
+                    compress(archive.path());
+                }
+            }
+        } catch (IOException e) {
+            report("Failed to recover log archives left over in " + directory, e, ErrorManager.GENERIC_FAILURE);
+        }
+        trimToBudget();
+    }
+
+    private void compress(final Path staged) {
+        Path archive = compressedPathOf(staged);
+        Path partial = staged.resolveSibling(archive.getFileName() + PARTIAL_SUFFIX);
+        try {
+            if (blockCompressors == null) {
+                compressAsOneStream(staged, partial);
+            } else {
+                compressInParallelBlocks(staged, partial);
+            }
+            Files.move(partial, archive, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(staged);
+        } catch (NoSuchFileException e) {
+            // Already deleted to stay within the budget before we got to it, so there is nothing left to do.
+            deleteQuietly(partial);
+        } catch (IOException | ExecutionException e) {
+            report("Failed to compress log archive " + staged, e, ErrorManager.WRITE_FAILURE);
+            deleteQuietly(partial);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(partial);
+        }
+    }
+
+    private void compressAsOneStream(final Path from, final Path to) throws IOException {
+        try (InputStream in = Files.newInputStream(from); OutputStream out = gzipStream(Files.newOutputStream(to))) {
+            in.transferTo(out);
+        }
+    }
+
+    private void compressInParallelBlocks(final Path from, final Path to) throws IOException, ExecutionException, InterruptedException {
+        final int window = options.getCompressionThreads() * 2;
+        ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>(window);
+        try (InputStream in = Files.newInputStream(from); OutputStream out = Files.newOutputStream(to)) {
+            byte[] block;
+            while ((block = in.readNBytes(BLOCK_SIZE)).length > 0) {
+                final byte[] uncompressed = block;
+                inFlight.add(blockCompressors.submit(() -> compressBlock(uncompressed)));
+                if (inFlight.size() == window) {
+                    out.write(inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                out.write(inFlight.poll().get());
+            }
+        } finally {
+            for (Future<byte[]> abandoned : inFlight) {
+                abandoned.cancel(true);
+            }
+        }
+    }
+
+    private byte[] compressBlock(final byte[] uncompressed) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(uncompressed.length / 4);
+        try (OutputStream out = gzipStream(compressed)) {
+            out.write(uncompressed);
+        }
+        return compressed.toByteArray();
+    }
+
+    private OutputStream gzipStream(final OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, STREAM_BUFFER_SIZE) {
+            {
+                def.setLevel(options.getCompressionLevel());
+            }
+        };
+    }
+
+    private void trimToBudget() {
+        try {
+            // Segments still waiting to be compressed are left out, as they will only count once they are compressed.
+            List<Path> archives = listArchives().stream().filter(Archive::compressed).map(Archive::path).toList();
+            long total = 0;
+            long[] sizes = new long[archives.size()];
+            for (int i = 0; i < archives.size(); i++) {
+                sizes[i] = Files.size(archives.get(i));
+                total += sizes[i];
+            }
+            // Archives are listed oldest first, so drop from the front until we fit.
+            for (int i = 0; i < archives.size() && total > options.getDiskBudget(); i++) {
+                Files.deleteIfExists(archives.get(i));
+                total -= sizes[i];
+            }
+        } catch (IOException e) {
+            report("Failed to trim log archives in " + directory + " to their budget.", e, ErrorManager.GENERIC_FAILURE);
+        }
+    }
+
+    /**
+     * @return Every archive, whether compressed yet or not, oldest first.
+     */
+    private List<Archive> listArchives() throws IOException {
+        List<Archive> archives = new ArrayList<>();
+        for (Path candidate : listDirectory(name -> true)) {
+            Matcher name = archiveName.matcher(candidate.getFileName().toString());
+            if (name.matches()) {
+                archives.add(new Archive(
+                        candidate,
+                        name.group(1),
+                        name.group(2) == null ? 0 : Long.parseLong(name.group(2)),
+                        candidate.getFileName().toString().endsWith(ARCHIVE_SUFFIX)
+                ));
+            }
+        }
+        // Whether or not an archive has been compressed yet can't reorder it, and a '-10' suffix follows a '-9'.
+        archives.sort(Comparator.comparing(Archive::stamp).thenComparingLong(Archive::sequence));
+        return archives;
+    }
+
+    private List<Path> listDirectory(final Predicate<String> fileNameFilter) throws IOException {
+        List<Path> matches = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(prefix) && fileNameFilter.test(name);
+        })) {
+            stream.forEach(matches::add);
+        }
+        return matches;
+    }
+
+    private static Path compressedPathOf(final Path staged) {
+        return staged.resolveSibling(staged.getFileName() + ARCHIVE_SUFFIX);
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            report("Failed to delete partial log archive " + path, e, ErrorManager.GENERIC_FAILURE);
+        }
+    }
+
+    private void report(final String message, final Exception e, final int code) {
+        owner.getErrorManager().error(message, e, code);
+    }
+
+    /**
+     * An archived segment, as named when it was moved aside: the UTC time it was archived, and a sequence number to
+     * tell apart any archived within the same millisecond.
+     */
+    private record Archive(Path path, String stamp, long sequence, boolean compressed) {
+    }
+}
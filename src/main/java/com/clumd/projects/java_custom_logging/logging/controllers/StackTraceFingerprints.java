@@ -0,0 +1,109 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+/**
+ * Remembers which stack traces a controller has recently rendered in full, so that repeats of them can be rendered as a
+ * short reference instead.
+ * <p>
+ * A trace is identified by a fingerprint of the type of each error in its cause chain, and the hash of each of their
+ * frames, which is far cheaper than rendering them. Each fingerprint maps to a single slot, so two traces which collide
+ * simply take turns; the table never grows.
+ * <p>
+ * Instances are NOT thread-safe, and are intended to be owned by a single {@link ThrowableRenderer}.
+ */
+final class StackTraceFingerprints {
+
+    private final long windowNanos;
+    private final long fullTraceIntervalNanos;
+    private final int mask;
+    private final long[] fingerprints;
+    private final Class<?>[] types;
+    private final long[] lastSeen;
+    private final long[] lastRenderedInFull;
+    private final long[] repeats;
+
+    private String reference;
+    private long repeatCount;
+
+    /**
+     * @param options The options describing how long to remember traces for, and how many.
+     */
+    StackTraceFingerprints(final StackTraceOptions options) {
+        this.windowNanos = options.getRepeatWindow().toNanos();
+        this.fullTraceIntervalNanos = options.getFullTraceInterval() == null ? Long.MAX_VALUE : options.getFullTraceInterval().toNanos();
+        int slots = options.getMaxRememberedTraces() == 1 ? 1 : Integer.highestOneBit(options.getMaxRememberedTraces() - 1) << 1;
+        this.mask = slots - 1;
+        this.fingerprints = new long[slots];
+        this.types = new Class<?>[slots];
+        this.lastSeen = new long[slots];
+        this.lastRenderedInFull = new long[slots];
+        this.repeats = new long[slots];
+    }
+
+    /**
+     * Record that the given error is about to be rendered. Afterwards, {@link #reference()} and {@link #repeatCount()}
+     * describe it.
+     *
+     * @param thrown The error attached to a record.
+     * @return True if its trace was recently rendered in full, so only a reference to it need be rendered this time.
+     */
+    boolean isRepeat(final Throwable thrown) {
+        final long now = System.nanoTime();
+        final long fingerprint = fingerprint(thrown);
+        final int folded = (int) (fingerprint ^ (fingerprint >>> 32));
+        final int slot = folded & mask;
+        reference = toReference(folded);
+
+        if (types[slot] == thrown.getClass()
+                && fingerprints[slot] == fingerprint
+                && now - lastSeen[slot] < windowNanos
+                && now - lastRenderedInFull[slot] < fullTraceIntervalNanos) {
+            lastSeen[slot] = now;
+            repeatCount = ++repeats[slot];
+            return true;
+        }
+
+        types[slot] = thrown.getClass();
+        fingerprints[slot] = fingerprint;
+        lastSeen[slot] = now;
+        lastRenderedInFull[slot] = now;
+        repeats[slot] = 0;
+        repeatCount = 0;
+        return false;
+    }
+
+    /**
+     * @return The short reference to the trace last passed to {@link #isRepeat(Throwable)}.
+     */
+    String reference() {
+        return reference;
+    }
+
+    /**
+     * @return How many times the trace last passed to {@link #isRepeat(Throwable)} has been repeated, since it was last
+     * rendered in full.
+     */
+    long repeatCount() {
+        return repeatCount;
+    }
+
+    private static String toReference(final int folded) {
+        char[] hex = new char[8];
+        for (int i = 7, bits = folded; i >= 0; i--, bits >>>= 4) {
+            hex[i] = Character.forDigit(bits & 0xF, 16);
+        }
+        return new String(hex);
+    }
+
+    private static long fingerprint(final Throwable thrown) {
+        long fingerprint = 0;
+        Throwable throwable = thrown;
+        do {
+            fingerprint = fingerprint * 0x9E3779B97F4A7C15L + throwable.getClass().getName().hashCode();
+            for (StackTraceElement frame : throwable.getStackTrace()) {
+                fingerprint = fingerprint * 31 + frame.hashCode();
+            }
+            throwable = throwable.getCause();
+        } while (throwable != null && throwable != throwable.getCause());
+        return fingerprint;
+    }
+}
@@ -0,0 +1,141 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how a controller should render the stack traces of any errors attached to its records.
+ * <p>
+ * Use the static factory, then chain any of the 'with' methods to tune it. For example
+ * {@code StackTraceOptions.full().withMaxFramesPerCause(20).withFramesFiltered(StackTraceOptions.REFLECTION_PACKAGES)}.
+ */
+@Getter
+public final class StackTraceOptions {
+
+    public static final int DEFAULT_MAX_REMEMBERED_TRACES = 256;
+    public static final List<String> REFLECTION_PACKAGES = List.of("java.lang.reflect.", "jdk.internal.reflect.", "sun.reflect.");
+
+    private int maxFramesPerCause = Integer.MAX_VALUE;
+    private final List<String> filteredPackages = new ArrayList<>();
+    private boolean commonFramesElided = true;
+    private Duration repeatWindow;
+    private int maxRememberedTraces = DEFAULT_MAX_REMEMBERED_TRACES;
+    private Duration fullTraceInterval;
+
+    private StackTraceOptions() {
+    }
+
+    /**
+     * Every frame of every stack trace will be rendered, each time it is logged, except for the frames a cause (or
+     * suppressed error) has in common with the error enclosing it, which are summarised as {@code ... N more}. This is
+     * the default.
+     *
+     * @return Options for rendering stack traces in full.
+     */
+    public static StackTraceOptions full() {
+        return new StackTraceOptions();
+    }
+
+    /**
+     * @param maxFramesPerCause The most frames to render for the error, and for each of its causes and suppressed
+     *                          errors. Any others are summarised as {@code ... N more}.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withMaxFramesPerCause(final int maxFramesPerCause) {
+        if (maxFramesPerCause < 1) {
+            throw new IllegalArgumentException("At least one frame must be rendered per cause, but was: " + maxFramesPerCause);
+        }
+        this.maxFramesPerCause = maxFramesPerCause;
+        return this;
+    }
+
+    /**
+     * Leave out any frame whose class is in one of the given packages, such as reflection or framework internals. The
+     * frames left out are counted in the {@code ... N more} summary of their cause.
+     *
+     * @param packagePrefixes The start of the fully qualified names of the classes to leave out, e.g.
+     *                        {@code "org.apache.catalina."}.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withFramesFiltered(@NonNull final List<String> packagePrefixes) {
+        for (String packagePrefix : packagePrefixes) {
+            if (packagePrefix == null || packagePrefix.isEmpty()) {
+                throw new IllegalArgumentException("A filtered package must not be empty.");
+            }
+        }
+        this.filteredPackages.addAll(packagePrefixes);
+        return this;
+    }
+
+    /**
+     * As {@link #withFramesFiltered(List)}.
+     */
+    public StackTraceOptions withFramesFiltered(@NonNull final String... packagePrefixes) {
+        return withFramesFiltered(List.of(packagePrefixes));
+    }
+
+    /**
+     * @param commonFramesElided Whether the frames a cause has in common with the error enclosing it should be
+     *                           summarised as {@code ... N more}, rather than rendered again.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withCommonFramesElided(final boolean commonFramesElided) {
+        this.commonFramesElided = commonFramesElided;
+        return this;
+    }
+
+    /**
+     * @return The packages whose frames are left out, as an unmodifiable view.
+     */
+    public List<String> getFilteredPackages() {
+        return Collections.unmodifiableList(filteredPackages);
+    }
+
+    /**
+     * The first time a stack trace is logged, it will be rendered in full along with a short reference to it. Should the
+     * same trace (the same types of error, thrown from the same frames) be logged again before it has gone unseen for
+     * the given window, only the error's message, that reference, and how many times it has been seen will be rendered.
+     *
+     * @param window How long a stack trace is remembered for, after it was last logged.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withRepeatsCollapsed(@NonNull final Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("The repeated stack trace window must be positive.");
+        }
+        this.repeatWindow = window;
+        return this;
+    }
+
+    /**
+     * @param maxRememberedTraces How many distinct stack traces to remember at once, which will be rounded up to the next
+     *                            power of two. Should there be more, traces which collide take turns, and may be rendered
+     *                            in full more often.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withMaxRememberedTraces(final int maxRememberedTraces) {
+        if (maxRememberedTraces < 1 || maxRememberedTraces > 1 << 16) {
+            throw new IllegalArgumentException("The number of remembered stack traces must be between 1 and 2^16, but was: " + maxRememberedTraces);
+        }
+        this.maxRememberedTraces = maxRememberedTraces;
+        return this;
+    }
+
+    /**
+     * @param interval How often a stack trace which keeps repeating should be rendered in full again anyway, so that it
+     *                 can still be found near the records referring to it.
+     * @return This options instance, for method chaining.
+     */
+    public StackTraceOptions withFullTraceEvery(@NonNull final Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("The full stack trace interval must be positive.");
+        }
+        this.fullTraceInterval = interval;
+        return this;
+    }
+}
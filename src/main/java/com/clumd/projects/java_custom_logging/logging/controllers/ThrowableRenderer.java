@@ -0,0 +1,266 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Renders an error, along with its cause chain and any suppressed errors, as a series of lines streamed straight into a
+ * controller's output, as described by a {@link StackTraceOptions}.
+ * <p>
+ * Like {@link Throwable#printStackTrace()}, the frames each cause (or suppressed error) shares with the error enclosing
+ * it can be left off, as can any frames from filtered packages, or past a maximum number per cause. Whatever is left off
+ * a cause is summarised by a single {@code ... N more} line.
+ * <p>
+ * Should the options collapse repeated traces, each trace rendered in full is followed by a short reference to it, and
+ * any repeat of it is rendered as just the error's reason and that reference. Such instances remember the traces they
+ * have rendered, so must belong to a single controller, and be used by one thread at a time. Any other instance holds
+ * no state between calls, so may be shared between controllers.
+ */
+final class ThrowableRenderer {
+
+    /**
+     * Renders every frame of every cause, leaving off only those shared with the enclosing error.
+     */
+    static final ThrowableRenderer DEFAULT = new ThrowableRenderer(StackTraceOptions.full());
+
+    private static final StackTraceElement[] NO_FRAMES = new StackTraceElement[0];
+    private static final String TOP_REASON = "Error:  (";
+    private static final String NESTED_REASON = "Nested Reason:  (";
+    private static final String SUPPRESSED = "Suppressed:  (";
+    private static final String NESTED_INDENT = "  ";
+
+    /**
+     * Somewhere for the rendered lines to go. Each line is begun, given one or more parts, then ended.
+     */
+    interface LineSink {
+
+        void beginLine();
+
+        /**
+         * @param part The next part of the current line, which may be null (e.g. for an error without a message).
+         */
+        void part(String part);
+
+        /**
+         * By default, just another part.
+         *
+         * @param message An error's message, which unlike other parts will rarely be the same twice. It is always the
+         *                last part of its line, and may be null.
+         */
+        default void message(String message) {
+            part(message);
+        }
+
+        void endLine();
+
+        /**
+         * Called at the end of each error rendered, when repeated traces are collapsed. By default, the reference is
+         * rendered as one more line.
+         *
+         * @param reference The short reference to the error's trace.
+         * @param repeats   How many times the trace has been repeated since it was last rendered in full, or 0 if it
+         *                  was just rendered in full.
+         */
+        default void traceReference(String reference, long repeats) {
+            beginLine();
+            if (repeats == 0) {
+                part("  Stack trace #");
+                part(reference);
+            } else {
+                part("  ... Stack trace #");
+                part(reference);
+                part(", repeated ");
+                part(Long.toString(repeats));
+                part(" time(s) since printed in full");
+            }
+            endLine();
+        }
+    }
+
+    /**
+     * A {@link LineSink} which appends each line, terminated by a newline, to a StringBuilder.
+     */
+    static final class TextLines implements LineSink {
+
+        private final boolean flattened;
+        private StringBuilder into;
+
+        TextLines() {
+            this(false);
+        }
+
+        /**
+         * @param flattened Whether any newlines within a part (e.g. in an error's message) should be replaced, so that
+         *                  every line rendered stays on a single line of output.
+         */
+        TextLines(final boolean flattened) {
+            this.flattened = flattened;
+        }
+
+        /**
+         * @param into The buffer which lines should be appended to, until this is next called.
+         * @return This sink, for method chaining.
+         */
+        TextLines into(final StringBuilder into) {
+            this.into = into;
+            return this;
+        }
+
+        @Override
+        public void beginLine() {
+            // Lines begin wherever the last one ended.
+        }
+
+        @Override
+        public void part(final String part) {
+            if (!flattened || part == null || part.indexOf('\n') < 0) {
+                into.append(part);
+                return;
+            }
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                if (c == '\n') {
+                    into.append("  ");
+                } else {
+                    into.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void endLine() {
+            into.append('\n');
+        }
+    }
+
+    private final int maxFramesPerCause;
+    private final String[] filteredPackages;
+    private final boolean commonFramesElided;
+    private final StackTraceFingerprints fingerprints;
+
+    /**
+     * @param options The options describing which frames to render, and whether repeated traces should be collapsed.
+     */
+    ThrowableRenderer(final StackTraceOptions options) {
+        this.maxFramesPerCause = options.getMaxFramesPerCause();
+        this.filteredPackages = options.getFilteredPackages().toArray(new String[0]);
+        this.commonFramesElided = options.isCommonFramesElided();
+        this.fingerprints = options.getRepeatWindow() == null ? null : new StackTraceFingerprints(options);
+    }
+
+    /**
+     * @param thrown The error to render.
+     * @param lines  Where to render it to.
+     */
+    void render(final Throwable thrown, final LineSink lines) {
+        if (fingerprints == null) {
+            renderInFull(thrown, lines);
+        } else if (fingerprints.isRepeat(thrown)) {
+            renderReason(thrown, TOP_REASON, "", lines);
+            lines.part(") ");
+            lines.message(thrown.getMessage());
+            lines.endLine();
+            lines.traceReference(fingerprints.reference(), fingerprints.repeatCount());
+        } else {
+            renderInFull(thrown, lines);
+            lines.traceReference(fingerprints.reference(), 0);
+        }
+    }
+
+    private void renderInFull(final Throwable thrown, final LineSink lines) {
+        Set<Throwable> rendered = Collections.newSetFromMap(new IdentityHashMap<>());
+        renderChain(thrown, TOP_REASON, "", NO_FRAMES, lines, rendered);
+    }
+
+    private static void renderReason(final Throwable throwable, final String reason, final String indent, final LineSink lines) {
+        lines.beginLine();
+        lines.part(indent);
+        lines.part(reason);
+        lines.part(throwable.getClass().getSimpleName());
+    }
+
+    private void renderChain(
+            final Throwable thrown,
+            final String label,
+            final String indent,
+            final StackTraceElement[] enclosingFrames,
+            final LineSink lines,
+            final Set<Throwable> rendered
+    ) {
+        Throwable throwable = thrown;
+        String reason = label;
+        StackTraceElement[] enclosing = enclosingFrames;
+        while (throwable != null) {
+            if (!rendered.add(throwable)) {
+                renderReason(throwable, reason, indent, lines);
+                lines.part(") [CIRCULAR REFERENCE]");
+                lines.endLine();
+                return;
+            }
+            renderReason(throwable, reason, indent, lines);
+            lines.part(") ");
+            lines.message(throwable.getMessage());
+            lines.endLine();
+
+            StackTraceElement[] frames = throwable.getStackTrace();
+            renderFrames(frames, enclosing, indent, lines);
+            for (Throwable suppressed : throwable.getSuppressed()) {
+                renderChain(suppressed, SUPPRESSED, indent + NESTED_INDENT, frames, lines, rendered);
+            }
+
+            throwable = throwable.getCause();
+            reason = NESTED_REASON;
+            enclosing = frames;
+        }
+    }
+
+    private void renderFrames(final StackTraceElement[] frames, final StackTraceElement[] enclosing, final String indent, final LineSink lines) {
+        final int inCommon = commonFramesElided ? framesInCommon(frames, enclosing) : 0;
+        int shown = 0;
+        int hidden = inCommon;
+        for (int i = 0; i < frames.length - inCommon; i++) {
+            if (shown >= maxFramesPerCause || isFiltered(frames[i])) {
+                hidden++;
+                continue;
+            }
+            lines.beginLine();
+            lines.part(indent);
+            lines.part("  ");
+            lines.part(frames[i].toString());
+            lines.endLine();
+            shown++;
+        }
+        if (hidden > 0) {
+            lines.beginLine();
+            lines.part(indent);
+            lines.part("  ... ");
+            lines.part(Integer.toString(hidden));
+            lines.part(" more");
+            lines.endLine();
+        }
+    }
+
+    private boolean isFiltered(final StackTraceElement frame) {
+        if (filteredPackages.length == 0) {
+            return false;
+        }
+        final String className = frame.getClassName();
+        for (String filteredPackage : filteredPackages) {
+            if (className.startsWith(filteredPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int framesInCommon(final StackTraceElement[] frames, final StackTraceElement[] enclosing) {
+        int mine = frames.length - 1;
+        int theirs = enclosing.length - 1;
+        while (mine >= 0 && theirs >= 0 && frames[mine].equals(enclosing[theirs])) {
+            mine--;
+            theirs--;
+        }
+        return frames.length - 1 - mine;
+    }
+}
@@ -0,0 +1,79 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The UTF-8 encoding shared by the file controllers, which encode straight into buffers they reuse rather than going
+ * through a {@link java.nio.charset.CharsetEncoder}. Unpaired surrogates can't be encoded, so are substituted with
+ * {@code '?'}, as the JDK's encoders would.
+ */
+final class Utf8 {
+
+    /**
+     * The most bytes a single character (or surrogate pair) can take.
+     */
+    static final int MAX_BYTES_PER_CHARACTER = 4;
+
+    private Utf8() {
+    }
+
+    /**
+     * Encode as much of the given text as fits into the buffer, never splitting a character across buffers.
+     *
+     * @param text The text to encode.
+     * @param from The index of the first character to encode.
+     * @param into The buffer to encode into, from its position.
+     * @return The index of the first character which did not fit, or the length of the text if all of it did.
+     */
+    static int encode(final CharSequence text, final int from, final ByteBuffer into) {
+        final int length = text.length();
+        int i = from;
+        while (i < length && into.remaining() >= MAX_BYTES_PER_CHARACTER) {
+            char c = text.charAt(i++);
+            if (c < 0x80) {
+                into.put((byte) c);
+            } else if (c < 0x800) {
+                into.put((byte) (0xC0 | (c >> 6)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i < length && Character.isLowSurrogate(text.charAt(i))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(i++));
+                into.put((byte) (0xF0 | (codePoint >> 18)))
+                        .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                into.put((byte) '?');
+            } else {
+                into.put((byte) (0xE0 | (c >> 12)))
+                        .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @param text The text to measure.
+     * @return The number of bytes the text takes when encoded by {@link #encode}.
+     */
+    static int length(final CharSequence text) {
+        final int chars = text.length();
+        int utf8 = 0;
+        for (int i = 0; i < chars; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                utf8++;
+            } else if (c < 0x800) {
+                utf8 += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(text.charAt(i + 1))) {
+                utf8 += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                utf8++;
+            } else {
+                utf8 += 3;
+            }
+        }
+        return utf8;
+    }
+}
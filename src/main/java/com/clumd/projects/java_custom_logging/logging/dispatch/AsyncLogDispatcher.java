@@ -0,0 +1,383 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} which sits on the root logger in place of the 'real' handlers, and moves the cost of publishing
+ * every record off of the logging thread.
+ * <p>
+ * Logging threads only ever place the record onto a bounded {@link MpscRingBuffer}. A single background thread then
+ * drains that ring, publishing each record to every downstream handler in the order they were received. Since only
+ * that one thread ever calls the downstream handlers, their (synchronized) publish methods are never contended.
+ * <p>
+ * What happens when the ring is full is decided by the configured {@link OverflowPolicy}. Any records which are
+ * dropped are counted per level, and a summary of them is periodically written to the handlers as a synthetic record.
+ * <p>
+ * On {@link #close()}, which the JUL LogManager will also call during JVM shutdown, every record already accepted is
+ * written out before the downstream handlers are themselves closed. Records published after that are rejected, and
+ * reported to this handler's {@link ErrorManager}, as there is nothing left open to write them to.
+ */
+public class AsyncLogDispatcher extends Handler {
+
+    public static final String DROPPED_RECORDS_TAG = "dropped-records";
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int SUMMARY_CHECK_EVERY = 1024;
+
+    private final Handler[] downstreamHandlers;
+    private final MpscRingBuffer<LogRecord> ring;
+    private final OverflowPolicy overflowPolicy;
+    private final int dropBelowPriority;
+    private final SpillFile spillFile;
+    private final long dropSummaryIntervalNanos;
+    private final ConcurrentMap<String, LongAdder> droppedSinceLastSummary = new ConcurrentHashMap<>();
+    private final LongAdder totalDropped = new LongAdder();
+    private final Thread consumer;
+    // Producers part way through publishing, which close must wait for, so that no record is left half in the ring.
+    private final AtomicInteger activePublishers = new AtomicInteger();
+    private volatile boolean running = true;
+    private volatile boolean consumerParked;
+    private volatile long dispatchedCount;
+    private long nextDropSummaryAt;
+
+    /**
+     * Create and start a new asynchronous dispatcher.
+     *
+     * @param downstreamHandlers The handlers which should receive every record published to this dispatcher.
+     * @param options            The options describing how this dispatcher should behave.
+     */
+    public AsyncLogDispatcher(@NonNull final Collection<? extends Handler> downstreamHandlers, @NonNull final DispatchOptions options) {
+        this.downstreamHandlers = downstreamHandlers.toArray(new Handler[0]);
+        this.ring = new MpscRingBuffer<>(options.getCapacity());
+        this.overflowPolicy = options.getOverflowPolicy();
+        this.dropBelowPriority = options.getDropThreshold() == null
+                ? Integer.MIN_VALUE
+                : Math.min(options.getDropThreshold().intValue(), CustomLevel.ERROR.intValue());
+        this.dropSummaryIntervalNanos = options.getDropSummaryInterval().toNanos();
+        this.nextDropSummaryAt = System.nanoTime() + dropSummaryIntervalNanos;
+        this.setLevel(Level.ALL);
+
+        if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK) {
+            try {
+                this.spillFile = new SpillFile(options.getSpillFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create the async log spill file.", e);
+            }
+        } else {
+            this.spillFile = null;
+        }
+
+        this.consumer = new Thread(this::drainUntilClosed, "LogRoot-async-dispatcher");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void publish(final LogRecord logRecord) {
+        if (logRecord == null || !isLoggable(logRecord)) {
+            return;
+        }
+        // Announce ourselves before checking whether we are closed, so that close either sees us, or we see it.
+        activePublishers.incrementAndGet();
+        try {
+            if (!running) {
+                reportError("A log record was published after the async dispatcher was closed, so was not written.",
+                        null, ErrorManager.CLOSE_FAILURE);
+                return;
+            }
+            enqueue(logRecord);
+        } finally {
+            activePublishers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wait until every record which had been accepted at the point of calling has been written, then flush each of the
+     * downstream handlers.
+     * <p>
+     * Records which were spilled to disk are not waited on, as they will only be replayed once the writer catches up.
+     */
+    @Override
+    public void flush() {
+        final long target = ring.offeredCount();
+        while (running && dispatchedCount < target) {
+            wakeConsumer();
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        for (Handler handler : downstreamHandlers) {
+            handler.flush();
+        }
+    }
+
+    /**
+     * Stop accepting records, write out everything already accepted, and close all downstream handlers. Any record
+     * published from now on is rejected.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeConsumer();
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Any producer which raced with us may still be filling the slot it claimed, so let them all finish first.
+        while (activePublishers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        // Whatever they placed in the ring after the consumer finished is now ours to write.
+        drainRemaining();
+        replaySpilledRecords();
+        publishDropSummary();
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                reportError("Failed to clean up the async log spill file.", e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+        for (Handler handler : downstreamHandlers) {
+            handler.close();
+        }
+    }
+
+    private void enqueue(final LogRecord logRecord) {
+        if ((spillFile != null && spillFile.isActive() && trySpill(logRecord)) || offerToRing(logRecord)) {
+            if (consumerParked) {
+                wakeConsumer();
+            }
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP_BELOW_THRESHOLD -> {
+                if (logRecord.getLevel().intValue() < dropBelowPriority) {
+                    droppedSinceLastSummary.computeIfAbsent(logRecord.getLevel().getName(), name -> new LongAdder()).increment();
+                    totalDropped.increment();
+                    return;
+                }
+            }
+            case SPILL_TO_DISK -> {
+                if (trySpill(logRecord)) {
+                    wakeConsumer();
+                    return;
+                }
+            }
+            case BLOCK -> {
+                // Nothing special, fall through to waiting below.
+            }
+        }
+        offerBlocking(logRecord);
+    }
+
+    /**
+     * @return The approximate number of records which have been accepted, but not yet written.
+     */
+    public int getPendingCount() {
+        return ring.size();
+    }
+
+    /**
+     * @return The total number of records which have been thrown away due to the queue overflowing.
+     */
+    public long getDroppedCount() {
+        return totalDropped.sum();
+    }
+
+    private boolean offerToRing(final LogRecord logRecord) {
+        // Pooled records must not be reused until we have written them out, so hold on to them while they are queued.
+        retain(logRecord);
+        if (ring.offer(logRecord)) {
+            return true;
+        }
+        release(logRecord);
+        return false;
+    }
+
+    private void offerBlocking(final LogRecord logRecord) {
+        retain(logRecord);
+        while (!ring.offer(logRecord)) {
+            if (Thread.currentThread() == consumer) {
+                // A handler is logging from the background writer itself, which would wait forever for itself to make
+                // room, so write the record out right here instead.
+                dispatchAndRelease(logRecord);
+                return;
+            }
+            // The ring is full, so apply back-pressure on the producer until the consumer makes some room.
+            wakeConsumer();
+            if (!running) {
+                dispatchAndRelease(logRecord);
+                return;
+            }
+            LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        }
+        if (consumerParked) {
+            wakeConsumer();
+        }
+    }
+
+    private boolean trySpill(final LogRecord logRecord) {
+        try {
+            spillFile.append(logRecord);
+            return true;
+        } catch (IOException e) {
+            reportError("Failed to spill an overflowing log record to disk, waiting instead.", e, ErrorManager.WRITE_FAILURE);
+            return false;
+        }
+    }
+
+    private void drainUntilClosed() {
+        int sinceSummaryCheck = 0;
+        while (running) {
+            LogRecord next = ring.poll();
+            if (next != null) {
+                dispatchAndRelease(next);
+                dispatchedCount++;
+                if (++sinceSummaryCheck == SUMMARY_CHECK_EVERY) {
+                    sinceSummaryCheck = 0;
+                    maybePublishDropSummary();
+                }
+                continue;
+            }
+
+            // We have caught up with the ring, so now is the time to replay anything which overflowed to disk.
+            if (spillFile != null && spillFile.isActive()) {
+                replayOneSpilledRecord();
+                continue;
+            }
+            maybePublishDropSummary();
+
+            consumerParked = true;
+            if (ring.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+
+        // Closing, so drain whatever is left - including records whose producer has claimed a slot but not yet filled it.
+        drainRemaining();
+    }
+
+    private void drainRemaining() {
+        while (!ring.isEmpty()) {
+            LogRecord next = ring.poll();
+            if (next != null) {
+                dispatchAndRelease(next);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void replaySpilledRecords() {
+        while (spillFile != null && spillFile.isActive()) {
+            replayOneSpilledRecord();
+        }
+    }
+
+    private void replayOneSpilledRecord() {
+        try {
+            LogRecord spilled = spillFile.next();
+            if (spilled != null) {
+                dispatch(spilled);
+            }
+        } catch (IOException e) {
+            reportError("Failed to replay a spilled log record, abandoning the rest of the spill file.", e, ErrorManager.GENERIC_FAILURE);
+            try {
+                spillFile.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+        }
+    }
+
+    private void maybePublishDropSummary() {
+        long now = System.nanoTime();
+        if (now - nextDropSummaryAt >= 0) {
+            nextDropSummaryAt = now + dropSummaryIntervalNanos;
+            publishDropSummary();
+        }
+    }
+
+    private void publishDropSummary() {
+        Map<String, Long> dropped = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<String, LongAdder> levelCount : droppedSinceLastSummary.entrySet()) {
+            long count = levelCount.getValue().sumThenReset();
+            if (count > 0) {
+                dropped.put(levelCount.getKey(), count);
+                total += count;
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+
+        ExtendedLogRecord summary = new ExtendedLogRecord(
+                CustomLevel.WARNING,
+                "The async log queue overflowed, so " + total + " record(s) were dropped. By level: " + dropped,
+                Set.of(DROPPED_RECORDS_TAG)
+        );
+        summary.setLoggerName(AsyncLogDispatcher.class.getName());
+        dispatch(summary);
+    }
+
+    private void dispatch(final LogRecord logRecord) {
+        for (Handler handler : downstreamHandlers) {
+            try {
+                handler.publish(logRecord);
+            } catch (RuntimeException e) {
+                reportError("Failed to publish a log record to " + handler.getClass().getName(), e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void dispatchAndRelease(final LogRecord logRecord) {
+        try {
+            dispatch(logRecord);
+        } finally {
+            release(logRecord);
+        }
+    }
+
+    private static void retain(final LogRecord logRecord) {
+        if (logRecord instanceof ExtendedLogRecord elr) {
+            elr.retain();
+        }
+    }
+
+    private static void release(final LogRecord logRecord) {
+        if (logRecord instanceof ExtendedLogRecord elr) {
+            elr.release();
+        }
+    }
+
+    private void wakeConsumer() {
+        LockSupport.unpark(consumer);
+    }
+}
@@ -0,0 +1,268 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecordPool;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how log records should be handed from the {@link java.util.logging.Logger Loggers} to the handlers
+ * registered through {@link com.clumd.projects.java_custom_logging.logging.LogRoot#withHandlers}.
+ * <p>
+ * Use one of the static factories to pick a dispatch mode, then chain any of the 'with' methods to tune it. For example
+ * {@code DispatchOptions.asynchronous().withCapacity(16384).withDroppingWhenFull(CustomLevel.WARNING)}.
+ */
+@Getter
+public final class DispatchOptions {
+
+    public static final int DEFAULT_ASYNC_CAPACITY = 8192;
+    public static final Duration DEFAULT_DROP_SUMMARY_INTERVAL = Duration.ofSeconds(30);
+
+    private final boolean asynchronous;
+    private int capacity = DEFAULT_ASYNC_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private CustomLevel dropThreshold;
+    private Path spillFile;
+    private Duration dropSummaryInterval = DEFAULT_DROP_SUMMARY_INTERVAL;
+    private boolean pooledRecords;
+    private int pooledRecordsPerThread = ExtendedLogRecordPool.DEFAULT_RECORDS_PER_THREAD;
+    private SnapshotPolicy deferredFormatting;
+    private Duration duplicateWindow;
+    private boolean callerLocation;
+    private final List<Route> routes = new ArrayList<>();
+
+    private DispatchOptions(final boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    /**
+     * Records will be published to every handler directly on the logging thread. This is the same as using
+     * {@link com.clumd.projects.java_custom_logging.logging.LogRoot#withHandlers(java.util.Collection)}, but allows for the
+     * other options such as {@link #withPooledRecords()}.
+     *
+     * @return Options for synchronous dispatch.
+     */
+    public static DispatchOptions synchronous() {
+        return new DispatchOptions(false);
+    }
+
+    /**
+     * Records will be placed onto a bounded ring buffer by the logging thread, and written out to every handler by a
+     * single background thread. This detaches the latency of the calling code from the latency of the handlers'
+     * underlying I/O.
+     *
+     * @return Options for asynchronous dispatch, using the default capacity.
+     */
+    public static DispatchOptions asynchronous() {
+        return new DispatchOptions(true);
+    }
+
+    /**
+     * @param capacity The maximum number of records which can be waiting to be written at any one time. This will be
+     *                 rounded up to the next power of two.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withCapacity(final int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("An async dispatch capacity must be at least 2.");
+        }
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * When the queue is full, make the logging thread wait for room. This is the default.
+     *
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withBlockingWhenFull() {
+        this.overflowPolicy = OverflowPolicy.BLOCK;
+        this.dropThreshold = null;
+        this.spillFile = null;
+        return this;
+    }
+
+    /**
+     * When the queue is full, throw away any record whose level is below the given threshold. ERROR and above will
+     * never be thrown away, regardless of the threshold.
+     *
+     * @param threshold Records with a priority lower than this level may be dropped.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withDroppingWhenFull(@NonNull final CustomLevel threshold) {
+        this.overflowPolicy = OverflowPolicy.DROP_BELOW_THRESHOLD;
+        this.dropThreshold = threshold;
+        this.spillFile = null;
+        return this;
+    }
+
+    /**
+     * When the queue is full, append records to the given file instead. They are replayed, in order, once the
+     * background writer has caught up, and the file is truncated again.
+     *
+     * @param spillFile The file to spill to. It will be created (or truncated) when the dispatcher starts.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withSpillingWhenFull(@NonNull final Path spillFile) {
+        this.overflowPolicy = OverflowPolicy.SPILL_TO_DISK;
+        this.dropThreshold = null;
+        this.spillFile = spillFile;
+        return this;
+    }
+
+    /**
+     * @param interval How often a summary of any records dropped due to overflow should be written to the handlers.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withDropSummaryInterval(@NonNull final Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("The drop summary interval must be positive.");
+        }
+        this.dropSummaryInterval = interval;
+        return this;
+    }
+
+    /**
+     * As {@link #withPooledRecords(int)}, with {@link ExtendedLogRecordPool#DEFAULT_RECORDS_PER_THREAD} records per
+     * thread.
+     *
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withPooledRecords() {
+        return withPooledRecords(ExtendedLogRecordPool.DEFAULT_RECORDS_PER_THREAD);
+    }
+
+    /**
+     * {@link com.clumd.projects.java_custom_logging.logging.ExtendedLogger ExtendedLoggers} will take their records from
+     * a per-thread pool, and reuse them once every handler has finished with them, rather than allocating a new record
+     * for every message.
+     * <p>
+     * This comes with some restrictions, which is why it is opt-in:
+     * <ul>
+     *     <li>Handlers must not keep hold of a record after {@code publish} returns, unless they
+     *     {@link com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord#retain() retain} it, as the
+     *     same instance will be reused for a later message.</li>
+     *     <li>Pooled records are published straight to the handlers on each logger, up to the handlers registered on the
+     *     root Logger through LogRoot. Handlers added directly to the root Logger afterwards will not see them.</li>
+     *     <li>The source class and method of pooled records are never inferred, and their sequence numbers are
+     *     independent of the ones JUL assigns.</li>
+     * </ul>
+     *
+     * @param recordsPerThread How many records each thread may have in flight at once, before new records are
+     *                         allocated as normal. With asynchronous dispatch, this bounds how many of a thread's
+     *                         queued records can come from the pool.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withPooledRecords(final int recordsPerThread) {
+        if (recordsPerThread < 1) {
+            throw new IllegalArgumentException("A record pool must hold at least one record per thread.");
+        }
+        this.pooledRecords = true;
+        this.pooledRecordsPerThread = recordsPerThread;
+        return this;
+    }
+
+    /**
+     * As {@link #withDeferredFormatting(SnapshotPolicy)}, using {@link SnapshotPolicy#IMMUTABLE_ONLY}.
+     *
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withDeferredFormatting() {
+        return withDeferredFormatting(SnapshotPolicy.IMMUTABLE_ONLY);
+    }
+
+    /**
+     * Messages logged through the SLF4J style (template and arguments) methods will be formatted by the background
+     * writer, rather than on the logging thread. Instead, the template and a snapshot of its arguments travel with the
+     * record until something first asks for its message. The same snapshot is taken of any parameters for the
+     * controllers to render, such as {@link com.clumd.projects.java_custom_logging.logging.api.LoggableData}.
+     * <p>
+     * This only has an effect with {@link #asynchronous()} dispatch, as synchronous dispatch formats every message on the
+     * logging thread regardless.
+     *
+     * @param snapshotPolicy Which values may be handed over to the background writer as they are, and which must be
+     *                       rendered on the logging thread in case they change.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withDeferredFormatting(@NonNull final SnapshotPolicy snapshotPolicy) {
+        this.deferredFormatting = snapshotPolicy;
+        return this;
+    }
+
+    /**
+     * Runs of identical records (same logger, level, message and tags) will be collapsed into one, by a
+     * {@link DuplicateCollapser} in front of the handlers. The first record of a run is written straight away, and those
+     * which follow are held back, until either something different is logged or the window has passed, when a single
+     * record carrying a {@link DuplicateCollapser.Repetitions} is written in their place.
+     *
+     * @param window The longest time identical records may be held back for, before they must be written.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withDuplicateCollapsing(@NonNull final Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("The duplicate collapsing window must be positive.");
+        }
+        this.duplicateWindow = window;
+        return this;
+    }
+
+    /**
+     * {@link com.clumd.projects.java_custom_logging.logging.ExtendedLogger ExtendedLoggers} will find the class, method
+     * and line which logged each record, as it is logged, and the controllers will render them.
+     * <p>
+     * This costs a short walk of the logging thread's stack for every record which is logged, so is opt-in. Resolving
+     * each call site into names and a line number is only done the first time that call site logs. Without this, the
+     * source class and method of records are left for JUL to infer, should anything ask for them.
+     *
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withCallerLocation() {
+        this.callerLocation = true;
+        return this;
+    }
+
+    /**
+     * Records will only be passed on to the handlers with a route they match, by a {@link RecordRouter} in front of the
+     * handlers. Handlers without any routes still receive every record. For example, to send errors to one file and
+     * security events to another:
+     * <pre>{@code
+     * DispatchOptions.asynchronous().withRoutes(List.of(
+     *         Route.to(errorFile).withMinimumLevel(CustomLevel.ERROR),
+     *         Route.to(securityFile).withTag("security")
+     * ));
+     * }</pre>
+     *
+     * @param routes The routes to add, each to one of the handlers given alongside these options.
+     * @return This options instance, for method chaining.
+     */
+    public DispatchOptions withRoutes(@NonNull final List<Route> routes) {
+        for (Route route : routes) {
+            if (route == null) {
+                throw new IllegalArgumentException("A route must not be null.");
+            }
+        }
+        this.routes.addAll(routes);
+        return this;
+    }
+
+    /**
+     * As {@link #withRoutes(List)}.
+     */
+    public DispatchOptions withRoutes(@NonNull final Route... routes) {
+        return withRoutes(Arrays.asList(routes));
+    }
+
+    /**
+     * @return The routes records are dispatched by, as an unmodifiable view.
+     */
+    public List<Route> getRoutes() {
+        return Collections.unmodifiableList(routes);
+    }
+}
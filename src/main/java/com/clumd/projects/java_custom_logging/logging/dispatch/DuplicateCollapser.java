@@ -0,0 +1,223 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A {@link Handler} which sits in front of the 'real' handlers, and collapses runs of identical records into one.
+ * <p>
+ * Records are identical if they have the same logger, level, message and tags. The first of a run is passed on straight
+ * away, but any identical records which follow it are held back. Once something different is logged, or the collapsing
+ * window has passed since the first record held back, a single record is passed on in their place. It is a copy of the
+ * first record held back, carrying a {@link Repetitions} as an extra parameter to say how many records it stands for,
+ * and when the first and last of them were logged. Every controller renders that like any other parameter, so this
+ * works for text and JSON output alike.
+ * <p>
+ * A run which is held back when logging stops is passed on once the window expires, by a background timer, as well as
+ * whenever the handlers are flushed or closed.
+ */
+public class DuplicateCollapser extends Handler {
+
+    private final Handler[] downstreamHandlers;
+    private final long windowMillis;
+    private final ScheduledExecutorService expiryTimer;
+
+    // The last record passed on, which the following records are compared with.
+    private Level lastLevel;
+    private String lastLoggerName;
+    private String lastMessage;
+    private Set<String> lastTags;
+
+    // The run of identical records currently held back, if any.
+    private ExtendedLogRecord heldBack;
+    private long heldBackCount;
+    private long lastHeldBackMillis;
+    private long runNumber;
+
+    /**
+     * @param downstreamHandlers The handlers which should receive every record, once duplicates have been collapsed.
+     * @param window             How long identical records may be held back for, before they must be passed on.
+     */
+    public DuplicateCollapser(@NonNull final Collection<? extends Handler> downstreamHandlers, @NonNull final Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("The duplicate collapsing window must be positive.");
+        }
+        this.downstreamHandlers = downstreamHandlers.toArray(new Handler[0]);
+        this.windowMillis = window.toMillis();
+        this.expiryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread timer = new Thread(runnable, "LogRoot-duplicate-collapser");
+            timer.setDaemon(true);
+            return timer;
+        });
+        this.setLevel(Level.ALL);
+    }
+
+    @Override
+    public synchronized void publish(final LogRecord logRecord) {
+        if (logRecord == null || !isLoggable(logRecord)) {
+            return;
+        }
+        final String message = logRecord.getMessage();
+        final Set<String> tags = tagsOf(logRecord);
+
+        if (isRepeatOfLast(logRecord, message, tags)) {
+            if (heldBack != null && logRecord.getMillis() - heldBack.getMillis() >= windowMillis) {
+                // This run has gone on long enough, so pass it on and start a fresh one.
+                passOnHeldBack();
+            }
+            holdBack(logRecord, message);
+            return;
+        }
+
+        passOnHeldBack();
+        lastLevel = logRecord.getLevel();
+        lastLoggerName = logRecord.getLoggerName();
+        lastMessage = message;
+        // Pooled records reuse their tag sets, so keep a copy of our own. This is free for sets which are already immutable.
+        lastTags = tags == null ? null : Set.copyOf(tags);
+        dispatch(logRecord);
+    }
+
+    /**
+     * Pass on any records currently held back, then flush each of the downstream handlers.
+     */
+    @Override
+    public void flush() {
+        synchronized (this) {
+            passOnHeldBack();
+        }
+        for (Handler handler : downstreamHandlers) {
+            handler.flush();
+        }
+    }
+
+    /**
+     * Pass on any records currently held back, then close each of the downstream handlers.
+     */
+    @Override
+    public void close() {
+        expiryTimer.shutdownNow();
+        synchronized (this) {
+            passOnHeldBack();
+        }
+        for (Handler handler : downstreamHandlers) {
+            handler.close();
+        }
+    }
+
+    private boolean isRepeatOfLast(final LogRecord logRecord, final String message, final Set<String> tags) {
+        return logRecord.getLevel() == lastLevel
+                && Objects.equals(message, lastMessage)
+                && Objects.equals(logRecord.getLoggerName(), lastLoggerName)
+                && Objects.equals(tags, lastTags);
+    }
+
+    private void holdBack(final LogRecord logRecord, final String message) {
+        lastHeldBackMillis = logRecord.getMillis();
+        heldBackCount++;
+        if (heldBack != null) {
+            return;
+        }
+
+        // The record itself may be pooled, and reused once we return, so copy what we need.
+        heldBack = new ExtendedLogRecord(logRecord.getLevel(), message);
+        heldBack.setLoggerName(logRecord.getLoggerName());
+        heldBack.setInstant(logRecord.getInstant());
+        heldBack.setLongThreadID(logRecord.getLongThreadID());
+        heldBack.setSequenceNumber(logRecord.getSequenceNumber());
+        heldBack.setThrown(logRecord.getThrown());
+        heldBack.setParameters(logRecord.getParameters() == null ? null : logRecord.getParameters().clone());
+        heldBack.setSourceClassName(logRecord.getSourceClassName());
+        heldBack.setSourceMethodName(logRecord.getSourceMethodName());
+        heldBack.withTags(lastTags);
+        if (logRecord instanceof ExtendedLogRecord elr) {
+            heldBack.referencingBakedInTags(elr.getBakedInTags())
+                    .withControllersWhichShouldIgnore(elr.getControllersWhichShouldDisregardThisMessage());
+            if (elr.isCallerLocated()) {
+                heldBack.withCallerLocation(elr.getSourceClassName(), elr.getSourceMethodName(), elr.getSourceLineNumber());
+            }
+        }
+
+        final long run = ++runNumber;
+        try {
+            expiryTimer.schedule(() -> passOnExpired(run), windowMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // The timer has been shut down, so the run will be passed on by the next record or the close instead.
+        }
+    }
+
+    private synchronized void passOnExpired(final long run) {
+        if (run == runNumber) {
+            passOnHeldBack();
+        }
+    }
+
+    private void passOnHeldBack() {
+        if (heldBack == null) {
+            return;
+        }
+        ExtendedLogRecord collapsed = heldBack;
+        if (heldBackCount > 1) {
+            Object[] parameters = collapsed.getParameters();
+            Object[] withRepetitions = parameters == null
+                    ? new Object[1]
+                    : Arrays.copyOf(parameters, parameters.length + 1);
+            withRepetitions[withRepetitions.length - 1] = new Repetitions(
+                    heldBackCount,
+                    collapsed.getInstant(),
+                    Instant.ofEpochMilli(lastHeldBackMillis)
+            );
+            collapsed.setParameters(withRepetitions);
+        }
+        heldBack = null;
+        heldBackCount = 0;
+        dispatch(collapsed);
+    }
+
+    private void dispatch(final LogRecord logRecord) {
+        for (Handler handler : downstreamHandlers) {
+            try {
+                handler.publish(logRecord);
+            } catch (RuntimeException e) {
+                reportError("Failed to publish a log record to " + handler.getClass().getName(), e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private static Set<String> tagsOf(final LogRecord logRecord) {
+        if (logRecord instanceof ExtendedLogRecord elr && elr.getTags() != null && !elr.getTags().isEmpty()) {
+            return elr.getTags();
+        }
+        return null;
+    }
+
+    /**
+     * Attached to a record which stands in for a run of identical records.
+     *
+     * @param count The number of identical records the record stands for.
+     * @param first When the first of them was logged.
+     * @param last  When the last of them was logged.
+     */
+    public record Repetitions(long count, Instant first, Instant last) implements LoggableData {
+
+        @Override
+        public String getFormattedLogData() {
+            return "Repeated " + count + " times between " + first + " and " + last;
+        }
+    }
+}
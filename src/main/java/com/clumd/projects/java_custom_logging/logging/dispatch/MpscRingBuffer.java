@@ -0,0 +1,118 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, pre-allocated, lock-free queue which supports many concurrent producers, but only a SINGLE consumer.
+ * <p>
+ * Each slot in the ring carries its own sequence number, which is used to hand ownership of that slot back and forth
+ * between the producers and the consumer without any locks. Producers only ever contend on a single CAS of the tail
+ * counter, and never block - if the ring is full, {@link #offer(Object)} simply returns false and leaves it to the
+ * caller to decide what to do.
+ *
+ * @param <E> The type of element held in this ring.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Create a new ring buffer.
+     *
+     * @param requestedCapacity The minimum number of elements this ring should be able to hold. This will be rounded
+     *                          up to the next power of two.
+     */
+    public MpscRingBuffer(final int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Ring buffer capacity must be between 2 and 2^30, but was " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    /**
+     * Attempt to add an element to the ring. Safe to call from any number of threads concurrently.
+     *
+     * @param element The (non-null) element to enqueue.
+     * @return True if the element was enqueued, false if the ring is currently full.
+     */
+    public boolean offer(final E element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Cannot enqueue a null element.");
+        }
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[slot] = element;
+                    sequences.lazySet(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Remove the oldest element from the ring. This must ONLY be called from the single consumer thread.
+     *
+     * @return The oldest element, or null if the ring is currently empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head;
+        int slot = (int) (position & mask);
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        sequences.lazySet(slot, position + elements.length);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * @return True if there are no elements currently published to the ring.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * @return The total number of elements which have ever been accepted by this ring.
+     */
+    public long offeredCount() {
+        return tail.get();
+    }
+
+    /**
+     * @return An approximation of the number of elements currently held in the ring.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, elements.length));
+    }
+
+    /**
+     * @return The actual number of slots in this ring, after rounding to a power of two.
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,25 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+/**
+ * What an {@link AsyncLogDispatcher} should do with a new record when its queue is already full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Make the logging thread wait until the background writer has made room. Nothing is ever lost, but a slow
+     * handler will eventually slow down the application.
+     */
+    BLOCK,
+
+    /**
+     * Throw away records whose level is below the configured threshold, counting each one. Records at ERROR or above
+     * are never thrown away, and will instead wait as per {@link #BLOCK}.
+     */
+    DROP_BELOW_THRESHOLD,
+
+    /**
+     * Write overflowing records to a local append-only file, which is replayed in order once the background writer
+     * has caught up.
+     */
+    SPILL_TO_DISK
+}
@@ -0,0 +1,212 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+/**
+ * A {@link Handler} which sits in front of the 'real' handlers, and passes each record on to only those handlers with a
+ * {@link Route} it matches (or with no routes at all).
+ * <p>
+ * The routes are compiled once, when the router is made. The range of levels is split into bands, wherever any route's
+ * levels begin or end, and each band lists the handlers which could receive records of that level, along with the tags
+ * and logger prefixes they need, if any. Routing a record is then a search for its band, and a check of the tags and
+ * prefixes of just the handlers listed there.
+ * <p>
+ * The {@link ExtendedLogRecord#getControllersWhichShouldDisregardThisMessage() controllers to disregard} a record are
+ * also worked out here, once per set of them, and cached against the set itself, so such records are never passed on to
+ * them. Records only ever hold unmodifiable copies of those sets, and each logger shares one between all its records,
+ * so a set can't change once it has been cached. The record itself is left alone, so the controllers still check it
+ * for themselves, as they would without a router.
+ */
+public class RecordRouter extends Handler {
+
+    private static final int EXCLUSION_SLOTS = 64;
+
+    private final Handler[] downstreamHandlers;
+    private final int[] bandFloors;
+    private final Target[][] bands;
+    // Entries are immutable, so a racing reader sees either a whole entry or none at all.
+    private final Exclusions[] exclusions = new Exclusions[EXCLUSION_SLOTS];
+
+    /**
+     * @param downstreamHandlers The handlers which records should be routed between.
+     * @param routes             The routes describing which records each handler should receive. Handlers without any
+     *                           routes receive every record.
+     */
+    public RecordRouter(@NonNull final Collection<? extends Handler> downstreamHandlers, @NonNull final Collection<Route> routes) {
+        this.downstreamHandlers = downstreamHandlers.toArray(new Handler[0]);
+
+        Map<Object, Integer> handlerIndexes = new IdentityHashMap<>();
+        List<List<Route>> routesByHandler = new ArrayList<>(this.downstreamHandlers.length);
+        for (int i = 0; i < this.downstreamHandlers.length; i++) {
+            handlerIndexes.put(this.downstreamHandlers[i], i);
+            routesByHandler.add(new ArrayList<>());
+        }
+        TreeSet<Integer> floors = new TreeSet<>();
+        floors.add(Integer.MIN_VALUE);
+        for (Route route : routes) {
+            Integer handlerIndex = handlerIndexes.get(route.getHandler());
+            if (handlerIndex == null) {
+                throw new IllegalArgumentException("Every route must be to one of the handlers being routed between, but one was to: "
+                        + route.getHandler().getClass().getName());
+            }
+            routesByHandler.get(handlerIndex).add(route);
+            floors.add(route.getMinimumLevel());
+            if (route.getMaximumLevel() != Integer.MAX_VALUE) {
+                floors.add(route.getMaximumLevel() + 1);
+            }
+        }
+
+        this.bandFloors = floors.stream().mapToInt(Integer::intValue).toArray();
+        this.bands = new Target[bandFloors.length][];
+        for (int band = 0; band < bandFloors.length; band++) {
+            bands[band] = compileBand(bandFloors[band], routesByHandler);
+        }
+        this.setLevel(Level.ALL);
+    }
+
+    @Override
+    public void publish(final LogRecord logRecord) {
+        if (logRecord == null || !isLoggable(logRecord)) {
+            return;
+        }
+        ExtendedLogRecord elr = logRecord instanceof ExtendedLogRecord extended ? extended : null;
+        boolean[] excluded = null;
+        if (elr != null && elr.getControllersWhichShouldDisregardThisMessage() != null) {
+            excluded = excludedBy(elr.getControllersWhichShouldDisregardThisMessage());
+        }
+
+        for (Target target : bands[bandOf(logRecord.getLevel().intValue())]) {
+            if ((excluded == null || !excluded[target.handler]) && target.accepts(logRecord, elr)) {
+                dispatch(downstreamHandlers[target.handler], logRecord);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Handler handler : downstreamHandlers) {
+            handler.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Handler handler : downstreamHandlers) {
+            handler.close();
+        }
+    }
+
+    private static Target[] compileBand(final int floor, final List<List<Route>> routesByHandler) {
+        // Every level within a band is matched by the same routes, so the lowest stands in for the rest.
+        List<Target> targets = new ArrayList<>();
+        for (int handler = 0; handler < routesByHandler.size(); handler++) {
+            List<Route> handlerRoutes = routesByHandler.get(handler);
+            if (handlerRoutes.isEmpty()) {
+                targets.add(new Target(handler, null, null));
+                continue;
+            }
+            List<Route> covering = new ArrayList<>();
+            boolean unconditional = false;
+            for (Route route : handlerRoutes) {
+                if (route.getMinimumLevel() <= floor && floor <= route.getMaximumLevel()) {
+                    covering.add(route);
+                    unconditional |= route.getTag() == null && route.getLoggerPrefix() == null;
+                }
+            }
+            if (unconditional) {
+                targets.add(new Target(handler, null, null));
+            } else if (!covering.isEmpty()) {
+                targets.add(new Target(
+                        handler,
+                        covering.stream().map(Route::getTag).toArray(String[]::new),
+                        covering.stream().map(Route::getLoggerPrefix).toArray(String[]::new)
+                ));
+            }
+        }
+        return targets.toArray(new Target[0]);
+    }
+
+    private int bandOf(final int level) {
+        final int found = Arrays.binarySearch(bandFloors, level);
+        // The first floor is the lowest possible level, so every level falls on or after it.
+        return found >= 0 ? found : -found - 2;
+    }
+
+    private boolean[] excludedBy(final Set<Class<? extends StreamHandler>> controllersToDisregard) {
+        final int slot = System.identityHashCode(controllersToDisregard) & (EXCLUSION_SLOTS - 1);
+        Exclusions cached = exclusions[slot];
+        if (cached != null && cached.controllersToDisregard == controllersToDisregard) {
+            return cached.excluded;
+        }
+
+        boolean[] excluded = new boolean[downstreamHandlers.length];
+        for (int handler = 0; handler < downstreamHandlers.length; handler++) {
+            for (Class<? extends StreamHandler> controllerToDisregard : controllersToDisregard) {
+                if (ExtendedLogRecord.isCoveredBy(downstreamHandlers[handler].getClass(), controllerToDisregard)) {
+                    excluded[handler] = true;
+                    break;
+                }
+            }
+        }
+        exclusions[slot] = new Exclusions(controllersToDisregard, excluded);
+        return excluded;
+    }
+
+    private void dispatch(final Handler handler, final LogRecord logRecord) {
+        try {
+            handler.publish(logRecord);
+        } catch (RuntimeException e) {
+            reportError("Failed to publish a log record to " + handler.getClass().getName(), e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * A handler which may receive the records of a band, provided they match one of its routes' tags and logger
+     * prefixes. The arrays hold one entry per route, where null matches anything, and are both null if the handler
+     * receives every record of the band.
+     */
+    private record Target(int handler, String[] tags, String[] loggerPrefixes) {
+
+        boolean accepts(final LogRecord logRecord, final ExtendedLogRecord elr) {
+            if (tags == null) {
+                return true;
+            }
+            for (int route = 0; route < tags.length; route++) {
+                if ((tags[route] == null || hasTag(elr, tags[route]))
+                        && (loggerPrefixes[route] == null || hasPrefix(logRecord, loggerPrefixes[route]))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasTag(final ExtendedLogRecord elr, final String tag) {
+            return elr != null && (
+                    (elr.getTags() != null && elr.getTags().contains(tag))
+                            || (elr.getBakedInTags() != null && elr.getBakedInTags().contains(tag))
+            );
+        }
+
+        private static boolean hasPrefix(final LogRecord logRecord, final String loggerPrefix) {
+            return logRecord.getLoggerName() != null && logRecord.getLoggerName().startsWith(loggerPrefix);
+        }
+    }
+
+    private record Exclusions(Set<Class<? extends StreamHandler>> controllersToDisregard, boolean[] excluded) {
+    }
+}
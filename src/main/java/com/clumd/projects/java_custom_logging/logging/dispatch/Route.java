@@ -0,0 +1,87 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.logging.Level;
+
+/**
+ * Describes which records a handler should receive, when dispatched through a {@link RecordRouter}. A record matches
+ * a route if it matches every criterion the route was given, and a handler with several routes receives each record
+ * matching any of them. Handlers without any routes receive every record, as they would without routing.
+ * <p>
+ * Use the static factory to pick the handler, then chain any of the 'with' methods to narrow down its records. For
+ * example {@code Route.to(securityFile).withTag("security").withMinimumLevel(CustomLevel.INFO)}.
+ */
+@Getter
+public final class Route {
+
+    private final CustomLogHandler handler;
+    private int minimumLevel = Integer.MIN_VALUE;
+    private int maximumLevel = Integer.MAX_VALUE;
+    private String tag;
+    private String loggerPrefix;
+
+    private Route(final CustomLogHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @param handler The handler which records matching this route should be sent to. It must also be one of the
+     *                handlers given to {@link com.clumd.projects.java_custom_logging.logging.LogRoot#withHandlers}.
+     * @return A route which every record matches, until narrowed down.
+     */
+    public static Route to(@NonNull final CustomLogHandler handler) {
+        return new Route(handler);
+    }
+
+    /**
+     * @param level The lowest level of record which matches this route.
+     * @return This route, for method chaining.
+     */
+    public Route withMinimumLevel(@NonNull final Level level) {
+        return withLevelsBetween(level.intValue(), maximumLevel);
+    }
+
+    /**
+     * @param minimum The lowest level of record which matches this route.
+     * @param maximum The highest level of record which matches this route.
+     * @return This route, for method chaining.
+     */
+    public Route withLevelsBetween(@NonNull final Level minimum, @NonNull final Level maximum) {
+        return withLevelsBetween(minimum.intValue(), maximum.intValue());
+    }
+
+    /**
+     * @param tag A tag which records must have, either directly or baked into their logger, to match this route.
+     * @return This route, for method chaining.
+     */
+    public Route withTag(@NonNull final String tag) {
+        this.tag = tag;
+        return this;
+    }
+
+    /**
+     * @param loggerPrefix The start of the name of the loggers whose records match this route. Loggers are named by
+     *                     their logging root ID, then their identifier, e.g. {@code "APP.db."} for the loggers of
+     *                     every class in the (discardable package's) {@code db} package.
+     * @return This route, for method chaining.
+     */
+    public Route withLoggerPrefix(@NonNull final String loggerPrefix) {
+        if (loggerPrefix.isEmpty()) {
+            throw new IllegalArgumentException("A route's logger prefix must not be empty.");
+        }
+        this.loggerPrefix = loggerPrefix;
+        return this;
+    }
+
+    private Route withLevelsBetween(final int minimum, final int maximum) {
+        if (minimum > maximum) {
+            throw new IllegalArgumentException("A route's minimum level must not be above its maximum level.");
+        }
+        this.minimumLevel = minimum;
+        this.maximumLevel = maximum;
+        return this;
+    }
+}
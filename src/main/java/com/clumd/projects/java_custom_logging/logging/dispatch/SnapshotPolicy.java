@@ -0,0 +1,121 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedData;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.javajson.api.Json;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * When formatting is {@link DispatchOptions#withDeferredFormatting(SnapshotPolicy) deferred}, decides which of the
+ * values given along with a log message are safe to hand over to the background writer as they are, and which must be
+ * rendered to text on the logging thread first, in case the caller changes them before the writer gets to them.
+ * <p>
+ * This applies both to the arguments of an SLF4J style message template, and to the parameters of a record which the
+ * controllers render, such as {@link LoggableData}. As {@code Json} is mutable, unless every value is deferred, Json
+ * parameters are rendered up front in each of the ways the controllers render Json, as a {@link RenderedJson}.
+ */
+public enum SnapshotPolicy {
+
+    /**
+     * Values of types known to be immutable (Strings, boxed primitives, enums, UUIDs, the java.time values and the like)
+     * are handed over as they are. Anything else is rendered on the logging thread. This is the default.
+     */
+    IMMUTABLE_ONLY,
+
+    /**
+     * Every value is handed over as it is, and rendered only by the background writer. This moves the most work off the
+     * logging thread, but callers must not change anything they have logged.
+     */
+    DEFER_ALL,
+
+    /**
+     * Every value is rendered on the logging thread, leaving only the substitution of the rendered values into the
+     * message template to the background writer.
+     */
+    SNAPSHOT_ALL;
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, URI.class, Class.class,
+            Instant.class, LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class,
+            ZonedDateTime.class, Duration.class, Period.class
+    );
+
+    /**
+     * Take a snapshot of the arguments for an SLF4J style message template, which can be substituted into it later on.
+     *
+     * @param arguments The arguments given by the caller.
+     * @return Arguments which are safe to format later, which will be the given array itself if nothing needed
+     * rendering, or a copy if something did.
+     */
+    public Object[] snapshotArguments(final Object[] arguments) {
+        if (arguments == null || this == DEFER_ALL) {
+            return arguments;
+        }
+        Object[] snapshot = arguments;
+        for (int i = 0; i < arguments.length; i++) {
+            Object argument = arguments[i];
+            // A Throwable is never rendered into the message if it comes last, so it must stay as it is.
+            if (!handsOver(argument) && !(argument instanceof Throwable)) {
+                if (snapshot == arguments) {
+                    snapshot = arguments.clone();
+                }
+                // Render exactly as the formatter would, including its handling of arrays and failing toString()s.
+                snapshot[i] = MessageFormatter.basicArrayFormat("{}", new Object[]{argument});
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Take a snapshot of the parameters of a record, which the controllers can render later on.
+     *
+     * @param parameters The parameters given by the caller.
+     * @return Parameters which are safe to render later, which will be the given array itself if nothing needed
+     * rendering, or a copy if something did.
+     */
+    public Object[] snapshotParameters(final Object[] parameters) {
+        if (parameters == null || this == DEFER_ALL) {
+            return parameters;
+        }
+        Object[] snapshot = parameters;
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (!handsOver(parameter)) {
+                if (snapshot == parameters) {
+                    snapshot = parameters.clone();
+                }
+                // Keep LoggableData and Json recognisable, so the controllers still lay them out as such.
+                snapshot[i] = switch (parameter) {
+                    case LoggableData loggableData -> RenderedData.of(loggableData);
+                    case Json json -> RenderedJson.of(json);
+                    default -> parameter.toString();
+                };
+            }
+        }
+        return snapshot;
+    }
+
+    private boolean handsOver(final Object value) {
+        if (value == null || value instanceof String || value instanceof RenderedData
+                || value instanceof RenderedJson) {
+            return true;
+        }
+        return this == IMMUTABLE_ONLY && (IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum<?>);
+    }
+}
@@ -0,0 +1,172 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedData;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.javajson.api.Json;
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.LogRecord;
+
+/**
+ * An append-only overflow file for an {@link AsyncLogDispatcher}.
+ * <p>
+ * Each record is written as a length-prefixed, serialized copy of the {@link LogRecord}, followed by its parameters.
+ * JUL would otherwise serialize only the {@code toString()} of every parameter, so any parameter the controllers render
+ * specially is captured the way they render it instead. The caller's record is never changed. Producers append while
+ * the file is {@link #isActive() active}, and the single consumer reads them back in the order they were written. Once
+ * the consumer has caught up with the writers, the file is truncated and becomes inactive again - all under the same
+ * lock, so no record can slip in between the consumer seeing the end and the file being reset.
+ */
+final class SpillFile implements Closeable {
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+    private long writePosition;
+    private long readPosition;
+    private volatile boolean active;
+
+    SpillFile(@NonNull final Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        );
+    }
+
+    /**
+     * @return True if there are spilled records which have not yet been replayed. While this is true, new records
+     * should also be spilled to preserve their ordering.
+     */
+    boolean isActive() {
+        return active;
+    }
+
+    synchronized void append(final LogRecord logRecord) throws IOException {
+        byte[] serialized = serialize(logRecord);
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + serialized.length);
+        entry.putInt(serialized.length).put(serialized).flip();
+        while (entry.hasRemaining()) {
+            writePosition += channel.write(entry, writePosition);
+        }
+        active = true;
+    }
+
+    /**
+     * @return The next spilled record, or null if every spilled record has now been replayed (in which case the file
+     * has been reset).
+     * @throws IOException If the file could not be read back.
+     */
+    synchronized LogRecord next() throws IOException {
+        if (readPosition >= writePosition) {
+            channel.truncate(0);
+            readPosition = 0;
+            writePosition = 0;
+            active = false;
+            return null;
+        }
+
+        lengthBuffer.clear();
+        readFully(lengthBuffer);
+        ByteBuffer entry = ByteBuffer.allocate(lengthBuffer.flip().getInt());
+        readFully(entry);
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(entry.array()))) {
+            LogRecord logRecord = (LogRecord) in.readObject();
+            logRecord.setParameters((Object[]) in.readObject());
+            return logRecord;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Spilled log record referenced an unknown class.", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        active = false;
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void readFully(final ByteBuffer into) throws IOException {
+        while (into.hasRemaining()) {
+            int read = channel.read(into, readPosition);
+            if (read < 0) {
+                throw new IOException("Unexpected end of spill file " + path);
+            }
+            readPosition += read;
+        }
+    }
+
+    private static byte[] serialize(final LogRecord logRecord) throws IOException {
+        // Serialize a copy without the parameters, which are written separately below, so the caller's record is untouched.
+        LogRecord copy = logRecord instanceof ExtendedLogRecord elr ? elr.copy() : copyOf(logRecord);
+        copy.setParameters(null);
+
+        Object[] parameters = logRecord.getParameters();
+        Object[] spillable = null;
+        if (parameters != null) {
+            spillable = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                spillable[i] = spillable(parameters[i]);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(copy);
+            out.writeObject(spillable);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return The parameter itself if it is a simple immutable value, otherwise a serializable stand-in which every
+     * controller will render the same way as the original.
+     */
+    private static Object spillable(final Object parameter) {
+        return switch (parameter) {
+            case null -> null;
+            case String string -> string;
+            case Number number when number.getClass().getName().startsWith("java.lang.") -> number;
+            case Boolean bool -> bool;
+            case Character character -> character;
+            case LoggableData loggableData -> RenderedData.of(loggableData);
+            case Json json -> RenderedJson.of(json);
+            case RenderedJson renderedJson -> renderedJson;
+            default -> parameter.toString();
+        };
+    }
+
+    private static LogRecord copyOf(final LogRecord logRecord) {
+        LogRecord copy = new LogRecord(logRecord.getLevel(), logRecord.getMessage());
+        copy.setSequenceNumber(logRecord.getSequenceNumber());
+        copy.setLongThreadID(logRecord.getLongThreadID());
+        copy.setInstant(logRecord.getInstant());
+        copy.setLoggerName(logRecord.getLoggerName());
+        copy.setSourceClassName(logRecord.getSourceClassName());
+        copy.setSourceMethodName(logRecord.getSourceMethodName());
+        copy.setThrown(logRecord.getThrown());
+        copy.setResourceBundleName(logRecord.getResourceBundleName());
+        return copy;
+    }
+}
@@ -0,0 +1,197 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallSiteRateLimiterTest {
+
+    private final CapturingHandler handler = new CapturingHandler();
+    private ExtendedLogger logger;
+
+    @BeforeEach
+    void setup() {
+        logger = new ExtendedLogger("rate.limited");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(CustomLevel.ALL);
+        logger.addHandler(handler);
+    }
+
+    @Test
+    void test_each_template_may_log_a_burst_before_being_limited() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(3));
+
+        for (int i = 0; i < 10; i++) {
+            logger.info("Looping {}", i);
+            logger.warn("Other template {}", i);
+        }
+
+        assertEquals(List.of(
+                "Looping 0", "Other template 0",
+                "Looping 1", "Other template 1",
+                "Looping 2", "Other template 2"
+        ), handler.messages());
+    }
+
+    @Test
+    void test_suppressed_records_are_reported_before_the_next_one_allowed() throws InterruptedException {
+        logger.withRateLimit(RateLimitOptions.perCallSite(4).withBurst(1));
+
+        for (int i = 0; i < 6; i++) {
+            if (i == 5) {
+                Thread.sleep(300);
+            }
+            logger.log(CustomLevel.WARNING, "Same message");
+        }
+
+        List<String> messages = handler.messages();
+        assertEquals(3, messages.size());
+        assertEquals("Same message", messages.get(0));
+        assertTrue(messages.get(1).startsWith("The rate limit suppressed 4 record(s) logged from "));
+        assertTrue(messages.get(1).contains("CallSiteRateLimiterTest.test_suppressed_records_are_reported_before_the_next_one_allowed("));
+        assertEquals("Same message", messages.get(2));
+        ExtendedLogRecord summary = handler.getExtendedRecord(1);
+        assertEquals(CustomLevel.WARNING, summary.getLevel());
+        assertEquals(Set.of(RateLimitOptions.SUPPRESSED_RECORDS_TAG), summary.getTags());
+    }
+
+    @Test
+    void test_quiet_call_sites_are_reported_periodically() throws InterruptedException {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(1).withSummaryInterval(Duration.ofMillis(50)));
+
+        logger.info("Stormy {}", 1);
+        logger.info("Stormy {}", 2);
+        // Nothing else is logged, so the summary can only come from the background sweep.
+        long giveUpAt = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (handler.getPublished().size() < 2 && System.nanoTime() - giveUpAt < 0) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(List.of(
+                "Stormy 1",
+                "The rate limit suppressed 1 record(s) logged from 'Stormy {}'"
+        ), handler.messages());
+    }
+
+    @Test
+    void test_explicit_call_site_keys_share_one_limit() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(2));
+
+        logger.logAtCallSite("retry-loop", CustomLevel.INFO, null, "First {}", 1);
+        logger.logAtCallSite("retry-loop", CustomLevel.INFO, Set.of("tag"), "Second {}", 2);
+        logger.logAtCallSite("retry-loop", CustomLevel.INFO, null, "Third {}", 3);
+
+        assertEquals(List.of("First 1", "Second 2"), handler.messages());
+    }
+
+    @Test
+    void test_plain_messages_are_limited_by_the_line_which_logged_them() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(2));
+
+        for (int id = 0; id < 10; id++) {
+            logger.log(CustomLevel.WARNING, "failed id " + id);
+        }
+        logger.log(CustomLevel.WARNING, "failed id 0");
+        logger.withRateLimit(null);
+
+        List<String> messages = handler.messages();
+        assertEquals(List.of("failed id 0", "failed id 1", "failed id 0"), messages.subList(0, 3));
+        assertEquals(4, messages.size());
+        assertTrue(messages.get(3).startsWith("The rate limit suppressed 8 record(s) logged from "));
+        assertTrue(messages.get(3).contains("CallSiteRateLimiterTest.test_plain_messages_are_limited_by_the_line_which_logged_them("));
+    }
+
+    @Test
+    void test_colliding_keys_keep_their_own_limits() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(1));
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        for (int i = 0; i < 3; i++) {
+            logger.logAtCallSite("Aa", CustomLevel.INFO, null, "Aa {}", i);
+            logger.logAtCallSite("BB", CustomLevel.INFO, null, "BB {}", i);
+        }
+
+        assertEquals(List.of("Aa 0", "BB 0"), handler.messages());
+    }
+
+    @Test
+    void test_suppliers_are_limited_by_their_class() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(1));
+
+        for (int i = 0; i < 3; i++) {
+            int iteration = i;
+            logger.log(CustomLevel.INFO, () -> "Supplied " + iteration);
+        }
+
+        assertEquals(List.of("Supplied 0"), handler.messages());
+    }
+
+    @Test
+    void test_idle_call_sites_pushed_out_of_the_table_are_reported() throws InterruptedException {
+        logger.withRateLimit(RateLimitOptions.perCallSite(4).withBurst(1).withMaxCallSites(1));
+
+        logger.info("First {}", 1);
+        logger.info("First {}", 2);
+        Thread.sleep(300);
+        logger.info("Second {}", 1);
+
+        assertEquals(List.of(
+                "First 1",
+                "The rate limit suppressed 1 record(s) logged from 'First {}'",
+                "Second 1"
+        ), handler.messages());
+    }
+
+    @Test
+    void test_busy_call_sites_are_not_pushed_out_of_the_table() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(1).withMaxCallSites(1));
+
+        logger.info("First {}", 1);
+        logger.info("Second {}", 1);
+        logger.info("First {}", 2);
+        logger.info("Third {}", 1);
+        logger.withRateLimit(null);
+
+        assertEquals(List.of(
+                "First 1",
+                "Second 1",
+                "The rate limit suppressed 1 record(s) logged from 'First {}'",
+                "The rate limit suppressed 1 record(s) logged from call sites the rate limiter had no room to track"
+        ), handler.messages());
+    }
+
+    @Test
+    void test_limits_can_be_removed() {
+        logger.withRateLimit(RateLimitOptions.perCallSite(0.1).withBurst(1));
+        logger.info("Limited {}", 1);
+        logger.info("Limited {}", 2);
+
+        logger.withRateLimit(null);
+        logger.info("Limited {}", 3);
+
+        assertEquals(List.of(
+                "Limited 1",
+                "The rate limit suppressed 1 record(s) logged from 'Limited {}'",
+                "Limited 3"
+        ), handler.messages());
+    }
+
+    @Test
+    void test_invalid_options_are_refused() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimitOptions.perCallSite(0));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitOptions.perCallSite(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitOptions.perCallSite(1).withBurst(0));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitOptions.perCallSite(1).withMaxCallSites(0));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitOptions.perCallSite(1).withSummaryInterval(Duration.ZERO));
+        assertTrue(RateLimitOptions.perCallSite(2.5).getBurst() >= 1);
+    }
+}
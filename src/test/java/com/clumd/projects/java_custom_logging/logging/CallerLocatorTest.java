@@ -0,0 +1,97 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CallerLocatorTest {
+
+    private final CapturingHandler handler = new CapturingHandler();
+    private ExtendedLogger logger;
+
+    @BeforeEach
+    void setup() {
+        logger = new ExtendedLogger("caller.located");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(CustomLevel.ALL);
+        logger.addHandler(handler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        LogRoot.init("com.clumd.projects.", "CALLERS");
+        LogManager.getLogManager().reset();
+    }
+
+    private static int nextLine() {
+        // The line after the one which called this.
+        return new Throwable().getStackTrace()[1].getLineNumber() + 1;
+    }
+
+    @Test
+    void test_the_calling_frame_is_located() {
+        int line = nextLine();
+        CallerLocator.CallerLocation location = CallerLocator.locate();
+
+        assertEquals(CallerLocatorTest.class.getName(), location.className());
+        assertEquals("test_the_calling_frame_is_located", location.methodName());
+        assertEquals(line, location.lineNumber());
+        assertTrue(location.description().startsWith(CallerLocatorTest.class.getName() + ".test_the_calling_frame_is_located("));
+    }
+
+    @Test
+    void test_each_call_site_is_only_resolved_once() {
+        List<CallerLocator.CallerLocation> locations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            locations.add(CallerLocator.locate());
+        }
+        CallerLocator.CallerLocation elsewhere = CallerLocator.locate();
+
+        assertSame(locations.get(0), locations.get(1));
+        assertSame(locations.get(0), locations.get(2));
+        assertTrue(elsewhere.lineNumber() > locations.get(0).lineNumber());
+    }
+
+    @Test
+    void test_enter_and_exit_describe_their_caller() {
+        logger.enter();
+        logger.exit();
+
+        assertEquals(2, handler.getPublished().size());
+        assertTrue(handler.getExtendedRecord(0).getMessage().startsWith(" >> ENTERING code point: " + CallerLocatorTest.class.getName() + ".test_enter_and_exit_describe_their_caller("));
+        assertTrue(handler.getExtendedRecord(1).getMessage().startsWith(" << EXITING code point: " + CallerLocatorTest.class.getName() + ".test_enter_and_exit_describe_their_caller("));
+
+        logger.setLevel(CustomLevel.DEBUG);
+        logger.enter();
+        assertEquals(2, handler.getPublished().size());
+    }
+
+    @Test
+    void test_records_only_carry_their_caller_when_asked() {
+        LogRoot.init("com.clumd.projects.", "CALLERS", "test").withHandlers(List.of(), DispatchOptions.synchronous());
+        logger.info("not located");
+
+        LogRoot.init("com.clumd.projects.", "CALLERS", "test").withHandlers(List.of(), DispatchOptions.synchronous().withCallerLocation());
+        int line = nextLine();
+        logger.info("located");
+
+        assertFalse(handler.getExtendedRecord(0).isCallerLocated());
+        ExtendedLogRecord located = handler.getExtendedRecord(1);
+        assertTrue(located.isCallerLocated());
+        assertEquals(CallerLocatorTest.class.getName(), located.getSourceClassName());
+        assertEquals("test_records_only_carry_their_caller_when_asked", located.getSourceMethodName());
+        assertEquals(line, located.getSourceLineNumber());
+    }
+}
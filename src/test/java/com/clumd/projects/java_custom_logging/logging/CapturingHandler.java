@@ -0,0 +1,77 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * A handler which keeps every record it is given, along with the name of the thread which gave it, for tests to check.
+ * As with the real controllers, records which should be disregarded by it are skipped.
+ */
+@Getter
+public class CapturingHandler extends StreamHandler implements CustomLogHandler {
+
+    // Synchronized, as records may be published from any thread.
+    private final List<LogRecord> published = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> publishingThreads = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean flushed;
+    private volatile boolean closed;
+
+    public CapturingHandler() {
+        super(OutputStream.nullOutputStream(), new SimpleFormatter());
+        setLevel(Level.ALL);
+    }
+
+    @Override
+    public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+        // Nothing to accept.
+    }
+
+    @Override
+    public synchronized void publish(LogRecord logRecord) {
+        if (logRecord instanceof ExtendedLogRecord elr && elr.isDisregardedBy(getClass())) {
+            return;
+        }
+        published.add(logRecord);
+        publishingThreads.add(Thread.currentThread().getName());
+    }
+
+    @Override
+    public synchronized void flush() {
+        flushed = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+    }
+
+    /**
+     * @param index The index of the record, in the order published.
+     * @return That record, as an {@link ExtendedLogRecord}.
+     */
+    public ExtendedLogRecord getExtendedRecord(int index) {
+        return (ExtendedLogRecord) published.get(index);
+    }
+
+    /**
+     * @return The message of every record published so far, in order.
+     */
+    public List<String> messages() {
+        synchronized (published) {
+            return published.stream().map(LogRecord::getMessage).toList();
+        }
+    }
+}
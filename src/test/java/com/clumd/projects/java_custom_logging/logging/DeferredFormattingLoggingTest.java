@@ -0,0 +1,141 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
+import com.clumd.projects.java_custom_logging.logging.dispatch.SnapshotPolicy;
+import lombok.NonNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredFormattingLoggingTest {
+
+    /**
+     * Notes whether each record's message was still waiting to be formatted when it arrived, before formatting it.
+     */
+    private static class RecordingController extends StreamHandler implements CustomLogHandler {
+
+        final List<String> messages = new ArrayList<>();
+        final List<Boolean> arrivedDeferred = new ArrayList<>();
+        final List<String> formattingThreads = new ArrayList<>();
+        final List<Object> firstParameters = new ArrayList<>();
+
+        @Override
+        public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+            // Not needed.
+        }
+
+        @Override
+        public synchronized void publish(LogRecord logRecord) {
+            arrivedDeferred.add(((ExtendedLogRecord) logRecord).isMessageDeferred());
+            messages.add(logRecord.getMessage());
+            formattingThreads.add(Thread.currentThread().getName());
+            Object[] parameters = logRecord.getParameters();
+            firstParameters.add(parameters == null ? null : parameters[0]);
+        }
+    }
+
+    private static class MutableData implements LoggableData {
+
+        String value = "before";
+
+        @Override
+        public String getFormattedLogData() {
+            return value;
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        LogRoot.init("com.clumd.projects.", "DEFERRED");
+        LogManager.getLogManager().reset();
+    }
+
+    private static RecordingController initWith(DispatchOptions dispatchOptions) {
+        RecordingController controller = new RecordingController();
+        LogRoot.init("com.clumd.projects.", "DEFERRED", "test").withHandlers(List.of(controller), dispatchOptions);
+        return controller;
+    }
+
+    @Test
+    void test_templates_are_formatted_by_the_background_writer() {
+        RecordingController controller = initWith(DispatchOptions.asynchronous().withDeferredFormatting());
+        ExtendedLogger logger = LogRoot.createLogger("deferred.writer");
+
+        logger.info("Hello {}, number {}", "world", 1);
+        logger.warn(Set.of("tag"), "Hello {}", "again");
+        LogManager.getLogManager().reset();
+
+        synchronized (controller) {
+            assertEquals(List.of("Hello world, number 1", "Hello again"), controller.messages);
+            assertEquals(List.of(true, true), controller.arrivedDeferred);
+            assertTrue(controller.formattingThreads.stream().allMatch("LogRoot-async-dispatcher"::equals));
+        }
+    }
+
+    @Test
+    void test_mutable_arguments_are_logged_as_they_were() {
+        RecordingController controller = initWith(DispatchOptions.asynchronous().withDeferredFormatting());
+        ExtendedLogger logger = LogRoot.createLogger("deferred.snapshot");
+        StringBuilder mutable = new StringBuilder("before");
+        MutableData data = new MutableData();
+
+        for (int i = 0; i < 100; i++) {
+            logger.info("Value {}", mutable);
+            logger.log(CustomLevel.INFO, "Data", data);
+        }
+        mutable.append(" and after");
+        data.value = "after";
+        LogManager.getLogManager().reset();
+
+        synchronized (controller) {
+            for (int i = 0; i < 200; i += 2) {
+                assertEquals("Value before", controller.messages.get(i));
+                assertEquals("before", ((LoggableData) controller.firstParameters.get(i + 1)).getFormattedLogData());
+            }
+        }
+    }
+
+    @Test
+    void test_slf4j_loggers_defer_formatting_too() {
+        RecordingController controller = initWith(DispatchOptions.asynchronous().withDeferredFormatting(SnapshotPolicy.DEFER_ALL));
+        ExtendedSlf4jLogger logger = LogRoot.createSlf4jLogger("deferred.slf4j");
+        logger.setLevel(CustomLevel.ALL);
+
+        logger.debug("{} and {}", "one", "two");
+        LogManager.getLogManager().reset();
+
+        synchronized (controller) {
+            assertEquals(List.of("one and two"), controller.messages);
+            assertEquals(List.of(true), controller.arrivedDeferred);
+        }
+    }
+
+    @Test
+    void test_synchronous_dispatch_formats_right_away() {
+        RecordingController controller = initWith(DispatchOptions.synchronous().withDeferredFormatting());
+        ExtendedLogger logger = LogRoot.createLogger("deferred.synchronous");
+
+        logger.info("Hello {}", "world");
+
+        synchronized (controller) {
+            assertEquals(List.of("Hello world"), controller.messages);
+            assertFalse(controller.arrivedDeferred.getFirst());
+        }
+    }
+}
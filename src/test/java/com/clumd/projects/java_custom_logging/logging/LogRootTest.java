@@ -5,6 +5,8 @@ import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
 import com.clumd.projects.java_custom_logging.logging.controllers.ConsoleController;
 import com.clumd.projects.java_custom_logging.logging.controllers.DenseFileController;
 import com.clumd.projects.java_custom_logging.logging.controllers.FileController;
+import com.clumd.projects.java_custom_logging.logging.dispatch.AsyncLogDispatcher;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.LogRecord;
@@ -259,6 +262,26 @@ class LogRootTest {
         assertEquals("AM I LOGGED in the custom namespace", capturedLogs.getFirst().getMessage());
     }
 
+    @Test
+    void checkAsyncHandlersReceiveRecordsFromTheDispatcherThread() {
+        LogRoot.init(DISCARDABLE_PACKAGE, LOGGING_ROOT)
+                .withHandlers(List.of(mockController), DispatchOptions.asynchronous().withCapacity(64));
+
+        Handler[] rootHandlers = Logger.getLogger("").getHandlers();
+        assertEquals(1, rootHandlers.length, 0);
+        assertInstanceOf(AsyncLogDispatcher.class, rootHandlers[0]);
+
+        ExtendedLogger el = LogRoot.createLogger(LogRootTest.class);
+        el.log(CustomLevel.INFO, "first async");
+        el.log(CustomLevel.INFO, "second async");
+        rootHandlers[0].flush();
+
+        List<LogRecord> capturedLogs = logCaptor.getAllValues();
+        assertEquals(2, capturedLogs.size(), 0);
+        assertEquals("first async", capturedLogs.get(0).getMessage());
+        assertEquals("second async", capturedLogs.get(1).getMessage());
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     /**
@@ -611,4 +634,15 @@ class LogRootTest {
         assertEquals(LOGGING_ROOT + ".top.1c", capturedLogs.get(13).getLoggerName());
         assertEquals("after lower", capturedLogs.get(13).getMessage());
     }
+
+    @Test
+    void test_global_branch_level_outlives_garbage_collection_before_anything_uses_the_branch() {
+        LogRoot.setGlobalBranchLoggingLevel(CustomLevel.ERROR, "unclaimed.branch");
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        assertEquals(CustomLevel.ERROR, Logger.getLogger("unclaimed.branch").getLevel());
+        assertEquals(CustomLevel.ERROR, Logger.getLogger("unclaimed.branch.later").getParent().getLevel());
+    }
 }
@@ -0,0 +1,162 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggerRegistryTest {
+
+    private LoggerRegistry registry;
+    private String root;
+
+    @BeforeEach
+    void setup() {
+        registry = new LoggerRegistry();
+        // The LogManager is JVM wide, so keep each test's names apart.
+        root = "registryTest" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private Logger create(String name) {
+        return registry.getOrCreate(name, n -> new ExtendedLogger(n, null));
+    }
+
+    private List<String> namesInBranch(String prefix) {
+        List<String> names = new ArrayList<>();
+        registry.forEachInBranch(prefix, logger -> names.add(logger.getName()));
+        names.sort(String::compareTo);
+        return names;
+    }
+
+    @Test
+    void test_loggers_are_created_once_and_registered_with_the_log_manager() {
+        Logger first = create(root + ".a");
+
+        assertSame(first, create(root + ".a"));
+        assertSame(first, registry.get(root + ".a"));
+        assertSame(first, LogManager.getLogManager().getLogger(root + ".a"));
+        assertNull(registry.get(root + ".b"));
+    }
+
+    @Test
+    void test_loggers_already_known_to_the_log_manager_are_adopted() {
+        Logger existing = Logger.getLogger(root + ".plain");
+
+        assertSame(existing, create(root + ".plain"));
+    }
+
+    @Test
+    void test_branches_match_on_name_prefix() {
+        create(root + ".top");
+        create(root + ".top.1a");
+        create(root + ".top.1a.2a");
+        create(root + ".top.1ab");
+        create(root + ".top.1b");
+        create(root + ".other");
+
+        assertEquals(
+                List.of(root + ".top.1a", root + ".top.1a.2a", root + ".top.1ab"),
+                namesInBranch(root + ".top.1a")
+        );
+        assertEquals(List.of(root + ".top.1a.2a"), namesInBranch(root + ".top.1a."));
+        assertEquals(6, namesInBranch(root).size());
+        assertEquals(0, registry.forEachInBranch(root + ".missing.branch", logger -> {
+        }));
+    }
+
+    @Test
+    void test_intermediate_names_are_not_loggers_until_created() {
+        create(root + ".a.b.c");
+
+        assertNull(registry.get(root + ".a.b"));
+        assertEquals(List.of(root + ".a.b.c"), namesInBranch(root + ".a"));
+    }
+
+    @Test
+    void test_pending_levels_apply_to_loggers_created_later_within_the_branch() {
+        registry.setPendingLevel(root + ".top.1a", Level.FINE);
+
+        assertEquals(Level.FINE, create(root + ".top.1a").getLevel());
+        assertEquals(Level.FINE, create(root + ".top.1a.2a").getLevel());
+        assertEquals(Level.FINE, create(root + ".top.1ab").getLevel());
+        assertNull(create(root + ".top.1b").getLevel());
+        assertNull(create(root + ".top").getLevel());
+    }
+
+    @Test
+    void test_the_most_recently_set_pending_level_wins() {
+        registry.setPendingLevel(root + ".top", Level.FINE);
+        registry.setPendingLevel(root + ".top.1a", Level.WARNING);
+        assertEquals(Level.WARNING, create(root + ".top.1a.2a").getLevel());
+
+        registry.setPendingLevel(root, Level.SEVERE);
+        assertEquals(Level.SEVERE, create(root + ".top.1a.2b").getLevel());
+    }
+
+    @Test
+    void test_pending_levels_do_not_change_existing_levels() {
+        Logger configured = Logger.getLogger(root + ".configured");
+        configured.setLevel(Level.FINEST);
+        Logger existing = create(root + ".existing");
+
+        registry.setPendingLevel(root, Level.SEVERE);
+
+        assertEquals(Level.FINEST, create(root + ".configured").getLevel());
+        assertNull(existing.getLevel());
+    }
+
+    @Test
+    void test_cleared_pending_levels_are_no_longer_applied() {
+        registry.setPendingLevel(root, Level.SEVERE);
+        registry.clearPendingLevels();
+
+        assertNull(create(root + ".a").getLevel());
+    }
+
+    @Test
+    void test_concurrent_requests_for_a_name_all_get_the_same_logger() throws Exception {
+        final int threads = 8;
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Logger>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return registry.getOrCreate(root + ".contended", n -> {
+                        created.incrementAndGet();
+                        return new ExtendedLogger(n, Set.of());
+                    });
+                }));
+            }
+            start.countDown();
+
+            Logger first = results.getFirst().get(5, TimeUnit.SECONDS);
+            for (Future<Logger> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, created.get());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
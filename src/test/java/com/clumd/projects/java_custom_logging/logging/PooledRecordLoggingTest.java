@@ -0,0 +1,145 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.api.CustomLogHandler;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.dispatch.DispatchOptions;
+import lombok.NonNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledRecordLoggingTest {
+
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    /**
+     * Does no I/O, and keeps nothing but counts, so that anything allocated is down to the logging path itself.
+     */
+    private static class CountingController extends StreamHandler implements CustomLogHandler {
+
+        long published;
+        ExtendedLogRecord lastRecord;
+
+        @Override
+        public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+            // Not needed.
+        }
+
+        @Override
+        public synchronized void publish(LogRecord logRecord) {
+            published++;
+            lastRecord = (ExtendedLogRecord) logRecord;
+        }
+    }
+
+    /**
+     * Copies what it needs out of each record, as it may not keep hold of pooled records themselves.
+     */
+    private static class MessageCopyingController extends StreamHandler implements CustomLogHandler {
+
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+            // Not needed.
+        }
+
+        @Override
+        public synchronized void publish(LogRecord logRecord) {
+            messages.add(logRecord.getMessage() + " " + ((ExtendedLogRecord) logRecord).getTags());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        LogRoot.init("com.clumd.projects.", "POOLED");
+        LogManager.getLogManager().reset();
+    }
+
+    @Test
+    void test_steady_state_logging_allocates_nothing() {
+        CountingController controller = new CountingController();
+        LogRoot.init("com.clumd.projects.", "POOLED", "test")
+                .withHandlers(List.of(controller), DispatchOptions.synchronous().withPooledRecords());
+        ExtendedLogger logger = LogRoot.createLogger("pooled.allocation");
+        logger.setLevel(CustomLevel.INFO);
+        Integer param = 1337;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            logSomeMessages(logger, param);
+        }
+
+        // Take the best of a few attempts, so a one-off allocation elsewhere in the JVM on this thread (such as from
+        // the JIT finishing a compilation) can't fail the test.
+        long fewestBytesAllocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5 && fewestBytesAllocated != 0; attempt++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                logSomeMessages(logger, param);
+            }
+            fewestBytesAllocated = Math.min(fewestBytesAllocated, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        assertEquals(0, fewestBytesAllocated, "bytes allocated by " + MEASURED_CALLS + " rounds of logging");
+        assertTrue(controller.published >= 3L * (WARM_UP_CALLS + MEASURED_CALLS));
+    }
+
+    @Test
+    void test_records_are_reused_between_messages() {
+        CountingController controller = new CountingController();
+        LogRoot.init("com.clumd.projects.", "POOLED", "test")
+                .withHandlers(List.of(controller), DispatchOptions.synchronous().withPooledRecords());
+        ExtendedLogger logger = LogRoot.createLogger("pooled.reuse");
+
+        logger.log(CustomLevel.INFO, "first");
+        ExtendedLogRecord first = controller.lastRecord;
+        logger.log(CustomLevel.INFO, "second");
+
+        assertTrue(first.isPooled());
+        assertSame(first, controller.lastRecord);
+    }
+
+    @Test
+    void test_queued_records_are_not_reused_before_they_are_written() {
+        MessageCopyingController controller = new MessageCopyingController();
+        LogRoot.init("com.clumd.projects.", "POOLED", "test")
+                .withHandlers(List.of(controller), DispatchOptions.asynchronous().withCapacity(64).withPooledRecords(4));
+        ExtendedLogger logger = LogRoot.createLogger("pooled.async");
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            logger.log(CustomLevel.INFO, "tag" + i, "message " + i);
+            expected.add("message " + i + " " + Set.of("tag" + i));
+        }
+        LogManager.getLogManager().reset();
+
+        synchronized (controller) {
+            assertEquals(expected, controller.messages);
+        }
+    }
+
+    private static void logSomeMessages(ExtendedLogger logger, Integer param) {
+        logger.log(CustomLevel.INFO, "A plain message");
+        logger.log(CustomLevel.INFO, "tag", "A tagged message");
+        logger.log(CustomLevel.INFO, "A message with a parameter", param);
+        logger.log(CustomLevel.DEBUG, "A message which is filtered out", param);
+    }
+}
@@ -0,0 +1,87 @@
+package com.clumd.projects.java_custom_logging.logging;
+
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimedSpanTest {
+
+    private final CapturingHandler handler = new CapturingHandler();
+    private ExtendedLogger logger;
+
+    @BeforeEach
+    void setup() {
+        logger = new ExtendedLogger("timed");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(CustomLevel.DEBUG);
+        logger.addHandler(handler);
+    }
+
+    @Test
+    void test_one_record_is_logged_when_the_span_is_closed() throws InterruptedException {
+        TimedSpan span = logger.time(CustomLevel.INFO, Set.of("db"), "Load customer");
+        try (span) {
+            Thread.sleep(5);
+            assertEquals(0, handler.getPublished().size());
+        }
+        span.close();
+
+        assertEquals(1, handler.getPublished().size());
+        ExtendedLogRecord logRecord = handler.getExtendedRecord(0);
+        assertEquals(CustomLevel.INFO, logRecord.getLevel());
+        assertEquals("Load customer", logRecord.getMessage());
+        assertEquals(Set.of("db"), logRecord.getTags());
+        TimedSpan.Elapsed elapsed = (TimedSpan.Elapsed) logRecord.getParameters()[0];
+        assertTrue(elapsed.duration().compareTo(Duration.ofMillis(5)) >= 0);
+        assertTrue(elapsed.getFormattedLogData().matches("Took \\d+\\.\\d{3} ms"));
+    }
+
+    @Test
+    void test_only_runs_slower_than_the_threshold_are_logged() throws InterruptedException {
+        try (TimedSpan ignored = logger.time(CustomLevel.INFO, "Fast", Duration.ofSeconds(10))) {
+            // Nothing to do.
+        }
+        try (TimedSpan ignored = logger.time(CustomLevel.INFO, "Slow", Duration.ofMillis(1))) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(1, handler.getPublished().size());
+        assertEquals("Slow", handler.getExtendedRecord(0).getMessage());
+        assertTrue(((TimedSpan.Elapsed) handler.getExtendedRecord(0).getParameters()[0]).getFormattedLogData().endsWith("(threshold 1.000 ms)"));
+    }
+
+    @Test
+    void test_disabled_levels_share_a_span_which_does_nothing() {
+        TimedSpan span = logger.time(CustomLevel.TRACE, "Not timed");
+        span.close();
+
+        assertSame(TimedSpan.DISABLED, span);
+        assertSame(TimedSpan.DISABLED, logger.time(CustomLevel.TRACE, Set.of("db"), "Not timed", Duration.ofMillis(1)));
+        assertEquals(Duration.ZERO, span.elapsed());
+        assertEquals(0, handler.getPublished().size());
+    }
+
+    @Test
+    void test_elapsed_times_are_rendered_in_milliseconds() {
+        assertEquals("Took 0.000 ms", new TimedSpan.Elapsed(999, 0).getFormattedLogData());
+        assertEquals("Took 1.005 ms (threshold 250.000 ms)", new TimedSpan.Elapsed(1_005_000, 250_000_000).getFormattedLogData());
+        assertEquals("Took 12345.067 ms", new TimedSpan.Elapsed(12_345_067_890L, 0).getFormattedLogData());
+    }
+
+    @Test
+    void test_negative_thresholds_are_refused() {
+        assertThrows(IllegalArgumentException.class, () -> logger.time(CustomLevel.INFO, "Backwards", Duration.ofMillis(-1)));
+
+        logger.setLevel(CustomLevel.ERROR);
+        assertThrows(IllegalArgumentException.class, () -> logger.time(CustomLevel.INFO, "Backwards", Duration.ofMillis(-1)));
+    }
+}
@@ -2,6 +2,8 @@ package com.clumd.projects.java_custom_logging.logging.api;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class LoggableDataTest {
@@ -36,4 +38,13 @@ class LoggableDataTest {
     void test_custom_implementation_is_okay(){
         assertEquals("Created some custom implementation", new ImplementsCustom().getFormattedLogData());
     }
+
+    @Test
+    void test_default_append_writes_the_formatted_data() throws IOException {
+        StringBuilder into = new StringBuilder("data: ");
+
+        new ImplementsCustom().appendFormattedLogData(into);
+
+        assertEquals("data: Created some custom implementation", into.toString());
+    }
 }
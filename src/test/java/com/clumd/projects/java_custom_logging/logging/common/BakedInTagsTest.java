@@ -0,0 +1,48 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BakedInTagsTest {
+
+    @Test
+    void test_no_tags_bake_to_null() {
+        assertNull(BakedInTags.of(null));
+        assertNull(BakedInTags.of(Set.of()));
+    }
+
+    @Test
+    void test_tags_are_copied_in_order() {
+        Set<String> given = new LinkedHashSet<>(List.of("b", "a", "c"));
+        Set<String> baked = BakedInTags.of(given);
+        given.add("d");
+
+        assertEquals(Set.of("a", "b", "c"), baked);
+        assertEquals(List.of("b", "a", "c"), List.copyOf(baked));
+        assertEquals("[b, a, c]", baked.toString());
+        assertSame(baked.toString(), baked.toString());
+    }
+
+    @Test
+    void test_baked_tags_cannot_be_changed() {
+        Set<String> baked = BakedInTags.of(Set.of("a"));
+
+        assertThrows(UnsupportedOperationException.class, () -> baked.add("b"));
+        assertThrows(UnsupportedOperationException.class, () -> baked.iterator().remove());
+    }
+
+    @Test
+    void test_baking_twice_returns_the_same_tags() {
+        Set<String> baked = BakedInTags.of(Set.of("a", "b"));
+
+        assertSame(baked, BakedInTags.of(baked));
+    }
+}
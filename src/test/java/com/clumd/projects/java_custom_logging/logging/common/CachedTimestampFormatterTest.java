@@ -0,0 +1,85 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachedTimestampFormatterTest {
+
+    @Test
+    void test_matches_simple_date_format_for_shared_patterns() {
+        Random random = new Random(42);
+        for (CachedTimestampFormatter formatter : List.of(CachedTimestampFormatter.ISO_LOCAL_MILLIS, CachedTimestampFormatter.READABLE_MILLIS)) {
+            SimpleDateFormat expected = new SimpleDateFormat(formatter.getPattern());
+            long millis = System.currentTimeMillis();
+            for (int i = 0; i < 5000; i++) {
+                // Mostly small steps forwards, with the occasional jump, to exercise both cache hits and misses.
+                millis += i % 100 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(700);
+                assertEquals(expected.format(millis), formatter.format(millis));
+            }
+        }
+    }
+
+    @Test
+    void test_millis_are_zero_padded_and_before_epoch_is_handled() {
+        CachedTimestampFormatter formatter = new CachedTimestampFormatter("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+        for (long millis : new long[]{0, 7, 45, 999, 1000, -1, -999, -1000, -1001}) {
+            assertEquals(expected.format(millis), formatter.format(millis));
+        }
+    }
+
+    @Test
+    void test_appends_into_the_given_buffer() {
+        StringBuilder buffer = new StringBuilder("at ");
+
+        StringBuilder returned = CachedTimestampFormatter.ISO_LOCAL_MILLIS.formatTo(1_000, buffer);
+
+        assertSame(buffer, returned);
+        assertEquals("at " + new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(1_000), buffer.toString());
+    }
+
+    @Test
+    void test_patterns_must_end_with_millis() {
+        assertThrows(IllegalArgumentException.class, () -> new CachedTimestampFormatter("yyyy-MM-dd HH:mm:ss"));
+        assertThrows(IllegalArgumentException.class, () -> new CachedTimestampFormatter("HH:mm:ss.SSSS"));
+    }
+
+    @Test
+    void test_concurrent_use_is_consistent() throws Exception {
+        CachedTimestampFormatter formatter = new CachedTimestampFormatter("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        long start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t * 333;
+                results.add(pool.submit(() -> {
+                    SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+                    StringBuilder buffer = new StringBuilder();
+                    for (long millis = start + offset; millis < start + offset + 20_000; millis += 7) {
+                        buffer.setLength(0);
+                        assertEquals(expected.format(millis), formatter.formatTo(millis, buffer).toString());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
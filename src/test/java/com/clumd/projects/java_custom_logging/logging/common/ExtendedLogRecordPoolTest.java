@@ -0,0 +1,139 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExtendedLogRecordPoolTest {
+
+    @Test
+    void test_released_records_are_reused() {
+        ExtendedLogRecordPool pool = new ExtendedLogRecordPool(1);
+
+        ExtendedLogRecord first = pool.acquire(CustomLevel.INFO, "first");
+        assertTrue(first.isPooled());
+        first.release();
+        ExtendedLogRecord second = pool.acquire(CustomLevel.WARNING, "second");
+
+        assertSame(first, second);
+        assertEquals(CustomLevel.WARNING, second.getLevel());
+        assertEquals("second", second.getMessage());
+    }
+
+    @Test
+    void test_records_in_use_are_not_handed_out_again() {
+        ExtendedLogRecordPool pool = new ExtendedLogRecordPool(2);
+
+        ExtendedLogRecord first = pool.acquire(CustomLevel.INFO, "first");
+        ExtendedLogRecord second = pool.acquire(CustomLevel.INFO, "second");
+        ExtendedLogRecord overflow = pool.acquire(CustomLevel.INFO, "overflow");
+
+        assertNotSame(first, second);
+        assertTrue(second.isPooled());
+        assertFalse(overflow.isPooled());
+        assertEquals("overflow", overflow.getMessage());
+    }
+
+    @Test
+    void test_retained_records_are_only_reused_after_every_release() {
+        ExtendedLogRecordPool pool = new ExtendedLogRecordPool(1);
+        ExtendedLogRecord record = pool.acquire(CustomLevel.INFO, "msg");
+
+        record.retain();
+        record.release();
+        assertFalse(pool.acquire(CustomLevel.INFO, "other").isPooled());
+        assertEquals("msg", record.getMessage());
+
+        record.release();
+        assertSame(record, pool.acquire(CustomLevel.INFO, "other"));
+        assertThrows(IllegalStateException.class, () -> {
+            record.release();
+            record.release();
+        });
+    }
+
+    @Test
+    void test_released_records_are_cleared() {
+        ExtendedLogRecordPool pool = new ExtendedLogRecordPool(1);
+        ExtendedLogRecord record = pool.acquire(CustomLevel.INFO, "msg")
+                .withTag("tag")
+                .withSingleParameter(123)
+                .referencingBakedInTags(Set.of("baked"));
+        record.setThrown(new IllegalStateException("test"));
+        record.setLoggerName("logger");
+
+        record.release();
+
+        assertNull(record.getMessage());
+        assertNull(record.getTags());
+        assertNull(record.getBakedInTags());
+        assertNull(record.getParameters());
+        assertNull(record.getThrown());
+        assertNull(record.getLoggerName());
+    }
+
+    @Test
+    void test_pooled_records_behave_like_new_ones() {
+        ExtendedLogRecordPool pool = new ExtendedLogRecordPool(1);
+        long before = System.currentTimeMillis();
+
+        ExtendedLogRecord record = pool.acquire(Level.WARNING, "msg")
+                .withTag("tag1")
+                .withSingleParameter(123);
+
+        assertEquals(CustomLevel.WARNING, record.getLevel());
+        assertEquals(Set.of("tag1"), record.getTags());
+        assertArrayEquals(new Object[]{123}, record.getParameters());
+        assertEquals(Thread.currentThread().threadId(), record.getLongThreadID());
+        assertTrue(record.getMillis() >= before && record.getMillis() <= System.currentTimeMillis());
+        assertEquals(record.getMillis(), record.getInstant().toEpochMilli());
+        assertNull(record.getSourceClassName());
+    }
+
+    @Test
+    void test_pooled_records_serialize_as_an_independent_copy() throws IOException, ClassNotFoundException {
+        ExtendedLogRecord record = new ExtendedLogRecordPool(1).acquire(CustomLevel.ERROR, "msg").withTag("tag1")
+                .withCallerLocation("com.app.Caller", "run", 42);
+        record.setLoggerName("logger");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(record);
+        }
+        ExtendedLogRecord copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (ExtendedLogRecord) in.readObject();
+        }
+
+        assertFalse(copy.isPooled());
+        assertEquals("msg", copy.getMessage());
+        assertEquals(Set.of("tag1"), copy.getTags());
+        assertEquals("logger", copy.getLoggerName());
+        assertEquals(record.getMillis(), copy.getMillis());
+        assertEquals(record.getSequenceNumber(), copy.getSequenceNumber());
+        assertTrue(copy.isCallerLocated());
+        assertEquals("com.app.Caller", copy.getSourceClassName());
+        assertEquals("run", copy.getSourceMethodName());
+        assertEquals(42, copy.getSourceLineNumber());
+    }
+
+    @Test
+    void test_pool_must_hold_records() {
+        assertThrows(IllegalArgumentException.class, () -> new ExtendedLogRecordPool(0));
+    }
+}
@@ -1,16 +1,27 @@
 package com.clumd.projects.java_custom_logging.logging.common;
 
+import com.clumd.projects.java_custom_logging.logging.controllers.BinaryFileController;
 import com.clumd.projects.java_custom_logging.logging.controllers.ConsoleController;
+import com.clumd.projects.java_custom_logging.logging.controllers.DenseFileController;
+import com.clumd.projects.java_custom_logging.logging.controllers.FileController;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Set;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.StreamHandler;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ExtendedLogRecordTest {
 
@@ -66,6 +77,19 @@ class ExtendedLogRecordTest {
         assertEquals(classesWhichShouldIgnore, logRecord.getControllersWhichShouldDisregardThisMessage());
     }
 
+    @Test
+    void test_file_handler_still_covers_every_file_controller() {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(Level.INFO, "msg")
+                .withControllersWhichShouldIgnore(Set.of(FileHandler.class));
+
+        assertTrue(logRecord.isDisregardedBy(FileController.class));
+        assertTrue(logRecord.isDisregardedBy(DenseFileController.class));
+        assertTrue(logRecord.isDisregardedBy(BinaryFileController.class));
+        assertFalse(logRecord.isDisregardedBy(ConsoleController.class));
+        assertTrue(ExtendedLogRecord.isCoveredBy(FileHandler.class, FileHandler.class));
+        assertFalse(ExtendedLogRecord.isCoveredBy(ConsoleController.class, FileHandler.class));
+    }
+
     @Test
     void test_baked_in_does_not_collide_with_instance_tags() {
         Set<String> expectedBakedInTags = Set.of("Something", "baked", "in");
@@ -77,4 +101,39 @@ class ExtendedLogRecordTest {
         assertEquals(expectedInstanceTags, logRecord.getTags());
 
     }
+
+    @Test
+    void test_deferred_messages_are_formatted_when_first_asked_for() {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(Level.INFO, null)
+                .withDeferredMessage("Hello {}, you are {}", new Object[]{"world", 42});
+
+        assertTrue(logRecord.isMessageDeferred());
+        assertEquals("Hello world, you are 42", logRecord.getMessage());
+        assertFalse(logRecord.isMessageDeferred());
+    }
+
+    @Test
+    void test_setting_a_message_replaces_a_deferred_one() {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(Level.INFO, null)
+                .withDeferredMessage("Hello {}", new Object[]{"world"});
+
+        logRecord.setMessage("replaced");
+
+        assertFalse(logRecord.isMessageDeferred());
+        assertEquals("replaced", logRecord.getMessage());
+    }
+
+    @Test
+    void test_deferred_messages_survive_serialization() throws IOException, ClassNotFoundException {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(Level.INFO, null)
+                .withDeferredMessage("Hello {}", new Object[]{"world"});
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(logRecord);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals("Hello world", ((LogRecord) in.readObject()).getMessage());
+        }
+    }
 }
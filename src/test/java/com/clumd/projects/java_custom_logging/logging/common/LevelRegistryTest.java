@@ -0,0 +1,88 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LevelRegistryTest {
+
+    private LevelRegistry registry;
+    private String name;
+
+    private static class JulLevel extends Level {
+        JulLevel(String name, int value) {
+            super(name, value);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry = new LevelRegistry();
+        name = "L" + UUID.randomUUID().toString().replaceAll("[0-9-]", "").toUpperCase();
+    }
+
+    private CustomLevel define(String levelName, int priority) {
+        return registry.define(levelName, priority, "", () -> new CustomLevel(levelName, priority, ""));
+    }
+
+    @Test
+    void test_defining_a_level_twice_returns_the_same_level() {
+        CustomLevel first = define(name, 123);
+
+        assertSame(first, define(name, 123));
+        assertThrows(IllegalArgumentException.class, () -> define(name, 124));
+    }
+
+    @Test
+    void test_levels_resolve_to_themselves() {
+        CustomLevel level = define(name, 123);
+
+        assertSame(level, registry.resolve(level).orElseThrow());
+        assertSame(registry.resolve(level), registry.resolve(level), "Resolving should not allocate a new Optional.");
+    }
+
+    @Test
+    void test_jul_levels_resolve_by_name() {
+        CustomLevel level = define(name, 123);
+        Level jul = new JulLevel(name.toLowerCase(), 5);
+
+        assertSame(level, registry.resolve(jul).orElseThrow());
+        assertSame(registry.resolve(jul), registry.resolve(jul));
+    }
+
+    @Test
+    void test_jul_levels_defined_later_are_resolved_once_defined() {
+        Level jul = new JulLevel(name, 5);
+        assertFalse(registry.resolve(jul).isPresent());
+
+        CustomLevel level = define(name, 123);
+
+        assertEquals(Optional.of(level), registry.resolve(jul));
+    }
+
+    @Test
+    void test_lookup_by_name_ignores_case() {
+        CustomLevel level = define(name, 123);
+
+        assertSame(level, registry.byName(name.toLowerCase()));
+        assertNull(registry.byName("not" + name));
+    }
+
+    @Test
+    void test_the_first_level_defined_stands_for_its_priority() {
+        CustomLevel first = define(name + "A", 123);
+        define(name + "B", 123);
+
+        assertSame(first, registry.byPriority(123));
+        assertNull(registry.byPriority(124));
+    }
+}
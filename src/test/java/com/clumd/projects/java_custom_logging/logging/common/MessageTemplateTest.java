@@ -0,0 +1,106 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MessageTemplateTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "",
+            "no placeholders at all",
+            "{}",
+            "{}{}",
+            "Hello {}",
+            "{} and {}",
+            "{} and {} and {}",
+            "left { and } right {",
+            "escaped \\{} placeholder",
+            "escaped \\{} then {}",
+            "{} then escaped \\{}",
+            "double escaped \\\\{} placeholder",
+            "\\{}",
+            "\\\\{}",
+            "\\{}{}",
+            "a \\{} b \\{} c {} d",
+            "trailing backslash \\",
+            "nested {{}} braces",
+            "{}}{"
+    );
+
+    private static final List<Object[]> ARGUMENTS = List.of(
+            new Object[]{},
+            new Object[]{"one"},
+            new Object[]{"one", 2},
+            new Object[]{"one", 2, 3.0},
+            new Object[]{"one", 2, 3.0, "four"},
+            new Object[]{null, new int[]{1, 2}},
+            new Object[]{new RuntimeException("only a throwable")},
+            new Object[]{"one", new RuntimeException("throwable last")},
+            new Object[]{new RuntimeException("throwable first"), "two"}
+    );
+
+    @Test
+    void test_formatting_matches_slf4j_for_every_combination() {
+        for (String pattern : PATTERNS) {
+            // Use a distinct (but equal) instance each time, to exercise the cache missing as well as hitting.
+            for (String instance : List.of(pattern, new String(pattern))) {
+                for (Object[] arguments : ARGUMENTS) {
+                    assertEquals(
+                            MessageFormatter.arrayFormat(pattern, arguments).getMessage(),
+                            MessageTemplate.format(instance, arguments),
+                            "pattern '" + pattern + "' with " + arguments.length + " argument(s)"
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_null_patterns_and_arguments() {
+        assertNull(MessageTemplate.format(null, new Object[]{"one"}));
+        assertEquals("Hello {}", MessageTemplate.format("Hello {}", null));
+    }
+
+    @Test
+    void test_arguments_which_fail_to_render_are_rendered_as_slf4j_would() {
+        Object broken = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("broken");
+            }
+        };
+
+        assertEquals(
+                MessageFormatter.arrayFormat("value {}", new Object[]{broken}).getMessage(),
+                MessageTemplate.format("value {}", new Object[]{broken})
+        );
+    }
+
+    @Test
+    void test_templates_are_cached_by_identity() {
+        String pattern = "cached {}";
+        String equalPattern = new String(pattern);
+
+        MessageTemplate template = MessageTemplate.of(pattern);
+
+        assertSame(template, MessageTemplate.of(pattern));
+        assertNotSame(template, MessageTemplate.of(equalPattern));
+        assertEquals(pattern, MessageTemplate.of(equalPattern).getPattern());
+    }
+
+    @Test
+    void test_messages_can_be_appended_to_an_existing_buffer() {
+        StringBuilder buffer = new StringBuilder("prefix: ");
+
+        MessageTemplate.of("{} + {}").appendTo(buffer, new Object[]{1, 2});
+
+        assertEquals("prefix: 1 + 2", buffer.toString());
+    }
+}
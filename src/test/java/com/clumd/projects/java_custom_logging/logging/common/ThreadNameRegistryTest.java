@@ -0,0 +1,96 @@
+package com.clumd.projects.java_custom_logging.logging.common;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThreadNameRegistryTest {
+
+    private ThreadNameRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        registry = new ThreadNameRegistry(100);
+    }
+
+    @Test
+    void test_registered_names_can_be_looked_up() {
+        registry.register(5L, "five");
+        registry.put(6L, "six");
+
+        assertEquals("five", registry.nameFor(5L));
+        assertEquals("six", registry.get(6L));
+        assertNull(registry.nameFor(7L));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void test_re_registering_replaces_the_cached_name() {
+        registry.register(5L, "first");
+        assertEquals("first", registry.nameFor(5L));
+
+        registry.register(5L, "second");
+        assertEquals("second", registry.nameFor(5L));
+
+        registry.remove(5L);
+        assertNull(registry.nameFor(5L));
+    }
+
+    @Test
+    void test_ids_sharing_a_cache_slot_do_not_collide() {
+        registry.register(1L, "one");
+        registry.register(1L + 1024, "other");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("one", registry.nameFor(1L));
+            assertEquals("other", registry.nameFor(1L + 1024));
+        }
+    }
+
+    @Test
+    void test_registry_never_exceeds_its_bound() {
+        for (long id = 0; id < 1000; id++) {
+            registry.put(id, "thread " + id);
+            assertTrue(registry.size() <= registry.getMaxEntries());
+        }
+        assertEquals("thread 999", registry.nameFor(999L));
+    }
+
+    @Test
+    void test_dead_threads_are_evicted_first() throws InterruptedException {
+        ThreadNameRegistry small = new ThreadNameRegistry(10);
+        for (int i = 0; i < 10; i++) {
+            Thread finished = new Thread(() -> {
+            });
+            finished.start();
+            finished.join();
+            small.register(finished, "dead " + i);
+        }
+        small.register(Thread.currentThread(), "alive");
+        small.register(-1L, "one more");
+
+        assertEquals("alive", small.nameFor(Thread.currentThread().threadId()));
+        assertEquals("one more", small.nameFor(-1L));
+    }
+
+    @Test
+    void test_lookup_works_for_plain_maps() {
+        Map<Long, String> plain = new HashMap<>();
+        plain.put(3L, "three");
+
+        assertEquals("three", ThreadNameRegistry.lookup(plain, 3L));
+        assertNull(ThreadNameRegistry.lookup(plain, 4L));
+    }
+
+    @Test
+    void test_registry_must_hold_at_least_one_name() {
+        assertThrows(IllegalArgumentException.class, () -> new ThreadNameRegistry(0));
+    }
+}
@@ -0,0 +1,260 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.TestFileUtils;
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.BakedInTags;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryFileControllerTest {
+
+    private static final String LOGGING_TEST_DIR = "src/test/resources/logging/binary";
+    private static final String LOGGING_TEST_PATTERN = LOGGING_TEST_DIR + "/test_%g.bin";
+    private static final UUID RUN_ID = UUID.randomUUID();
+    private static final Map<Long, String> THREAD_NAMES = Map.of(Thread.currentThread().threadId(), "test-thread");
+
+    private BinaryFileController controller;
+
+    @BeforeEach
+    void setup() throws IOException {
+        TestFileUtils.deleteDirectoryIfExists(LOGGING_TEST_DIR);
+        TestFileUtils.makeAllDirs(LOGGING_TEST_DIR);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (controller != null) {
+            controller.close();
+        }
+        TestFileUtils.deleteDirectoryIfExists(LOGGING_TEST_DIR);
+    }
+
+    private BinaryFileController binaryController(long limit, int count, boolean appendMode) throws IOException {
+        BinaryFileController binary = new BinaryFileController(LOGGING_TEST_PATTERN, limit, count, appendMode);
+        binary.acceptLogRootRefs(RUN_ID, "BINARY", THREAD_NAMES);
+        return binary;
+    }
+
+    private static String decodeGeneration(int generation) throws IOException {
+        StringBuilder decoded = new StringBuilder();
+        BinaryLogDecoder.decode(Path.of(LOGGING_TEST_DIR, "test_" + generation + ".bin"), decoded);
+        return decoded.toString();
+    }
+
+    private static List<LogRecord> varietyOfRecords() {
+        RuntimeException cause = new IllegalStateException("the \"root\" cause");
+        LoggableData data = new LoggableData() {
+            @Override
+            public String getFormattedLogData() {
+                return "some data\nover two lines";
+            }
+        };
+
+        List<LogRecord> records = new ArrayList<>();
+        records.add(new ExtendedLogRecord(CustomLevel.INFO, "A plain message, with café and 😀"));
+        records.add(new ExtendedLogRecord(CustomLevel.WARNING, null));
+        records.add(new ExtendedLogRecord(CustomLevel.ERROR, "Tagged", Set.of("one", "two"))
+                .referencingBakedInTags(BakedInTags.of(Set.of("baked"))));
+        records.add(new ExtendedLogRecord(CustomLevel.DEBUG, "Untagged, but baked")
+                .referencingBakedInTags(BakedInTags.of(Set.of("baked"))));
+        records.add(new ExtendedLogRecord(CustomLevel.INFO, null)
+                .withDeferredMessage("{} {} {} {} {} {} {} {} and \\{}", new Object[]{
+                        "text", 42, -7L, 1.5d, 2.5f, true, 'c', null, new int[]{1, 2}
+                }));
+        records.add(new ExtendedLogRecord(CustomLevel.INFO, null)
+                .withDeferredMessage("Only {} of {}", new Object[]{"one", new RuntimeException("trailing")}));
+        records.add(new ExtendedLogRecord(CustomLevel.INFO, null)
+                .withDeferredMessage("Only {} of {}", new Object[]{"one", new RuntimeException("trailing")}));
+        LogRecord thrown = new ExtendedLogRecord(CustomLevel.CRITICAL, "Failed");
+        thrown.setThrown(new RuntimeException("on top", cause));
+        records.add(thrown);
+        RuntimeException closing = new RuntimeException("closing\nfailed", cause);
+        closing.addSuppressed(new IOException("flush failed"));
+        LogRecord suppressed = new ExtendedLogRecord(CustomLevel.ERROR, "Failed to close");
+        suppressed.setThrown(closing);
+        records.add(suppressed);
+        LogRecord withMetadata = new ExtendedLogRecord(CustomLevel.INFO, "Metadata");
+        withMetadata.setParameters(new Object[]{data, null, 12, "a \"quoted\" string", new int[]{3}});
+        records.add(withMetadata);
+        records.add(new LogRecord(Level.SEVERE, "A plain JUL record"));
+
+        long millis = System.currentTimeMillis();
+        for (LogRecord logRecord : records) {
+            logRecord.setLoggerName("binary.test");
+            logRecord.setInstant(Instant.ofEpochMilli(millis));
+            logRecord.setLongThreadID(Thread.currentThread().threadId());
+            millis += 1234;
+        }
+        records.getLast().setLoggerName(null);
+        return records;
+    }
+
+    @Test
+    void test_decoded_lines_match_the_file_controller() throws IOException {
+        FileController fileController = new FileController(LOGGING_TEST_DIR + "/text.log", 0, 1, false);
+        fileController.acceptLogRootRefs(RUN_ID, "BINARY", THREAD_NAMES);
+        controller = binaryController(0, 1, false);
+
+        StringBuilder expected = new StringBuilder();
+        for (LogRecord logRecord : varietyOfRecords()) {
+            controller.publish(logRecord);
+            // The file controller formats a deferred message, so let the binary controller see it first.
+            expected.append(fileController.getFormatter().format(logRecord));
+        }
+        fileController.close();
+        controller.close();
+
+        assertEquals(expected.toString(), decodeGeneration(0));
+    }
+
+    @Test
+    void test_stack_trace_options_are_applied_as_the_file_controller_would() throws IOException {
+        StackTraceOptions options = StackTraceOptions.full()
+                .withMaxFramesPerCause(2)
+                .withRepeatsCollapsed(Duration.ofMinutes(1));
+        FileController fileController = new FileController(LOGGING_TEST_DIR + "/text.log", 0, 1, false)
+                .withStackTraceOptions(options);
+        fileController.acceptLogRootRefs(RUN_ID, "BINARY", THREAD_NAMES);
+        controller = binaryController(0, 1, false).withStackTraceOptions(options);
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            for (LogRecord logRecord : varietyOfRecords()) {
+                controller.publish(logRecord);
+                expected.append(fileController.getFormatter().format(logRecord));
+            }
+        }
+        fileController.close();
+        controller.close();
+
+        String decoded = decodeGeneration(0);
+        assertEquals(expected.toString(), decoded);
+        assertTrue(decoded.contains("\"errorRepeats\":1"));
+    }
+
+    @Test
+    void test_repeated_values_are_only_written_once() throws IOException {
+        controller = binaryController(0, 1, false);
+        Path file = Path.of(LOGGING_TEST_DIR, "test_0.bin");
+
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, null, "a tag")
+                .withDeferredMessage("Request {} took {}ms", new Object[]{"/some/path/to/a/resource", 12}));
+        long first = Files.size(file);
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, null, "a tag")
+                .withDeferredMessage("Request {} took {}ms", new Object[]{"/some/path/to/a/resource", 13}));
+        long second = Files.size(file) - first;
+
+        assertTrue(second < first / 2, "The second record took " + second + " bytes, the first " + first);
+    }
+
+    @Test
+    void test_every_rotated_file_can_be_decoded_alone() throws IOException, InterruptedException {
+        controller = binaryController(10, 3, false);
+
+        for (int i = 0; i < 4; i++) {
+            while (!controller.isReadyToRotate()) {
+                Thread.sleep(1);
+            }
+            controller.publish(new ExtendedLogRecord(CustomLevel.INFO, null, "repeated")
+                    .withDeferredMessage("message {}", new Object[]{i}));
+        }
+        controller.close();
+
+        assertEquals("", decodeGeneration(0));
+        assertTrue(decodeGeneration(1).contains("\"message\":\"message 3\""));
+        assertTrue(decodeGeneration(1).contains("\"tags\":[\"repeated\"]"));
+        assertTrue(decodeGeneration(2).contains("\"message\":\"message 2\""));
+    }
+
+    @Test
+    void test_appending_starts_a_new_session() throws IOException {
+        controller = binaryController(0, 1, false);
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, "first", "tag"));
+        controller.close();
+
+        controller = binaryController(0, 1, true);
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, "second", "other tag"));
+        controller.close();
+
+        String[] lines = decodeGeneration(0).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"message\":\"first\"") && lines[0].contains("[\"tag\"]"));
+        assertTrue(lines[1].contains("\"message\":\"second\"") && lines[1].contains("[\"other tag\"]"));
+    }
+
+    @Test
+    void test_a_truncated_last_record_is_ignored() throws IOException {
+        controller = binaryController(0, 1, false);
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, "kept"));
+        controller.publish(new ExtendedLogRecord(CustomLevel.INFO, "cut short"));
+        controller.close();
+        byte[] bytes = Files.readAllBytes(Path.of(LOGGING_TEST_DIR, "test_0.bin"));
+
+        StringBuilder decoded = new StringBuilder();
+        long records = BinaryLogDecoder.decode(new ByteArrayInputStream(bytes, 0, bytes.length - 3), decoded);
+
+        assertEquals(1, records);
+        assertTrue(decoded.toString().contains("\"message\":\"kept\""));
+    }
+
+    @Test
+    void test_other_files_are_refused() throws IOException {
+        Path text = Files.writeString(Path.of(LOGGING_TEST_DIR, "text.log"), "{\"not\":\"binary\"}\n");
+
+        assertThrows(IOException.class, () -> BinaryLogDecoder.decode(text, new StringBuilder()));
+    }
+
+    @Test
+    void test_records_formatted_as_text_match_the_file_controller() throws IOException {
+        FileController fileController = new FileController(LOGGING_TEST_DIR + "/text.log", 0, 1, false);
+        fileController.acceptLogRootRefs(RUN_ID, "BINARY", THREAD_NAMES);
+        controller = binaryController(0, 1, false);
+
+        for (LogRecord logRecord : varietyOfRecords()) {
+            String binaryAsText = controller.getFormatter().format(logRecord);
+            assertEquals(fileController.getFormatter().format(logRecord), binaryAsText);
+        }
+        fileController.close();
+    }
+
+    @Test
+    void test_definitions_of_a_record_which_failed_to_be_written_are_written_again() throws IOException {
+        FileController fileController = new FileController(LOGGING_TEST_DIR + "/text.log", 0, 1, false);
+        fileController.acceptLogRootRefs(RUN_ID, "BINARY", THREAD_NAMES);
+        controller = binaryController(0, 1, false);
+        List<LogRecord> records = varietyOfRecords();
+
+        StringBuilder expected = new StringBuilder();
+        for (LogRecord logRecord : records) {
+            // Encoding without writing is what a failed write leaves behind.
+            ((ByteChannelController.RecordFormat) controller.getFormatter()).encodeBinary(logRecord);
+            controller.publish(logRecord);
+            expected.append(fileController.getFormatter().format(logRecord));
+        }
+        fileController.close();
+        controller.close();
+
+        assertEquals(expected.toString(), decodeGeneration(0));
+    }
+}
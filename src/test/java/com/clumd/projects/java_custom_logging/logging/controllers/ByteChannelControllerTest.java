@@ -0,0 +1,344 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.TestFileUtils;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import lombok.NonNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ErrorManager;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteChannelControllerTest {
+
+    private static final String LOGGING_TEST_DIR = "src/test/resources/logging/byteChannel";
+    private static final String LOGGING_TEST_PATTERN = LOGGING_TEST_DIR + "/test_%g.log";
+
+    private MessageController controller;
+
+    private static class MessageController extends ByteChannelController {
+
+        MessageController(String pattern, long limit, int count, boolean appendMode) throws IOException {
+            super(pattern, limit, count, appendMode);
+            useMessageFormat();
+        }
+
+        MessageController(String pattern, long limit, ArchiveOptions archiveOptions) throws IOException {
+            super(pattern, limit, archiveOptions, false);
+            useMessageFormat();
+        }
+
+        private void useMessageFormat() {
+            super.setFormatter(new RecordFormat() {
+                @Override
+                protected CharSequence encode(LogRecord logRecord) {
+                    return reusableBuffer().append(logRecord.getMessage()).append('\n');
+                }
+            });
+            setLevel(Level.ALL);
+        }
+
+        @Override
+        public void acceptLogRootRefs(@NonNull UUID specificRunID, @NonNull String systemID, @NonNull Map<Long, String> overriddenThreadNames) {
+            // Not needed to write the message alone.
+        }
+    }
+
+    @BeforeEach
+    void setup() throws IOException {
+        TestFileUtils.deleteDirectoryIfExists(LOGGING_TEST_DIR);
+        TestFileUtils.makeAllDirs(LOGGING_TEST_DIR);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (controller != null) {
+            controller.close();
+        }
+        TestFileUtils.deleteDirectoryIfExists(LOGGING_TEST_DIR);
+    }
+
+    private static String generation(int generation) throws IOException {
+        return Files.readString(Path.of(LOGGING_TEST_DIR, "test_" + generation + ".log"), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void test_records_are_written_as_utf8() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, false);
+        String message = "ascii, café, €, 😀, and a lone \ud83d";
+
+        controller.publish(new LogRecord(Level.INFO, message));
+
+        assertEquals("ascii, café, €, 😀, and a lone ?\n", generation(0));
+    }
+
+    @Test
+    void test_records_larger_than_a_buffer_are_written_whole() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, false);
+        String message = "éabc".repeat(50_000);
+
+        controller.publish(new LogRecord(Level.INFO, message));
+        controller.publish(new LogRecord(Level.INFO, "after"));
+
+        assertEquals(message + "\nafter\n", generation(0));
+    }
+
+    private void publishOnceReadyToRotate(String message) throws InterruptedException {
+        while (!controller.isReadyToRotate()) {
+            Thread.sleep(1);
+        }
+        controller.publish(new LogRecord(Level.INFO, message));
+    }
+
+    @Test
+    void test_files_rotate_once_full() throws IOException, InterruptedException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 10, 3, false);
+
+        for (int i = 0; i < 4; i++) {
+            publishOnceReadyToRotate("message " + i);
+        }
+        controller.close();
+
+        assertEquals("", generation(0));
+        assertEquals("message 3\n", generation(1));
+        assertEquals("message 2\n", generation(2));
+        assertFalse(new File(LOGGING_TEST_DIR, "test_3.log").exists());
+        assertFalse(new File(LOGGING_TEST_DIR, "test_0.log.next").exists());
+    }
+
+    @Test
+    void test_single_generation_is_replaced_on_rotation() throws IOException, InterruptedException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 10, 1, false);
+
+        publishOnceReadyToRotate("message 0");
+        publishOnceReadyToRotate("message 1");
+        publishOnceReadyToRotate("short");
+        controller.close();
+
+        assertEquals("short\n", generation(0));
+        assertFalse(new File(LOGGING_TEST_DIR, "test_1.log").exists());
+    }
+
+    @Test
+    void test_records_keep_going_to_the_current_file_until_the_next_is_ready() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 1, 2, false);
+
+        for (int i = 0; i < 1000; i++) {
+            controller.publish(new LogRecord(Level.INFO, "message " + i));
+        }
+        controller.close();
+
+        // However the rotations fell, nothing may be lost from the two generations kept, and the newest must survive.
+        String kept = generation(1) + generation(0);
+        assertTrue(kept.endsWith("message 999\n"));
+        assertTrue(kept.length() >= "message 999\n".length());
+    }
+
+    @Test
+    void test_a_segment_left_by_an_interrupted_rotation_is_recovered() throws IOException {
+        Files.writeString(Path.of(LOGGING_TEST_DIR, "test_0.log"), "old\n");
+        Files.writeString(Path.of(LOGGING_TEST_DIR, "test_0.log.next"), "newest\n");
+
+        controller = new MessageController(LOGGING_TEST_PATTERN, 100, 3, false);
+        controller.publish(new LogRecord(Level.INFO, "fresh"));
+        controller.close();
+
+        assertEquals("fresh\n", generation(0));
+        assertEquals("newest\n", generation(1));
+        assertEquals("old\n", generation(2));
+        assertFalse(new File(LOGGING_TEST_DIR, "test_0.log.next").exists());
+    }
+
+    @Test
+    void test_a_failed_rotation_is_retried_at_the_next_rotation() throws IOException, InterruptedException {
+        // A non-empty directory where generation 1 belongs stops generation 0 from being moved along.
+        Path blocker = Files.createDirectories(Path.of(LOGGING_TEST_DIR, "test_1.log", "blocker"));
+        controller = new MessageController(LOGGING_TEST_PATTERN, 10, 2, false);
+        AtomicInteger errors = new AtomicInteger();
+        controller.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+                errors.incrementAndGet();
+            }
+        });
+
+        publishOnceReadyToRotate("message 0");
+        while (errors.get() == 0) {
+            Thread.sleep(1);
+        }
+        Files.delete(blocker);
+        Files.delete(blocker.getParent());
+        while (!controller.isReadyToRotate()) {
+            controller.publish(new LogRecord(Level.INFO, "waiting"));
+            Thread.sleep(10);
+        }
+        controller.close();
+
+        assertEquals(1, errors.get());
+        assertEquals("message 0\n", generation(1));
+        assertTrue(generation(0).startsWith("waiting\n"));
+        assertFalse(new File(LOGGING_TEST_DIR, "test_0.log.next").exists());
+    }
+
+    private static List<Path> archives() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(LOGGING_TEST_DIR))) {
+            return files
+                    .filter(path -> path.getFileName().toString().endsWith(".gz"))
+                    // Archives rotated within the same millisecond get a '-n' suffix before the '.gz', so sort without it.
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString().replace(".gz", "")))
+                    .toList();
+        }
+    }
+
+    private static String gunzip(Path archive) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void test_rotated_files_are_compressed() throws IOException, InterruptedException {
+        controller = new MessageController(LOGGING_TEST_DIR + "/test.log", 10, ArchiveOptions.gzipWithinBudget(1_000_000));
+
+        for (int i = 0; i < 3; i++) {
+            publishOnceReadyToRotate("message " + i);
+        }
+        controller.close();
+
+        List<Path> archives = archives();
+        assertEquals(3, archives.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("message " + i + "\n", gunzip(archives.get(i)));
+        }
+        try (Stream<Path> files = Files.list(Path.of(LOGGING_TEST_DIR))) {
+            assertEquals(4, files.count(), "Only the archives and the active file should remain.");
+        }
+    }
+
+    @Test
+    void test_oldest_archives_are_deleted_to_stay_within_budget() throws IOException, InterruptedException {
+        controller = new MessageController(LOGGING_TEST_DIR + "/test.log", 10, ArchiveOptions.gzipWithinBudget(100));
+
+        for (int i = 0; i < 10; i++) {
+            publishOnceReadyToRotate("message " + i);
+        }
+        controller.close();
+
+        List<Path> archives = archives();
+        long total = 0;
+        for (Path archive : archives) {
+            total += Files.size(archive);
+        }
+        assertTrue(total <= 100);
+        assertFalse(archives.isEmpty());
+        assertEquals("message 9\n", gunzip(archives.getLast()));
+    }
+
+    @Test
+    void test_archives_from_the_same_millisecond_are_trimmed_in_sequence_order() throws IOException {
+        Path earlier = Path.of(LOGGING_TEST_DIR, "test.log.20260101-000000-000-2.gz");
+        Path later = Path.of(LOGGING_TEST_DIR, "test.log.20260101-000000-000-10.gz");
+        Files.write(earlier, new byte[60]);
+        Files.write(later, new byte[60]);
+
+        controller = new MessageController(LOGGING_TEST_DIR + "/test.log", 10, ArchiveOptions.gzipWithinBudget(100));
+        controller.close();
+
+        assertFalse(Files.exists(earlier));
+        assertTrue(Files.exists(later));
+    }
+
+    @Test
+    void test_archives_compressed_in_parallel_blocks_are_still_one_gzip_file() throws IOException, InterruptedException {
+        String message = "line of text which compresses quite well ".repeat(100_000);
+        controller = new MessageController(LOGGING_TEST_DIR + "/test.log", 10, ArchiveOptions.gzipWithinBudget(100_000_000).withCompressionThreads(3));
+
+        publishOnceReadyToRotate(message);
+        controller.close();
+
+        List<Path> archives = archives();
+        assertEquals(1, archives.size());
+        assertEquals(message + "\n", gunzip(archives.getFirst()));
+        assertTrue(Files.size(archives.getFirst()) < message.length() / 10);
+    }
+
+    @Test
+    void test_append_mode_keeps_existing_content() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, false);
+        controller.publish(new LogRecord(Level.INFO, "first"));
+        controller.close();
+
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, true);
+        controller.publish(new LogRecord(Level.INFO, "second"));
+
+        assertEquals("first\nsecond\n", generation(0));
+    }
+
+    @Test
+    void test_nothing_is_loggable_once_closed() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, false);
+        assertTrue(controller.isLoggable(new LogRecord(Level.INFO, "open")));
+
+        controller.close();
+
+        assertFalse(controller.isLoggable(new LogRecord(Level.INFO, "closed")));
+    }
+
+    @Test
+    void test_controllers_which_should_ignore_are_honoured() throws IOException {
+        controller = new MessageController(LOGGING_TEST_PATTERN, 0, 1, false);
+
+        assertFalse(controller.isLoggable(new ExtendedLogRecord(Level.INFO, "ignored")
+                .withControllersWhichShouldIgnore(Set.of(ByteChannelController.class))));
+        assertTrue(controller.isLoggable(new ExtendedLogRecord(Level.INFO, "not ignored")
+                .withControllersWhichShouldIgnore(Set.of(FileController.class))));
+    }
+
+    @Test
+    void test_records_ignoring_file_handlers_are_not_written_by_any_file_controller() throws IOException {
+        List<ByteChannelController> fileControllers = List.of(
+                new FileController(LOGGING_TEST_DIR + "/file.log", 0, 1, false),
+                new DenseFileController(LOGGING_TEST_DIR + "/dense.log", 0, 1, false),
+                new BinaryFileController(LOGGING_TEST_DIR + "/binary.bin", 0, 1, false)
+        );
+        for (ByteChannelController fileController : fileControllers) {
+            fileController.acceptLogRootRefs(UUID.randomUUID(), "IGNORING", Map.of());
+            fileController.publish(new ExtendedLogRecord(Level.INFO, "ignored")
+                    .withControllersWhichShouldIgnore(Set.of(FileHandler.class)));
+            fileController.close();
+        }
+
+        assertEquals(0, Files.size(Path.of(LOGGING_TEST_DIR, "file.log")));
+        assertEquals(0, Files.size(Path.of(LOGGING_TEST_DIR, "dense.log")));
+        assertEquals(0, Files.size(Path.of(LOGGING_TEST_DIR, "binary.bin")));
+    }
+
+    @Test
+    void test_generation_paths_follow_file_handler_rules() {
+        assertEquals(Path.of("logs/app_2.log"), ByteChannelController.generationPath("logs/app_%g.log", 2, 3));
+        assertEquals(Path.of("logs/app.log.2"), ByteChannelController.generationPath("logs/app.log", 2, 3));
+        assertEquals(Path.of("logs/app.log"), ByteChannelController.generationPath("logs/app.log", 0, 1));
+        assertEquals(Path.of("logs/100%_0.log"), ByteChannelController.generationPath("logs/100%%_%u.log", 0, 1));
+    }
+}
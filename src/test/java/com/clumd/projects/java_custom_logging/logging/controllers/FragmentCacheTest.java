@@ -0,0 +1,49 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FragmentCacheTest {
+
+    @Test
+    void test_values_are_only_rendered_once() {
+        AtomicInteger renders = new AtomicInteger();
+        FragmentCache<String> cache = new FragmentCache<>(value -> {
+            renders.incrementAndGet();
+            return "<" + value + ">";
+        });
+        String name = "some.logger";
+
+        String first = cache.get(name);
+        assertSame(first, cache.get(name));
+        assertEquals("<some.logger>", first);
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void test_equal_but_distinct_values_are_rendered_separately() {
+        FragmentCache<StringBuilder> cache = new FragmentCache<>(StringBuilder::toString);
+        StringBuilder first = new StringBuilder("value");
+        StringBuilder second = new StringBuilder("value");
+
+        assertEquals("value", cache.get(first));
+        second.append(" changed");
+        assertEquals("value changed", cache.get(second));
+    }
+
+    @Test
+    void test_many_values_are_all_rendered_correctly() {
+        FragmentCache<String> cache = new FragmentCache<>(value -> value + "!");
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 1000; i++) {
+                String value = Integer.toString(i);
+                assertEquals(value + "!", cache.get(value));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JsonLineWriterTest {
+
+    private JsonLineWriter writer;
+
+    @BeforeEach
+    void setup() {
+        writer = new JsonLineWriter();
+    }
+
+    @Test
+    void test_fields_and_arrays_are_comma_separated() {
+        String line = writer.beginLine()
+                .field("a", 1)
+                .field("b", "two")
+                .beginArray("c")
+                .element("x")
+                .rawElement("{\"y\":true}")
+                .endArray()
+                .field("d", "last")
+                .endLine()
+                .toString();
+
+        assertEquals("{\"a\":1,\"b\":\"two\",\"c\":[\"x\",{\"y\":true}],\"d\":\"last\"}\n", line);
+    }
+
+    @Test
+    void test_plain_fields_are_json_escaped() {
+        String line = writer.beginLine()
+                .field("k", "quote\" slash\\ newline\n tab\t bell\u0007")
+                .endLine()
+                .toString();
+
+        assertEquals("{\"k\":\"quote\\\" slash\\\\ newline\\n tab\\t bell\\u0007\"}\n", line);
+    }
+
+    @Test
+    void test_sanitised_fields_flatten_newlines_and_double_escape_quotes() {
+        String line = writer.beginLine()
+                .sanitisedField("k", "a\nb \"c\" \\\"d\\ e")
+                .endLine()
+                .toString();
+
+        // Quotes go through two rounds of escaping, as does a backslash which was already escaping a quote.
+        assertEquals("{\"k\":\"a  b \\\\\\\"c\\\\\\\" \\\\\\\\\\\\\\\"d\\\\ e\"}\n", line);
+    }
+
+    @Test
+    void test_sanitised_nulls_are_written_as_text() {
+        String line = writer.beginLine()
+                .sanitisedField("k", null)
+                .beginArray("a")
+                .sanitisedElement(null)
+                .beginSanitisedElement().sanitisedPart("Error: ").sanitisedPart(null).endSanitisedElement()
+                .endArray()
+                .endLine()
+                .toString();
+
+        assertEquals("{\"k\":\"NULL\",\"a\":[\"NULL\",\"Error: null\"]}\n", line);
+    }
+
+    @Test
+    void test_buffer_is_reused_between_lines() {
+        StringBuilder first = writer.beginLine().field("k", "first").endLine();
+        StringBuilder second = writer.beginLine().field("k", "second").endLine();
+
+        assertSame(first, second);
+        assertEquals("{\"k\":\"second\"}\n", second.toString());
+    }
+
+    @Test
+    void test_pre_rendered_fields_and_elements_are_written_verbatim() {
+        String field = JsonLineWriter.renderField("logger", "a\"b");
+        String elements = JsonLineWriter.renderElements(List.of("x", "y\n"));
+
+        String line = writer.beginLine()
+                .field("first", 1)
+                .rawField(field)
+                .beginArray("tags")
+                .rawElements(elements)
+                .element("z")
+                .endArray()
+                .beginArray("none")
+                .rawElements(JsonLineWriter.renderElements(List.of()))
+                .element("only")
+                .endArray()
+                .endLine()
+                .toString();
+
+        assertEquals("{\"first\":1,\"logger\":\"a\\\"b\",\"tags\":[\"x\",\"y\\n\",\"z\"],\"none\":[\"only\"]}\n", line);
+    }
+
+    @Test
+    void test_streamed_loggable_data_is_sanitised_as_its_string_would_be() {
+        List<String> values = List.of(
+                "plain", "quote\" here", "slash\\ quote\\\" newline\n end", "trailing slash\\", "\\\\\"", "", "null"
+        );
+        for (String value : values) {
+            // Split the value into single characters, so any backslash is written apart from the quote after it.
+            LoggableData streamed = new LoggableData() {
+                @Override
+                public void appendFormattedLogData(Appendable into) throws IOException {
+                    for (int i = 0; i < value.length(); i++) {
+                        into.append(value, i, i + 1);
+                    }
+                }
+            };
+
+            String expected = new JsonLineWriter().beginLine().beginArray("a").sanitisedElement(value).endArray().endLine().toString();
+            String actual = writer.beginLine().beginArray("a").sanitisedDataElement(streamed).endArray().endLine().toString();
+
+            assertEquals(expected, actual, value);
+        }
+    }
+
+    @Test
+    void test_loggable_data_defaults_to_its_formatted_string() {
+        LoggableData nullData = new LoggableData() {
+            @Override
+            public String getFormattedLogData() {
+                return null;
+            }
+        };
+
+        String line = writer.beginLine().beginArray("a").sanitisedDataElement(nullData).endArray().endLine().toString();
+
+        assertEquals("{\"a\":[\"NULL\"]}\n", line);
+    }
+}
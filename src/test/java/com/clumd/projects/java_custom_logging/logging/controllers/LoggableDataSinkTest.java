@@ -0,0 +1,67 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoggableDataSinkTest {
+
+    private static LoggableData of(String formatted) {
+        return new LoggableData() {
+            @Override
+            public String getFormattedLogData() {
+                return formatted;
+            }
+        };
+    }
+
+    @Test
+    void test_data_is_written_as_it_is() {
+        StringBuilder into = new StringBuilder("{ ");
+
+        LoggableDataSink.write(of("multi\nline"), into);
+
+        assertEquals("{ multi\nline", into.toString());
+    }
+
+    @Test
+    void test_flattened_data_has_newlines_replaced() {
+        StringBuilder into = new StringBuilder();
+        LoggableData streamed = new LoggableData() {
+            @Override
+            public void appendFormattedLogData(Appendable out) throws IOException {
+                out.append("first\nsecond").append('\n').append("xthird\nx", 1, 7);
+            }
+        };
+
+        new LoggableDataSink().writeFlattened(streamed, into);
+
+        assertEquals("first  second  third  ", into.toString());
+    }
+
+    @Test
+    void test_flattened_nulls_are_written_as_text() {
+        StringBuilder into = new StringBuilder();
+
+        new LoggableDataSink().writeFlattened(of(null), into);
+
+        assertEquals("NULL", into.toString());
+    }
+
+    @Test
+    void test_failures_from_the_data_itself_are_rethrown_unchecked() {
+        LoggableData failing = new LoggableData() {
+            @Override
+            public void appendFormattedLogData(Appendable out) throws IOException {
+                throw new IOException("broken");
+            }
+        };
+
+        assertThrows(UncheckedIOException.class, () -> LoggableDataSink.write(failing, new StringBuilder()));
+    }
+}
@@ -0,0 +1,175 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.TestFileUtils;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StackTraceFingerprintsTest {
+
+    private static final String LOGGING_TEST_PATH = "src/test/resources/logging/testLog.log";
+
+    // Each prototype is made by a different method, so has a different trace.
+    private static final Throwable[] PROTOTYPES = {firstSite(), secondSite(), new IllegalArgumentException("")};
+
+    private static Throwable firstSite() {
+        return new IllegalStateException("", new IOException("cause"));
+    }
+
+    private static Throwable secondSite() {
+        return new IllegalStateException("", new IOException("cause"));
+    }
+
+    private static Throwable thrownFrom(int site, String message) {
+        // Repeated errors come from the same place, so share the prototype's trace regardless of where the test is.
+        Throwable prototype = PROTOTYPES[site];
+        Throwable thrown;
+        if (prototype.getCause() == null) {
+            thrown = new IllegalArgumentException(message);
+        } else {
+            Throwable cause = new IOException("cause");
+            cause.setStackTrace(prototype.getCause().getStackTrace());
+            thrown = new IllegalStateException(message, cause);
+        }
+        thrown.setStackTrace(prototype.getStackTrace());
+        return thrown;
+    }
+
+    private static LogRecord recordWith(Throwable thrown) {
+        LogRecord logRecord = new LogRecord(CustomLevel.ERROR, "failed");
+        logRecord.setThrown(thrown);
+        return logRecord;
+    }
+
+    @Test
+    void test_repeats_of_the_same_trace_are_recognised() {
+        StackTraceFingerprints fingerprints = new StackTraceFingerprints(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMinutes(1)));
+
+        assertFalse(fingerprints.isRepeat(thrownFrom(0, "first")));
+        String reference = fingerprints.reference();
+        assertEquals(8, reference.length());
+
+        for (int i = 1; i <= 3; i++) {
+            // The message doesn't matter, only where the error came from.
+            assertTrue(fingerprints.isRepeat(thrownFrom(0, "again " + i)));
+            assertEquals(reference, fingerprints.reference());
+            assertEquals(i, fingerprints.repeatCount());
+        }
+
+        assertFalse(fingerprints.isRepeat(thrownFrom(1, "elsewhere")));
+        assertNotEquals(reference, fingerprints.reference());
+        assertFalse(fingerprints.isRepeat(thrownFrom(2, "different type")));
+        assertTrue(fingerprints.isRepeat(thrownFrom(0, "still remembered")));
+        assertEquals(4, fingerprints.repeatCount());
+    }
+
+    @Test
+    void test_traces_are_forgotten_after_the_window() throws InterruptedException {
+        StackTraceFingerprints fingerprints = new StackTraceFingerprints(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMillis(20)));
+
+        assertFalse(fingerprints.isRepeat(thrownFrom(0, "first")));
+        Thread.sleep(50);
+        assertFalse(fingerprints.isRepeat(thrownFrom(0, "first")));
+        assertTrue(fingerprints.isRepeat(thrownFrom(0, "first")));
+    }
+
+    @Test
+    void test_repeating_traces_are_rendered_in_full_periodically() throws InterruptedException {
+        StackTraceFingerprints fingerprints = new StackTraceFingerprints(StackTraceOptions.full()
+                .withRepeatsCollapsed(Duration.ofMinutes(1))
+                .withFullTraceEvery(Duration.ofMillis(50)));
+
+        assertFalse(fingerprints.isRepeat(thrownFrom(0, "first")));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (fingerprints.isRepeat(thrownFrom(0, "again")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, fingerprints.repeatCount());
+        assertTrue(System.currentTimeMillis() < deadline);
+    }
+
+    @Test
+    void test_console_renders_repeats_as_a_reference() {
+        ConsoleController controller = new ConsoleController(false)
+                .withStackTraceOptions(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMinutes(1)));
+        controller.acceptLogRootRefs(UUID.randomUUID(), "system id", new HashMap<>());
+
+        String full = controller.getFormatter().format(recordWith(thrownFrom(0, "first")));
+        String repeat = controller.getFormatter().format(recordWith(thrownFrom(0, "second")));
+
+        assertTrue(full.contains("Nested Reason:  (IOException) cause"));
+        assertTrue(full.contains("  Stack trace #"));
+        String reference = full.substring(full.indexOf("Stack trace #") + 13, full.indexOf("Stack trace #") + 21);
+        assertTrue(repeat.contains("Error:  (IllegalStateException) second\n"));
+        assertTrue(repeat.contains("  ... Stack trace #" + reference + ", repeated 1 time(s) since printed in full\n"));
+        assertFalse(repeat.contains("Nested Reason"));
+        assertFalse(repeat.contains("StackTraceFingerprintsTest.thrownFrom"));
+    }
+
+    @Test
+    void test_traces_are_always_rendered_in_full_by_default() {
+        ConsoleController controller = new ConsoleController(false).withStackTraceOptions(StackTraceOptions.full());
+        controller.acceptLogRootRefs(UUID.randomUUID(), "system id", new HashMap<>());
+
+        String first = controller.getFormatter().format(recordWith(thrownFrom(0, "first")));
+        String second = controller.getFormatter().format(recordWith(thrownFrom(0, "first")));
+
+        assertTrue(second.contains("Nested Reason:  (IOException) cause"));
+        assertFalse(second.contains("Stack trace #"));
+        assertEquals(first.substring(first.indexOf("Error:")), second.substring(second.indexOf("Error:")));
+    }
+
+    @Test
+    void test_file_controller_references_repeats_by_field() throws IOException {
+        TestFileUtils.makeContainingDirs(LOGGING_TEST_PATH);
+        FileController controller = new FileController(LOGGING_TEST_PATH, 1000000, 1, false)
+                .withStackTraceOptions(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMinutes(1)));
+        controller.acceptLogRootRefs(UUID.randomUUID(), "system id", new HashMap<>());
+        try {
+            String full = controller.getFormatter().format(recordWith(thrownFrom(0, "first")));
+            String repeat = controller.getFormatter().format(recordWith(thrownFrom(0, "second")));
+
+            String reference = full.substring(full.indexOf("\"errorTrace\":\"") + 14, full.indexOf("\"errorTrace\":\"") + 22);
+            assertTrue(full.contains("\"Nested Reason:  (IOException) cause\""));
+            assertFalse(full.contains("errorRepeats"));
+            assertTrue(repeat.contains("\"error\":[\"Error:  (IllegalStateException) second\"],\"errorTrace\":\"" + reference + "\",\"errorRepeats\":1"));
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    void test_dense_file_controller_renders_repeats_as_a_reference() throws IOException {
+        TestFileUtils.makeContainingDirs(LOGGING_TEST_PATH);
+        DenseFileController controller = new DenseFileController(LOGGING_TEST_PATH, 1000000, 1, false)
+                .withStackTraceOptions(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMinutes(1)));
+        controller.acceptLogRootRefs(UUID.randomUUID(), "system id", new HashMap<>());
+        try {
+            controller.getFormatter().format(recordWith(thrownFrom(0, "first")));
+            String repeat = controller.getFormatter().format(recordWith(thrownFrom(0, "second")));
+
+            assertTrue(repeat.contains(", repeated 1 time(s) since printed in full\n"));
+            assertFalse(repeat.contains("Nested Reason"));
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    void test_invalid_options_are_refused() {
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withRepeatsCollapsed(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withFullTraceEvery(Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withMaxRememberedTraces(0));
+    }
+}
@@ -0,0 +1,186 @@
+package com.clumd.projects.java_custom_logging.logging.controllers;
+
+import com.clumd.projects.java_custom_logging.logging.TestFileUtils;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ThrowableRendererTest {
+
+    private static final String LOGGING_TEST_PATH = "src/test/resources/logging/testLog.log";
+
+    private static StackTraceElement frame(String className, int line) {
+        return new StackTraceElement(className, "run", "Source.java", line);
+    }
+
+    private static Throwable withFrames(Throwable throwable, StackTraceElement... frames) {
+        throwable.setStackTrace(frames);
+        return throwable;
+    }
+
+    private static String render(StackTraceOptions options, Throwable thrown) {
+        StringBuilder into = new StringBuilder();
+        new ThrowableRenderer(options).render(thrown, new ThrowableRenderer.TextLines().into(into));
+        return into.toString();
+    }
+
+    @Test
+    void test_frames_in_common_with_the_enclosing_error_are_elided() {
+        StackTraceElement shared1 = frame("com.app.Service", 1);
+        StackTraceElement shared2 = frame("com.app.Main", 2);
+        Throwable cause = withFrames(new IOException("disk"), frame("com.app.Disk", 3), shared1, shared2);
+        Throwable thrown = withFrames(new IllegalStateException("failed", cause), frame("com.app.Wrapper", 4), shared1, shared2);
+
+        assertEquals("""
+                Error:  (IllegalStateException) failed
+                  com.app.Wrapper.run(Source.java:4)
+                  com.app.Service.run(Source.java:1)
+                  com.app.Main.run(Source.java:2)
+                Nested Reason:  (IOException) disk
+                  com.app.Disk.run(Source.java:3)
+                  ... 2 more
+                """, render(StackTraceOptions.full(), thrown));
+
+        assertEquals("""
+                Error:  (IllegalStateException) failed
+                  com.app.Wrapper.run(Source.java:4)
+                  com.app.Service.run(Source.java:1)
+                  com.app.Main.run(Source.java:2)
+                Nested Reason:  (IOException) disk
+                  com.app.Disk.run(Source.java:3)
+                  com.app.Service.run(Source.java:1)
+                  com.app.Main.run(Source.java:2)
+                """, render(StackTraceOptions.full().withCommonFramesElided(false), thrown));
+    }
+
+    @Test
+    void test_frames_are_limited_and_filtered_per_cause() {
+        Throwable cause = withFrames(new IOException("disk"),
+                frame("com.app.Disk", 1), frame("com.app.Disk", 2), frame("com.app.Disk", 3));
+        Throwable thrown = withFrames(new IllegalStateException("failed", cause),
+                frame("com.app.Controller", 4),
+                frame("jdk.internal.reflect.DirectMethodHandleAccessor", 5),
+                frame("org.apache.catalina.core.StandardWrapperValve", 6),
+                frame("com.app.Main", 7));
+
+        assertEquals("""
+                Error:  (IllegalStateException) failed
+                  com.app.Controller.run(Source.java:4)
+                  com.app.Main.run(Source.java:7)
+                  ... 2 more
+                Nested Reason:  (IOException) disk
+                  com.app.Disk.run(Source.java:1)
+                  com.app.Disk.run(Source.java:2)
+                  ... 1 more
+                """, render(StackTraceOptions.full()
+                .withMaxFramesPerCause(2)
+                .withFramesFiltered(StackTraceOptions.REFLECTION_PACKAGES)
+                .withFramesFiltered("org.apache.catalina."), thrown));
+    }
+
+    @Test
+    void test_suppressed_errors_are_rendered_indented() {
+        StackTraceElement shared = frame("com.app.Main", 1);
+        Throwable thrown = withFrames(new IllegalStateException("failed"), frame("com.app.Work", 2), shared);
+        Throwable suppressedCause = withFrames(new IOException("flush"), frame("com.app.Stream", 4), shared);
+        thrown.addSuppressed(withFrames(new IOException("close", suppressedCause), frame("com.app.Close", 3), shared));
+
+        assertEquals("""
+                Error:  (IllegalStateException) failed
+                  com.app.Work.run(Source.java:2)
+                  com.app.Main.run(Source.java:1)
+                  Suppressed:  (IOException) close
+                    com.app.Close.run(Source.java:3)
+                    ... 1 more
+                  Nested Reason:  (IOException) flush
+                    com.app.Stream.run(Source.java:4)
+                    ... 1 more
+                """, render(StackTraceOptions.full(), thrown));
+    }
+
+    @Test
+    void test_circular_references_are_only_rendered_once() {
+        Throwable thrown = withFrames(new IllegalStateException("failed"), frame("com.app.Main", 1));
+        Throwable cause = withFrames(new IOException("disk"), frame("com.app.Disk", 2));
+        thrown.initCause(cause);
+        cause.initCause(thrown);
+
+        assertEquals("""
+                Error:  (IllegalStateException) failed
+                  com.app.Main.run(Source.java:1)
+                Nested Reason:  (IOException) disk
+                  com.app.Disk.run(Source.java:2)
+                Nested Reason:  (IllegalStateException) [CIRCULAR REFERENCE]
+                """, render(StackTraceOptions.full(), thrown));
+    }
+
+    @Test
+    void test_flattened_lines_replace_newlines() {
+        StringBuilder into = new StringBuilder();
+        new ThrowableRenderer(StackTraceOptions.full()).render(
+                withFrames(new IllegalStateException("two\nlines")),
+                new ThrowableRenderer.TextLines(true).into(into)
+        );
+
+        assertEquals("Error:  (IllegalStateException) two  lines\n", into.toString());
+    }
+
+    @Test
+    void test_repeated_traces_are_rendered_by_reference() {
+        ThrowableRenderer renderer = new ThrowableRenderer(StackTraceOptions.full().withRepeatsCollapsed(Duration.ofMinutes(1)));
+        StackTraceElement[] frames = {frame("com.app.Main", 1)};
+        StringBuilder full = new StringBuilder();
+        StringBuilder repeat = new StringBuilder();
+
+        renderer.render(withFrames(new IllegalStateException("first"), frames), new ThrowableRenderer.TextLines().into(full));
+        renderer.render(withFrames(new IllegalStateException("second\nline"), frames), new ThrowableRenderer.TextLines(true).into(repeat));
+
+        String reference = full.substring(full.indexOf("#") + 1, full.length() - 1);
+        assertEquals("""
+                Error:  (IllegalStateException) first
+                  com.app.Main.run(Source.java:1)
+                  Stack trace #%s
+                """.formatted(reference), full.toString());
+        assertEquals("""
+                Error:  (IllegalStateException) second  line
+                  ... Stack trace #%s, repeated 1 time(s) since printed in full
+                """.formatted(reference), repeat.toString());
+    }
+
+    @Test
+    void test_file_controller_renders_one_element_per_line() throws IOException {
+        TestFileUtils.makeContainingDirs(LOGGING_TEST_PATH);
+        FileController controller = new FileController(LOGGING_TEST_PATH, 1000000, 1, false)
+                .withStackTraceOptions(StackTraceOptions.full().withMaxFramesPerCause(1));
+        controller.acceptLogRootRefs(UUID.randomUUID(), "system id", new HashMap<>());
+        try {
+            LogRecord logRecord = new LogRecord(CustomLevel.ERROR, "failed");
+            logRecord.setThrown(withFrames(new IllegalStateException("bad input"), frame("com.app.A", 1), frame("com.app.B", 2)));
+
+            String line = controller.getFormatter().format(logRecord);
+
+            assertTrue(line.contains("\"error\":[\"Error:  (IllegalStateException) bad input\",\"  com.app.A.run(Source.java:1)\",\"  ... 1 more\"]"));
+            assertFalse(line.contains("com.app.B"));
+        } finally {
+            controller.close();
+        }
+    }
+
+    @Test
+    void test_invalid_options_are_refused() {
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withMaxFramesPerCause(0));
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withFramesFiltered(""));
+        assertThrows(IllegalArgumentException.class, () -> StackTraceOptions.full().withFramesFiltered(List.of("ok.", "")));
+    }
+}
@@ -0,0 +1,286 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.CapturingHandler;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ErrorManager;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogDispatcherTest {
+
+    private static final Path SPILL_FILE = Path.of("src/test/resources/logging/spill/async.spill");
+
+    /**
+     * Holds the background writer inside the very first publish call, until released, so the ring can be filled.
+     */
+    private static class StallingHandler extends CapturingHandler {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void publish(LogRecord logRecord) {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.publish(logRecord);
+        }
+
+        void awaitStalled() throws InterruptedException {
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static class CountingErrorManager extends ErrorManager {
+
+        final AtomicInteger closeFailures = new AtomicInteger();
+
+        @Override
+        public void error(String msg, Exception ex, int code) {
+            if (code == ErrorManager.CLOSE_FAILURE) {
+                closeFailures.incrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    void test_records_are_written_by_the_background_thread() {
+        CapturingHandler handler = new CapturingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(List.of(handler), DispatchOptions.asynchronous());
+
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "first"));
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "second"));
+        dispatcher.flush();
+
+        assertEquals(2, handler.getPublished().size());
+        assertEquals("first", handler.getPublished().get(0).getMessage());
+        assertEquals("second", handler.getPublished().get(1).getMessage());
+        assertTrue(handler.getPublishingThreads().stream().allMatch("LogRoot-async-dispatcher"::equals));
+        dispatcher.close();
+    }
+
+    @Test
+    void test_every_handler_receives_every_record() {
+        CapturingHandler first = new CapturingHandler();
+        CapturingHandler second = new CapturingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(List.of(first, second), DispatchOptions.asynchronous());
+
+        dispatcher.publish(new LogRecord(CustomLevel.WARNING, "both"));
+        dispatcher.close();
+
+        assertEquals(1, first.getPublished().size());
+        assertEquals(1, second.getPublished().size());
+        assertSame(first.getPublished().getFirst(), second.getPublished().getFirst());
+    }
+
+    @Test
+    void test_close_drains_everything_and_closes_downstream() throws InterruptedException {
+        CapturingHandler handler = new CapturingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(List.of(handler), DispatchOptions.asynchronous().withCapacity(16));
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    dispatcher.publish(new LogRecord(CustomLevel.INFO, Integer.toString(i)));
+                }
+            });
+            producers.add(t);
+            t.start();
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        dispatcher.close();
+
+        assertEquals(4000, handler.getPublished().size());
+        assertEquals(0, dispatcher.getPendingCount());
+        assertTrue(handler.isClosed());
+    }
+
+    @Test
+    void test_handlers_logging_from_the_background_writer_do_not_wait_on_it() throws InterruptedException {
+        CountDownLatch nestedLogged = new CountDownLatch(1);
+        AsyncLogDispatcher[] dispatcher = new AsyncLogDispatcher[1];
+        CapturingHandler handler = new CapturingHandler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                super.publish(logRecord);
+                if ("outer".equals(logRecord.getMessage())) {
+                    // More than the ring can hold, all logged from the background writer's own thread.
+                    for (int i = 0; i < 4; i++) {
+                        dispatcher[0].publish(new LogRecord(CustomLevel.INFO, "nested " + i));
+                    }
+                    nestedLogged.countDown();
+                }
+            }
+        };
+        dispatcher[0] = new AsyncLogDispatcher(List.of(handler), DispatchOptions.asynchronous().withCapacity(2).withBlockingWhenFull());
+
+        dispatcher[0].publish(new LogRecord(CustomLevel.INFO, "outer"));
+
+        assertTrue(nestedLogged.await(5, TimeUnit.SECONDS));
+        dispatcher[0].close();
+        List<String> messages = new ArrayList<>(handler.messages());
+        messages.sort(null);
+        assertEquals(List.of("nested 0", "nested 1", "nested 2", "nested 3", "outer"), messages);
+        assertTrue(handler.getPublishingThreads().stream().allMatch("LogRoot-async-dispatcher"::equals));
+    }
+
+    @Test
+    void test_records_after_close_are_rejected() {
+        CapturingHandler handler = new CapturingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(List.of(handler), DispatchOptions.asynchronous());
+        CountingErrorManager errors = new CountingErrorManager();
+        dispatcher.setErrorManager(errors);
+        dispatcher.close();
+
+        dispatcher.publish(new LogRecord(CustomLevel.ERROR, "late"));
+
+        assertEquals(0, handler.getPublished().size());
+        assertEquals(1, errors.closeFailures.get());
+    }
+
+    @Test
+    void test_records_racing_with_close_are_either_written_or_rejected() throws InterruptedException {
+        CapturingHandler handler = new CapturingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(List.of(handler), DispatchOptions.asynchronous().withCapacity(16));
+        CountingErrorManager errors = new CountingErrorManager();
+        dispatcher.setErrorManager(errors);
+
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread t = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 5000; i++) {
+                    dispatcher.publish(new LogRecord(CustomLevel.INFO, Integer.toString(i)));
+                }
+            });
+            producers.add(t);
+            t.start();
+        }
+        started.await();
+        dispatcher.close();
+        for (Thread t : producers) {
+            t.join();
+        }
+
+        assertEquals(20000, handler.getPublished().size() + errors.closeFailures.get());
+    }
+
+    @Test
+    void test_invalid_capacity_rejected() {
+        DispatchOptions options = DispatchOptions.asynchronous();
+        assertThrows(IllegalArgumentException.class, () -> options.withCapacity(1));
+    }
+
+    @Test
+    void test_drop_policy_drops_and_summarises_low_levels_only() throws InterruptedException {
+        StallingHandler handler = new StallingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(
+                List.of(handler),
+                DispatchOptions.asynchronous().withCapacity(2).withDroppingWhenFull(CustomLevel.WARNING)
+        );
+
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "held by the writer"));
+        handler.awaitStalled();
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "queued 1"));
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "queued 2"));
+
+        for (int i = 0; i < 5; i++) {
+            dispatcher.publish(new LogRecord(CustomLevel.INFO, "dropped"));
+        }
+        dispatcher.publish(new LogRecord(CustomLevel.DEBUG, "dropped"));
+        assertEquals(6, dispatcher.getDroppedCount());
+
+        Thread errorProducer = new Thread(() -> dispatcher.publish(new LogRecord(CustomLevel.ERROR, "never dropped")));
+        errorProducer.start();
+        handler.release.countDown();
+        errorProducer.join(5000L);
+        dispatcher.close();
+
+        assertEquals(6, dispatcher.getDroppedCount());
+        List<String> messages = handler.messages();
+        assertEquals(List.of("held by the writer", "queued 1", "queued 2", "never dropped"), messages.subList(0, 4));
+
+        LogRecord summary = handler.getPublished().get(4);
+        assertEquals(CustomLevel.WARNING, summary.getLevel());
+        assertEquals(Set.of(AsyncLogDispatcher.DROPPED_RECORDS_TAG), ((ExtendedLogRecord) summary).getTags());
+        assertTrue(summary.getMessage().contains("6 record(s) were dropped"));
+        assertTrue(summary.getMessage().contains("{DEBUG=1, INFO=5}"));
+    }
+
+    @Test
+    void test_spill_policy_replays_everything_in_order() throws InterruptedException, IOException {
+        StallingHandler handler = new StallingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(
+                List.of(handler),
+                DispatchOptions.asynchronous().withCapacity(2).withSpillingWhenFull(SPILL_FILE)
+        );
+
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "0"));
+        handler.awaitStalled();
+        for (int i = 1; i < 10; i++) {
+            dispatcher.publish(new ExtendedLogRecord(CustomLevel.INFO, Integer.toString(i), Set.of("spilled")));
+        }
+        assertTrue(Files.size(SPILL_FILE) > 0);
+
+        handler.release.countDown();
+        dispatcher.close();
+
+        List<String> messages = handler.messages();
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), messages);
+        assertEquals(Set.of("spilled"), handler.getExtendedRecord(9).getTags());
+        assertEquals(0, dispatcher.getDroppedCount());
+        assertFalse(Files.exists(SPILL_FILE));
+    }
+
+    @Test
+    void test_spilled_records_keep_their_deferred_messages() throws InterruptedException {
+        StallingHandler handler = new StallingHandler();
+        AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(
+                List.of(handler),
+                DispatchOptions.asynchronous().withCapacity(2).withSpillingWhenFull(SPILL_FILE).withDeferredFormatting()
+        );
+
+        dispatcher.publish(new LogRecord(CustomLevel.INFO, "0"));
+        handler.awaitStalled();
+        for (int i = 1; i < 5; i++) {
+            dispatcher.publish(new ExtendedLogRecord(CustomLevel.INFO, null).withDeferredMessage("deferred {}", new Object[]{i}));
+        }
+
+        handler.release.countDown();
+        dispatcher.close();
+
+        List<String> messages = handler.messages();
+        assertEquals(List.of("0", "deferred 1", "deferred 2", "deferred 3", "deferred 4"), messages);
+    }
+
+    @Test
+    void test_invalid_drop_summary_interval_rejected() {
+        DispatchOptions options = DispatchOptions.asynchronous();
+        assertThrows(IllegalArgumentException.class, () -> options.withDropSummaryInterval(Duration.ZERO));
+    }
+}
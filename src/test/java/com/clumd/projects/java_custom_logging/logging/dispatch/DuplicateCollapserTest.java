@@ -0,0 +1,175 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.CapturingHandler;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateCollapserTest {
+
+    private static ExtendedLogRecord record(String message, long millis, Set<String> tags) {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(CustomLevel.INFO, message);
+        logRecord.setLoggerName("collapsing");
+        logRecord.setInstant(Instant.ofEpochMilli(millis));
+        return logRecord.withTags(tags);
+    }
+
+    private static DuplicateCollapser.Repetitions repetitionsOf(LogRecord logRecord) {
+        Object[] parameters = logRecord.getParameters();
+        assertNotNull(parameters);
+        return assertInstanceOf(DuplicateCollapser.Repetitions.class, parameters[parameters.length - 1]);
+    }
+
+    @Test
+    void test_consecutive_duplicates_are_collapsed_into_one_record() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            collapser.publish(record("Same", 1000 + i, null));
+        }
+        assertEquals(1, downstream.getPublished().size());
+
+        collapser.publish(record("Different", 2000, null));
+
+        assertEquals(3, downstream.getPublished().size());
+        assertEquals("Same", downstream.getPublished().get(0).getMessage());
+        LogRecord collapsed = downstream.getPublished().get(1);
+        assertEquals("Same", collapsed.getMessage());
+        assertEquals(new DuplicateCollapser.Repetitions(4, Instant.ofEpochMilli(1001), Instant.ofEpochMilli(1004)), repetitionsOf(collapsed));
+        assertEquals("Repeated 4 times between 1970-01-01T00:00:01.001Z and 1970-01-01T00:00:01.004Z",
+                repetitionsOf(collapsed).getFormattedLogData());
+        assertEquals("Different", downstream.getPublished().get(2).getMessage());
+        collapser.close();
+    }
+
+    @Test
+    void test_collapsed_records_keep_their_caller() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        for (int i = 0; i < 3; i++) {
+            collapser.publish(record("Same", 1000 + i, null).withCallerLocation("com.app.Caller", "run", 10 + i));
+        }
+        collapser.publish(record("Different", 2000, null));
+
+        ExtendedLogRecord collapsed = downstream.getExtendedRecord(1);
+        assertTrue(collapsed.isCallerLocated());
+        assertEquals("com.app.Caller", collapsed.getSourceClassName());
+        assertEquals("run", collapsed.getSourceMethodName());
+        assertEquals(11, collapsed.getSourceLineNumber());
+        collapser.close();
+    }
+
+    @Test
+    void test_a_single_duplicate_is_passed_on_unchanged() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        ExtendedLogRecord withParameter = record("Same", 1001, null).withSingleParameter("kept");
+        collapser.publish(record("Same", 1000, null));
+        collapser.publish(withParameter);
+        collapser.publish(record("Different", 1002, null));
+
+        assertEquals(3, downstream.getPublished().size());
+        assertArrayEquals(new Object[]{"kept"}, downstream.getPublished().get(1).getParameters());
+        assertEquals(1001, downstream.getPublished().get(1).getMillis());
+        collapser.close();
+    }
+
+    @Test
+    void test_records_with_different_tags_or_levels_are_not_duplicates() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        collapser.publish(record("Same", 1000, null));
+        collapser.publish(record("Same", 1001, Set.of()));
+        collapser.publish(record("Same", 1002, Set.of("tag")));
+        ExtendedLogRecord warning = record("Same", 1003, Set.of("tag"));
+        warning.setLevel(CustomLevel.WARNING);
+        collapser.publish(warning);
+
+        // The empty tag set is the same as no tags at all, so only that one was held back.
+        assertEquals(4, downstream.getPublished().size());
+        assertNull(downstream.getPublished().get(1).getParameters());
+        assertEquals(1001, downstream.getPublished().get(1).getMillis());
+        assertEquals(CustomLevel.WARNING, downstream.getPublished().get(3).getLevel());
+        collapser.close();
+    }
+
+    @Test
+    void test_runs_longer_than_the_window_are_passed_on_in_pieces() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        collapser.publish(record("Same", 0, null));
+        collapser.publish(record("Same", 1_000, null));
+        collapser.publish(record("Same", 2_000, null));
+        collapser.publish(record("Same", 61_000, null));
+
+        assertEquals(2, downstream.getPublished().size());
+        assertEquals(2, repetitionsOf(downstream.getPublished().get(1)).count());
+
+        collapser.close();
+        assertEquals(3, downstream.getPublished().size());
+        assertEquals(61_000, downstream.getPublished().get(2).getMillis());
+        assertTrue(downstream.isClosed());
+    }
+
+    @Test
+    void test_held_back_records_are_passed_on_once_the_window_expires() throws InterruptedException {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMillis(50));
+
+        long now = System.currentTimeMillis();
+        collapser.publish(record("Same", now, null));
+        collapser.publish(record("Same", now, null));
+        collapser.publish(record("Same", now, null));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (downstream.getPublished().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, downstream.getPublished().size());
+        assertEquals(2, repetitionsOf(downstream.getPublished().get(1)).count());
+        collapser.close();
+    }
+
+    @Test
+    void test_flush_passes_on_held_back_records_first() {
+        CapturingHandler downstream = new CapturingHandler();
+        DuplicateCollapser collapser = new DuplicateCollapser(List.of(downstream), Duration.ofMinutes(1));
+
+        collapser.publish(record("Same", 1000, Set.of("tag")));
+        collapser.publish(record("Same", 1001, Set.of("tag")));
+        collapser.publish(record("Same", 1002, Set.of("tag")));
+        collapser.flush();
+
+        assertTrue(downstream.isFlushed());
+        assertEquals(2, downstream.getPublished().size());
+        assertEquals(Set.of("tag"), downstream.getExtendedRecord(1).getTags());
+        collapser.close();
+    }
+
+    @Test
+    void test_invalid_windows_are_refused() {
+        List<CapturingHandler> handlers = List.of(new CapturingHandler());
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateCollapser(handlers, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> DispatchOptions.synchronous().withDuplicateCollapsing(Duration.ofSeconds(-1)));
+        assertEquals(Duration.ofSeconds(5), DispatchOptions.asynchronous().withDuplicateCollapsing(Duration.ofSeconds(5)).getDuplicateWindow());
+    }
+}
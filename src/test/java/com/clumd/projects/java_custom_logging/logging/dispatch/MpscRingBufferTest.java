@@ -0,0 +1,90 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+    @Test
+    void test_capacity_is_rounded_up_to_power_of_two() {
+        assertEquals(8, new MpscRingBuffer<String>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<String>(8).capacity());
+        assertEquals(2, new MpscRingBuffer<String>(2).capacity());
+    }
+
+    @Test
+    void test_invalid_capacity_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(1));
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(-5));
+    }
+
+    @Test
+    void test_null_elements_rejected() {
+        MpscRingBuffer<String> ring = new MpscRingBuffer<>(4);
+        assertThrows(IllegalArgumentException.class, () -> ring.offer(null));
+    }
+
+    @Test
+    void test_offer_fails_when_full_and_succeeds_once_drained() {
+        MpscRingBuffer<String> ring = new MpscRingBuffer<>(4);
+        assertTrue(ring.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("item " + i));
+        }
+        assertFalse(ring.offer("one too many"));
+        assertEquals(4, ring.size());
+
+        assertEquals("item 0", ring.poll());
+        assertTrue(ring.offer("wrapped"));
+
+        assertEquals("item 1", ring.poll());
+        assertEquals("item 2", ring.poll());
+        assertEquals("item 3", ring.poll());
+        assertEquals("wrapped", ring.poll());
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void test_many_producers_single_consumer_loses_nothing_and_keeps_per_producer_order() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 20000;
+        MpscRingBuffer<int[]> ring = new MpscRingBuffer<>(64);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producerId = p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int[] element = new int[]{producerId, i};
+                    while (!ring.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+
+        int[] lastSeen = new int[]{-1, -1, -1, -1};
+        int received = 0;
+        while (received < producers * perProducer) {
+            int[] element = ring.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(lastSeen[element[0]] + 1, element[1]);
+            lastSeen[element[0]] = element[1];
+            received++;
+        }
+        for (Thread t : threads) {
+            t.join(1000L);
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,133 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.CapturingHandler;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.StreamHandler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordRouterTest {
+
+    private static class SecretHandler extends CapturingHandler {
+
+        @Override
+        public synchronized void publish(LogRecord logRecord) {
+            // Keep everything, so only the router can keep records away from this handler.
+            getPublished().add(logRecord);
+        }
+    }
+
+    private static ExtendedLogRecord record(Level level, String loggerName, String message, Set<String> tags) {
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(level, message);
+        logRecord.setLoggerName(loggerName);
+        return logRecord.withTags(tags);
+    }
+
+    @Test
+    void test_records_only_reach_the_handlers_they_are_routed_to() {
+        CapturingHandler everything = new CapturingHandler();
+        CapturingHandler errors = new CapturingHandler();
+        CapturingHandler security = new CapturingHandler();
+        CapturingHandler database = new CapturingHandler();
+        RecordRouter router = new RecordRouter(List.of(everything, errors, security, database), List.of(
+                Route.to(errors).withMinimumLevel(CustomLevel.ERROR),
+                Route.to(security).withTag("security"),
+                Route.to(database).withLoggerPrefix("APP.db.").withLevelsBetween(CustomLevel.DEBUG, CustomLevel.INFO)
+        ));
+
+        router.publish(record(CustomLevel.INFO, "APP.web.Controller", "request", null));
+        router.publish(record(CustomLevel.ERROR, "APP.web.Controller", "failed", null));
+        router.publish(record(CustomLevel.INFO, "APP.web.Login", "login", Set.of("security")));
+        router.publish(record(CustomLevel.FATAL, "APP.web.Login", "breach", Set.of("security")));
+        router.publish(record(CustomLevel.DEBUG, "APP.db.Pool", "connected", null));
+        router.publish(record(CustomLevel.WARNING, "APP.db.Pool", "slow", null));
+
+        assertEquals(List.of("request", "failed", "login", "breach", "connected", "slow"), everything.messages());
+        assertEquals(List.of("failed", "breach"), errors.messages());
+        assertEquals(List.of("login", "breach"), security.messages());
+        assertEquals(List.of("connected"), database.messages());
+    }
+
+    @Test
+    void test_a_handler_receives_each_record_once_whichever_of_its_routes_match() {
+        CapturingHandler handler = new CapturingHandler();
+        RecordRouter router = new RecordRouter(List.of(handler), List.of(
+                Route.to(handler).withTag("security"),
+                Route.to(handler).withTag("audit"),
+                Route.to(handler).withMinimumLevel(CustomLevel.WARNING)
+        ));
+
+        router.publish(record(CustomLevel.INFO, "APP", "ignored", null));
+        router.publish(record(CustomLevel.INFO, "APP", "audited", Set.of("security", "audit")));
+        router.publish(record(CustomLevel.ERROR, "APP", "failed", Set.of("audit")));
+
+        ExtendedLogRecord baked = record(CustomLevel.INFO, "APP", "baked", null);
+        baked.referencingBakedInTags(Set.of("security"));
+        router.publish(baked);
+
+        assertEquals(List.of("audited", "failed", "baked"), handler.messages());
+    }
+
+    @Test
+    void test_controllers_to_disregard_are_worked_out_by_the_router() {
+        CapturingHandler plain = new CapturingHandler();
+        SecretHandler secret = new SecretHandler();
+        RecordRouter router = new RecordRouter(List.of(plain, secret), List.of());
+        Set<Class<? extends StreamHandler>> disregarding = Set.of(SecretHandler.class);
+
+        for (int i = 0; i < 2; i++) {
+            ExtendedLogRecord logRecord = record(CustomLevel.INFO, "APP", "password " + i, null)
+                    .withControllersWhichShouldIgnore(disregarding);
+            router.publish(logRecord);
+            // The record is left as it was given.
+            assertSame(disregarding, logRecord.getControllersWhichShouldDisregardThisMessage());
+            assertTrue(logRecord.isDisregardedBy(SecretHandler.class));
+        }
+
+        assertEquals(List.of("password 0", "password 1"), plain.messages());
+        assertEquals(List.of(), secret.messages());
+    }
+
+    @Test
+    void test_changing_a_set_of_controllers_to_disregard_does_not_affect_records_already_given_it() {
+        CapturingHandler plain = new CapturingHandler();
+        SecretHandler secret = new SecretHandler();
+        RecordRouter router = new RecordRouter(List.of(plain, secret), List.of());
+        Set<Class<? extends StreamHandler>> disregarding = new HashSet<>();
+
+        ExtendedLogRecord first = record(CustomLevel.INFO, "APP", "shared", null)
+                .withControllersWhichShouldIgnore(disregarding);
+        disregarding.add(SecretHandler.class);
+        ExtendedLogRecord second = record(CustomLevel.INFO, "APP", "secret", null)
+                .withControllersWhichShouldIgnore(disregarding);
+        router.publish(first);
+        router.publish(second);
+
+        assertEquals(Set.of(), first.getControllersWhichShouldDisregardThisMessage());
+        assertEquals(List.of("shared", "secret"), plain.messages());
+        assertEquals(List.of("shared"), secret.messages());
+    }
+
+    @Test
+    void test_routes_must_be_to_a_routed_handler() {
+        CapturingHandler routed = new CapturingHandler();
+        CapturingHandler stranger = new CapturingHandler();
+        List<CapturingHandler> handlers = List.of(routed);
+        List<Route> routes = List.of(Route.to(stranger));
+
+        assertThrows(IllegalArgumentException.class, () -> new RecordRouter(handlers, routes));
+        assertThrows(IllegalArgumentException.class, () -> Route.to(routed).withLevelsBetween(CustomLevel.ERROR, CustomLevel.INFO));
+        assertThrows(IllegalArgumentException.class, () -> Route.to(routed).withLoggerPrefix(""));
+    }
+}
@@ -0,0 +1,128 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.javajson.api.Json;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnapshotPolicyTest {
+
+    private static class MutableData implements LoggableData {
+
+        String value = "before";
+
+        @Override
+        public String getFormattedLogData() {
+            return "data=" + value;
+        }
+    }
+
+    @Test
+    void test_immutable_arguments_are_handed_over_as_they_are() {
+        Object[] arguments = {"text", 1, 2L, true, UUID.randomUUID(), Instant.now(), TimeUnit.SECONDS, null};
+
+        assertSame(arguments, SnapshotPolicy.IMMUTABLE_ONLY.snapshotArguments(arguments));
+    }
+
+    @Test
+    void test_mutable_arguments_are_rendered_as_the_formatter_would() {
+        List<String> list = new ArrayList<>(List.of("a"));
+        StringBuilder builder = new StringBuilder("built");
+        Object[] arguments = {list, builder, new int[]{1, 2}, 3};
+
+        Object[] snapshot = SnapshotPolicy.IMMUTABLE_ONLY.snapshotArguments(arguments);
+        list.add("b");
+        builder.append(" later");
+
+        assertEquals("[a]", snapshot[0]);
+        assertEquals("built", snapshot[1]);
+        assertEquals("[1, 2]", snapshot[2]);
+        assertSame(arguments[3], snapshot[3]);
+        assertSame(list, arguments[0], "The caller's own arguments should be left alone.");
+    }
+
+    @Test
+    void test_throwables_are_never_rendered() {
+        RuntimeException thrown = new RuntimeException("boom");
+
+        assertSame(thrown, SnapshotPolicy.SNAPSHOT_ALL.snapshotArguments(new Object[]{"a", thrown})[1]);
+    }
+
+    @Test
+    void test_defer_all_hands_everything_over() {
+        Object[] arguments = {new StringBuilder("a"), new MutableData()};
+
+        assertSame(arguments, SnapshotPolicy.DEFER_ALL.snapshotArguments(arguments));
+        assertSame(arguments, SnapshotPolicy.DEFER_ALL.snapshotParameters(arguments));
+    }
+
+    @Test
+    void test_snapshot_all_renders_even_immutable_values() {
+        Object[] snapshot = SnapshotPolicy.SNAPSHOT_ALL.snapshotArguments(new Object[]{42, "text", null});
+
+        assertEquals("42", snapshot[0]);
+        assertEquals("text", snapshot[1]);
+        assertNull(snapshot[2]);
+    }
+
+    @Test
+    void test_loggable_data_parameters_are_rendered_but_stay_loggable_data() {
+        MutableData data = new MutableData();
+
+        Object[] snapshot = SnapshotPolicy.IMMUTABLE_ONLY.snapshotParameters(new Object[]{data, 7});
+        data.value = "after";
+
+        LoggableData rendered = assertInstanceOf(LoggableData.class, snapshot[0]);
+        assertEquals("data=before", rendered.getFormattedLogData());
+        assertEquals(7, snapshot[1]);
+    }
+
+    @Test
+    void test_other_mutable_parameters_are_rendered_to_text() {
+        List<String> list = new ArrayList<>(List.of("a"));
+
+        Object[] snapshot = SnapshotPolicy.IMMUTABLE_ONLY.snapshotParameters(new Object[]{list});
+        list.add("b");
+
+        assertEquals("[a]", snapshot[0]);
+    }
+
+    @Test
+    void test_json_parameters_are_rendered_unless_everything_is_deferred() {
+        String[] value = {"before"};
+        Json json = mock(Json.class);
+        when(json.asString()).thenAnswer(invocation -> "{\"key\":\"" + value[0] + "\"}");
+        when(json.asString(2)).thenAnswer(invocation -> "{\"key\": \"" + value[0] + "\"}");
+        when(json.asPrettyString(2)).thenAnswer(invocation -> "{\n  \"key\": \"" + value[0] + "\"\n}");
+
+        Object[] immutableOnly = SnapshotPolicy.IMMUTABLE_ONLY.snapshotParameters(new Object[]{json});
+        Object[] snapshotAll = SnapshotPolicy.SNAPSHOT_ALL.snapshotParameters(new Object[]{json});
+        Object[] deferAll = SnapshotPolicy.DEFER_ALL.snapshotParameters(new Object[]{json});
+        value[0] = "after";
+
+        RenderedJson expected = new RenderedJson("{\"key\":\"before\"}", "{\"key\": \"before\"}", "{\n  \"key\": \"before\"\n}");
+        assertEquals(expected, immutableOnly[0]);
+        assertEquals(expected, snapshotAll[0]);
+        assertSame(json, deferAll[0]);
+        assertSame(immutableOnly, SnapshotPolicy.SNAPSHOT_ALL.snapshotParameters(immutableOnly), "Rendered Json needs no further rendering.");
+    }
+
+    @Test
+    void test_null_arrays_are_left_alone() {
+        assertNull(SnapshotPolicy.IMMUTABLE_ONLY.snapshotArguments(null));
+        assertNull(SnapshotPolicy.IMMUTABLE_ONLY.snapshotParameters(null));
+    }
+}
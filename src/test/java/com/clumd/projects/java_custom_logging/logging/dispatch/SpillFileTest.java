@@ -0,0 +1,66 @@
+package com.clumd.projects.java_custom_logging.logging.dispatch;
+
+import com.clumd.projects.java_custom_logging.logging.api.LoggableData;
+import com.clumd.projects.java_custom_logging.logging.common.CustomLevel;
+import com.clumd.projects.java_custom_logging.logging.common.ExtendedLogRecord;
+import com.clumd.projects.java_custom_logging.logging.common.RenderedJson;
+import com.clumd.projects.javajson.api.Json;
+import com.clumd.projects.javajson.core.BasicJsonBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SpillFileTest {
+
+    private static final Path SPILL_FILE = Path.of("src/test/resources/logging/spill/spill-file.spill");
+
+    private record Customer(String name) implements LoggableData {
+
+        @Override
+        public String getFormattedLogData() {
+            return "Customer named " + name;
+        }
+    }
+
+    @Test
+    void test_spilled_parameters_render_as_they_would_have() throws IOException {
+        Customer customer = new Customer("Ada");
+        Json json = new BasicJsonBuilder().addString("key", "value").build();
+        Object unknown = new Object() {
+            @Override
+            public String toString() {
+                return "unknown";
+            }
+        };
+        Object[] parameters = {customer, json, 42, null, unknown};
+        ExtendedLogRecord logRecord = new ExtendedLogRecord(CustomLevel.INFO, "spilled", Set.of("tag"));
+        logRecord.setParameters(parameters);
+
+        LogRecord replayed;
+        try (SpillFile spillFile = new SpillFile(SPILL_FILE)) {
+            spillFile.append(logRecord);
+            replayed = spillFile.next();
+        }
+
+        // The caller's record is left exactly as it was.
+        assertSame(parameters, logRecord.getParameters());
+        assertSame(customer, logRecord.getParameters()[0]);
+
+        assertEquals("spilled", replayed.getMessage());
+        assertEquals(Set.of("tag"), ((ExtendedLogRecord) replayed).getTags());
+        Object[] replayedParameters = replayed.getParameters();
+        assertEquals("Customer named Ada", assertInstanceOf(LoggableData.class, replayedParameters[0]).getFormattedLogData());
+        assertEquals(RenderedJson.of(json), replayedParameters[1]);
+        assertEquals(42, replayedParameters[2]);
+        assertNull(replayedParameters[3]);
+        assertEquals("unknown", replayedParameters[4]);
+    }
+}